@@ -0,0 +1,174 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.benchmark;
+
+import com.google.gson.FieldNamingPolicy;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.internal.bind.DateTypeAdapter;
+import com.jlubecki.soundcloud.webapi.android.SoundCloudService;
+import com.jlubecki.soundcloud.webapi.android.json.ModelTypeAdapterFactory;
+import com.jlubecki.soundcloud.webapi.android.models.Track;
+import com.jlubecki.soundcloud.webapi.android.models.User;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+/**
+ * Measures complete {@link SoundCloudService} calls against an in-process {@link MockWebServer}:
+ * building the request, adding credentials, the loopback HTTP exchange and decoding the
+ * recorded fixtures. The Retrofit and Gson setup mirrors
+ * {@link com.jlubecki.soundcloud.webapi.android.SoundCloudAPI}, which can't be pointed at
+ * another host.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ApiBenchmark {
+
+    private static final int LIST_SIZE = 50;
+
+    private MockWebServer server;
+    private SoundCloudService service;
+
+    @Setup
+    public void setUp() throws IOException {
+        final Buffer track = body(Fixtures.read("track.json").getBytes("UTF-8"));
+        final Buffer tracks = body(Fixtures.list("track.json", LIST_SIZE));
+        final Buffer users = body(Fixtures.list("user.json", LIST_SIZE));
+
+        server = new MockWebServer();
+        server.setServerSocketFactory(new NoDelayServerSocketFactory());
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                String path = request.getPath();
+
+                if (path.startsWith("/tracks/")) {
+                    return json(track);
+                } else if (path.startsWith("/tracks")) {
+                    return json(tracks);
+                } else if (path.startsWith("/users/")) {
+                    return json(users);
+                }
+
+                return new MockResponse().setResponseCode(404);
+            }
+        });
+        server.start();
+
+        OkHttpClient client = new OkHttpClient.Builder()
+                .addInterceptor(new Interceptor() {
+                    @Override
+                    public okhttp3.Response intercept(Chain chain) throws IOException {
+                        Request request = chain.request();
+                        HttpUrl url = request.url().newBuilder()
+                                .addEncodedQueryParameter("client_id", "benchmark")
+                                .build();
+
+                        return chain.proceed(request.newBuilder().url(url).build());
+                    }
+                })
+                .build();
+
+        Gson gson = new GsonBuilder()
+                .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
+                .registerTypeAdapter(Date.class, new DateTypeAdapter())
+                .registerTypeAdapterFactory(new ModelTypeAdapterFactory())
+                .create();
+
+        service = new Retrofit.Builder()
+                .client(client)
+                .baseUrl(server.url("/"))
+                .addConverterFactory(GsonConverterFactory.create(gson))
+                .build()
+                .create(SoundCloudService.class);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Benchmark
+    public Track getTrack() throws IOException {
+        return execute(service.getTrack("13158665"));
+    }
+
+    @Benchmark
+    public List<Track> searchTracks() throws IOException {
+        return execute(service.searchTracks("field recording"));
+    }
+
+    @Benchmark
+    public List<User> getUserFollowers() throws IOException {
+        return execute(service.getUserFollowers("3699101"));
+    }
+
+    private static <T> T execute(retrofit2.Call<T> call) throws IOException {
+        Response<T> response = call.execute();
+
+        if (!response.isSuccessful()) {
+            throw new IOException("Unexpected response: " + response.code());
+        }
+
+        return response.body();
+    }
+
+    private static Buffer body(byte[] bytes) {
+        return new Buffer().write(bytes);
+    }
+
+    private static MockResponse json(Buffer body) {
+        // MockResponse consumes its body, so each response gets a copy.
+        return new MockResponse()
+                .setHeader("Content-Type", "application/json; charset=utf-8")
+                .setBody(body.clone());
+    }
+}
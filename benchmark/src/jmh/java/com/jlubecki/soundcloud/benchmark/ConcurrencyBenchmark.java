@@ -0,0 +1,221 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.benchmark;
+
+import com.google.gson.FieldNamingPolicy;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.internal.bind.DateTypeAdapter;
+import com.jlubecki.soundcloud.webapi.android.SoundCloudService;
+import com.jlubecki.soundcloud.webapi.android.concurrent.VirtualThreads;
+import com.jlubecki.soundcloud.webapi.android.json.ModelTypeAdapterFactory;
+import com.jlubecki.soundcloud.webapi.android.models.Track;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+/**
+ * Measures how long it takes to complete a batch of concurrent {@link SoundCloudService} calls
+ * against a {@link MockWebServer} that answers after {@value #LATENCY_MILLIS} ms, like a remote
+ * API would. Divide the concurrency by the score for the throughput in calls per millisecond.
+ * <p/>
+ * <ul>
+ * <li>{@code platform} - blocking calls on a pool of {@value #PLATFORM_THREADS} platform
+ * threads, the usual setup of a backend job.</li>
+ * <li>{@code virtual} - blocking calls, each on its own virtual thread.</li>
+ * <li>{@code virtual-dispatcher} - enqueued calls on an OkHttp dispatcher backed by virtual
+ * threads, as set up by
+ * {@link com.jlubecki.soundcloud.webapi.android.SoundCloudAPI.Builder#setVirtualThreads(boolean)}.</li>
+ * </ul>
+ * The virtual thread modes need Java 21 or later, and 10k concurrent calls need a file
+ * descriptor limit above 20k, since client and server each hold a socket per call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ConcurrencyBenchmark {
+
+    private static final int LATENCY_MILLIS = 50;
+    private static final int PLATFORM_THREADS = 200;
+
+    @Param({"1000", "10000"})
+    public int concurrency;
+
+    @Param({"platform", "virtual", "virtual-dispatcher"})
+    public String mode;
+
+    private MockWebServer server;
+    private OkHttpClient client;
+    private SoundCloudService service;
+    private ExecutorService executor;
+
+    @Setup
+    public void setUp() throws IOException {
+        if (!mode.equals("platform") && !VirtualThreads.isAvailable()) {
+            throw new IllegalStateException("Mode " + mode + " requires Java 21 or later");
+        }
+
+        final Buffer track = new Buffer().write(Fixtures.read("track.json").getBytes("UTF-8"));
+
+        server = new MockWebServer();
+        server.setServerSocketFactory(new NoDelayServerSocketFactory(concurrency));
+        server.setDispatcher(new okhttp3.mockwebserver.Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return new MockResponse()
+                        .setHeader("Content-Type", "application/json; charset=utf-8")
+                        .setBodyDelay(LATENCY_MILLIS, TimeUnit.MILLISECONDS)
+                        .setBody(track.clone());
+            }
+        });
+        server.start();
+
+        OkHttpClient.Builder clientBuilder = new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(concurrency, 5, TimeUnit.MINUTES))
+                .readTimeout(1, TimeUnit.MINUTES);
+
+        if (mode.equals("virtual-dispatcher")) {
+            Dispatcher dispatcher = new Dispatcher(VirtualThreads.newExecutor());
+            dispatcher.setMaxRequests(concurrency);
+            dispatcher.setMaxRequestsPerHost(concurrency);
+
+            clientBuilder.dispatcher(dispatcher);
+        } else if (mode.equals("virtual")) {
+            executor = VirtualThreads.newExecutor();
+        } else {
+            executor = Executors.newFixedThreadPool(PLATFORM_THREADS);
+        }
+
+        client = clientBuilder.build();
+
+        Gson gson = new GsonBuilder()
+                .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
+                .registerTypeAdapter(Date.class, new DateTypeAdapter())
+                .registerTypeAdapterFactory(new ModelTypeAdapterFactory())
+                .create();
+
+        service = new Retrofit.Builder()
+                .client(client)
+                .baseUrl(server.url("/"))
+                .addConverterFactory(GsonConverterFactory.create(gson))
+                .build()
+                .create(SoundCloudService.class);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+
+        client.dispatcher().executorService().shutdownNow();
+        client.connectionPool().evictAll();
+        server.shutdown();
+    }
+
+    @Benchmark
+    public int calls() throws InterruptedException {
+        final CountDownLatch done = new CountDownLatch(concurrency);
+        final AtomicInteger failures = new AtomicInteger();
+
+        for (int i = 0; i < concurrency; i++) {
+            final Call<Track> call = service.getTrack(String.valueOf(i));
+
+            if (executor == null) {
+                call.enqueue(new Callback<Track>() {
+                    @Override
+                    public void onResponse(Call<Track> call, Response<Track> response) {
+                        if (!response.isSuccessful()) {
+                            failures.incrementAndGet();
+                        }
+
+                        done.countDown();
+                    }
+
+                    @Override
+                    public void onFailure(Call<Track> call, Throwable t) {
+                        failures.incrementAndGet();
+                        done.countDown();
+                    }
+                });
+            } else {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            if (!call.execute().isSuccessful()) {
+                                failures.incrementAndGet();
+                            }
+                        } catch (IOException e) {
+                            failures.incrementAndGet();
+                        } finally {
+                            done.countDown();
+                        }
+                    }
+                });
+            }
+        }
+
+        done.await();
+
+        if (failures.get() > 0) {
+            throw new IllegalStateException(failures.get() + " of " + concurrency + " calls failed");
+        }
+
+        return concurrency;
+    }
+}
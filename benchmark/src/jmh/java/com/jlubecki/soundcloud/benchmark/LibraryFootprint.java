@@ -0,0 +1,95 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.benchmark;
+
+import com.google.gson.FieldNamingPolicy;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import com.jlubecki.soundcloud.webapi.android.json.ModelTypeAdapterFactory;
+import com.jlubecki.soundcloud.webapi.android.models.Track;
+import com.jlubecki.soundcloud.webapi.android.models.compact.CompactTrack;
+
+import org.openjdk.jol.info.GraphLayout;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Prints the retained heap size of a 10,000 track library decoded into {@link Track} and into
+ * {@link CompactTrack}. Run with {@code ./gradlew :benchmark:footprint}.
+ * <p/>
+ * The library is decoded in pages of {@link #PAGE_SIZE} items, like it would be when loading it
+ * from the API, so shared instances only come from the decoders themselves.
+ */
+public final class LibraryFootprint {
+
+    private static final int LIBRARY_SIZE = 10000;
+    private static final int PAGE_SIZE = 200;
+
+    private LibraryFootprint() {
+        // Entry point only.
+    }
+
+    public static void main(String[] args) throws IOException {
+        Gson gson = new GsonBuilder()
+                .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
+                .registerTypeAdapterFactory(new ModelTypeAdapterFactory())
+                .create();
+
+        String page = new String(Fixtures.list("track.json", PAGE_SIZE), "UTF-8");
+
+        List<Track> tracks = decode(gson, page, new TypeToken<List<Track>>() { }.getType());
+        List<CompactTrack> compactTracks =
+                decode(gson, page, new TypeToken<List<CompactTrack>>() { }.getType());
+
+        report("List<Track>", tracks);
+        report("List<CompactTrack>", compactTracks);
+    }
+
+    private static <T> List<T> decode(Gson gson, String page, Type type) {
+        List<T> library = new ArrayList<>(LIBRARY_SIZE);
+
+        while (library.size() < LIBRARY_SIZE) {
+            List<T> items = gson.fromJson(page, type);
+            library.addAll(items);
+        }
+
+        return library;
+    }
+
+    private static void report(String name, List<?> library) {
+        GraphLayout layout = GraphLayout.parseInstance(library);
+
+        System.out.println(String.format("%-20s %,8d items %,12d bytes %,8d bytes/item %,9d objects",
+                name,
+                library.size(),
+                layout.totalSize(),
+                layout.totalSize() / library.size(),
+                layout.totalCount()));
+    }
+}
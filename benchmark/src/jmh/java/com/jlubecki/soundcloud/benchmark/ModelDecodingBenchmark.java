@@ -0,0 +1,154 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.benchmark;
+
+import com.google.gson.FieldNamingPolicy;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import com.jlubecki.soundcloud.webapi.android.json.ModelTypeAdapterFactory;
+import com.jlubecki.soundcloud.webapi.android.models.Playlist;
+import com.jlubecki.soundcloud.webapi.android.models.Track;
+import com.jlubecki.soundcloud.webapi.android.models.User;
+import com.jlubecki.soundcloud.webapi.android.models.compact.CompactTrack;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import retrofit2.Converter;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+/**
+ * Compares the reflective Gson adapters with {@link ModelTypeAdapterFactory} when decoding
+ * {@code List<Track>}, {@code List<User>} and {@code List<Playlist>} response bodies through
+ * Retrofit's Gson converter, the same path every list call in
+ * {@link com.jlubecki.soundcloud.webapi.android.SoundCloudService} takes. Also measures decoding
+ * the track body into {@code List<CompactTrack>}.
+ * <p/>
+ * Bodies repeat the recorded fixtures; each playlist holds three full tracks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ModelDecodingBenchmark {
+
+    private static final MediaType JSON = MediaType.parse("application/json; charset=UTF-8");
+    private static final Type TRACK_LIST = new TypeToken<List<Track>>() { }.getType();
+    private static final Type COMPACT_TRACK_LIST = new TypeToken<List<CompactTrack>>() { }.getType();
+    private static final Type USER_LIST = new TypeToken<List<User>>() { }.getType();
+    private static final Type PLAYLIST_LIST = new TypeToken<List<Playlist>>() { }.getType();
+
+    @Param({"1", "50", "200"})
+    public int items;
+
+    private byte[] body;
+    private byte[] userBody;
+    private byte[] playlistBody;
+    private Converter<ResponseBody, ?> reflective;
+    private Converter<ResponseBody, ?> streaming;
+    private Converter<ResponseBody, ?> compact;
+    private Converter<ResponseBody, ?> reflectiveUser;
+    private Converter<ResponseBody, ?> streamingUser;
+    private Converter<ResponseBody, ?> reflectivePlaylist;
+    private Converter<ResponseBody, ?> streamingPlaylist;
+
+    @Setup
+    public void setUp() throws IOException {
+        body = Fixtures.list("track.json", items);
+        userBody = Fixtures.list("user.json", items);
+        playlistBody = Fixtures.list("playlist.json", items);
+
+        Gson reflectiveGson = new GsonBuilder()
+                .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
+                .create();
+
+        Gson streamingGson = new GsonBuilder()
+                .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
+                .registerTypeAdapterFactory(new ModelTypeAdapterFactory())
+                .create();
+
+        reflective = converter(reflectiveGson, TRACK_LIST);
+        streaming = converter(streamingGson, TRACK_LIST);
+        compact = converter(streamingGson, COMPACT_TRACK_LIST);
+        reflectiveUser = converter(reflectiveGson, USER_LIST);
+        streamingUser = converter(streamingGson, USER_LIST);
+        reflectivePlaylist = converter(reflectiveGson, PLAYLIST_LIST);
+        streamingPlaylist = converter(streamingGson, PLAYLIST_LIST);
+    }
+
+    @Benchmark
+    public Object reflectiveTracks() throws IOException {
+        return reflective.convert(ResponseBody.create(JSON, body));
+    }
+
+    @Benchmark
+    public Object streamingTracks() throws IOException {
+        return streaming.convert(ResponseBody.create(JSON, body));
+    }
+
+    @Benchmark
+    public Object compactTracks() throws IOException {
+        return compact.convert(ResponseBody.create(JSON, body));
+    }
+
+    @Benchmark
+    public Object reflectiveUsers() throws IOException {
+        return reflectiveUser.convert(ResponseBody.create(JSON, userBody));
+    }
+
+    @Benchmark
+    public Object streamingUsers() throws IOException {
+        return streamingUser.convert(ResponseBody.create(JSON, userBody));
+    }
+
+    @Benchmark
+    public Object reflectivePlaylists() throws IOException {
+        return reflectivePlaylist.convert(ResponseBody.create(JSON, playlistBody));
+    }
+
+    @Benchmark
+    public Object streamingPlaylists() throws IOException {
+        return streamingPlaylist.convert(ResponseBody.create(JSON, playlistBody));
+    }
+
+    private static Converter<ResponseBody, ?> converter(Gson gson, Type type) {
+        return GsonConverterFactory.create(gson)
+                .responseBodyConverter(type, new Annotation[0], null);
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.benchmark;
+
+import com.jlubecki.soundcloud.webapi.android.models.Track;
+import com.jlubecki.soundcloud.webapi.android.query.Pager;
+import com.jlubecki.soundcloud.webapi.android.query.TrackQuery;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building query maps: {@link TrackQuery#createMap()} for a query that sets every
+ * parameter, and moving a {@link Pager} over it with {@link Pager#next()} or copying a page with
+ * {@link Pager#createMap(int)}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class QueryBenchmark {
+
+    private TrackQuery query;
+    private Pager pager;
+    private int offset;
+
+    @Setup
+    public void setUp() {
+        query = new TrackQuery.Builder()
+                .setQuery("field recording")
+                .setTags("ambient", "rain", "phone")
+                .setFilter(Track.Filter.PUBLIC)
+                .setLicense(Track.License.CC_ATTRIBUTION)
+                .setBpmLimits(60, 140)
+                .setDurationLimits(60, 600)
+                .setCreationDateLimits("2015-01-01 00:00:00", "2016-01-01 00:00:00")
+                .setIds("13158665", "13158702", "13159011")
+                .setGenres("Ambient", "Field Recording")
+                .setTypes(Track.Type.RECORDING, Track.Type.LIVE)
+                .build();
+
+        pager = new Pager(query, Pager.LIMIT_MAX);
+    }
+
+    @Benchmark
+    public HashMap<String, String> trackQueryCreateMap() {
+        return query.createMap();
+    }
+
+    @Benchmark
+    public HashMap<String, String> pagerNext() {
+        return pager.next();
+    }
+
+    @Benchmark
+    public HashMap<String, String> pagerCreateMap() {
+        offset += Pager.LIMIT_MAX;
+
+        return pager.createMap(offset);
+    }
+}
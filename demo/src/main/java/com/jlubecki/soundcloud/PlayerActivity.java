@@ -25,8 +25,6 @@
 package com.jlubecki.soundcloud;
 
 import android.content.SharedPreferences;
-import android.media.AudioManager;
-import android.media.MediaPlayer;
 import android.os.Bundle;
 import android.support.v7.app.AppCompatActivity;
 import android.text.Editable;
@@ -41,7 +39,15 @@ import android.widget.ListView;
 import com.jlubecki.soundcloud.webapi.android.SoundCloudAPI;
 import com.jlubecki.soundcloud.webapi.android.SoundCloudService;
 import com.jlubecki.soundcloud.webapi.android.models.Track;
+import com.jlubecki.soundcloud.webapi.android.playback.GaplessPlayer;
+import com.jlubecki.soundcloud.webapi.android.playback.Transition;
 import com.jlubecki.soundcloud.webapi.android.query.TrackQuery;
+import com.jlubecki.soundcloud.webapi.android.search.SearchSession;
+import com.jlubecki.soundcloud.webapi.android.stream.AndroidPrefetchConditions;
+import com.jlubecki.soundcloud.webapi.android.stream.StreamCache;
+import com.jlubecki.soundcloud.webapi.android.stream.StreamPrefetcher;
+import com.jlubecki.soundcloud.webapi.android.stream.StreamProxy;
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
@@ -59,17 +65,20 @@ import static com.jlubecki.soundcloud.Constants.PREFS_NAME;
 public class PlayerActivity extends AppCompatActivity {
 
     private static final String TAG = "PlayerActivity";
+    private static final long STREAM_CACHE_SIZE = 64 * 1024 * 1024;
 
     private SoundCloudService soundcloud;
+    private StreamProxy streamProxy;
+    private StreamPrefetcher streamPrefetcher;
+    private SearchSession<Track> searchSession;
     private List<Track> tracks;
 
     private String searchString;
     private final ArrayList<String> trackTitles = new ArrayList<>();
-    private final ArrayList<String> trackUrls = new ArrayList<>();
+    private final ArrayList<Track> playableTracks = new ArrayList<>();
     private ArrayAdapter<String> songsListAdapter;
-    private int currentTrack = -1;
 
-    private final MediaPlayer player = new MediaPlayer();
+    private GaplessPlayer player;
 
     private ImageButton playPauseButton;
 
@@ -89,6 +98,58 @@ public class PlayerActivity extends AppCompatActivity {
 
         soundcloud = api.getService();
 
+        StreamCache streamCache = new StreamCache.Builder(
+                new File(getCacheDir(), "streams"), STREAM_CACHE_SIZE).build();
+        streamProxy = new StreamProxy.Builder(api.getClient(), CLIENT_ID, streamCache).build();
+        streamProxy.setToken(token);
+
+        try {
+            streamProxy.start();
+        } catch (IOException e) {
+            Log.e(TAG, "Couldn't start the stream proxy.", e);
+        }
+
+        streamPrefetcher = new StreamPrefetcher.Builder(streamProxy)
+                .setConditions(new AndroidPrefetchConditions(this))
+                .build();
+
+        player = new GaplessPlayer.Builder(streamProxy)
+                .setPrefetcher(streamPrefetcher)
+                .build();
+        player.setListener(new GaplessPlayer.Listener() {
+            @Override
+            public void onTrackStarted(Transition transition) {
+                Log.i(TAG, "Started " + transition.getTo().title + ": " + transition);
+                playPauseButton.setImageResource(android.R.drawable.ic_media_pause);
+            }
+
+            @Override
+            public void onQueueEnded() {
+                playPauseButton.setImageResource(android.R.drawable.ic_media_play);
+            }
+
+            @Override
+            public void onError(Track track, int what, int extra) {
+                Log.e(TAG, "Couldn't play " + track.title + " (" + what + ", " + extra + ").");
+            }
+        });
+
+        searchSession = SearchSession.tracks(soundcloud)
+                .setListener(new SearchSession.Listener<Track>() {
+                    @Override
+                    public void onResults(String query, List<Track> results, boolean settled) {
+                        tracks = results;
+
+                        createSongList();
+                    }
+
+                    @Override
+                    public void onError(String query, Throwable t) {
+                        Log.e(TAG, "Failed to search for " + query + ".", t);
+                    }
+                })
+                .build();
+
         EditText searchBox = (EditText) findViewById(R.id.search_box);
         searchBox.addTextChangedListener(new TextWatcher() {
             @Override
@@ -104,6 +165,7 @@ public class PlayerActivity extends AppCompatActivity {
             @Override
             public void afterTextChanged(Editable s) {
                 searchString = s.toString();
+                searchSession.setQuery(searchString);
             }
         });
 
@@ -113,11 +175,9 @@ public class PlayerActivity extends AppCompatActivity {
         songsList.setOnItemClickListener(new AdapterView.OnItemClickListener() {
             @Override
             public void onItemClick(AdapterView<?> parent, View view, int position, long id) {
-                Log.i(TAG, trackUrls.get(position));
-
-                currentTrack = position;
+                Log.i(TAG, playableTracks.get(position).stream_url);
 
-                playTrack(trackUrls.get(position));
+                player.play(position);
             }
         });
 
@@ -131,14 +191,14 @@ public class PlayerActivity extends AppCompatActivity {
 
     private void createSongList() {
         trackTitles.clear();
-        trackUrls.clear();
+        playableTracks.clear();
 
         if(tracks != null) {
             for (Track track : tracks) {
                 if (track.title != null && !track.title.isEmpty()) {
                     if (track.is_streamable) {
                         trackTitles.add(track.title);
-                        trackUrls.add(track.stream_url);
+                        playableTracks.add(track);
                     } else {
                         Log.w(TAG, "Error getting track title.", new IllegalStateException());
                     }
@@ -149,48 +209,17 @@ public class PlayerActivity extends AppCompatActivity {
         }
 
         songsListAdapter.notifyDataSetChanged();
-    }
-
-    private void playTrack(String trackUrl) {
-        player.reset();
-        player.setAudioStreamType(AudioManager.STREAM_MUSIC);
-        player.setOnPreparedListener(new MediaPlayer.OnPreparedListener() {
-            @Override
-            public void onPrepared(MediaPlayer mp) {
-                if (!player.isPlaying()) {
-                    player.start();
-                    playPauseButton.setImageResource(android.R.drawable.ic_media_pause);
-                }
-            }
-        });
-        player.setOnCompletionListener(new MediaPlayer.OnCompletionListener() {
-            @Override
-            public void onCompletion(MediaPlayer mp) {
-                currentTrack++;
-                if (currentTrack > trackTitles.size() - 1) {
-                    currentTrack = -1;
-                } else {
-                    playTrack(trackUrls.get(currentTrack));
-                }
-            }
-        });
-        String dataString = trackUrl + "?client_id=" + CLIENT_ID;
-        try {
-            player.setDataSource(dataString);
-        } catch (IOException e) {
-            Log.e(TAG, "Couldn't parse URI.", e);
-        }
-        player.prepareAsync();
+        player.getQueue().setTracks(playableTracks, -1);
     }
 
     private void togglePlayPause() {
         if (player.isPlaying()) {
             player.pause();
             playPauseButton.setImageResource(android.R.drawable.ic_media_play);
-        } else if (trackUrls.size() > 0 && !player.isPlaying() && currentTrack == -1) {
-            playTrack(trackUrls.get(0));
+        } else if (playableTracks.size() > 0 && player.getCurrentTrack() == null) {
+            player.play(0);
         } else {
-            player.start();
+            player.resume();
 
             if(player.isPlaying()) {
                 playPauseButton.setImageResource(android.R.drawable.ic_media_pause);
@@ -199,6 +228,9 @@ public class PlayerActivity extends AppCompatActivity {
     }
 
     public void searchTracks(View view) {
+        // The box already searches as the user types; the button searches right away.
+        searchSession.cancel();
+
         TrackQuery query = new TrackQuery.Builder()
                 .setQuery(searchString)
                 .build();
@@ -223,6 +255,9 @@ public class PlayerActivity extends AppCompatActivity {
     @Override
     public void onDestroy() {
         super.onDestroy();
+        searchSession.cancel();
         player.release();
+        streamPrefetcher.shutdown();
+        streamProxy.stop();
     }
 }
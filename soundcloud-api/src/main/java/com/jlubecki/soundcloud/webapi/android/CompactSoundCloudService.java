@@ -0,0 +1,219 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android;
+
+import com.jlubecki.soundcloud.webapi.android.models.compact.CompactComment;
+import com.jlubecki.soundcloud.webapi.android.models.compact.CompactPlaylist;
+import com.jlubecki.soundcloud.webapi.android.models.compact.CompactTrack;
+import com.jlubecki.soundcloud.webapi.android.models.compact.CompactUser;
+
+import java.util.HashMap;
+import java.util.List;
+
+import retrofit2.Call;
+import retrofit2.http.GET;
+import retrofit2.http.Path;
+import retrofit2.http.Query;
+import retrofit2.http.QueryMap;
+
+/**
+ * Variant of {@link SoundCloudService} for the track, user, playlist and comment endpoints that
+ * decodes into the primitive based models of the {@code models.compact} package. Counts,
+ * durations and ids are decoded as numbers and timestamps as milliseconds since the epoch, which
+ * keeps large libraries small in memory and cheap to sort and filter.
+ *
+ * @see SoundCloudAPI#getCompactService()
+ */
+@SuppressWarnings("unused")
+public interface CompactSoundCloudService {
+
+    /**
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     *                                       ~~ TRACKS ~~
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    /**
+     * @see SoundCloudService#searchTracks(String)
+     */
+    @GET("tracks")
+    Call<List<CompactTrack>> searchTracks(@Query("q") String query);
+
+    /**
+     * @see SoundCloudService#searchTracks(HashMap)
+     */
+    @GET("tracks")
+    Call<List<CompactTrack>> searchTracks(@QueryMap HashMap<String, String> queries);
+
+    /**
+     * @see SoundCloudService#getTrack(String)
+     */
+    @GET("tracks/{id}")
+    Call<CompactTrack> getTrack(@Path("id") String trackId);
+
+    /**
+     * @see SoundCloudService#getTrackComments(String)
+     */
+    @GET("tracks/{id}/comments")
+    Call<List<CompactComment>> getTrackComments(@Path("id") String trackId);
+
+    /**
+     * @see SoundCloudService#getTrackFavoriters(String)
+     */
+    @GET("tracks/{id}/favoriters")
+    Call<List<CompactUser>> getTrackFavoriters(@Path("id") String trackId);
+
+    /**
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     *                                        ~~ USERS ~~
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    /**
+     * @see SoundCloudService#searchUsers(String)
+     */
+    @GET("users")
+    Call<List<CompactUser>> searchUsers(@Query("q") String query);
+
+    /**
+     * @see SoundCloudService#getUser(String)
+     */
+    @GET("users/{id}")
+    Call<CompactUser> getUser(@Path("id") String userId);
+
+    /**
+     * @see SoundCloudService#getUserTracks(String)
+     */
+    @GET("users/{id}/tracks")
+    Call<List<CompactTrack>> getUserTracks(@Path("id") String userId);
+
+    /**
+     * @see SoundCloudService#getUserPlaylists(String)
+     */
+    @GET("users/{id}/playlists")
+    Call<List<CompactPlaylist>> getUserPlaylists(@Path("id") String userId);
+
+    /**
+     * @see SoundCloudService#getUserFollowings(String)
+     */
+    @GET("users/{id}/followings")
+    Call<List<CompactUser>> getUserFollowings(@Path("id") String userId);
+
+    /**
+     * @see SoundCloudService#getUserFollowers(String)
+     */
+    @GET("users/{id}/followers")
+    Call<List<CompactUser>> getUserFollowers(@Path("id") String userId);
+
+    /**
+     * @see SoundCloudService#getUserComments(String)
+     */
+    @GET("users/{id}/comments")
+    Call<List<CompactComment>> getUserComments(@Path("id") String userId);
+
+    /**
+     * @see SoundCloudService#getUserFavorites(String)
+     */
+    @GET("users/{id}/favorites")
+    Call<List<CompactTrack>> getUserFavorites(@Path("id") String userId);
+
+    /**
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     *                                      ~~ PLAYLISTS ~~
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    /**
+     * @see SoundCloudService#getPlaylists(String)
+     */
+    @GET("playlists")
+    Call<List<CompactPlaylist>> getPlaylists(@Query("q") String query);
+
+    /**
+     * Returns a call that can provide a {@link CompactPlaylist} with a given ID, including its
+     * tracks.
+     *
+     * @param id ID of the playlist to get.
+     * @return The call that can be used to get the data.
+     */
+    @GET("playlists/{id}")
+    Call<CompactPlaylist> getPlaylist(@Path("id") String id);
+
+    /**
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     *                                          ~~ Me ~~
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    /**
+     * @see SoundCloudService#getMe()
+     */
+    @GET("me")
+    Call<CompactUser> getMe();
+
+    /**
+     * @see SoundCloudService#getMyTracks()
+     */
+    @GET("me/tracks")
+    Call<List<CompactTrack>> getMyTracks();
+
+    /**
+     * @see SoundCloudService#getMyPlaylists()
+     */
+    @GET("me/playlists")
+    Call<List<CompactPlaylist>> getMyPlaylists();
+
+    /**
+     * @see SoundCloudService#getMyFollowings()
+     */
+    @GET("me/followings")
+    Call<List<CompactUser>> getMyFollowings();
+
+    /**
+     * @see SoundCloudService#getMyFollowers()
+     */
+    @GET("me/followers")
+    Call<List<CompactUser>> getMyFollowers();
+
+    /**
+     * @see SoundCloudService#getMyComments()
+     */
+    @GET("me/comments")
+    Call<List<CompactComment>> getMyComments();
+
+    /**
+     * @see SoundCloudService#getMyFavorites()
+     */
+    @GET("me/favorites")
+    Call<List<CompactTrack>> getMyFavorites();
+}
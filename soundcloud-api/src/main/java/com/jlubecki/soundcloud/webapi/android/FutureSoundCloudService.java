@@ -0,0 +1,457 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android;
+
+import com.jlubecki.soundcloud.webapi.android.async.CallFuture;
+import com.jlubecki.soundcloud.webapi.android.models.Comment;
+import com.jlubecki.soundcloud.webapi.android.models.Connection;
+import com.jlubecki.soundcloud.webapi.android.models.Group;
+import com.jlubecki.soundcloud.webapi.android.models.Groups;
+import com.jlubecki.soundcloud.webapi.android.models.Pager;
+import com.jlubecki.soundcloud.webapi.android.models.Playlist;
+import com.jlubecki.soundcloud.webapi.android.models.SecretToken;
+import com.jlubecki.soundcloud.webapi.android.models.Track;
+import com.jlubecki.soundcloud.webapi.android.models.User;
+import com.jlubecki.soundcloud.webapi.android.models.WebProfile;
+
+import java.util.HashMap;
+import java.util.List;
+
+import retrofit2.http.GET;
+import retrofit2.http.Path;
+import retrofit2.http.Query;
+import retrofit2.http.QueryMap;
+import retrofit2.http.Url;
+
+/**
+ * Variant of {@link SoundCloudService} whose methods return a {@link CallFuture} instead of a
+ * {@link retrofit2.Call}. The request is made as soon as a method is called, and the futures can
+ * be composed with {@link com.jlubecki.soundcloud.webapi.android.async.Futures} to run several
+ * requests concurrently without blocking a thread. Cancelling a future cancels its request.
+ *
+ * @see SoundCloudAPI#getFutureService()
+ */
+@SuppressWarnings("unused")
+public interface FutureSoundCloudService {
+
+    /**
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     *                                       ~~ TRACKS ~~
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    /**
+     * @see SoundCloudService#searchTracks(String)
+     */
+    @GET("tracks")
+    CallFuture<List<Track>> searchTracks(@Query("q") String query);
+
+    /**
+     * @see SoundCloudService#searchTracks(HashMap)
+     */
+    @GET("tracks")
+    CallFuture<List<Track>> searchTracks(@QueryMap HashMap<String, String> queries);
+
+    /**
+     * @see SoundCloudService#getTrack(String)
+     */
+    @GET("tracks/{id}")
+    CallFuture<Track> getTrack(@Path("id") String trackId);
+
+    /**
+     * @see SoundCloudService#getTrackComments(String)
+     */
+    @GET("tracks/{id}/comments")
+    CallFuture<List<Comment>> getTrackComments(@Path("id") String trackId);
+
+    /**
+     * @see SoundCloudService#getTrackComment(String, String)
+     */
+    @GET("tracks/{id}/comments/{comment-id}")
+    CallFuture<Comment> getTrackComment(@Path("id") String trackId, @Path("comment-id") String commentId);
+
+    /**
+     * @see SoundCloudService#getTrackFavoriters(String)
+     */
+    @GET("tracks/{id}/favoriters")
+    CallFuture<List<User>> getTrackFavoriters(@Path("id") String trackId);
+
+    /**
+     * @see SoundCloudService#getTrackFavoriter(String, String)
+     */
+    @GET("tracks/{id}/favoriters/{user-id")
+    CallFuture<User> getTrackFavoriter(@Path("id") String trackId,
+                                       @Path("user-id") String userId);
+
+    /**
+     * @see SoundCloudService#getTrackSecret(String)
+     */
+    @GET("tracks/{id}/secret-token")
+    CallFuture<SecretToken> getTrackSecret(@Path("id") String trackId);
+
+    /**
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     *                                        ~~ USERS ~~
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    /**
+     * @see SoundCloudService#searchUsers(String)
+     */
+    @GET("users")
+    CallFuture<List<User>> searchUsers(@Query("q") String query);
+
+    /**
+     * @see SoundCloudService#getUser(String)
+     */
+    @GET("users/{id}")
+    CallFuture<User> getUser(@Path("id") String userId);
+
+    /**
+     * @see SoundCloudService#getUserTracks(String)
+     */
+    @GET("users/{id}/tracks")
+    CallFuture<List<Track>> getUserTracks(@Path("id") String userId);
+
+    /**
+     * @see SoundCloudService#getUserTracks(String, HashMap)
+     */
+    @GET("users/{id}/tracks")
+    CallFuture<List<Track>> getUserTracks(@Path("id") String userId,
+                                          @QueryMap HashMap<String, String> queries);
+
+    /**
+     * @see SoundCloudService#getUserPlaylists(String)
+     */
+    @GET("users/{id}/playlists")
+    CallFuture<List<Playlist>> getUserPlaylists(@Path("id") String userId);
+
+    /**
+     * @see SoundCloudService#getUserPlaylists(String, HashMap)
+     */
+    @GET("users/{id}/playlists")
+    CallFuture<List<Playlist>> getUserPlaylists(@Path("id") String userId,
+                                                @QueryMap HashMap<String, String> queries);
+
+    /**
+     * @see SoundCloudService#getUserFollowings(String)
+     */
+    @GET("users/{id}/followings")
+    CallFuture<List<User>> getUserFollowings(@Path("id") String userId);
+
+    /**
+     * @see SoundCloudService#getUserFollowings(String, HashMap)
+     */
+    @GET("users/{id}/followings")
+    CallFuture<List<User>> getUserFollowings(@Path("id") String userId,
+                                             @QueryMap HashMap<String, String> queries);
+
+    /**
+     * @see SoundCloudService#getUserFollowing(String, String)
+     */
+    @GET("users/{id}/followings/{following-id}")
+    CallFuture<User> getUserFollowing(@Path("id") String userId, @Path("following-id") String followedUserId);
+
+    /**
+     * @see SoundCloudService#getUserFollowers(String)
+     */
+    @GET("users/{id}/followers")
+    CallFuture<List<User>> getUserFollowers(@Path("id") String userId);
+
+    /**
+     * @see SoundCloudService#getUserFollowers(String, HashMap)
+     */
+    @GET("users/{id}/followers")
+    CallFuture<List<User>> getUserFollowers(@Path("id") String userId,
+                                            @QueryMap HashMap<String, String> queries);
+
+    /**
+     * @see SoundCloudService#getUserFollower(String, String)
+     */
+    @GET("users/{id}/followers/{follower-id}")
+    CallFuture<User> getUserFollower(@Path("id") String userId, @Path("follower-id") String followerId);
+
+    /**
+     * @see SoundCloudService#getUserComments(String)
+     */
+    @GET("users/{id}/comments")
+    CallFuture<List<Comment>> getUserComments(@Path("id") String userId);
+
+    /**
+     * @see SoundCloudService#getUserFavorites(String)
+     */
+    @GET("users/{id}/favorites")
+    CallFuture<List<Track>> getUserFavorites(@Path("id") String userId);
+
+    /**
+     * @see SoundCloudService#getUserFavorites(String, HashMap)
+     */
+    @GET("users/{id}/favorites")
+    CallFuture<List<Track>> getUserFavorites(@Path("id") String userId,
+                                             @QueryMap HashMap<String, String> queries);
+
+    /**
+     * @see SoundCloudService#getUserFavorite(String, String)
+     */
+    @GET("users/{id}/favorites/{favorite-id}")
+    CallFuture<Track> getUserFavorite(@Path("id") String userId,
+                                      @Path("favorite-id") String favoriteId);
+
+    /**
+     * @see SoundCloudService#getUserGroups(String)
+     */
+    @GET("users/{id}/groups")
+    CallFuture<List<Group>> getUserGroups(@Path("id") String userId);
+
+    /**
+     * @see SoundCloudService#getUserWebProfiles(String)
+     */
+    @GET("users/{id}/web-profiles")
+    CallFuture<List<WebProfile>> getUserWebProfiles(@Path("id") String userId);
+
+    /**
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     *                                      ~~ PLAYLISTS ~~
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    /**
+     * @see SoundCloudService#getPlaylists(String)
+     */
+    @GET("playlists")
+    CallFuture<List<Playlist>> getPlaylists(@Query("q") String query);
+
+    /**
+     * @see SoundCloudService#getPlaylists(String, String)
+     */
+    @GET("playlists")
+    CallFuture<List<Playlist>> getPlaylists(@Query("q") String query, @Query("representation") String representation);
+
+    /**
+     * @see SoundCloudService#getPlaylistSecret(String)
+     */
+    @GET("playlists/{id}/secret-token")
+    CallFuture<SecretToken> getPlaylistSecret(@Path("id") String id);
+
+    /**
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * ~~ GROUPS ~~
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    /**
+     * @see SoundCloudService#searchGroups(String)
+     */
+    @GET("groups")
+    CallFuture<List<Group>> searchGroups(@Query("q") String query);
+
+    /**
+     * @see SoundCloudService#getGroup(String)
+     */
+    @GET("groups/{id}")
+    CallFuture<Group> getGroup(@Path("id") String id);
+
+    /**
+     * @see SoundCloudService#getGroupModerators(String)
+     */
+    @GET("groups/{id}/moderators")
+    CallFuture<List<User>> getGroupModerators(@Path("id") String id);
+
+    /**
+     * @see SoundCloudService#getGroupMembers(String)
+     */
+    @GET("groups/{id}/members")
+    CallFuture<List<User>> getGroupMembers(@Path("id") String id);
+
+    /**
+     * @see SoundCloudService#getGroupContributors(String)
+     */
+    @GET("groups/{id}/contributors")
+    CallFuture<List<User>> getGroupContributors(@Path("id") String id);
+
+    /**
+     * @see SoundCloudService#getGroupUsers(String)
+     */
+    @GET("groups/{id}/users")
+    CallFuture<List<User>> getGroupUsers(@Path("id") String id);
+
+    /**
+     * @see SoundCloudService#getGroupPendingTracks(String)
+     */
+    @GET("groups/{id}/pending_tracks")
+    CallFuture<List<Track>> getGroupPendingTracks(
+                  @Path("id") String id);
+
+    /**
+     * @see SoundCloudService#getGroupPendingTrack(String, String)
+     */
+    @GET("groups/{id}/pending_tracks/{pending-id}")
+    CallFuture<Track> getGroupPendingTrack(
+                  @Path("id") String id, @Path("pending-id") String trackId);
+
+    /**
+     * @see SoundCloudService#getGroupContributions(String)
+     */
+    @GET("groups/{id}/contributions")
+    CallFuture<List<Track>> getGroupContributions(@Path("id") String id);
+
+    /**
+     * @see SoundCloudService#getGroupContribution(String, String)
+     */
+    @GET("groups/{id}/pending_tracks/{contribution-id}")
+    CallFuture<Track> getGroupContribution(@Path("id") String id, @Path("contribution-id") String trackId);
+
+    /**
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     *                                          ~~ Me ~~
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    /**
+     * @see SoundCloudService#getMe()
+     */
+    @GET("me")
+    CallFuture<User> getMe();
+
+    /**
+     * @see SoundCloudService#getMyTracks()
+     */
+    @GET("me/tracks")
+    CallFuture<List<Track>> getMyTracks();
+
+    /**
+     * @see SoundCloudService#getMyPlaylists()
+     */
+    @GET("me/playlists")
+    CallFuture<List<Playlist>> getMyPlaylists();
+
+    /**
+     * @see SoundCloudService#getMyFollowings()
+     */
+    @GET("me/followings")
+    CallFuture<List<User>> getMyFollowings();
+
+    /**
+     * @see SoundCloudService#getMyFollowing(String)
+     */
+    @GET("me/followings/{following-id}")
+    CallFuture<User> getMyFollowing(@Path("following-id") String followedUserId);
+
+    /**
+     * @see SoundCloudService#getMyFollowers()
+     */
+    @GET("me/followers")
+    CallFuture<List<User>> getMyFollowers();
+
+    /**
+     * @see SoundCloudService#getMyFollower(String)
+     */
+    @GET("me/followers/{follower-id}")
+    CallFuture<User> getMyFollower(@Path("follower-id") String followerId);
+
+    /**
+     * @see SoundCloudService#getMyComments()
+     */
+    @GET("me/comments")
+    CallFuture<List<Comment>> getMyComments();
+
+    /**
+     * @see SoundCloudService#getMyFavorites()
+     */
+    @GET("me/favorites")
+    CallFuture<List<Track>> getMyFavorites();
+
+    /**
+     * @see SoundCloudService#getMyFavorite(String)
+     */
+    @GET("me/favorites/{favorite-id}")
+    CallFuture<List<Track>> getMyFavorite(@Path("favorite-id") String favoriteId);
+
+    /**
+     * @see SoundCloudService#getMyGroups()
+     */
+    @GET("me/groups")
+    CallFuture<List<Group>> getMyGroups();
+
+    /**
+     * @see SoundCloudService#getMyWebProfiles()
+     */
+    @GET("me/web-profiles")
+    CallFuture<List<WebProfile>> getMyWebProfiles();
+
+    /**
+     * @see SoundCloudService#getMyConnections()
+     */
+    @GET("me/connections")
+    CallFuture<List<Connection>> getMyConnections();
+
+    /**
+     * @see SoundCloudService#getMyConnection(String)
+     */
+    @GET("me/connections")
+    CallFuture<Connection> getMyConnection(String connectionId);
+
+    /**
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     *                                        ~~ PAGES ~~
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    /**
+     * @see SoundCloudService#getTrackPage(String)
+     */
+    @GET
+    CallFuture<Pager<Track>> getTrackPage(@Url String url);
+
+    /**
+     * @see SoundCloudService#getUserPage(String)
+     */
+    @GET
+    CallFuture<Pager<User>> getUserPage(@Url String url);
+
+    /**
+     * @see SoundCloudService#getPlaylistPage(String)
+     */
+    @GET
+    CallFuture<Pager<Playlist>> getPlaylistPage(@Url String url);
+
+    /**
+     * @see SoundCloudService#getCommentPage(String)
+     */
+    @GET
+    CallFuture<Pager<Comment>> getCommentPage(@Url String url);
+}
@@ -0,0 +1,458 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android;
+
+import com.jlubecki.soundcloud.webapi.android.async.Flow;
+import com.jlubecki.soundcloud.webapi.android.models.Comment;
+import com.jlubecki.soundcloud.webapi.android.models.Connection;
+import com.jlubecki.soundcloud.webapi.android.models.Group;
+import com.jlubecki.soundcloud.webapi.android.models.Groups;
+import com.jlubecki.soundcloud.webapi.android.models.Pager;
+import com.jlubecki.soundcloud.webapi.android.models.Playlist;
+import com.jlubecki.soundcloud.webapi.android.models.SecretToken;
+import com.jlubecki.soundcloud.webapi.android.models.Track;
+import com.jlubecki.soundcloud.webapi.android.models.User;
+import com.jlubecki.soundcloud.webapi.android.models.WebProfile;
+
+import java.util.HashMap;
+import java.util.List;
+
+import retrofit2.http.GET;
+import retrofit2.http.Path;
+import retrofit2.http.Query;
+import retrofit2.http.QueryMap;
+import retrofit2.http.Url;
+
+/**
+ * Variant of {@link SoundCloudService} whose methods return a {@link Flow.Publisher} of the
+ * response body instead of a {@link retrofit2.Call}. Nothing is requested until a subscriber
+ * requests an item, and every subscriber makes its own request, which is cancelled with its
+ * subscription. A response with an error status fails the subscriber with an
+ * {@link com.jlubecki.soundcloud.webapi.android.async.HttpException}.
+ *
+ * @see SoundCloudAPI#getPublisherService()
+ */
+@SuppressWarnings("unused")
+public interface PublisherSoundCloudService {
+
+    /**
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     *                                       ~~ TRACKS ~~
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    /**
+     * @see SoundCloudService#searchTracks(String)
+     */
+    @GET("tracks")
+    Flow.Publisher<List<Track>> searchTracks(@Query("q") String query);
+
+    /**
+     * @see SoundCloudService#searchTracks(HashMap)
+     */
+    @GET("tracks")
+    Flow.Publisher<List<Track>> searchTracks(@QueryMap HashMap<String, String> queries);
+
+    /**
+     * @see SoundCloudService#getTrack(String)
+     */
+    @GET("tracks/{id}")
+    Flow.Publisher<Track> getTrack(@Path("id") String trackId);
+
+    /**
+     * @see SoundCloudService#getTrackComments(String)
+     */
+    @GET("tracks/{id}/comments")
+    Flow.Publisher<List<Comment>> getTrackComments(@Path("id") String trackId);
+
+    /**
+     * @see SoundCloudService#getTrackComment(String, String)
+     */
+    @GET("tracks/{id}/comments/{comment-id}")
+    Flow.Publisher<Comment> getTrackComment(@Path("id") String trackId, @Path("comment-id") String commentId);
+
+    /**
+     * @see SoundCloudService#getTrackFavoriters(String)
+     */
+    @GET("tracks/{id}/favoriters")
+    Flow.Publisher<List<User>> getTrackFavoriters(@Path("id") String trackId);
+
+    /**
+     * @see SoundCloudService#getTrackFavoriter(String, String)
+     */
+    @GET("tracks/{id}/favoriters/{user-id")
+    Flow.Publisher<User> getTrackFavoriter(@Path("id") String trackId,
+                                           @Path("user-id") String userId);
+
+    /**
+     * @see SoundCloudService#getTrackSecret(String)
+     */
+    @GET("tracks/{id}/secret-token")
+    Flow.Publisher<SecretToken> getTrackSecret(@Path("id") String trackId);
+
+    /**
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     *                                        ~~ USERS ~~
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    /**
+     * @see SoundCloudService#searchUsers(String)
+     */
+    @GET("users")
+    Flow.Publisher<List<User>> searchUsers(@Query("q") String query);
+
+    /**
+     * @see SoundCloudService#getUser(String)
+     */
+    @GET("users/{id}")
+    Flow.Publisher<User> getUser(@Path("id") String userId);
+
+    /**
+     * @see SoundCloudService#getUserTracks(String)
+     */
+    @GET("users/{id}/tracks")
+    Flow.Publisher<List<Track>> getUserTracks(@Path("id") String userId);
+
+    /**
+     * @see SoundCloudService#getUserTracks(String, HashMap)
+     */
+    @GET("users/{id}/tracks")
+    Flow.Publisher<List<Track>> getUserTracks(@Path("id") String userId,
+                                              @QueryMap HashMap<String, String> queries);
+
+    /**
+     * @see SoundCloudService#getUserPlaylists(String)
+     */
+    @GET("users/{id}/playlists")
+    Flow.Publisher<List<Playlist>> getUserPlaylists(@Path("id") String userId);
+
+    /**
+     * @see SoundCloudService#getUserPlaylists(String, HashMap)
+     */
+    @GET("users/{id}/playlists")
+    Flow.Publisher<List<Playlist>> getUserPlaylists(@Path("id") String userId,
+                                                    @QueryMap HashMap<String, String> queries);
+
+    /**
+     * @see SoundCloudService#getUserFollowings(String)
+     */
+    @GET("users/{id}/followings")
+    Flow.Publisher<List<User>> getUserFollowings(@Path("id") String userId);
+
+    /**
+     * @see SoundCloudService#getUserFollowings(String, HashMap)
+     */
+    @GET("users/{id}/followings")
+    Flow.Publisher<List<User>> getUserFollowings(@Path("id") String userId,
+                                                 @QueryMap HashMap<String, String> queries);
+
+    /**
+     * @see SoundCloudService#getUserFollowing(String, String)
+     */
+    @GET("users/{id}/followings/{following-id}")
+    Flow.Publisher<User> getUserFollowing(@Path("id") String userId, @Path("following-id") String followedUserId);
+
+    /**
+     * @see SoundCloudService#getUserFollowers(String)
+     */
+    @GET("users/{id}/followers")
+    Flow.Publisher<List<User>> getUserFollowers(@Path("id") String userId);
+
+    /**
+     * @see SoundCloudService#getUserFollowers(String, HashMap)
+     */
+    @GET("users/{id}/followers")
+    Flow.Publisher<List<User>> getUserFollowers(@Path("id") String userId,
+                                                @QueryMap HashMap<String, String> queries);
+
+    /**
+     * @see SoundCloudService#getUserFollower(String, String)
+     */
+    @GET("users/{id}/followers/{follower-id}")
+    Flow.Publisher<User> getUserFollower(@Path("id") String userId, @Path("follower-id") String followerId);
+
+    /**
+     * @see SoundCloudService#getUserComments(String)
+     */
+    @GET("users/{id}/comments")
+    Flow.Publisher<List<Comment>> getUserComments(@Path("id") String userId);
+
+    /**
+     * @see SoundCloudService#getUserFavorites(String)
+     */
+    @GET("users/{id}/favorites")
+    Flow.Publisher<List<Track>> getUserFavorites(@Path("id") String userId);
+
+    /**
+     * @see SoundCloudService#getUserFavorites(String, HashMap)
+     */
+    @GET("users/{id}/favorites")
+    Flow.Publisher<List<Track>> getUserFavorites(@Path("id") String userId,
+                                                 @QueryMap HashMap<String, String> queries);
+
+    /**
+     * @see SoundCloudService#getUserFavorite(String, String)
+     */
+    @GET("users/{id}/favorites/{favorite-id}")
+    Flow.Publisher<Track> getUserFavorite(@Path("id") String userId,
+                                          @Path("favorite-id") String favoriteId);
+
+    /**
+     * @see SoundCloudService#getUserGroups(String)
+     */
+    @GET("users/{id}/groups")
+    Flow.Publisher<List<Group>> getUserGroups(@Path("id") String userId);
+
+    /**
+     * @see SoundCloudService#getUserWebProfiles(String)
+     */
+    @GET("users/{id}/web-profiles")
+    Flow.Publisher<List<WebProfile>> getUserWebProfiles(@Path("id") String userId);
+
+    /**
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     *                                      ~~ PLAYLISTS ~~
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    /**
+     * @see SoundCloudService#getPlaylists(String)
+     */
+    @GET("playlists")
+    Flow.Publisher<List<Playlist>> getPlaylists(@Query("q") String query);
+
+    /**
+     * @see SoundCloudService#getPlaylists(String, String)
+     */
+    @GET("playlists")
+    Flow.Publisher<List<Playlist>> getPlaylists(@Query("q") String query, @Query("representation") String representation);
+
+    /**
+     * @see SoundCloudService#getPlaylistSecret(String)
+     */
+    @GET("playlists/{id}/secret-token")
+    Flow.Publisher<SecretToken> getPlaylistSecret(@Path("id") String id);
+
+    /**
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * ~~ GROUPS ~~
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    /**
+     * @see SoundCloudService#searchGroups(String)
+     */
+    @GET("groups")
+    Flow.Publisher<List<Group>> searchGroups(@Query("q") String query);
+
+    /**
+     * @see SoundCloudService#getGroup(String)
+     */
+    @GET("groups/{id}")
+    Flow.Publisher<Group> getGroup(@Path("id") String id);
+
+    /**
+     * @see SoundCloudService#getGroupModerators(String)
+     */
+    @GET("groups/{id}/moderators")
+    Flow.Publisher<List<User>> getGroupModerators(@Path("id") String id);
+
+    /**
+     * @see SoundCloudService#getGroupMembers(String)
+     */
+    @GET("groups/{id}/members")
+    Flow.Publisher<List<User>> getGroupMembers(@Path("id") String id);
+
+    /**
+     * @see SoundCloudService#getGroupContributors(String)
+     */
+    @GET("groups/{id}/contributors")
+    Flow.Publisher<List<User>> getGroupContributors(@Path("id") String id);
+
+    /**
+     * @see SoundCloudService#getGroupUsers(String)
+     */
+    @GET("groups/{id}/users")
+    Flow.Publisher<List<User>> getGroupUsers(@Path("id") String id);
+
+    /**
+     * @see SoundCloudService#getGroupPendingTracks(String)
+     */
+    @GET("groups/{id}/pending_tracks")
+    Flow.Publisher<List<Track>> getGroupPendingTracks(
+                      @Path("id") String id);
+
+    /**
+     * @see SoundCloudService#getGroupPendingTrack(String, String)
+     */
+    @GET("groups/{id}/pending_tracks/{pending-id}")
+    Flow.Publisher<Track> getGroupPendingTrack(
+                      @Path("id") String id, @Path("pending-id") String trackId);
+
+    /**
+     * @see SoundCloudService#getGroupContributions(String)
+     */
+    @GET("groups/{id}/contributions")
+    Flow.Publisher<List<Track>> getGroupContributions(@Path("id") String id);
+
+    /**
+     * @see SoundCloudService#getGroupContribution(String, String)
+     */
+    @GET("groups/{id}/pending_tracks/{contribution-id}")
+    Flow.Publisher<Track> getGroupContribution(@Path("id") String id, @Path("contribution-id") String trackId);
+
+    /**
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     *                                          ~~ Me ~~
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    /**
+     * @see SoundCloudService#getMe()
+     */
+    @GET("me")
+    Flow.Publisher<User> getMe();
+
+    /**
+     * @see SoundCloudService#getMyTracks()
+     */
+    @GET("me/tracks")
+    Flow.Publisher<List<Track>> getMyTracks();
+
+    /**
+     * @see SoundCloudService#getMyPlaylists()
+     */
+    @GET("me/playlists")
+    Flow.Publisher<List<Playlist>> getMyPlaylists();
+
+    /**
+     * @see SoundCloudService#getMyFollowings()
+     */
+    @GET("me/followings")
+    Flow.Publisher<List<User>> getMyFollowings();
+
+    /**
+     * @see SoundCloudService#getMyFollowing(String)
+     */
+    @GET("me/followings/{following-id}")
+    Flow.Publisher<User> getMyFollowing(@Path("following-id") String followedUserId);
+
+    /**
+     * @see SoundCloudService#getMyFollowers()
+     */
+    @GET("me/followers")
+    Flow.Publisher<List<User>> getMyFollowers();
+
+    /**
+     * @see SoundCloudService#getMyFollower(String)
+     */
+    @GET("me/followers/{follower-id}")
+    Flow.Publisher<User> getMyFollower(@Path("follower-id") String followerId);
+
+    /**
+     * @see SoundCloudService#getMyComments()
+     */
+    @GET("me/comments")
+    Flow.Publisher<List<Comment>> getMyComments();
+
+    /**
+     * @see SoundCloudService#getMyFavorites()
+     */
+    @GET("me/favorites")
+    Flow.Publisher<List<Track>> getMyFavorites();
+
+    /**
+     * @see SoundCloudService#getMyFavorite(String)
+     */
+    @GET("me/favorites/{favorite-id}")
+    Flow.Publisher<List<Track>> getMyFavorite(@Path("favorite-id") String favoriteId);
+
+    /**
+     * @see SoundCloudService#getMyGroups()
+     */
+    @GET("me/groups")
+    Flow.Publisher<List<Group>> getMyGroups();
+
+    /**
+     * @see SoundCloudService#getMyWebProfiles()
+     */
+    @GET("me/web-profiles")
+    Flow.Publisher<List<WebProfile>> getMyWebProfiles();
+
+    /**
+     * @see SoundCloudService#getMyConnections()
+     */
+    @GET("me/connections")
+    Flow.Publisher<List<Connection>> getMyConnections();
+
+    /**
+     * @see SoundCloudService#getMyConnection(String)
+     */
+    @GET("me/connections")
+    Flow.Publisher<Connection> getMyConnection(String connectionId);
+
+    /**
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     *                                        ~~ PAGES ~~
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    /**
+     * @see SoundCloudService#getTrackPage(String)
+     */
+    @GET
+    Flow.Publisher<Pager<Track>> getTrackPage(@Url String url);
+
+    /**
+     * @see SoundCloudService#getUserPage(String)
+     */
+    @GET
+    Flow.Publisher<Pager<User>> getUserPage(@Url String url);
+
+    /**
+     * @see SoundCloudService#getPlaylistPage(String)
+     */
+    @GET
+    Flow.Publisher<Pager<Playlist>> getPlaylistPage(@Url String url);
+
+    /**
+     * @see SoundCloudService#getCommentPage(String)
+     */
+    @GET
+    Flow.Publisher<Pager<Comment>> getCommentPage(@Url String url);
+}
@@ -28,14 +28,37 @@ import com.google.gson.FieldNamingPolicy;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.internal.bind.DateTypeAdapter;
+import com.jlubecki.soundcloud.webapi.android.async.FutureCallAdapterFactory;
+import com.jlubecki.soundcloud.webapi.android.auth.SoundCloudAuthenticator;
 import com.jlubecki.soundcloud.webapi.android.auth.chrometabs.ChromeTabsSoundCloudAuthenticator;
+import com.jlubecki.soundcloud.webapi.android.cache.EntityCache;
+import com.jlubecki.soundcloud.webapi.android.cache.ResponseCache;
+import com.jlubecki.soundcloud.webapi.android.concurrent.VirtualThreads;
+import com.jlubecki.soundcloud.webapi.android.dedup.RequestDeduplicator;
+import com.jlubecki.soundcloud.webapi.android.json.ModelTypeAdapterFactory;
+import com.jlubecki.soundcloud.webapi.android.metrics.MetricsCollector;
+import com.jlubecki.soundcloud.webapi.android.metrics.MetricsSink;
+import com.jlubecki.soundcloud.webapi.android.models.Playlist;
+import com.jlubecki.soundcloud.webapi.android.models.Track;
+import com.jlubecki.soundcloud.webapi.android.models.User;
+import com.jlubecki.soundcloud.webapi.android.ratelimit.RateGovernor;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
+import javax.net.SocketFactory;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.Dns;
 import okhttp3.HttpUrl;
 import okhttp3.Interceptor;
 import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
 import okhttp3.Request;
 import okhttp3.Response;
 import retrofit2.Retrofit;
@@ -45,40 +68,95 @@ import retrofit2.converter.gson.GsonConverterFactory;
  * Class which builds a {@link SoundCloudService} to access the SoundCloud API. To make
  * authenticated requests, use the {@link ChromeTabsSoundCloudAuthenticator} class to obtain an access token
  * and then call {@link #setToken(String)}.
+ * <p/>
+ * Use a {@link Builder} to tune the underlying {@link OkHttpClient}, or to share one client
+ * between several APIs. Passing {@link #getClient()} to
+ * {@link SoundCloudAuthenticator#setClient(OkHttpClient)} lets the token exchange reuse the same
+ * connections as the API calls.
  */
 public class SoundCloudAPI {
 
     public static final String SOUNDCLOUD_API_ENDPOINT = "https://api.soundcloud.com/";
 
+    private final OkHttpClient client;
+    private final ResponseCache responseCache;
+    private final EntityCache entityCache;
+    private final MetricsCollector metricsCollector;
+    private final RateGovernor rateGovernor;
+    private final RequestDeduplicator deduplicator;
+    private final Retrofit retrofit;
     private final SoundCloudService service;
+    private CompactSoundCloudService compactService;
+    private FutureSoundCloudService futureService;
+    private PublisherSoundCloudService publisherService;
 
     private final String clientId;
     private String token;
 
     /**
-     * Creates a {@link SoundCloudService}. Serializes with JSON.
+     * Creates a {@link SoundCloudService}. Serializes with JSON, using the streaming adapters from
+     * {@link ModelTypeAdapterFactory} for tracks, users, playlists and comments.
      *
      * @param clientId Client ID provided by SoundCloud.
      */
     public SoundCloudAPI(String clientId) {
-        this.clientId = clientId;
+        this(new Builder(clientId));
+    }
+
+    private SoundCloudAPI(Builder builder) {
+        this.clientId = builder.clientId;
+        this.metricsCollector =
+                builder.metricsSink != null ? new MetricsCollector(builder.metricsSink) : null;
+        this.client = builder.buildClient(metricsCollector);
+        this.responseCache = builder.responseCache;
+        this.entityCache = builder.entityCache;
+        this.rateGovernor = builder.rateGovernor;
+        this.deduplicator = !builder.deduplicateRequests ? null
+                : new RequestDeduplicator(builder.metricsSink) {
+                    @Override
+                    protected HttpUrl keyUrl(Request request) {
+                        return authorize(request.url());
+                    }
+                };
 
         Gson gson = new GsonBuilder()
                 .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
                 .registerTypeAdapter(Date.class, new DateTypeAdapter())
+                .registerTypeAdapterFactory(new ModelTypeAdapterFactory(entityCache))
                 .create();
 
-        OkHttpClient client = new OkHttpClient.Builder()
-                .addInterceptor(new SoundCloudInterceptor())
-                .build();
+        OkHttpClient.Builder apiClientBuilder = client.newBuilder();
+
+        if (metricsCollector != null) {
+            apiClientBuilder.addInterceptor(metricsCollector.interceptor());
+        }
+
+        apiClientBuilder.addInterceptor(new SoundCloudInterceptor());
+
+        if (responseCache != null) {
+            apiClientBuilder.addInterceptor(responseCache.staleWhileRevalidateInterceptor(client));
+        }
+
+        if (rateGovernor != null) {
+            apiClientBuilder.addInterceptor(rateGovernor.interceptor(builder.metricsSink));
+        }
+
+        OkHttpClient apiClient = apiClientBuilder.build();
 
-        Retrofit adapter = new Retrofit.Builder()
-                .client(client)
+        Retrofit.Builder retrofitBuilder = new Retrofit.Builder()
+                .client(apiClient)
                 .baseUrl(SOUNDCLOUD_API_ENDPOINT)
-                .addConverterFactory(GsonConverterFactory.create(gson))
-                .build();
+                .addConverterFactory(GsonConverterFactory.create(gson));
 
-        service = adapter.create(SoundCloudService.class);
+        if (deduplicator != null) {
+            retrofitBuilder.addCallAdapterFactory(deduplicator.callAdapterFactory());
+        }
+
+        retrofitBuilder.addCallAdapterFactory(FutureCallAdapterFactory.create());
+
+        retrofit = retrofitBuilder.build();
+
+        service = retrofit.create(SoundCloudService.class);
     }
 
     /**
@@ -90,6 +168,134 @@ public class SoundCloudAPI {
         return service;
     }
 
+    /**
+     * Gives access to a {@link CompactSoundCloudService}, which shares this API's client and token
+     * but decodes into the primitive based models of the {@code models.compact} package.
+     *
+     * @return The {@link CompactSoundCloudService} created by this {@link SoundCloudAPI}.
+     */
+    public synchronized CompactSoundCloudService getCompactService() {
+        if (compactService == null) {
+            compactService = retrofit.create(CompactSoundCloudService.class);
+        }
+
+        return compactService;
+    }
+
+    /**
+     * Gives access to a {@link FutureSoundCloudService}, which shares this API's client and token
+     * but returns futures that can be composed without blocking.
+     *
+     * @return The {@link FutureSoundCloudService} created by this {@link SoundCloudAPI}.
+     */
+    public synchronized FutureSoundCloudService getFutureService() {
+        if (futureService == null) {
+            futureService = retrofit.create(FutureSoundCloudService.class);
+        }
+
+        return futureService;
+    }
+
+    /**
+     * Gives access to a {@link PublisherSoundCloudService}, which shares this API's client and
+     * token but returns publishers that make their request once an item is requested.
+     *
+     * @return The {@link PublisherSoundCloudService} created by this {@link SoundCloudAPI}.
+     */
+    public synchronized PublisherSoundCloudService getPublisherService() {
+        if (publisherService == null) {
+            publisherService = retrofit.create(PublisherSoundCloudService.class);
+        }
+
+        return publisherService;
+    }
+
+    /**
+     * Gives access to the shared {@link OkHttpClient} this API was built on. The client does not
+     * add SoundCloud credentials to requests, so it can be handed to other components, such as a
+     * {@link SoundCloudAuthenticator}, to share its connection pool and dispatcher.
+     *
+     * @return The shared client.
+     */
+    public OkHttpClient getClient() {
+        return client;
+    }
+
+    /**
+     * Gives access to the response cache this API was built with.
+     *
+     * @return The {@link ResponseCache}, or null if responses aren't cached.
+     */
+    public ResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    /**
+     * Gives access to the entity cache this API was built with.
+     *
+     * @return The {@link EntityCache}, or null if entities aren't cached.
+     */
+    public EntityCache getEntityCache() {
+        return entityCache;
+    }
+
+    /**
+     * Gives access to the sink this API reports request metrics to.
+     *
+     * @return The {@link MetricsSink}, or null if requests aren't measured.
+     */
+    public MetricsSink getMetricsSink() {
+        return metricsCollector != null ? metricsCollector.getSink() : null;
+    }
+
+    /**
+     * Gives access to the governor that rate limits and retries requests.
+     *
+     * @return The {@link RateGovernor}, or null if requests aren't governed.
+     */
+    public RateGovernor getRateGovernor() {
+        return rateGovernor;
+    }
+
+    /**
+     * Gives access to the deduplicator that lets identical GET calls share one request.
+     *
+     * @return The {@link RequestDeduplicator}, or null if calls aren't deduplicated.
+     */
+    public RequestDeduplicator getRequestDeduplicator() {
+        return deduplicator;
+    }
+
+    /**
+     * Returns a track that was decoded from an earlier response, without making a request.
+     *
+     * @param trackId ID of the track.
+     * @return The cached {@link Track}, or null if it isn't cached or there is no entity cache.
+     */
+    public Track getCachedTrack(String trackId) {
+        return entityCache != null ? entityCache.get(Track.class, trackId) : null;
+    }
+
+    /**
+     * Returns a user that was decoded from an earlier response, without making a request.
+     *
+     * @param userId ID of the user.
+     * @return The cached {@link User}, or null if it isn't cached or there is no entity cache.
+     */
+    public User getCachedUser(String userId) {
+        return entityCache != null ? entityCache.get(User.class, userId) : null;
+    }
+
+    /**
+     * Returns a playlist that was decoded from an earlier response, without making a request.
+     *
+     * @param playlistId ID of the playlist.
+     * @return The cached {@link Playlist}, or null if it isn't cached or there is no entity cache.
+     */
+    public Playlist getCachedPlaylist(String playlistId) {
+        return entityCache != null ? entityCache.get(Playlist.class, playlistId) : null;
+    }
+
     /**
      * Sets the auth token needed by the service in order to make authenticated requests.
      *
@@ -105,18 +311,292 @@ public class SoundCloudAPI {
 
             Request request = chain.request();
 
-            HttpUrl.Builder urlBuilder = request.url().newBuilder();
+            Request newRequest = request.newBuilder()
+                    .url(authorize(request.url()))
+                    .build();
+
+            return chain.proceed(newRequest);
+        }
+    }
+
+    private HttpUrl authorize(HttpUrl url) {
+        HttpUrl.Builder urlBuilder = url.newBuilder();
 
+        // Links such as next_href already carry the credentials they were requested with.
+        if (url.queryParameter("client_id") == null) {
             urlBuilder.addEncodedQueryParameter("client_id", clientId);
-            if (token != null) {
-                urlBuilder.addEncodedQueryParameter("oauth_token", token);
+        }
+
+        if (token != null && url.queryParameter("oauth_token") == null) {
+            urlBuilder.addEncodedQueryParameter("oauth_token", token);
+        }
+
+        return urlBuilder.build();
+    }
+
+    /**
+     * Builds a {@link SoundCloudAPI} on a shared, tunable {@link OkHttpClient}. Settings that are
+     * not specified keep OkHttp's defaults, or the values of the client passed to
+     * {@link #setClient(OkHttpClient)}.
+     */
+    public static class Builder {
+
+        /**
+         * Default limit of concurrent requests when calls run on virtual threads.
+         */
+        public static final int VIRTUAL_THREAD_MAX_REQUESTS = 10000;
+
+        private final String clientId;
+        private OkHttpClient client;
+        private int maxRequests = -1;
+        private int maxRequestsPerHost = -1;
+        private boolean virtualThreads;
+        private ConnectionPool connectionPool;
+        private List<Protocol> protocols;
+        private ResponseCache responseCache;
+        private EntityCache entityCache;
+        private MetricsSink metricsSink;
+        private RateGovernor rateGovernor;
+        private boolean deduplicateRequests;
+
+        /**
+         * @param clientId Client ID provided by SoundCloud.
+         */
+        public Builder(String clientId) {
+            this.clientId = clientId;
+        }
+
+        /**
+         * Sets the client to build on. Its connection pool, dispatcher and thread pool are
+         * shared with every request the API makes.
+         *
+         * @param client The client to share.
+         * @return The instance of the builder that was just updated.
+         */
+        public Builder setClient(OkHttpClient client) {
+            this.client = client;
+
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of requests executed concurrently by the shared dispatcher.
+         * If a client was given, its dispatcher is updated.
+         *
+         * @param maxRequests The maximum number of concurrent requests.
+         * @return The instance of the builder that was just updated.
+         */
+        public Builder setMaxRequests(int maxRequests) {
+            if (maxRequests < 1) {
+                throw new IllegalArgumentException("maxRequests < 1: " + maxRequests);
             }
 
-            Request newRequest = request.newBuilder()
-                    .url(urlBuilder.build())
-                    .build();
+            this.maxRequests = maxRequests;
 
-            return chain.proceed(newRequest);
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of requests executed concurrently against one host by the
+         * shared dispatcher. If a client was given, its dispatcher is updated.
+         *
+         * @param maxRequestsPerHost The maximum number of concurrent requests per host.
+         * @return The instance of the builder that was just updated.
+         */
+        public Builder setMaxRequestsPerHost(int maxRequestsPerHost) {
+            if (maxRequestsPerHost < 1) {
+                throw new IllegalArgumentException("maxRequestsPerHost < 1: " + maxRequestsPerHost);
+            }
+
+            this.maxRequestsPerHost = maxRequestsPerHost;
+
+            return this;
+        }
+
+        /**
+         * Runs enqueued calls on virtual threads instead of OkHttp's thread pool, so that a JVM
+         * backend can keep thousands of requests in flight. Unless they were set, the
+         * dispatcher's limits are raised to {@value #VIRTUAL_THREAD_MAX_REQUESTS} requests, also
+         * per host, and a larger connection pool should usually be set as well. If a client was
+         * given, its dispatcher is replaced rather than shared.
+         * <p/>
+         * Virtual threads need Java 21 or later and are not available on Android. Synchronous
+         * calls run on the calling thread, which can itself be a virtual thread from
+         * {@link VirtualThreads#newExecutor()}.
+         *
+         * @param virtualThreads True to run calls on virtual threads.
+         * @return The instance of the builder that was just updated.
+         * @throws UnsupportedOperationException if the running VM has no virtual threads.
+         */
+        public Builder setVirtualThreads(boolean virtualThreads) {
+            if (virtualThreads && !VirtualThreads.isAvailable()) {
+                throw new UnsupportedOperationException("Virtual threads require Java 21 or later");
+            }
+
+            this.virtualThreads = virtualThreads;
+
+            return this;
+        }
+
+        /**
+         * Replaces the connection pool with one that keeps up to a given number of idle
+         * connections alive for a given duration.
+         *
+         * @param maxIdleConnections The maximum number of idle connections to keep.
+         * @param keepAliveDuration  How long an idle connection is kept.
+         * @param timeUnit           Unit of the keep alive duration.
+         * @return The instance of the builder that was just updated.
+         */
+        public Builder setConnectionPool(int maxIdleConnections, long keepAliveDuration,
+                                         TimeUnit timeUnit) {
+            this.connectionPool =
+                    new ConnectionPool(maxIdleConnections, keepAliveDuration, timeUnit);
+
+            return this;
+        }
+
+        /**
+         * Sets whether HTTP/2 should be negotiated when the server supports it. HTTP/2 multiplexes
+         * every request to api.soundcloud.com over a single connection.
+         *
+         * @param preferHttp2 True to offer HTTP/2 and HTTP/1.1, false to only use HTTP/1.1.
+         * @return The instance of the builder that was just updated.
+         */
+        public Builder setPreferHttp2(boolean preferHttp2) {
+            if (preferHttp2) {
+                this.protocols = Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1);
+            } else {
+                this.protocols = Collections.singletonList(Protocol.HTTP_1_1);
+            }
+
+            return this;
+        }
+
+        /**
+         * Caches API responses on disk according to the rules of a {@link ResponseCache}.
+         *
+         * @param responseCache The cache to use.
+         * @return The instance of the builder that was just updated.
+         */
+        public Builder setResponseCache(ResponseCache responseCache) {
+            this.responseCache = responseCache;
+
+            return this;
+        }
+
+        /**
+         * Deduplicates decoded tracks, users and playlists by id through an {@link EntityCache}.
+         * The same cache can be shared by several APIs.
+         *
+         * @param entityCache The cache to use.
+         * @return The instance of the builder that was just updated.
+         */
+        public Builder setEntityCache(EntityCache entityCache) {
+            this.entityCache = entityCache;
+
+            return this;
+        }
+
+        /**
+         * Measures every call made through the API, by endpoint, and reports the measurements
+         * to a {@link MetricsSink}, such as an
+         * {@link com.jlubecki.soundcloud.webapi.android.metrics.InMemoryMetricsSink}.
+         *
+         * @param metricsSink The sink to report to.
+         * @return The instance of the builder that was just updated.
+         */
+        public Builder setMetricsSink(MetricsSink metricsSink) {
+            this.metricsSink = metricsSink;
+
+            return this;
+        }
+
+        /**
+         * Spreads requests out over time and retries throttled or failed GET requests, as
+         * configured by a {@link RateGovernor}. If a {@link MetricsSink} is set, the governor
+         * reports its queue depth and retries to it.
+         *
+         * @param rateGovernor The governor to apply to every request.
+         * @return The instance of the builder that was just updated.
+         */
+        public Builder setRateGovernor(RateGovernor rateGovernor) {
+            this.rateGovernor = rateGovernor;
+
+            return this;
+        }
+
+        /**
+         * Sets whether identical GET calls made while one of them is in flight share its
+         * request and decoded body. Calls are matched by their URL, including credentials. If a
+         * {@link MetricsSink} is set, shared calls are counted in it.
+         *
+         * @param deduplicateRequests True to deduplicate calls, false to always make a request.
+         * @return The instance of the builder that was just updated.
+         * @see RequestDeduplicator
+         */
+        public Builder setDeduplicateRequests(boolean deduplicateRequests) {
+            this.deduplicateRequests = deduplicateRequests;
+
+            return this;
+        }
+
+        public SoundCloudAPI build() {
+            return new SoundCloudAPI(this);
+        }
+
+        private OkHttpClient buildClient(MetricsCollector metricsCollector) {
+            OkHttpClient.Builder clientBuilder =
+                    client != null ? client.newBuilder() : new OkHttpClient.Builder();
+
+            if (virtualThreads) {
+                Dispatcher dispatcher = new Dispatcher(VirtualThreads.newExecutor());
+
+                dispatcher.setMaxRequests(
+                        maxRequests > 0 ? maxRequests : VIRTUAL_THREAD_MAX_REQUESTS);
+                dispatcher.setMaxRequestsPerHost(
+                        maxRequestsPerHost > 0 ? maxRequestsPerHost : VIRTUAL_THREAD_MAX_REQUESTS);
+
+                clientBuilder.dispatcher(dispatcher);
+            } else if (maxRequests > 0 || maxRequestsPerHost > 0) {
+                Dispatcher dispatcher = client != null ? client.dispatcher() : new Dispatcher();
+
+                if (maxRequests > 0) {
+                    dispatcher.setMaxRequests(maxRequests);
+                }
+
+                if (maxRequestsPerHost > 0) {
+                    dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+                }
+
+                clientBuilder.dispatcher(dispatcher);
+            }
+
+            if (connectionPool != null) {
+                clientBuilder.connectionPool(connectionPool);
+            }
+
+            if (protocols != null) {
+                clientBuilder.protocols(protocols);
+            }
+
+            if (responseCache != null) {
+                clientBuilder.cache(responseCache.getCache())
+                        .addNetworkInterceptor(responseCache.networkInterceptor());
+            }
+
+            if (metricsCollector != null) {
+                Dns dns = client != null ? client.dns() : Dns.SYSTEM;
+
+                clientBuilder.dns(metricsCollector.dns(dns))
+                        .addNetworkInterceptor(metricsCollector.networkInterceptor());
+
+                // A custom socket factory is kept, at the cost of connect times.
+                if (client == null || client.socketFactory() == SocketFactory.getDefault()) {
+                    clientBuilder.socketFactory(metricsCollector.socketFactory());
+                }
+            }
+
+            return clientBuilder.build();
         }
     }
 }
@@ -28,6 +28,7 @@ import com.jlubecki.soundcloud.webapi.android.models.Comment;
 import com.jlubecki.soundcloud.webapi.android.models.Connection;
 import com.jlubecki.soundcloud.webapi.android.models.Group;
 import com.jlubecki.soundcloud.webapi.android.models.Groups;
+import com.jlubecki.soundcloud.webapi.android.models.Pager;
 import com.jlubecki.soundcloud.webapi.android.models.Playlist;
 import com.jlubecki.soundcloud.webapi.android.models.SecretToken;
 import com.jlubecki.soundcloud.webapi.android.models.Track;
@@ -42,6 +43,7 @@ import retrofit2.http.GET;
 import retrofit2.http.Path;
 import retrofit2.http.Query;
 import retrofit2.http.QueryMap;
+import retrofit2.http.Url;
 
 /**
  * Contains methods to access the SoundCloud API.
@@ -183,6 +185,18 @@ public interface SoundCloudService {
     @GET("users/{id}/tracks")
     Call<List<Track>> getUserTracks(@Path("id") String userId);
 
+    /**
+     * Returns a call that can provide one page of the {@link Track} items for a user with a given ID.
+     *
+     * @param userId  ID for the user to get tracks for.
+     * @param queries {@link HashMap} of query params, such as those created by a
+     *                {@link com.jlubecki.soundcloud.webapi.android.query.Pager}.
+     * @return The call that can be used to get the data.
+     */
+    @GET("users/{id}/tracks")
+    Call<List<Track>> getUserTracks(@Path("id") String userId,
+                                    @QueryMap HashMap<String, String> queries);
+
     /**
      * Returns a call that can provide a list of {@link Playlist} objects for a user with a given ID.
      *
@@ -192,6 +206,19 @@ public interface SoundCloudService {
     @GET("users/{id}/playlists")
     Call<List<Playlist>> getUserPlaylists(@Path("id") String userId);
 
+    /**
+     * Returns a call that can provide one page of the {@link Playlist} objects for a user with a given
+     * ID.
+     *
+     * @param userId  ID for the user to get playlists for.
+     * @param queries {@link HashMap} of query params, such as those created by a
+     *                {@link com.jlubecki.soundcloud.webapi.android.query.Pager}.
+     * @return The call that can be used to get the data.
+     */
+    @GET("users/{id}/playlists")
+    Call<List<Playlist>> getUserPlaylists(@Path("id") String userId,
+                                          @QueryMap HashMap<String, String> queries);
+
     /**
      * Returns {@link User}s followed by a user with a given ID.
      *
@@ -201,6 +228,18 @@ public interface SoundCloudService {
     @GET("users/{id}/followings")
     Call<List<User>> getUserFollowings(@Path("id") String userId);
 
+    /**
+     * Returns one page of the {@link User}s followed by a user with a given ID.
+     *
+     * @param userId  ID of the user to get the followings for.
+     * @param queries {@link HashMap} of query params, such as those created by a
+     *                {@link com.jlubecki.soundcloud.webapi.android.query.Pager}.
+     * @return The call that can be used to get the data.
+     */
+    @GET("users/{id}/followings")
+    Call<List<User>> getUserFollowings(@Path("id") String userId,
+                                       @QueryMap HashMap<String, String> queries);
+
     /**
      * Returns a call that can provide a {@link User} with a given ID followed by another user with a given ID.
      *
@@ -220,6 +259,18 @@ public interface SoundCloudService {
     @GET("users/{id}/followers")
     Call<List<User>> getUserFollowers(@Path("id") String userId);
 
+    /**
+     * Returns one page of the {@link User}s following a user with a given ID.
+     *
+     * @param userId  ID of a user to get the followers for.
+     * @param queries {@link HashMap} of query params, such as those created by a
+     *                {@link com.jlubecki.soundcloud.webapi.android.query.Pager}.
+     * @return The call that can be used to get the data.
+     */
+    @GET("users/{id}/followers")
+    Call<List<User>> getUserFollowers(@Path("id") String userId,
+                                      @QueryMap HashMap<String, String> queries);
+
     /**
      * Returns a call that can provide a {@link User} followed by a user with a given ID.
      *
@@ -248,6 +299,19 @@ public interface SoundCloudService {
     @GET("users/{id}/favorites")
     Call<List<Track>> getUserFavorites(@Path("id") String userId);
 
+    /**
+     * Returns a call that can provide one page of the favorited {@link Track} items for a user with a
+     * given ID.
+     *
+     * @param userId  ID of the user to get favorites for.
+     * @param queries {@link HashMap} of query params, such as those created by a
+     *                {@link com.jlubecki.soundcloud.webapi.android.query.Pager}.
+     * @return The call that can be used to get the data.
+     */
+    @GET("users/{id}/favorites")
+    Call<List<Track>> getUserFavorites(@Path("id") String userId,
+                                       @QueryMap HashMap<String, String> queries);
+
     /**
      * Returns a call that can provide a favorited {@link Track} for a user with a given ID.
      *
@@ -540,4 +604,58 @@ public interface SoundCloudService {
      */
     @GET("me/connections")
     Call<Connection> getMyConnection(String connectionId);
+
+    /**
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     *                                        ~~ PAGES ~~
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    /**
+     * Returns a call that can provide a page of {@link Track} items from a list endpoint requested
+     * with {@code linked_partitioning=1}, or from the {@code next_href} of a previous page.
+     *
+     * @param url Absolute URL of the page.
+     * @return The call that can be used to get the data.
+     * @see com.jlubecki.soundcloud.webapi.android.paging.PagedIterable
+     */
+    @GET
+    Call<Pager<Track>> getTrackPage(@Url String url);
+
+    /**
+     * Returns a call that can provide a page of {@link User} items from a list endpoint requested
+     * with {@code linked_partitioning=1}, or from the {@code next_href} of a previous page.
+     *
+     * @param url Absolute URL of the page.
+     * @return The call that can be used to get the data.
+     * @see com.jlubecki.soundcloud.webapi.android.paging.PagedIterable
+     */
+    @GET
+    Call<Pager<User>> getUserPage(@Url String url);
+
+    /**
+     * Returns a call that can provide a page of {@link Playlist} items from a list endpoint
+     * requested with {@code linked_partitioning=1}, or from the {@code next_href} of a previous
+     * page.
+     *
+     * @param url Absolute URL of the page.
+     * @return The call that can be used to get the data.
+     * @see com.jlubecki.soundcloud.webapi.android.paging.PagedIterable
+     */
+    @GET
+    Call<Pager<Playlist>> getPlaylistPage(@Url String url);
+
+    /**
+     * Returns a call that can provide a page of {@link Comment} items from a list endpoint
+     * requested with {@code linked_partitioning=1}, or from the {@code next_href} of a previous
+     * page.
+     *
+     * @param url Absolute URL of the page.
+     * @return The call that can be used to get the data.
+     * @see com.jlubecki.soundcloud.webapi.android.paging.PagedIterable
+     */
+    @GET
+    Call<Pager<Comment>> getCommentPage(@Url String url);
 }
@@ -0,0 +1,137 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.artwork;
+
+import com.jlubecki.soundcloud.webapi.android.models.MiniUser;
+import com.jlubecki.soundcloud.webapi.android.models.Playlist;
+import com.jlubecki.soundcloud.webapi.android.models.Track;
+import com.jlubecki.soundcloud.webapi.android.models.User;
+
+/**
+ * Rewrites artwork and avatar URLs to the format a view needs, so that a 67 pixel list row
+ * doesn't download the 100 pixel default, and the player doesn't upscale it.
+ */
+public final class Artwork {
+
+    private static final String[] FORMATS;
+
+    static {
+        ArtworkSize[] sizes = ArtworkSize.values();
+        FORMATS = new String[sizes.length + 1];
+
+        for (int i = 0; i < sizes.length; i++) {
+            FORMATS[i] = sizes[i].getFormat();
+        }
+
+        FORMATS[sizes.length] = "original";
+    }
+
+    private Artwork() {
+    }
+
+    /**
+     * Switches an image URL to a format. URLs without a known format, such as default avatars,
+     * are returned unchanged.
+     *
+     * @param url  An image URL, e.g. {@code https://i1.sndcdn.com/artworks-000-abc-large.jpg}.
+     * @param size The format.
+     * @return The URL of the format, or null if the URL is null.
+     */
+    public static String url(String url, ArtworkSize size) {
+        if (url == null) {
+            return null;
+        }
+
+        int query = url.indexOf('?');
+        int end = query >= 0 ? query : url.length();
+        int dot = url.lastIndexOf('.', end);
+        int dash = url.lastIndexOf('-', dot);
+        int slash = url.lastIndexOf('/', end);
+
+        if (dot < 0 || dash < 0 || dash < slash) {
+            return url;
+        }
+
+        String format = url.substring(dash + 1, dot);
+
+        for (String known : FORMATS) {
+            if (known.equals(format)) {
+                return url.substring(0, dash + 1) + size.getFormat() + url.substring(dot);
+            }
+        }
+
+        return url;
+    }
+
+    /**
+     * @param track A track.
+     * @param size  The format.
+     * @return The track's artwork, or its uploader's avatar if it has none, as SoundCloud shows
+     * it. Null if there is neither.
+     */
+    public static String url(Track track, ArtworkSize size) {
+        if (track.artwork_url != null) {
+            return url(track.artwork_url, size);
+        }
+
+        return track.user != null ? avatarUrl(track.user.avatar_url, size) : null;
+    }
+
+    /**
+     * @param playlist A playlist.
+     * @param size     The format.
+     * @return The playlist's artwork, or its creator's avatar if it has none. Null if there is
+     * neither.
+     */
+    public static String url(Playlist playlist, ArtworkSize size) {
+        if (playlist.artwork_url != null) {
+            return url(playlist.artwork_url, size);
+        }
+
+        return playlist.user != null ? avatarUrl(playlist.user.avatar_url, size) : null;
+    }
+
+    /**
+     * @param user A user.
+     * @param size The format.
+     * @return The user's avatar, or null if there is none.
+     */
+    public static String url(User user, ArtworkSize size) {
+        return avatarUrl(user.avatar_url, size);
+    }
+
+    /**
+     * @param user A user embedded in another entity.
+     * @param size The format.
+     * @return The user's avatar, or null if there is none.
+     */
+    public static String url(MiniUser user, ArtworkSize size) {
+        return avatarUrl(user.avatar_url, size);
+    }
+
+    private static String avatarUrl(String url, ArtworkSize size) {
+        return url(url, size == ArtworkSize.T67X67 ? ArtworkSize.LARGE : size);
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.artwork;
+
+import android.util.LruCache;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory cache of encoded images by URL, bounded by bytes with least recently used eviction.
+ * It holds the compressed bytes, which are a fraction of the size of decoded bitmaps, so it can
+ * be shared by an {@link ArtworkPrefetcher} and an application's image decoding.
+ */
+public class ArtworkCache {
+
+    private final LruCache<String, byte[]> images;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    /**
+     * @param maxSize Maximum number of bytes to keep.
+     */
+    public ArtworkCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize <= 0: " + maxSize);
+        }
+
+        this.images = new LruCache<String, byte[]>(maxSize) {
+            @Override
+            protected int sizeOf(String url, byte[] image) {
+                return image.length;
+            }
+        };
+    }
+
+    /**
+     * @param url The image URL.
+     * @return The image, or null if it isn't cached. The array is shared, so it must not be
+     * modified.
+     */
+    public byte[] get(String url) {
+        byte[] image = images.get(url);
+
+        if (image != null) {
+            hitCount.incrementAndGet();
+        } else {
+            missCount.incrementAndGet();
+        }
+
+        return image;
+    }
+
+    /**
+     * Caches an image. Images larger than the cache are ignored.
+     *
+     * @param url   The image URL.
+     * @param image The encoded image.
+     */
+    public void put(String url, byte[] image) {
+        // LruCache would evict every other image before dropping this one.
+        if (image.length > images.maxSize()) {
+            return;
+        }
+
+        images.put(url, image);
+    }
+
+    /**
+     * @param url The image URL.
+     * @return True if the image is cached. The image becomes the most recently used one, but the
+     * check isn't counted as a hit or miss.
+     */
+    public boolean contains(String url) {
+        return images.get(url) != null;
+    }
+
+    public void evictAll() {
+        images.evictAll();
+    }
+
+    /**
+     * @return The number of bytes in the cache.
+     */
+    public long size() {
+        return images.size();
+    }
+
+    public long maxSize() {
+        return images.maxSize();
+    }
+
+    public long hitCount() {
+        return hitCount.get();
+    }
+
+    public long missCount() {
+        return missCount.get();
+    }
+}
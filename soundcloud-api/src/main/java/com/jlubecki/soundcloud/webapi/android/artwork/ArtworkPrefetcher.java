@@ -0,0 +1,401 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.artwork;
+
+import com.jlubecki.soundcloud.webapi.android.concurrent.SettableFuture;
+import com.jlubecki.soundcloud.webapi.android.models.Track;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Downloads artwork into an {@link ArtworkCache} with a bounded number of requests at a time.
+ * <p/>
+ * {@link #prefetch(List, List)} is called as a list scrolls, with the URLs of the visible rows
+ * and of the rows just past them. Visible images are fetched first. Prefetches that were queued
+ * for an earlier window and haven't started yet are dropped, so a fast fling doesn't leave a
+ * backlog of images that scrolled away. {@link #load(String)} fetches one image ahead of any
+ * prefetch. Every request for an image that is already being fetched shares that download.
+ * <pre>
+ * prefetcher.prefetch(tracks, firstVisible, lastVisible, ArtworkSize.T67X67);
+ * </pre>
+ */
+public class ArtworkPrefetcher {
+
+    public static final int MAX_REQUESTS_DEFAULT = 4;
+    public static final int LOOK_AHEAD_DEFAULT = 10;
+
+    private final OkHttpClient client;
+    private final ArtworkCache cache;
+    private final int maxRequests;
+    private final int lookAhead;
+
+    /**
+     * Fetches by URL, queued or running.
+     */
+    private final Map<String, Fetch> fetches = new HashMap<>();
+
+    /**
+     * URLs of queued fetches, in the order they start.
+     */
+    private final LinkedHashSet<String> queue = new LinkedHashSet<>();
+    private int running;
+
+    private final AtomicLong downloadCount = new AtomicLong();
+    private final AtomicLong sharedCount = new AtomicLong();
+
+    private ArtworkPrefetcher(Builder builder) {
+        this.client = builder.client;
+        this.cache = builder.cache;
+        this.maxRequests = builder.maxRequests;
+        this.lookAhead = builder.lookAhead;
+    }
+
+    /**
+     * @return The cache images are downloaded into.
+     */
+    public ArtworkCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Loads an image from the cache, or downloads it ahead of queued prefetches.
+     *
+     * @param url The image URL, e.g. from {@link Artwork#url(Track, ArtworkSize)}.
+     * @return A future that completes with the encoded image on an OkHttp thread. The array is
+     * shared, so it must not be modified.
+     */
+    public SettableFuture<byte[]> load(String url) {
+        if (url == null) {
+            throw new IllegalArgumentException("url == null");
+        }
+
+        byte[] cached = cache.get(url);
+
+        if (cached != null) {
+            SettableFuture<byte[]> result = new SettableFuture<>();
+            result.set(cached);
+            return result;
+        }
+
+        synchronized (this) {
+            Fetch fetch = fetches.get(url);
+
+            if (fetch != null) {
+                sharedCount.incrementAndGet();
+                fetch.demanded = true;
+
+                if (queue.remove(url)) {
+                    // Jump ahead of the prefetches.
+                    requeueFirst(url);
+                }
+
+                return fetch.future;
+            }
+
+            fetch = new Fetch(url, true);
+            fetches.put(url, fetch);
+            requeueFirst(url);
+            promote();
+
+            return fetch.future;
+        }
+    }
+
+    /**
+     * Replaces the queued prefetches with the images of a window of a list.
+     *
+     * @param visible   URLs of the visible images, fetched first. Nulls are skipped.
+     * @param lookAhead URLs of the images about to scroll into view. Nulls are skipped.
+     */
+    public synchronized void prefetch(List<String> visible, List<String> lookAhead) {
+        Set<String> wanted = new LinkedHashSet<>();
+
+        addAll(wanted, visible);
+        addAll(wanted, lookAhead);
+
+        // Drop prefetches for images that scrolled away before they started.
+        Iterator<String> iterator = queue.iterator();
+
+        while (iterator.hasNext()) {
+            String url = iterator.next();
+            Fetch fetch = fetches.get(url);
+
+            if (!fetch.demanded && !wanted.contains(url)) {
+                iterator.remove();
+                fetches.remove(url);
+                fetch.future.cancel(false);
+            }
+        }
+
+        List<String> demanded = new ArrayList<>();
+
+        for (String url : queue) {
+            if (fetches.get(url).demanded) {
+                demanded.add(url);
+            }
+        }
+
+        // Demanded loads first, then the window in order.
+        LinkedHashSet<String> order = new LinkedHashSet<>(demanded);
+
+        for (String url : wanted) {
+            Fetch fetch = fetches.get(url);
+
+            if (fetch == null && !cache.contains(url)) {
+                fetches.put(url, new Fetch(url, false));
+                order.add(url);
+            } else if (fetch != null && queue.contains(url)) {
+                order.add(url);
+            }
+        }
+
+        queue.clear();
+        queue.addAll(order);
+        promote();
+    }
+
+    /**
+     * Prefetches the images of the visible tracks of a list and of the tracks after them.
+     *
+     * @param tracks       The tracks of the list.
+     * @param firstVisible Index of the first visible track.
+     * @param lastVisible  Index of the last visible track.
+     * @param size         The format the rows show.
+     */
+    public void prefetch(List<Track> tracks, int firstVisible, int lastVisible, ArtworkSize size) {
+        int from = Math.max(0, firstVisible);
+        int to = Math.min(tracks.size() - 1, lastVisible);
+        int ahead = Math.min(tracks.size() - 1, to + lookAhead);
+
+        List<String> visible = new ArrayList<>(Math.max(0, to - from + 1));
+        List<String> next = new ArrayList<>(Math.max(0, ahead - to));
+
+        for (int i = from; i <= to; i++) {
+            visible.add(Artwork.url(tracks.get(i), size));
+        }
+
+        for (int i = to + 1; i <= ahead; i++) {
+            next.add(Artwork.url(tracks.get(i), size));
+        }
+
+        prefetch(visible, next);
+    }
+
+    /**
+     * Drops every queued prefetch. Running downloads finish and are cached.
+     */
+    public synchronized void cancelPrefetches() {
+        prefetch(new ArrayList<String>(0), new ArrayList<String>(0));
+    }
+
+    /**
+     * @return The number of images that were downloaded.
+     */
+    public long getDownloadCount() {
+        return downloadCount.get();
+    }
+
+    /**
+     * @return The number of loads that shared a download that was already queued or running.
+     */
+    public long getSharedCount() {
+        return sharedCount.get();
+    }
+
+    private void requeueFirst(String url) {
+        List<String> rest = new ArrayList<>(queue);
+
+        queue.clear();
+        queue.add(url);
+        queue.addAll(rest);
+    }
+
+    private static void addAll(Set<String> set, List<String> urls) {
+        if (urls != null) {
+            for (String url : urls) {
+                if (url != null) {
+                    set.add(url);
+                }
+            }
+        }
+    }
+
+    /**
+     * Starts queued fetches while fewer than the maximum are running.
+     */
+    private void promote() {
+        Iterator<String> iterator = queue.iterator();
+
+        while (running < maxRequests && iterator.hasNext()) {
+            Fetch fetch = fetches.get(iterator.next());
+            iterator.remove();
+            running++;
+
+            client.newCall(new Request.Builder().url(fetch.url).build()).enqueue(fetch);
+        }
+    }
+
+    private synchronized void finished(Fetch fetch) {
+        fetches.remove(fetch.url);
+        running--;
+        promote();
+    }
+
+    private final class Fetch implements Callback {
+
+        final String url;
+        final SettableFuture<byte[]> future = new SettableFuture<>();
+        boolean demanded;
+
+        Fetch(String url, boolean demanded) {
+            this.url = url;
+            this.demanded = demanded;
+        }
+
+        @Override
+        public void onResponse(Call call, Response response) {
+            byte[] image = null;
+            Exception failure = null;
+
+            try {
+                if (!response.isSuccessful()) {
+                    throw new IOException("Artwork request failed with HTTP " + response.code());
+                }
+
+                image = response.body().bytes();
+
+                downloadCount.incrementAndGet();
+                cache.put(url, image);
+            } catch (IOException | RuntimeException e) {
+                failure = e;
+            } finally {
+                response.body().close();
+                finished(this);
+            }
+
+            if (failure != null) {
+                future.setException(failure);
+            } else {
+                future.set(image);
+            }
+        }
+
+        @Override
+        public void onFailure(Call call, IOException e) {
+            finished(this);
+            future.setException(e);
+        }
+    }
+
+    public static class Builder {
+
+        private final OkHttpClient client;
+        private ArtworkCache cache;
+        private int maxRequests = MAX_REQUESTS_DEFAULT;
+        private int lookAhead = LOOK_AHEAD_DEFAULT;
+
+        /**
+         * @param client The client used to download images, e.g. {@link
+         *               com.jlubecki.soundcloud.webapi.android.SoundCloudAPI#getClient()}.
+         */
+        public Builder(OkHttpClient client) {
+            if (client == null) {
+                throw new IllegalArgumentException("client == null");
+            }
+
+            this.client = client;
+        }
+
+        /**
+         * Sets the cache images are downloaded into, e.g. one shared with an image loader.
+         * Defaults to a new 4 MiB cache.
+         *
+         * @param cache The cache.
+         * @return The instance of the builder that was just updated.
+         */
+        public Builder setCache(ArtworkCache cache) {
+            this.cache = cache;
+
+            return this;
+        }
+
+        /**
+         * Sets how many images are downloaded at once. Defaults to {@value
+         * #MAX_REQUESTS_DEFAULT}, which leaves connections for API requests.
+         *
+         * @param maxRequests The maximum number of concurrent downloads.
+         * @return The instance of the builder that was just updated.
+         */
+        public Builder setMaxRequests(int maxRequests) {
+            if (maxRequests < 1) {
+                throw new IllegalArgumentException("maxRequests < 1: " + maxRequests);
+            }
+
+            this.maxRequests = maxRequests;
+
+            return this;
+        }
+
+        /**
+         * Sets how many tracks past the visible ones {@link ArtworkPrefetcher#prefetch(List,
+         * int, int, ArtworkSize)} prefetches. Defaults to {@value #LOOK_AHEAD_DEFAULT}.
+         *
+         * @param lookAhead The number of tracks.
+         * @return The instance of the builder that was just updated.
+         */
+        public Builder setLookAhead(int lookAhead) {
+            if (lookAhead < 0) {
+                throw new IllegalArgumentException("lookAhead < 0: " + lookAhead);
+            }
+
+            this.lookAhead = lookAhead;
+
+            return this;
+        }
+
+        public ArtworkPrefetcher build() {
+            if (cache == null) {
+                cache = new ArtworkCache(4 * 1024 * 1024);
+            }
+
+            return new ArtworkPrefetcher(this);
+        }
+    }
+}
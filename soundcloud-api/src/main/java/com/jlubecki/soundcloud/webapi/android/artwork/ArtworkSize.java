@@ -0,0 +1,93 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.artwork;
+
+/**
+ * The formats SoundCloud encodes artworks and avatars in. An image URL points to {@link #LARGE}
+ * and is switched to another format by replacing the format name in it.
+ *
+ * @see Artwork
+ */
+public enum ArtworkSize {
+
+    T500X500("t500x500", 500),
+    CROP("crop", 400),
+    T300X300("t300x300", 300),
+    LARGE("large", 100),
+
+    /**
+     * Only available for artworks; avatars use {@link #LARGE} instead.
+     */
+    T67X67("t67x67", 67),
+    BADGE("badge", 47),
+    SMALL("small", 32),
+
+    /**
+     * 20×20 on artworks and 18×18 on avatars.
+     */
+    TINY("tiny", 20),
+    MINI("mini", 16);
+
+    private final String format;
+    private final int pixels;
+
+    ArtworkSize(String format, int pixels) {
+        this.format = format;
+        this.pixels = pixels;
+    }
+
+    /**
+     * @return The name of the format in image URLs.
+     */
+    public String getFormat() {
+        return format;
+    }
+
+    /**
+     * @return The width and height of the format in pixels.
+     */
+    public int getPixels() {
+        return pixels;
+    }
+
+    /**
+     * Picks the smallest format that covers a view without upscaling.
+     *
+     * @param pixels The size of the view in pixels.
+     * @return The smallest format at least as large as the view, or {@link #T500X500} if none
+     * is.
+     */
+    public static ArtworkSize atLeast(int pixels) {
+        ArtworkSize[] sizes = values();
+
+        for (int i = sizes.length - 1; i >= 0; i--) {
+            if (sizes[i].pixels >= pixels) {
+                return sizes[i];
+            }
+        }
+
+        return T500X500;
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.async;
+
+import com.jlubecki.soundcloud.webapi.android.concurrent.SettableFuture;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * A future for the body of a Retrofit {@link Call}. The call is enqueued when the future is
+ * created and cancelled when the future is cancelled. Responses outside of the 2xx range
+ * complete the future with an {@link HttpException}.
+ * <p/>
+ * The future completes on one of OkHttp's dispatcher threads, so listeners should hand any
+ * UI work to the main thread.
+ *
+ * @param <T> The type of the response body.
+ */
+public class CallFuture<T> extends SettableFuture<T> {
+
+    private final Call<T> call;
+
+    private CallFuture(Call<T> call) {
+        this.call = call;
+    }
+
+    /**
+     * Enqueues a call and returns a future for its body.
+     *
+     * @param call The call to enqueue. It must not have been executed yet.
+     * @param <T>  The type of the response body.
+     * @return The future for the body.
+     */
+    public static <T> CallFuture<T> enqueue(Call<T> call) {
+        final CallFuture<T> future = new CallFuture<>(call);
+
+        call.enqueue(new Callback<T>() {
+            @Override
+            public void onResponse(Call<T> call, Response<T> response) {
+                if (response.isSuccessful()) {
+                    future.set(response.body());
+                } else {
+                    future.setException(new HttpException(response));
+                }
+            }
+
+            @Override
+            public void onFailure(Call<T> call, Throwable t) {
+                future.setException(t);
+            }
+        });
+
+        return future;
+    }
+
+    /**
+     * @return The call whose body this future provides.
+     */
+    public Call<T> getCall() {
+        return call;
+    }
+
+    @Override
+    protected void onCancelled() {
+        call.cancel();
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.async;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * A cold {@link Flow.Publisher} for the body of a Retrofit {@link Call}. Every subscriber gets a
+ * clone of the call, which is enqueued once an item is requested and cancelled with the
+ * subscription.
+ *
+ * @param <T> The type of the response body.
+ */
+class CallPublisher<T> implements Flow.Publisher<T> {
+
+    private final Call<T> call;
+
+    CallPublisher(Call<T> call) {
+        this.call = call;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("subscriber == null");
+        }
+
+        subscriber.onSubscribe(new CallSubscription<>(call.clone(), subscriber));
+    }
+
+    private static class CallSubscription<T> implements Flow.Subscription, Callback<T> {
+
+        private final Call<T> call;
+        private final Flow.Subscriber<? super T> subscriber;
+        private final AtomicBoolean requested = new AtomicBoolean();
+        private volatile boolean cancelled;
+
+        CallSubscription(Call<T> call, Flow.Subscriber<? super T> subscriber) {
+            this.call = call;
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (cancelled) {
+                return;
+            }
+
+            if (n <= 0) {
+                cancel();
+                subscriber.onError(new IllegalArgumentException("n <= 0: " + n));
+
+                return;
+            }
+
+            if (requested.compareAndSet(false, true)) {
+                call.enqueue(this);
+            }
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            call.cancel();
+        }
+
+        @Override
+        public void onResponse(Call<T> call, Response<T> response) {
+            if (cancelled) {
+                return;
+            }
+
+            if (!response.isSuccessful()) {
+                subscriber.onError(new HttpException(response));
+
+                return;
+            }
+
+            // A 204 has no body, so only completion is signalled.
+            if (response.body() != null) {
+                subscriber.onNext(response.body());
+            }
+
+            if (!cancelled) {
+                subscriber.onComplete();
+            }
+        }
+
+        @Override
+        public void onFailure(Call<T> call, Throwable t) {
+            if (!cancelled) {
+                subscriber.onError(t);
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.async;
+
+/**
+ * Interfaces for reactive streams with back pressure, with the same shape and contract as
+ * {@code java.util.concurrent.Flow}, which is not available on the Android versions this
+ * library supports. Adapting them to {@code java.util.concurrent.Flow} or to the Reactive
+ * Streams interfaces only takes forwarding each method.
+ */
+public final class Flow {
+
+    private Flow() {
+        // No instances.
+    }
+
+    /**
+     * A producer of items that are received by {@link Subscriber}s.
+     *
+     * @param <T> The type of the items.
+     */
+    public interface Publisher<T> {
+
+        /**
+         * Adds a subscriber, which is handed a {@link Subscription} through
+         * {@link Subscriber#onSubscribe(Subscription)}. No items are sent before they are
+         * requested through the subscription.
+         *
+         * @param subscriber The subscriber.
+         */
+        void subscribe(Subscriber<? super T> subscriber);
+    }
+
+    /**
+     * A receiver of items. Its methods are called in order, never concurrently.
+     *
+     * @param <T> The type of the items.
+     */
+    public interface Subscriber<T> {
+
+        void onSubscribe(Subscription subscription);
+
+        void onNext(T item);
+
+        /**
+         * Called when the publisher fails. No other methods are called after it.
+         */
+        void onError(Throwable throwable);
+
+        /**
+         * Called when all items have been sent. No other methods are called after it.
+         */
+        void onComplete();
+    }
+
+    /**
+     * The link between a {@link Publisher} and a {@link Subscriber}.
+     */
+    public interface Subscription {
+
+        /**
+         * Asks for up to a number of further items.
+         *
+         * @param n The number of items, which must be positive.
+         */
+        void request(long n);
+
+        /**
+         * Stops sending items, and cancels the work producing them if possible.
+         */
+        void cancel();
+    }
+}
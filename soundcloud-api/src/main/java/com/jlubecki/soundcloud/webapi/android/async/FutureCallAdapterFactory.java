@@ -0,0 +1,92 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.async;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+
+import retrofit2.Call;
+import retrofit2.CallAdapter;
+import retrofit2.Retrofit;
+
+/**
+ * A {@link CallAdapter.Factory} for service methods that return a {@link CallFuture} or a
+ * {@link Flow.Publisher} of their response body. Other return types are left to the next
+ * factory.
+ *
+ * @see com.jlubecki.soundcloud.webapi.android.FutureSoundCloudService
+ */
+public final class FutureCallAdapterFactory extends CallAdapter.Factory {
+
+    private FutureCallAdapterFactory() {
+    }
+
+    public static FutureCallAdapterFactory create() {
+        return new FutureCallAdapterFactory();
+    }
+
+    @Override
+    public CallAdapter<?> get(Type returnType, Annotation[] annotations, Retrofit retrofit) {
+        Class<?> rawType = getRawType(returnType);
+
+        if (rawType != CallFuture.class && rawType != Flow.Publisher.class) {
+            return null;
+        }
+
+        if (!(returnType instanceof ParameterizedType)) {
+            throw new IllegalStateException(rawType.getSimpleName()
+                    + " return type must be parameterized, e.g. CallFuture<Track>");
+        }
+
+        final Type responseType = getParameterUpperBound(0, (ParameterizedType) returnType);
+
+        if (rawType == CallFuture.class) {
+            return new CallAdapter<CallFuture<?>>() {
+                @Override
+                public Type responseType() {
+                    return responseType;
+                }
+
+                @Override
+                public <R> CallFuture<?> adapt(Call<R> call) {
+                    return CallFuture.enqueue(call);
+                }
+            };
+        }
+
+        return new CallAdapter<Flow.Publisher<?>>() {
+            @Override
+            public Type responseType() {
+                return responseType;
+            }
+
+            @Override
+            public <R> Flow.Publisher<?> adapt(Call<R> call) {
+                return new CallPublisher<>(call);
+            }
+        };
+    }
+}
@@ -0,0 +1,311 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.async;
+
+import com.jlubecki.soundcloud.webapi.android.concurrent.SettableFuture;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Composes {@link SettableFuture}s, such as the {@link CallFuture}s of a
+ * {@link com.jlubecki.soundcloud.webapi.android.FutureSoundCloudService}, without blocking.
+ * <p/>
+ * Functions run on the thread that completes their input, which for calls is one of OkHttp's
+ * dispatcher threads, so they should be short. Cancelling a composed future cancels the futures
+ * it is waiting for, and with them their requests.
+ */
+public final class Futures {
+
+    private static final Executor DIRECT = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private Futures() {
+        // No instances.
+    }
+
+    /**
+     * Transforms the result of a future.
+     *
+     * @param <I> The type of the input.
+     * @param <O> The type of the output.
+     */
+    public interface Function<I, O> {
+        O apply(I input) throws Exception;
+    }
+
+    /**
+     * Transforms the result of a future into another future, e.g. one for a dependent request.
+     *
+     * @param <I> The type of the input.
+     * @param <O> The type of the output.
+     */
+    public interface AsyncFunction<I, O> {
+        SettableFuture<O> apply(I input) throws Exception;
+    }
+
+    /**
+     * @return An executor that runs tasks on the calling thread.
+     */
+    public static Executor directExecutor() {
+        return DIRECT;
+    }
+
+    /**
+     * @param value The result.
+     * @param <V>   The type of the result.
+     * @return A future that has already completed with a result.
+     */
+    public static <V> SettableFuture<V> immediateFuture(V value) {
+        SettableFuture<V> future = new SettableFuture<>();
+        future.set(value);
+
+        return future;
+    }
+
+    /**
+     * Applies a function to the result of a future. If the input fails or the function throws,
+     * the output fails with the same exception.
+     *
+     * @param input    The future to transform.
+     * @param function The function to apply.
+     * @param <I>      The type of the input.
+     * @param <O>      The type of the output.
+     * @return A future for the output of the function.
+     */
+    public static <I, O> SettableFuture<O> transform(final SettableFuture<I> input,
+                                                     final Function<? super I, ? extends O> function) {
+        final SettableFuture<O> output = new CancellingFuture<>(input);
+
+        input.addListener(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    output.set(function.apply(doneValue(input)));
+                } catch (CancellationException e) {
+                    output.cancel(false);
+                } catch (ExecutionException e) {
+                    output.setException(e.getCause());
+                } catch (Exception e) {
+                    output.setException(e);
+                }
+            }
+        }, DIRECT);
+
+        return output;
+    }
+
+    /**
+     * Applies a function to the result of a future, and completes with the future the function
+     * returns. Used to start a request that depends on the result of another.
+     *
+     * @param input    The future to transform.
+     * @param function The function returning the next future.
+     * @param <I>      The type of the input.
+     * @param <O>      The type of the output.
+     * @return A future for the result of the future returned by the function.
+     */
+    public static <I, O> SettableFuture<O> transformAsync(final SettableFuture<I> input,
+                                                          final AsyncFunction<? super I, O> function) {
+        final CancellingFuture<O> output = new CancellingFuture<>(input);
+
+        input.addListener(new Runnable() {
+            @Override
+            public void run() {
+                SettableFuture<O> next;
+
+                try {
+                    next = function.apply(doneValue(input));
+                } catch (CancellationException e) {
+                    output.cancel(false);
+                    return;
+                } catch (ExecutionException e) {
+                    output.setException(e.getCause());
+                    return;
+                } catch (Exception e) {
+                    output.setException(e);
+                    return;
+                }
+
+                output.cancelWith(next);
+                propagate(next, output);
+            }
+        }, DIRECT);
+
+        return output;
+    }
+
+    /**
+     * Combines futures into one for the list of their results, in the order of the futures. If
+     * any of them fails or is cancelled, the combined future fails or is cancelled as well, and
+     * the others are cancelled.
+     *
+     * @param futures The futures to combine.
+     * @param <V>     The type of the results.
+     * @return A future for the list of results.
+     */
+    public static <V> SettableFuture<List<V>> allAsList(
+            final List<? extends SettableFuture<? extends V>> futures) {
+        final CancellingFuture<List<V>> output =
+                new CancellingFuture<>(futures.toArray(new SettableFuture<?>[futures.size()]));
+
+        if (futures.isEmpty()) {
+            output.set(Collections.<V>emptyList());
+
+            return output;
+        }
+
+        final AtomicInteger remaining = new AtomicInteger(futures.size());
+
+        for (final SettableFuture<? extends V> future : futures) {
+            future.addListener(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        doneValue(future);
+                    } catch (CancellationException e) {
+                        output.cancel(false);
+                        return;
+                    } catch (ExecutionException e) {
+                        if (output.setException(e.getCause())) {
+                            output.onCancelled();
+                        }
+                        return;
+                    }
+
+                    if (remaining.decrementAndGet() == 0) {
+                        List<V> values = new ArrayList<>(futures.size());
+
+                        try {
+                            for (SettableFuture<? extends V> done : futures) {
+                                values.add(doneValue(done));
+                            }
+                        } catch (ExecutionException e) {
+                            output.setException(e.getCause());
+                            return;
+                        }
+
+                        output.set(values);
+                    }
+                }
+            }, DIRECT);
+        }
+
+        return output;
+    }
+
+    /**
+     * @see #allAsList(List)
+     */
+    @SafeVarargs
+    public static <V> SettableFuture<List<V>> allAsList(SettableFuture<? extends V>... futures) {
+        List<SettableFuture<? extends V>> list = new ArrayList<>(futures.length);
+
+        // Copied by hand: passing the array on to another varargs method isn't type safe.
+        for (SettableFuture<? extends V> future : futures) {
+            list.add(future);
+        }
+
+        return allAsList(list);
+    }
+
+    private static <V> V doneValue(SettableFuture<V> future) throws ExecutionException {
+        boolean interrupted = false;
+
+        try {
+            while (true) {
+                try {
+                    return future.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static <V> void propagate(final SettableFuture<V> from, final SettableFuture<V> to) {
+        from.addListener(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    to.set(doneValue(from));
+                } catch (CancellationException e) {
+                    to.cancel(false);
+                } catch (ExecutionException e) {
+                    to.setException(e.getCause());
+                }
+            }
+        }, DIRECT);
+    }
+
+    /**
+     * A future that cancels the futures it depends on when it is cancelled.
+     */
+    private static class CancellingFuture<V> extends SettableFuture<V> {
+
+        private final List<SettableFuture<?>> inputs = new ArrayList<>();
+
+        CancellingFuture(SettableFuture<?>... inputs) {
+            this.inputs.addAll(Arrays.asList(inputs));
+        }
+
+        void cancelWith(SettableFuture<?> input) {
+            synchronized (inputs) {
+                inputs.add(input);
+            }
+
+            if (isCancelled()) {
+                input.cancel(false);
+            }
+        }
+
+        @Override
+        protected void onCancelled() {
+            List<SettableFuture<?>> toCancel;
+
+            synchronized (inputs) {
+                toCancel = new ArrayList<>(inputs);
+            }
+
+            for (SettableFuture<?> input : toCancel) {
+                input.cancel(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.async;
+
+import retrofit2.Response;
+
+/**
+ * Completes a {@link CallFuture} or {@link Flow.Publisher} whose call got a response with a
+ * status code outside of the 2xx range.
+ */
+public class HttpException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int code;
+    private final transient Response<?> response;
+
+    public HttpException(Response<?> response) {
+        super("HTTP " + response.code() + " " + response.message());
+
+        this.code = response.code();
+        this.response = response;
+    }
+
+    /**
+     * @return The HTTP status code.
+     */
+    public int code() {
+        return code;
+    }
+
+    /**
+     * @return The response, whose {@link Response#errorBody()} can still be read.
+     */
+    public Response<?> response() {
+        return response;
+    }
+}
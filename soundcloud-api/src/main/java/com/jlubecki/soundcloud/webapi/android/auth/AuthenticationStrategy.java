@@ -30,12 +30,14 @@ import android.net.ConnectivityManager;
 import android.support.annotation.NonNull;
 import android.util.Log;
 
+import com.jlubecki.soundcloud.webapi.android.SoundCloudAPI;
 import com.jlubecki.soundcloud.webapi.android.auth.models.AuthenticationResponse;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
+import okhttp3.OkHttpClient;
 import retrofit2.Call;
 import retrofit2.Callback;
 import retrofit2.Response;
@@ -135,6 +137,7 @@ public class AuthenticationStrategy {
         private final Context context;
         private OnNetworkFailureListener onNetworkFailureListener;
         private boolean shouldCheckNetwork = false;
+        private OkHttpClient client;
 
         public Builder(@NonNull Context context) {
             this.context = context;
@@ -165,11 +168,30 @@ public class AuthenticationStrategy {
             return this;
         }
 
+        /**
+         * Sets the client every authenticator uses to obtain tokens.
+         *
+         * @param client The client to share, usually {@link SoundCloudAPI#getClient()}.
+         * @return The instance of the builder that was just updated.
+         * @see SoundCloudAuthenticator#setClient(OkHttpClient)
+         */
+        public Builder setClient(OkHttpClient client) {
+            this.client = client;
+
+            return this;
+        }
+
         public AuthenticationStrategy build() {
             AuthenticationStrategy strategy = new AuthenticationStrategy(context, authenticators);
             strategy.shouldCheckNetwork = shouldCheckNetwork;
             strategy.onNetworkFailureListener = onNetworkFailureListener;
 
+            if (client != null) {
+                for (SoundCloudAuthenticator authenticator : authenticators) {
+                    authenticator.setClient(client);
+                }
+            }
+
             return strategy;
         }
     }
@@ -53,6 +53,7 @@ import retrofit2.http.POST;
 public abstract class SoundCloudAuthenticator {
 
     private AuthService service;
+    private OkHttpClient client;
 
     private static final String RESPONSE_TYPE = "code";
     private static final String SCOPE = "non-expiring";
@@ -177,20 +178,33 @@ public abstract class SoundCloudAuthenticator {
         Call<AuthenticationResponse> authorize(@FieldMap Map<String, String> authMap);
     }
 
+    /**
+     * Sets the client used to obtain tokens. Passing {@link SoundCloudAPI#getClient()} lets the
+     * token exchange reuse the API's connection pool and dispatcher instead of creating its own.
+     *
+     * @param client The client to build the {@link AuthService} on.
+     */
+    public synchronized void setClient(OkHttpClient client) {
+        this.client = client;
+        this.service = null;
+    }
+
     /**
      * Gets the Auth Service so a user can call
      * {@link AuthService#authorize(Map)}.
      *
      * @return An instance of a {@link AuthService}.
      */
-    public final AuthService getAuthService() {
+    public final synchronized AuthService getAuthService() {
         if (service == null) {
-            OkHttpClient client =
-                    new OkHttpClient.Builder().addInterceptor(new AuthInterceptor()).build();
+            OkHttpClient.Builder clientBuilder =
+                    client != null ? client.newBuilder() : new OkHttpClient.Builder();
+
+            OkHttpClient authClient = clientBuilder.addInterceptor(new AuthInterceptor()).build();
 
             Retrofit adapter = new Retrofit.Builder()
                     .baseUrl(SoundCloudAPI.SOUNDCLOUD_API_ENDPOINT)
-                    .client(client)
+                    .client(authClient)
                     .addConverterFactory(GsonConverterFactory.create())
                     .build();
 
@@ -0,0 +1,282 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The files of a disk cache directory, deleted in least recently used order once their total
+ * size grows over a maximum. Files are written to a temporary file and then committed under their
+ * name, so a partly written file is never read.
+ * <p/>
+ * The directory is read on first use, so creating one does no I/O. Leftover temporary files are
+ * deleted then. The access order is lost with the process, so the modification time of the files
+ * stands in for it, and {@link #get(String)} touches the file it returns.
+ * <p/>
+ * Used by {@link com.jlubecki.soundcloud.webapi.android.stream.StreamCache} and the waveform
+ * disk cache, which add their own file formats on top.
+ */
+public final class DiskLru {
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final File directory;
+    private final long maxSize;
+    private final Listener listener;
+
+    /**
+     * Sizes of the files by name, in least recently used order.
+     */
+    private final LinkedHashMap<String, Long> files = new LinkedHashMap<>(16, 0.75f, true);
+    private boolean initialized;
+    private long size;
+
+    /**
+     * @param directory Directory of the files. It should not be shared with other caches.
+     * @param maxSize   Maximum size of the files in bytes.
+     * @param listener  Listener for deleted files, or null.
+     */
+    public DiskLru(File directory, long maxSize, Listener listener) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize <= 0: " + maxSize);
+        }
+
+        this.directory = directory;
+        this.maxSize = maxSize;
+        this.listener = listener;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return The number of bytes in the directory.
+     * @throws IOException if the directory can't be read.
+     */
+    public synchronized long size() throws IOException {
+        initialize();
+
+        return size;
+    }
+
+    /**
+     * @return True if there is a file with the name. Its place in the access order is kept.
+     * @throws IOException if the directory can't be read.
+     */
+    public synchronized boolean contains(String name) throws IOException {
+        initialize();
+
+        return files.containsKey(name);
+    }
+
+    /**
+     * @return The file with the name, or null if there is none. The file becomes the most
+     * recently used one.
+     * @throws IOException if the directory can't be read.
+     */
+    public synchronized File get(String name) throws IOException {
+        initialize();
+
+        if (files.get(name) == null) {
+            return null;
+        }
+
+        File file = new File(directory, name);
+        file.setLastModified(System.currentTimeMillis());
+
+        return file;
+    }
+
+    /**
+     * @param prefix Start of the name of the temporary file, e.g. the key of the entry.
+     * @return A new file to write to before it is committed.
+     * @throws IOException if the directory can't be read or created.
+     */
+    public synchronized File newTempFile(String prefix) throws IOException {
+        // Reading the directory deletes temporary files, so it must not happen after this one.
+        initialize();
+
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Can't create " + directory);
+        }
+
+        // The ".new" keeps short prefixes at the three characters createTempFile needs.
+        return File.createTempFile(prefix + ".new.", TEMP_SUFFIX, directory);
+    }
+
+    /**
+     * Moves a fully written temporary file to its name, replacing an earlier file with the name
+     * and deleting the least recently used files if the directory grew over its maximum size.
+     *
+     * @return The committed file.
+     * @throws IOException if the file can't be renamed or an old file can't be deleted.
+     */
+    public synchronized File commit(File temp, String name) throws IOException {
+        initialize();
+
+        File file = new File(directory, name);
+
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            throw new IOException("Can't rename " + temp + " to " + file);
+        }
+
+        Long previous = files.put(name, file.length());
+        size += file.length() - (previous != null ? previous : 0);
+
+        trimTo(maxSize, name);
+
+        return file;
+    }
+
+    /**
+     * Deletes a file, e.g. one that turned out to be damaged.
+     *
+     * @throws IOException if the file can't be deleted.
+     */
+    public synchronized void remove(String name) throws IOException {
+        initialize();
+
+        Long length = files.remove(name);
+
+        if (length != null) {
+            delete(name, length);
+        }
+    }
+
+    /**
+     * Deletes every file whose name starts with a prefix.
+     *
+     * @throws IOException if a file can't be deleted.
+     */
+    public synchronized void removeAll(String prefix) throws IOException {
+        initialize();
+
+        Iterator<Map.Entry<String, Long>> iterator = files.entrySet().iterator();
+
+        while (iterator.hasNext()) {
+            Map.Entry<String, Long> entry = iterator.next();
+
+            if (entry.getKey().startsWith(prefix)) {
+                iterator.remove();
+                delete(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Deletes every file.
+     *
+     * @throws IOException if a file can't be deleted.
+     */
+    public synchronized void clear() throws IOException {
+        removeAll("");
+    }
+
+    private void trimTo(long maxSize, String keep) throws IOException {
+        Iterator<Map.Entry<String, Long>> iterator = files.entrySet().iterator();
+
+        while (size > maxSize && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+
+            if (!eldest.getKey().equals(keep)) {
+                iterator.remove();
+                delete(eldest.getKey(), eldest.getValue());
+            }
+        }
+    }
+
+    private void delete(String name, long length) throws IOException {
+        File file = new File(directory, name);
+
+        size -= length;
+
+        if (listener != null) {
+            listener.onRemoved(name);
+        }
+
+        if (!file.delete() && file.exists()) {
+            throw new IOException("Can't delete " + file);
+        }
+    }
+
+    private void initialize() throws IOException {
+        if (initialized) {
+            return;
+        }
+
+        File[] listed = directory.listFiles();
+        List<File> sorted = new ArrayList<>(
+                listed != null ? Arrays.asList(listed) : Collections.<File>emptyList());
+
+        Collections.sort(sorted, new Comparator<File>() {
+            @Override
+            public int compare(File a, File b) {
+                long ta = a.lastModified();
+                long tb = b.lastModified();
+
+                return ta < tb ? -1 : (ta == tb ? 0 : 1);
+            }
+        });
+
+        for (File file : sorted) {
+            if (file.getName().endsWith(TEMP_SUFFIX)) {
+                file.delete();
+            } else if (file.isFile()) {
+                files.put(file.getName(), file.length());
+                size += file.length();
+            }
+        }
+
+        initialized = true;
+        trimTo(maxSize, null);
+    }
+
+    /**
+     * Learns about deleted files, e.g. to drop what is kept in memory about them. Called with
+     * the lock of the {@link DiskLru} held.
+     */
+    public interface Listener {
+
+        /**
+         * @param name Name of the deleted file.
+         */
+        void onRemoved(String name);
+    }
+}
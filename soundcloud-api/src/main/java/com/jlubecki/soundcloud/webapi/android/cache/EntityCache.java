@@ -0,0 +1,493 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.cache;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory identity map for decoded entities, keyed by type and id.
+ * <p/>
+ * When an entity is decoded while another instance with the same id is cached and the decoded
+ * entity holds nothing new, the cached instance is returned instead, so lists that contain the
+ * same track or user share one object. A decoded entity with new values takes over the values
+ * it lacks from the cached instance and replaces it. Cached instances are never modified, so
+ * they can be read on any thread while responses are decoded on others; an instance that was
+ * replaced keeps the values it was returned with.
+ * <p/>
+ * The cache is bounded by a number of entries, an approximate number of bytes, or both. Least
+ * recently used entries are evicted first.
+ * <p/>
+ * {@link Listener Listeners} learn about every entity that is cached or replaced, and every
+ * entity that leaves the cache, e.g. to keep a search index of the cached entities.
+ *
+ * @see com.jlubecki.soundcloud.webapi.android.SoundCloudAPI.Builder#setEntityCache(EntityCache)
+ */
+public class EntityCache {
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final List<Listener> listeners;
+
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long size;
+
+    /**
+     * Changes waiting to be delivered to the listeners, in the order they were made.
+     */
+    private final ArrayDeque<Event> events = new ArrayDeque<>();
+    private boolean dispatching;
+
+    private long hitCount;
+    private long missCount;
+    private long mergeCount;
+    private long evictionCount;
+
+    private EntityCache(Builder builder) {
+        this.maxEntries = builder.maxEntries;
+        this.maxBytes = builder.maxBytes;
+        this.listeners = Collections.unmodifiableList(new ArrayList<>(builder.listeners));
+    }
+
+    /**
+     * Returns the cached entity of a given type, without going to the network.
+     *
+     * @param type The type of the entity, e.g. {@code Track.class}.
+     * @param id   The id of the entity.
+     * @param <T>  The type of the entity.
+     * @return The cached entity, or null if it isn't cached.
+     */
+    public synchronized <T> T get(Class<T> type, String id) {
+        Entry entry = entries.get(new Key(type, id));
+
+        if (entry == null) {
+            missCount++;
+            return null;
+        }
+
+        hitCount++;
+
+        return type.cast(entry.value);
+    }
+
+    /**
+     * Adds a decoded entity to the cache. If an entity with the same id is already cached, the
+     * two are merged with {@link Model#merge(Object, Object)}.
+     *
+     * @param type   The type of the entity.
+     * @param entity The decoded entity.
+     * @param model  Describes how to identify, measure and merge entities of this type.
+     * @param <T>    The type of the entity.
+     * @return The cached instance, which is the given entity unless one was already cached and
+     * the given entity held nothing new.
+     */
+    public <T> T intern(Class<T> type, T entity, Model<T> model) {
+        T interned;
+
+        synchronized (this) {
+            interned = internLocked(type, entity, model);
+        }
+
+        dispatchEvents();
+
+        return interned;
+    }
+
+    /**
+     * Removes an entity from the cache.
+     *
+     * @param type The type of the entity.
+     * @param id   The id of the entity.
+     */
+    public void remove(Class<?> type, String id) {
+        synchronized (this) {
+            Entry entry = entries.remove(new Key(type, id));
+
+            if (entry != null) {
+                size -= entry.size;
+                notifyRemoved(type, id);
+            }
+        }
+
+        dispatchEvents();
+    }
+
+    /**
+     * Removes every entity from the cache.
+     */
+    public void clear() {
+        synchronized (this) {
+            for (Key key : entries.keySet()) {
+                notifyRemoved(key.type, key.id);
+            }
+
+            entries.clear();
+            size = 0;
+        }
+
+        dispatchEvents();
+    }
+
+    private <T> T internLocked(Class<T> type, T entity, Model<T> model) {
+        String id = model.idOf(entity);
+
+        if (id == null) {
+            return entity;
+        }
+
+        Key key = new Key(type, id);
+        Entry entry = entries.get(key);
+
+        if (entry != null) {
+            T cached = type.cast(entry.value);
+            T merged = cached != entity ? model.merge(entity, cached) : cached;
+
+            if (merged != cached) {
+                entry.value = merged;
+                mergeCount++;
+                resize(entry, model.sizeOf(merged));
+                notifyPut(type, id, merged);
+                trimToSize();
+            }
+
+            return merged;
+        }
+
+        entry = new Entry(entity, model.sizeOf(entity));
+        entries.put(key, entry);
+        size += entry.size;
+        notifyPut(type, id, entity);
+        trimToSize();
+
+        return entity;
+    }
+
+    /**
+     * @return The number of cached entities.
+     */
+    public synchronized int entryCount() {
+        return entries.size();
+    }
+
+    /**
+     * @return The approximate number of bytes used by the cached entities.
+     */
+    public synchronized long size() {
+        return size;
+    }
+
+    /**
+     * @return The number of lookups that found a cached entity.
+     */
+    public synchronized long hitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return The number of lookups that didn't find a cached entity.
+     */
+    public synchronized long missCount() {
+        return missCount;
+    }
+
+    /**
+     * @return The number of decoded entities that replaced a cached instance with new values.
+     */
+    public synchronized long mergeCount() {
+        return mergeCount;
+    }
+
+    /**
+     * @return The number of entities that were evicted to stay within the budget.
+     */
+    public synchronized long evictionCount() {
+        return evictionCount;
+    }
+
+    private void resize(Entry entry, int newSize) {
+        size += newSize - entry.size;
+        entry.size = newSize;
+    }
+
+    private void trimToSize() {
+        Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+
+        while (iterator.hasNext() && isOverBudget()) {
+            Map.Entry<Key, Entry> eldest = iterator.next();
+
+            size -= eldest.getValue().size;
+            iterator.remove();
+            evictionCount++;
+            notifyRemoved(eldest.getKey().type, eldest.getKey().id);
+        }
+    }
+
+    private void notifyPut(Class<?> type, String id, Object entity) {
+        if (!listeners.isEmpty()) {
+            events.add(new Event(type, id, entity));
+        }
+    }
+
+    private void notifyRemoved(Class<?> type, String id) {
+        if (!listeners.isEmpty()) {
+            events.add(new Event(type, id, null));
+        }
+    }
+
+    /**
+     * Delivers the queued changes without holding the lock, so that slow listeners don't block
+     * other threads decoding responses. One thread delivers at a time, which keeps the changes in
+     * order; a thread that finds another one delivering leaves its changes to that thread.
+     */
+    private void dispatchEvents() {
+        synchronized (this) {
+            if (dispatching || events.isEmpty()) {
+                return;
+            }
+
+            dispatching = true;
+        }
+
+        boolean done = false;
+
+        try {
+            while (true) {
+                Event event;
+
+                synchronized (this) {
+                    event = events.poll();
+
+                    if (event == null) {
+                        dispatching = false;
+                        done = true;
+                        return;
+                    }
+                }
+
+                for (Listener listener : listeners) {
+                    if (event.entity != null) {
+                        listener.onPut(event.type, event.id, event.entity);
+                    } else {
+                        listener.onRemoved(event.type, event.id);
+                    }
+                }
+            }
+        } finally {
+            if (!done) {
+                // A listener threw; the next change delivers the rest.
+                synchronized (this) {
+                    dispatching = false;
+                }
+            }
+        }
+    }
+
+    private boolean isOverBudget() {
+        return (maxEntries > 0 && entries.size() > maxEntries) || (maxBytes > 0 && size > maxBytes);
+    }
+
+    /**
+     * Describes how the cache handles the entities of one type.
+     *
+     * @param <T> The type of the entity.
+     */
+    public interface Model<T> {
+
+        /**
+         * @param entity An entity.
+         * @return The id of the entity, or null if it can't be cached.
+         */
+        String idOf(T entity);
+
+        /**
+         * @param entity An entity.
+         * @return The approximate number of bytes retained by the entity.
+         */
+        int sizeOf(T entity);
+
+        /**
+         * Combines a newly decoded entity with the cached instance. The cached instance may be
+         * read on other threads, so it must not be modified.
+         *
+         * @param source The newly decoded entity, which isn't shared yet.
+         * @param cached The cached instance with the same id.
+         * @return The cached instance if the decoded entity holds nothing new, otherwise the
+         * decoded entity with the values it lacks taken from the cached instance.
+         */
+        T merge(T source, T cached);
+    }
+
+    /**
+     * Learns about the entities entering and leaving a cache. Listeners are called after the
+     * cache is unlocked, one change at a time and in the order the changes were made, on a thread
+     * that changed the cache. That is usually the thread that decoded the response, but it may
+     * also be another thread that changed the cache at the same time.
+     */
+    public interface Listener {
+
+        /**
+         * Called when an entity is cached, or replaced by a decoded entity with new values.
+         *
+         * @param type   The type of the entity.
+         * @param id     The id of the entity.
+         * @param entity The cached instance.
+         */
+        void onPut(Class<?> type, String id, Object entity);
+
+        /**
+         * Called when an entity is removed or evicted.
+         *
+         * @param type The type of the entity.
+         * @param id   The id of the entity.
+         */
+        void onRemoved(Class<?> type, String id);
+    }
+
+    /**
+     * A change for the listeners. A null entity means the entity was removed.
+     */
+    private static final class Event {
+
+        final Class<?> type;
+        final String id;
+        final Object entity;
+
+        Event(Class<?> type, String id, Object entity) {
+            this.type = type;
+            this.id = id;
+            this.entity = entity;
+        }
+    }
+
+    private static final class Key {
+
+        private final Class<?> type;
+        private final String id;
+
+        Key(Class<?> type, String id) {
+            this.type = type;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (!(o instanceof Key)) {
+                return false;
+            }
+
+            Key other = (Key) o;
+
+            return type == other.type && id.equals(other.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * type.hashCode() + id.hashCode();
+        }
+    }
+
+    private static final class Entry {
+
+        Object value;
+        int size;
+
+        Entry(Object value, int size) {
+            this.value = value;
+            this.size = size;
+        }
+    }
+
+    public static class Builder {
+
+        private int maxEntries = 0;
+        private long maxBytes = 0;
+        private final List<Listener> listeners = new ArrayList<>();
+
+        /**
+         * Limits the number of cached entities.
+         *
+         * @param maxEntries The maximum number of entities.
+         * @return The instance of the builder that was just updated.
+         */
+        public Builder setMaxEntries(int maxEntries) {
+            if (maxEntries < 1) {
+                throw new IllegalArgumentException("maxEntries < 1: " + maxEntries);
+            }
+
+            this.maxEntries = maxEntries;
+
+            return this;
+        }
+
+        /**
+         * Limits the approximate memory retained by cached entities.
+         *
+         * @param maxBytes The maximum number of bytes.
+         * @return The instance of the builder that was just updated.
+         */
+        public Builder setMaxBytes(long maxBytes) {
+            if (maxBytes < 1) {
+                throw new IllegalArgumentException("maxBytes < 1: " + maxBytes);
+            }
+
+            this.maxBytes = maxBytes;
+
+            return this;
+        }
+
+        /**
+         * Adds a listener that learns about the entities entering and leaving the cache.
+         *
+         * @param listener The listener.
+         * @return The instance of the builder that was just updated.
+         */
+        public Builder addListener(Listener listener) {
+            if (listener == null) {
+                throw new IllegalArgumentException("listener == null");
+            }
+
+            listeners.add(listener);
+
+            return this;
+        }
+
+        public EntityCache build() {
+            if (maxEntries == 0 && maxBytes == 0) {
+                throw new IllegalStateException("The cache needs a maximum entry count or size.");
+            }
+
+            return new EntityCache(this);
+        }
+    }
+}
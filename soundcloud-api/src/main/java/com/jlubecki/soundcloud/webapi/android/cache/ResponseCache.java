@@ -0,0 +1,361 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Cache;
+import okhttp3.CacheControl;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * HTTP response cache for the SoundCloud API, built on OkHttp's disk {@link Cache}.
+ * <p/>
+ * SoundCloud marks most API responses as not cacheable, so each response is given a lifetime by
+ * the first {@link Rule} whose pattern matches its endpoint, e.g. ten minutes for {@code users/*}
+ * and thirty seconds for {@code tracks}. Once a cached response expires, OkHttp revalidates it
+ * with a conditional request using its {@code ETag} or {@code Last-Modified} header, so unchanged
+ * resources come back as a body-less 304.
+ * <p/>
+ * If a stale-while-revalidate window is set, expired responses that are still inside the window
+ * are returned from the cache immediately while a conditional request refreshes them in the
+ * background.
+ *
+ * @see com.jlubecki.soundcloud.webapi.android.SoundCloudAPI.Builder#setResponseCache(ResponseCache)
+ */
+public class ResponseCache {
+
+    /**
+     * Header carried by background revalidation requests so they aren't answered from the cache.
+     */
+    private static final String REVALIDATION_CACHE_CONTROL = "max-age=0";
+
+    private final Cache cache;
+    private final List<Rule> rules;
+    private final long staleWhileRevalidateSeconds;
+
+    private final Set<String> revalidating = Collections.synchronizedSet(new HashSet<String>());
+    private final AtomicLong staleHitCount = new AtomicLong();
+    private final AtomicLong revalidationCount = new AtomicLong();
+
+    /**
+     * Cache-only lookups that the cache couldn't answer. OkHttp counts them as requests, but the
+     * request that follows them is counted too.
+     */
+    private final AtomicLong unansweredProbeCount = new AtomicLong();
+
+    private ResponseCache(Builder builder) {
+        this.cache = new Cache(builder.directory, builder.maxSize);
+        this.rules = Collections.unmodifiableList(new ArrayList<>(builder.rules));
+        this.staleWhileRevalidateSeconds = builder.staleWhileRevalidateSeconds;
+    }
+
+    /**
+     * @return The disk cache that backs this response cache.
+     */
+    public Cache getCache() {
+        return cache;
+    }
+
+    /**
+     * @return The number of requests that were answered by the cache, including those answered
+     * after a conditional request.
+     */
+    public int hitCount() {
+        return cache.hitCount();
+    }
+
+    /**
+     * @return The number of requests that needed a full response from the network.
+     */
+    public int missCount() {
+        return requestCount() - cache.hitCount();
+    }
+
+    /**
+     * @return The number of requests that went through the cache.
+     */
+    public int requestCount() {
+        return cache.requestCount() - (int) unansweredProbeCount.get();
+    }
+
+    /**
+     * @return The number of expired responses that were returned while being revalidated.
+     */
+    public long staleHitCount() {
+        return staleHitCount.get();
+    }
+
+    /**
+     * @return The number of background revalidations that were started.
+     */
+    public long revalidationCount() {
+        return revalidationCount.get();
+    }
+
+    /**
+     * Creates the network interceptor that assigns lifetimes to responses. It must be added with
+     * {@link OkHttpClient.Builder#addNetworkInterceptor(Interceptor)} on a client that uses
+     * {@link #getCache()}.
+     *
+     * @return An interceptor that rewrites the caching headers of matching responses.
+     */
+    public Interceptor networkInterceptor() {
+        return new LifetimeInterceptor();
+    }
+
+    /**
+     * Creates the application interceptor that serves stale responses while they are revalidated.
+     * It should be added after any interceptor that adds credentials to requests.
+     *
+     * @param client The client used for background revalidations. It must use {@link #getCache()}
+     *               and {@link #networkInterceptor()}.
+     * @return An interceptor that implements stale-while-revalidate.
+     */
+    public Interceptor staleWhileRevalidateInterceptor(OkHttpClient client) {
+        return new StaleWhileRevalidateInterceptor(client);
+    }
+
+    private Rule findRule(Request request) {
+        if (!"GET".equals(request.method())) {
+            return null;
+        }
+
+        List<String> segments = request.url().pathSegments();
+
+        for (Rule rule : rules) {
+            if (rule.matches(segments)) {
+                return rule;
+            }
+        }
+
+        return null;
+    }
+
+    private class LifetimeInterceptor implements Interceptor {
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            Request request = chain.request();
+            Response response = chain.proceed(request);
+
+            Rule rule = findRule(request);
+
+            if (rule == null || (!response.isSuccessful() && response.code() != 304)) {
+                return response;
+            }
+
+            return response.newBuilder()
+                    .removeHeader("Pragma")
+                    .removeHeader("Expires")
+                    .header("Cache-Control", "private, max-age=" + rule.maxAgeSeconds)
+                    .build();
+        }
+    }
+
+    private class StaleWhileRevalidateInterceptor implements Interceptor {
+
+        private final OkHttpClient client;
+
+        StaleWhileRevalidateInterceptor(OkHttpClient client) {
+            this.client = client;
+        }
+
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            Request request = chain.request();
+
+            if (staleWhileRevalidateSeconds <= 0
+                    || request.header("Cache-Control") != null
+                    || findRule(request) == null) {
+                return chain.proceed(request);
+            }
+
+            Request cacheOnly = request.newBuilder()
+                    .cacheControl(new CacheControl.Builder()
+                            .onlyIfCached()
+                            .maxStale((int) staleWhileRevalidateSeconds, TimeUnit.SECONDS)
+                            .build())
+                    .build();
+
+            Response cached = chain.proceed(cacheOnly);
+
+            if (!cached.isSuccessful()) {
+                // Not cached, or too stale to use. Fetch it normally.
+                cached.body().close();
+                unansweredProbeCount.incrementAndGet();
+
+                return chain.proceed(request);
+            }
+
+            if (isStale(cached)) {
+                staleHitCount.incrementAndGet();
+                revalidate(request);
+            }
+
+            return cached;
+        }
+
+        private boolean isStale(Response response) {
+            for (String warning : response.headers("Warning")) {
+                if (warning.startsWith("110")) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        private void revalidate(Request request) {
+            final String key = request.url().toString();
+
+            if (!revalidating.add(key)) {
+                return; // Already being refreshed.
+            }
+
+            revalidationCount.incrementAndGet();
+
+            Request conditional = request.newBuilder()
+                    .header("Cache-Control", REVALIDATION_CACHE_CONTROL)
+                    .build();
+
+            client.newCall(conditional).enqueue(new Callback() {
+                @Override
+                public void onFailure(Call call, IOException e) {
+                    revalidating.remove(key);
+                }
+
+                @Override
+                public void onResponse(Call call, Response response) throws IOException {
+                    try {
+                        // Reading the body is what commits the new entry to the cache.
+                        response.body().source().skip(Long.MAX_VALUE);
+                    } catch (IOException ignored) {
+                        // The cached entry stays stale and will be refreshed next time.
+                    } finally {
+                        response.body().close();
+                        revalidating.remove(key);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Lifetime of the responses of endpoints matching a pattern. Patterns are paths relative to
+     * the API root in which {@code *} matches exactly one path segment, e.g. {@code users/*}
+     * matches {@code users/3699101} but not {@code users/3699101/tracks}.
+     */
+    public static class Rule {
+
+        private final String[] pattern;
+        private final long maxAgeSeconds;
+
+        Rule(String pattern, long maxAgeSeconds) {
+            String trimmed = pattern.startsWith("/") ? pattern.substring(1) : pattern;
+
+            this.pattern = trimmed.split("/");
+            this.maxAgeSeconds = maxAgeSeconds;
+        }
+
+        boolean matches(List<String> segments) {
+            if (segments.size() != pattern.length) {
+                return false;
+            }
+
+            for (int i = 0; i < pattern.length; i++) {
+                if (!"*".equals(pattern[i]) && !pattern[i].equals(segments.get(i))) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+
+    public static class Builder {
+
+        private final File directory;
+        private final long maxSize;
+        private final List<Rule> rules = new ArrayList<>();
+        private long staleWhileRevalidateSeconds = 0;
+
+        /**
+         * @param directory Directory for the cache files, usually inside
+         *                  {@code Context#getCacheDir()}.
+         * @param maxSize   Maximum size of the cache in bytes.
+         */
+        public Builder(File directory, long maxSize) {
+            this.directory = directory;
+            this.maxSize = maxSize;
+        }
+
+        /**
+         * Caches the responses of endpoints matching a pattern for a given time. Rules are
+         * checked in the order they are added.
+         *
+         * @param pattern Endpoint pattern, e.g. "users/*" or "tracks".
+         * @param maxAge  How long a response is fresh.
+         * @param unit    Unit of the max age.
+         * @return The instance of the builder that was just updated.
+         * @see Rule
+         */
+        public Builder addRule(String pattern, long maxAge, TimeUnit unit) {
+            rules.add(new Rule(pattern, unit.toSeconds(maxAge)));
+
+            return this;
+        }
+
+        /**
+         * Sets how long after expiring a cached response may still be returned while it is
+         * revalidated in the background.
+         *
+         * @param window Length of the window, or 0 to always wait for revalidation.
+         * @param unit   Unit of the window.
+         * @return The instance of the builder that was just updated.
+         */
+        public Builder setStaleWhileRevalidate(long window, TimeUnit unit) {
+            this.staleWhileRevalidateSeconds = unit.toSeconds(window);
+
+            return this;
+        }
+
+        public ResponseCache build() {
+            return new ResponseCache(this);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.concurrent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A {@link Future} that is completed explicitly by whoever created it, and that runs listeners
+ * once it completes.
+ *
+ * @param <V> The type of the result.
+ */
+public class SettableFuture<V> implements Future<V> {
+
+    private static final int PENDING = 0;
+    private static final int SUCCEEDED = 1;
+    private static final int FAILED = 2;
+    private static final int CANCELLED = 3;
+
+    private final Object lock = new Object();
+    private final List<Runnable> listeners = new ArrayList<>();
+    private final List<Executor> executors = new ArrayList<>();
+
+    private int state = PENDING;
+    private V value;
+    private Throwable exception;
+
+    /**
+     * Completes the future with a result.
+     *
+     * @param value The result.
+     * @return True if the future was completed, false if it was already done.
+     */
+    public boolean set(V value) {
+        return complete(SUCCEEDED, value, null);
+    }
+
+    /**
+     * Completes the future with an exception, which {@link #get()} rethrows wrapped in an
+     * {@link ExecutionException}.
+     *
+     * @param exception The cause of the failure.
+     * @return True if the future was completed, false if it was already done.
+     */
+    public boolean setException(Throwable exception) {
+        if (exception == null) {
+            throw new NullPointerException("exception == null");
+        }
+
+        return complete(FAILED, null, exception);
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        if (!complete(CANCELLED, null, null)) {
+            return false;
+        }
+
+        onCancelled();
+
+        return true;
+    }
+
+    /**
+     * Called once when the future is cancelled. Subclasses can override it to stop the work that
+     * would have completed the future.
+     */
+    protected void onCancelled() {
+        // Nothing to stop by default.
+    }
+
+    /**
+     * Runs a listener on an executor once the future completes. If it has already completed, the
+     * listener is run right away.
+     *
+     * @param listener The listener to run.
+     * @param executor The executor to run the listener on.
+     */
+    public void addListener(Runnable listener, Executor executor) {
+        synchronized (lock) {
+            if (state == PENDING) {
+                listeners.add(listener);
+                executors.add(executor);
+
+                return;
+            }
+        }
+
+        executor.execute(listener);
+    }
+
+    @Override
+    public boolean isCancelled() {
+        synchronized (lock) {
+            return state == CANCELLED;
+        }
+    }
+
+    @Override
+    public boolean isDone() {
+        synchronized (lock) {
+            return state != PENDING;
+        }
+    }
+
+    @Override
+    public V get() throws InterruptedException, ExecutionException {
+        synchronized (lock) {
+            while (state == PENDING) {
+                lock.wait();
+            }
+
+            return result();
+        }
+    }
+
+    @Override
+    public V get(long timeout, TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+        synchronized (lock) {
+            while (state == PENDING) {
+                long remaining = deadline - System.nanoTime();
+
+                if (remaining <= 0) {
+                    throw new TimeoutException();
+                }
+
+                TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+            }
+
+            return result();
+        }
+    }
+
+    private V result() throws ExecutionException {
+        switch (state) {
+            case SUCCEEDED:
+                return value;
+            case FAILED:
+                throw new ExecutionException(exception);
+            default:
+                throw new CancellationException();
+        }
+    }
+
+    private boolean complete(int newState, V value, Throwable exception) {
+        List<Runnable> toRun;
+        List<Executor> runOn;
+
+        synchronized (lock) {
+            if (state != PENDING) {
+                return false;
+            }
+
+            this.state = newState;
+            this.value = value;
+            this.exception = exception;
+
+            toRun = new ArrayList<>(listeners);
+            runOn = new ArrayList<>(executors);
+            listeners.clear();
+            executors.clear();
+
+            lock.notifyAll();
+        }
+
+        for (int i = 0; i < toRun.size(); i++) {
+            runOn.get(i).execute(toRun.get(i));
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,500 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.dedup;
+
+import com.jlubecki.soundcloud.webapi.android.metrics.MetricsSink;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.CallAdapter;
+import retrofit2.Callback;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+
+/**
+ * Single-flight deduplication of identical GET requests.
+ * <p/>
+ * While a GET call is in flight, any other call for the same URL and response type joins it
+ * instead of making a request of its own. Calls that decode the same URL into different types,
+ * e.g. of the full and the compact service, make separate requests. All participants receive
+ * the same decoded body, so the models they get are shared and must be treated as read only,
+ * as with an
+ * {@link com.jlubecki.soundcloud.webapi.android.cache.EntityCache}. Error bodies are buffered
+ * once and every participant gets its own copy. Calls made after the shared one completed make
+ * a new request.
+ * <p/>
+ * Cancelling a participant only detaches it; the shared request is cancelled once every
+ * participant has been cancelled.
+ * <p/>
+ * If a {@link MetricsSink} is given, deduplicated calls are counted as {@value #REQUESTS} and
+ * the ones that joined a call in flight as {@value #SHARED}. Their ratio is also available from
+ * {@link #dedupRatio()}.
+ *
+ * @see com.jlubecki.soundcloud.webapi.android.SoundCloudAPI.Builder#setDeduplicateRequests(boolean)
+ */
+public class RequestDeduplicator {
+
+    public static final String REQUESTS = "dedup.requests";
+    public static final String SHARED = "dedup.shared";
+
+    private final MetricsSink sink;
+    private final Map<String, Flight<?>> flights = new HashMap<>();
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong sharedCount = new AtomicLong();
+
+    /**
+     * @param sink Sink to count deduplicated calls in, or null.
+     */
+    public RequestDeduplicator(MetricsSink sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * Creates a call adapter factory that deduplicates the calls of a service. It wraps the calls
+     * before handing them to the next factory, so it works with any return type.
+     *
+     * @return The factory to add to a {@link Retrofit.Builder}.
+     */
+    public CallAdapter.Factory callAdapterFactory() {
+        return new CallAdapter.Factory() {
+            @Override
+            public CallAdapter<?> get(Type returnType, Annotation[] annotations,
+                                      Retrofit retrofit) {
+                final CallAdapter<?> delegate =
+                        retrofit.nextCallAdapter(this, returnType, annotations);
+
+                return new CallAdapter<Object>() {
+                    @Override
+                    public Type responseType() {
+                        return delegate.responseType();
+                    }
+
+                    @Override
+                    public <R> Object adapt(Call<R> call) {
+                        return delegate.adapt(wrap(call, delegate.responseType()));
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * Wraps a call so that executing it joins an identical call in flight.
+     *
+     * @param call         The call to wrap.
+     * @param responseType The type the call decodes its body into. Only calls with equal
+     *                     response types share a request, since they share the decoded body.
+     * @param <T>          The type of the response body.
+     * @return The wrapped call.
+     */
+    public <T> Call<T> wrap(Call<T> call, Type responseType) {
+        if (responseType == null) {
+            throw new IllegalArgumentException("responseType == null");
+        }
+
+        return new SharedCall<>(call, responseType);
+    }
+
+    /**
+     * @return The number of deduplicated calls that were executed.
+     */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * @return The number of calls that joined a call in flight instead of making a request.
+     */
+    public long getSharedCount() {
+        return sharedCount.get();
+    }
+
+    /**
+     * @return The fraction of calls that were served by another call's request, between 0 and 1.
+     */
+    public double dedupRatio() {
+        long requests = requestCount.get();
+
+        return requests == 0 ? 0 : (double) sharedCount.get() / requests;
+    }
+
+    /**
+     * Gives the URL under which a request is deduplicated. Requests whose URL changes further
+     * down the interceptor chain, e.g. by adding credentials, should be keyed by the final URL.
+     *
+     * @param request The request made by a call.
+     * @return The URL identifying the request.
+     */
+    protected HttpUrl keyUrl(Request request) {
+        return request.url();
+    }
+
+    private <T> Flight<T> join(String key, SharedCall<T> participant) {
+        Flight<T> flight;
+        boolean shared;
+
+        synchronized (flights) {
+            // Keys include the response type, so a flight found here decodes into T.
+            @SuppressWarnings("unchecked")
+            Flight<T> existing = (Flight<T>) flights.get(key);
+
+            shared = existing != null;
+            flight = shared ? existing : new Flight<>(key, participant.delegate);
+
+            if (!shared) {
+                flights.put(key, flight);
+                flight.leader = participant;
+            }
+
+            flight.participants++;
+        }
+
+        count(REQUESTS, requestCount);
+
+        if (shared) {
+            count(SHARED, sharedCount);
+        }
+
+        return flight;
+    }
+
+    private void count(String name, AtomicLong counter) {
+        counter.incrementAndGet();
+
+        if (sink != null) {
+            sink.onCount(name, 1);
+        }
+    }
+
+    private static <T> Response<T> copyOf(Response<T> response, byte[] errorBytes,
+                                          MediaType errorType) {
+        if (response.isSuccessful()) {
+            return Response.success(response.body(), response.raw());
+        }
+
+        return Response.error(ResponseBody.create(errorType, errorBytes), response.raw());
+    }
+
+    private final class Flight<T> implements Callback<T> {
+
+        private final String key;
+        private final Call<T> call;
+        private final List<SharedCall<T>> waiting = new ArrayList<>();
+        private SharedCall<T> leader;
+        private int participants;
+
+        private boolean done;
+        private Response<T> response;
+        private byte[] errorBytes;
+        private MediaType errorType;
+        private Throwable failure;
+
+        Flight(String key, Call<T> call) {
+            this.key = key;
+            this.call = call;
+        }
+
+        /**
+         * Detaches a cancelled participant, cancelling the shared call if it was the last one.
+         *
+         * @return True if the participant's callback was still waiting for the result.
+         */
+        boolean leave(SharedCall<T> participant) {
+            boolean last;
+
+            synchronized (flights) {
+                last = --participants == 0;
+
+                if (last && flights.get(key) == this) {
+                    flights.remove(key);
+                }
+            }
+
+            boolean removed;
+
+            synchronized (this) {
+                removed = waiting.remove(participant);
+                notifyAll();
+            }
+
+            if (last) {
+                call.cancel();
+            }
+
+            return removed;
+        }
+
+        void enqueue(SharedCall<T> participant) {
+            boolean finished;
+
+            synchronized (this) {
+                finished = done;
+
+                // A flight that completed before this participant got here won't call back again.
+                if (!finished) {
+                    waiting.add(participant);
+                }
+            }
+
+            if (finished) {
+                deliver(participant);
+            } else if (leader == participant) {
+                call.enqueue(this);
+            }
+        }
+
+        Response<T> execute(SharedCall<T> participant) throws IOException {
+            if (leader == participant) {
+                try {
+                    complete(call.execute(), null);
+                } catch (IOException | RuntimeException e) {
+                    complete(null, e);
+                }
+            }
+
+            synchronized (this) {
+                try {
+                    while (!done && !participant.canceled) {
+                        wait();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting for a shared call", e);
+                }
+            }
+
+            return result(participant);
+        }
+
+        @Override
+        public void onResponse(Call<T> call, Response<T> response) {
+            complete(response, null);
+        }
+
+        @Override
+        public void onFailure(Call<T> call, Throwable t) {
+            complete(null, t);
+        }
+
+        private void complete(Response<T> response, Throwable failure) {
+            synchronized (flights) {
+                if (flights.get(key) == this) {
+                    flights.remove(key);
+                }
+            }
+
+            byte[] errorBytes = null;
+            MediaType errorType = null;
+
+            if (response != null && !response.isSuccessful() && response.errorBody() != null) {
+                ResponseBody errorBody = response.errorBody();
+
+                try {
+                    errorType = errorBody.contentType();
+                    errorBytes = errorBody.bytes();
+                } catch (IOException e) {
+                    response = null;
+                    failure = e;
+                } finally {
+                    errorBody.close();
+                }
+            }
+
+            List<SharedCall<T>> callbacks;
+
+            synchronized (this) {
+                this.response = response;
+                this.errorBytes = errorBytes != null ? errorBytes : new byte[0];
+                this.errorType = errorType;
+                this.failure = failure;
+                this.done = true;
+
+                callbacks = new ArrayList<>(waiting);
+                waiting.clear();
+                notifyAll();
+            }
+
+            for (SharedCall<T> participant : callbacks) {
+                if (participant.callback != null) {
+                    deliver(participant);
+                }
+            }
+        }
+
+        private void deliver(SharedCall<T> participant) {
+            Response<T> result;
+
+            try {
+                result = result(participant);
+            } catch (IOException e) {
+                participant.callback.onFailure(participant, e);
+                return;
+            }
+
+            participant.callback.onResponse(participant, result);
+        }
+
+        private synchronized Response<T> result(SharedCall<T> participant) throws IOException {
+            if (participant.canceled) {
+                throw new IOException("Canceled");
+            }
+
+            if (failure instanceof IOException) {
+                throw (IOException) failure;
+            }
+
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            }
+
+            if (failure != null) {
+                throw new IOException(failure);
+            }
+
+            return copyOf(response, errorBytes, errorType);
+        }
+    }
+
+    private final class SharedCall<T> implements Call<T> {
+
+        private final Call<T> delegate;
+        private final Type responseType;
+        private Flight<T> flight;
+        private Callback<T> callback;
+        private boolean executed;
+        private volatile boolean canceled;
+
+        SharedCall(Call<T> delegate, Type responseType) {
+            this.delegate = delegate;
+            this.responseType = responseType;
+        }
+
+        @Override
+        public Response<T> execute() throws IOException {
+            if (!isGet() || canceled) {
+                markExecuted();
+
+                return delegate.execute();
+            }
+
+            return start(null).execute(this);
+        }
+
+        @Override
+        public void enqueue(Callback<T> callback) {
+            if (callback == null) {
+                throw new NullPointerException("callback == null");
+            }
+
+            if (!isGet() || canceled) {
+                markExecuted();
+                delegate.enqueue(callback);
+
+                return;
+            }
+
+            start(callback).enqueue(this);
+        }
+
+        private synchronized Flight<T> start(Callback<T> callback) {
+            markExecuted();
+
+            this.callback = callback;
+            // Flights of one key share a decoded body, so the key includes its type.
+            this.flight = join(request().method() + " " + keyUrl(request()) + " " + responseType,
+                    this);
+
+            return flight;
+        }
+
+        private synchronized void markExecuted() {
+            if (executed) {
+                throw new IllegalStateException("Already executed.");
+            }
+
+            executed = true;
+        }
+
+        private boolean isGet() {
+            return "GET".equals(request().method());
+        }
+
+        @Override
+        public synchronized boolean isExecuted() {
+            return executed;
+        }
+
+        @Override
+        public void cancel() {
+            Flight<T> flight;
+
+            synchronized (this) {
+                if (canceled) {
+                    return;
+                }
+
+                canceled = true;
+                flight = this.flight;
+            }
+
+            if (flight == null) {
+                delegate.cancel();
+                return;
+            }
+
+            if (flight.leave(this) && callback != null) {
+                callback.onFailure(this, new IOException("Canceled"));
+            }
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return canceled;
+        }
+
+        @SuppressWarnings("CloneDoesntCallSuperClone")
+        @Override
+        public Call<T> clone() {
+            return new SharedCall<>(delegate.clone(), responseType);
+        }
+
+        @Override
+        public Request request() {
+            return delegate.request();
+        }
+    }
+}
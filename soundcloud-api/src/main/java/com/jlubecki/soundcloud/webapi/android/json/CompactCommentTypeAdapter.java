@@ -0,0 +1,108 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.json;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.jlubecki.soundcloud.webapi.android.models.compact.CompactComment;
+import com.jlubecki.soundcloud.webapi.android.models.compact.CompactUser;
+
+import java.io.IOException;
+
+/**
+ * Streaming adapter for {@link CompactComment}.
+ */
+final class CompactCommentTypeAdapter extends TypeAdapter<CompactComment> {
+
+    private final TypeAdapter<CompactUser> userAdapter;
+
+    CompactCommentTypeAdapter(TypeAdapter<CompactUser> userAdapter) {
+        this.userAdapter = userAdapter;
+    }
+
+    @Override
+    public void write(JsonWriter out, CompactComment comment) throws IOException {
+        out.beginObject();
+        out.name("id").value(comment.id);
+        out.name("uri").value(comment.uri);
+        out.name("created_at").value(comment.created_at);
+        out.name("body").value(comment.body);
+        out.name("timestamp").value(comment.timestamp);
+        out.name("user_id").value(comment.user_id);
+        out.name("user");
+        userAdapter.write(out, comment.user);
+        out.name("track_id").value(comment.track_id);
+        out.endObject();
+    }
+
+    @Override
+    public CompactComment read(JsonReader in) throws IOException {
+        CompactComment comment = new CompactComment();
+
+        try {
+            in.beginObject();
+
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id":
+                        comment.id = JsonValues.nextLong(in);
+                        break;
+                    case "uri":
+                        comment.uri = JsonValues.nextString(in);
+                        break;
+                    case "created_at":
+                        comment.created_at = JsonValues.nextTimestamp(in);
+                        break;
+                    case "body":
+                        comment.body = JsonValues.nextString(in);
+                        break;
+                    case "timestamp":
+                        comment.timestamp = JsonValues.nextLong(in);
+                        break;
+                    case "user_id":
+                        comment.user_id = JsonValues.nextLong(in);
+                        break;
+                    case "user":
+                        comment.user = userAdapter.read(in);
+                        break;
+                    case "track_id":
+                        comment.track_id = JsonValues.nextLong(in);
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+
+            in.endObject();
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw new JsonSyntaxException(e);
+        }
+
+        return comment;
+    }
+}
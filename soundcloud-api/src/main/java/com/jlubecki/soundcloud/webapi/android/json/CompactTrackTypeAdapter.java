@@ -0,0 +1,251 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.json;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.jlubecki.soundcloud.webapi.android.models.compact.CompactTrack;
+import com.jlubecki.soundcloud.webapi.android.models.compact.CompactUser;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Streaming adapter for {@link CompactTrack}. Low cardinality fields such as licenses and genres
+ * share one {@link String} instance per distinct value.
+ */
+final class CompactTrackTypeAdapter extends TypeAdapter<CompactTrack> {
+
+    private static final int POOL_CAPACITY = 512;
+
+    private final Map<String, String> pool = new ConcurrentHashMap<>();
+    private final TypeAdapter<CompactUser> userAdapter;
+
+    CompactTrackTypeAdapter(TypeAdapter<CompactUser> userAdapter) {
+        this.userAdapter = userAdapter;
+    }
+
+    @Override
+    public void write(JsonWriter out, CompactTrack track) throws IOException {
+        out.beginObject();
+        out.name("id").value(track.id);
+        out.name("created_at").value(track.created_at);
+        out.name("user_id").value(track.user_id);
+        out.name("user");
+        userAdapter.write(out, track.user);
+        out.name("title").value(track.title);
+        out.name("permalink").value(track.permalink);
+        out.name("permalink_url").value(track.permalink_url);
+        out.name("uri").value(track.uri);
+        out.name("sharing").value(track.sharing);
+        out.name("embeddable_by").value(track.embeddable_by);
+        out.name("purchase_url").value(track.purchase_url);
+        out.name("artwork_url").value(track.artwork_url);
+        out.name("description").value(track.description);
+        out.name("duration").value(track.duration);
+        out.name("genre").value(track.genre);
+        out.name("tag_list").value(track.tag_list);
+        out.name("label_id").value(track.label_id);
+        out.name("label_name").value(track.label_name);
+        out.name("release").value(track.release);
+        out.name("release_day").value(track.release_day);
+        out.name("release_month").value(track.release_month);
+        out.name("release_year").value(track.release_year);
+        out.name("streamable").value(track.is_streamable);
+        out.name("downloadable").value(track.is_downloadable);
+        out.name("state").value(track.state);
+        out.name("license").value(track.license);
+        out.name("track_type").value(track.track_type);
+        out.name("waveform_url").value(track.waveform_url);
+        out.name("download_url").value(track.download_url);
+        out.name("stream_url").value(track.stream_url);
+        out.name("video_url").value(track.video_url);
+        out.name("bpm").value(track.bpm);
+        out.name("commentable").value(track.commentable);
+        out.name("isrc").value(track.isrc);
+        out.name("key_signature").value(track.key_signature);
+        out.name("comment_count").value(track.comment_count);
+        out.name("download_count").value(track.download_count);
+        out.name("playback_count").value(track.playback_count);
+        out.name("favoritings_count").value(track.favoritings_count);
+        out.name("original_format").value(track.original_format);
+        out.name("original_file_size").value(track.original_file_size);
+        out.name("user_favorite").value(track.user_favorite);
+        out.endObject();
+    }
+
+    @Override
+    public CompactTrack read(JsonReader in) throws IOException {
+        CompactTrack track = new CompactTrack();
+
+        try {
+            in.beginObject();
+
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id":
+                        track.id = JsonValues.nextLong(in);
+                        break;
+                    case "created_at":
+                        track.created_at = JsonValues.nextTimestamp(in);
+                        break;
+                    case "user_id":
+                        track.user_id = JsonValues.nextLong(in);
+                        break;
+                    case "user":
+                        track.user = userAdapter.read(in);
+                        break;
+                    case "title":
+                        track.title = JsonValues.nextString(in);
+                        break;
+                    case "permalink":
+                        track.permalink = JsonValues.nextString(in);
+                        break;
+                    case "permalink_url":
+                        track.permalink_url = JsonValues.nextString(in);
+                        break;
+                    case "uri":
+                        track.uri = JsonValues.nextString(in);
+                        break;
+                    case "sharing":
+                        track.sharing = JsonValues.nextPooledString(in, pool, POOL_CAPACITY);
+                        break;
+                    case "embeddable_by":
+                        track.embeddable_by = JsonValues.nextPooledString(in, pool, POOL_CAPACITY);
+                        break;
+                    case "purchase_url":
+                        track.purchase_url = JsonValues.nextString(in);
+                        break;
+                    case "artwork_url":
+                        track.artwork_url = JsonValues.nextString(in);
+                        break;
+                    case "description":
+                        track.description = JsonValues.nextString(in);
+                        break;
+                    case "duration":
+                        track.duration = JsonValues.nextLong(in);
+                        break;
+                    case "genre":
+                        track.genre = JsonValues.nextPooledString(in, pool, POOL_CAPACITY);
+                        break;
+                    case "tag_list":
+                        track.tag_list = JsonValues.nextString(in);
+                        break;
+                    case "label_id":
+                        track.label_id = JsonValues.nextLong(in);
+                        break;
+                    case "label_name":
+                        track.label_name = JsonValues.nextString(in);
+                        break;
+                    case "release":
+                        track.release = JsonValues.nextString(in);
+                        break;
+                    case "release_day":
+                        track.release_day = JsonValues.nextInt(in);
+                        break;
+                    case "release_month":
+                        track.release_month = JsonValues.nextInt(in);
+                        break;
+                    case "release_year":
+                        track.release_year = JsonValues.nextInt(in);
+                        break;
+                    case "streamable":
+                        track.is_streamable = JsonValues.nextBoolean(in);
+                        break;
+                    case "downloadable":
+                        track.is_downloadable = JsonValues.nextBoolean(in);
+                        break;
+                    case "state":
+                        track.state = JsonValues.nextPooledString(in, pool, POOL_CAPACITY);
+                        break;
+                    case "license":
+                        track.license = JsonValues.nextPooledString(in, pool, POOL_CAPACITY);
+                        break;
+                    case "track_type":
+                        track.track_type = JsonValues.nextPooledString(in, pool, POOL_CAPACITY);
+                        break;
+                    case "waveform_url":
+                        track.waveform_url = JsonValues.nextString(in);
+                        break;
+                    case "download_url":
+                        track.download_url = JsonValues.nextString(in);
+                        break;
+                    case "stream_url":
+                        track.stream_url = JsonValues.nextString(in);
+                        break;
+                    case "video_url":
+                        track.video_url = JsonValues.nextString(in);
+                        break;
+                    case "bpm":
+                        track.bpm = JsonValues.nextFloat(in);
+                        break;
+                    case "commentable":
+                        track.commentable = JsonValues.nextBoolean(in);
+                        break;
+                    case "isrc":
+                        track.isrc = JsonValues.nextString(in);
+                        break;
+                    case "key_signature":
+                        track.key_signature = JsonValues.nextPooledString(in, pool, POOL_CAPACITY);
+                        break;
+                    case "comment_count":
+                        track.comment_count = JsonValues.nextLong(in);
+                        break;
+                    case "download_count":
+                        track.download_count = JsonValues.nextLong(in);
+                        break;
+                    case "playback_count":
+                        track.playback_count = JsonValues.nextLong(in);
+                        break;
+                    case "favoritings_count":
+                        track.favoritings_count = JsonValues.nextLong(in);
+                        break;
+                    case "original_format":
+                        track.original_format =
+                                JsonValues.nextPooledString(in, pool, POOL_CAPACITY);
+                        break;
+                    case "original_file_size":
+                        track.original_file_size = JsonValues.nextLong(in);
+                        break;
+                    case "user_favorite":
+                        track.user_favorite = JsonValues.nextBoolean(in);
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+
+            in.endObject();
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw new JsonSyntaxException(e);
+        }
+
+        return track;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.json;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.jlubecki.soundcloud.webapi.android.models.CreatorApp;
+
+import java.io.IOException;
+
+/**
+ * Streaming adapter for {@link CreatorApp}.
+ */
+final class CreatorAppTypeAdapter extends TypeAdapter<CreatorApp> {
+
+    @Override
+    public void write(JsonWriter out, CreatorApp app) throws IOException {
+        out.beginObject();
+        out.name("id").value(app.id);
+        out.name("uri").value(app.uri);
+        out.name("permalink_url").value(app.permalink_url);
+        out.name("external_url").value(app.external_url);
+        out.name("creator").value(app.creator);
+        out.endObject();
+    }
+
+    @Override
+    public CreatorApp read(JsonReader in) throws IOException {
+        CreatorApp app = new CreatorApp();
+
+        try {
+            in.beginObject();
+
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id":
+                        app.id = JsonValues.nextString(in);
+                        break;
+                    case "uri":
+                        app.uri = JsonValues.nextString(in);
+                        break;
+                    case "permalink_url":
+                        app.permalink_url = JsonValues.nextString(in);
+                        break;
+                    case "external_url":
+                        app.external_url = JsonValues.nextString(in);
+                        break;
+                    case "creator":
+                        app.creator = JsonValues.nextString(in);
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+
+            in.endObject();
+        } catch (IllegalStateException e) {
+            throw new JsonSyntaxException(e);
+        }
+
+        return app;
+    }
+}
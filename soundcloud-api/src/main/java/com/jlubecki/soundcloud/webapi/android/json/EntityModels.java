@@ -0,0 +1,468 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.json;
+
+import com.jlubecki.soundcloud.webapi.android.cache.EntityCache;
+import com.jlubecki.soundcloud.webapi.android.models.MiniUser;
+import com.jlubecki.soundcloud.webapi.android.models.Playlist;
+import com.jlubecki.soundcloud.webapi.android.models.Track;
+import com.jlubecki.soundcloud.webapi.android.models.User;
+
+import java.util.List;
+
+/**
+ * {@link EntityCache.Model}s of the entities that are deduplicated while decoding.
+ * <p/>
+ * Merging never modifies the cached instance. A decoded entity that carries new values takes the
+ * cached values of the fields it lacks, since some endpoints return less detailed
+ * representations, and replaces the cached instance. Boolean fields are only taken from the
+ * decoded entity if its JSON carried them.
+ * <p/>
+ * Sizes are estimated for a 32 bit runtime: an 8 byte object header, 4 byte references, and
+ * strings backed by a separate {@code char[]}. Nested entities that are cached on their own, such
+ * as the tracks of a playlist, only count as references.
+ */
+final class EntityModels {
+
+    static final int TRACK_STREAMABLE = 1;
+    static final int TRACK_DOWNLOADABLE = 1 << 1;
+    static final int TRACK_COMMENTABLE = 1 << 2;
+    static final int TRACK_USER_FAVORITE = 1 << 3;
+
+    static final int USER_ONLINE = 1;
+
+    static final int PLAYLIST_STREAMABLE = 1;
+    static final int PLAYLIST_DOWNLOADABLE = 1 << 1;
+
+    private EntityModels() {
+        // Static models only.
+    }
+
+    static final EntityModel<Track> TRACK = new EntityModel<Track>() {
+        @Override
+        String idOf(Track entity) {
+            return entity.id;
+        }
+
+        @Override
+        int sizeOf(Track entity) {
+            int size = shallowSize(41, 4);
+            size += retainedSize(entity.id);
+            size += retainedSize(entity.created_at);
+            size += retainedSize(entity.userid);
+            size += retainedSize(entity.title);
+            size += retainedSize(entity.permalink);
+            size += retainedSize(entity.permalink_url);
+            size += retainedSize(entity.uri);
+            size += retainedSize(entity.sharing);
+            size += retainedSize(entity.embeddable_by);
+            size += retainedSize(entity.purchase_url);
+            size += retainedSize(entity.artwork_url);
+            size += retainedSize(entity.description);
+            size += retainedSize(entity.duration);
+            size += retainedSize(entity.genre);
+            size += retainedSize(entity.tags_list);
+            size += retainedSize(entity.label_id);
+            size += retainedSize(entity.label_name);
+            size += retainedSize(entity.release);
+            size += retainedSize(entity.release_day);
+            size += retainedSize(entity.release_month);
+            size += retainedSize(entity.release_year);
+            size += retainedSize(entity.state);
+            size += retainedSize(entity.license);
+            size += retainedSize(entity.track_type);
+            size += retainedSize(entity.waveform_url);
+            size += retainedSize(entity.download_url);
+            size += retainedSize(entity.stream_url);
+            size += retainedSize(entity.video_url);
+            size += retainedSize(entity.bpm);
+            size += retainedSize(entity.isrc);
+            size += retainedSize(entity.key_signature);
+            size += retainedSize(entity.comment_count);
+            size += retainedSize(entity.download_count);
+            size += retainedSize(entity.playback_count);
+            size += retainedSize(entity.favoritings_count);
+            size += retainedSize(entity.original_format);
+            size += retainedSize(entity.original_file_size);
+            size += retainedSize(entity.asset_data);
+            size += retainedSize(entity.artwork_data);
+
+            return size;
+        }
+
+        @Override
+        Track merge(Track source, Track cached, EntityTypeAdapter.Booleans present) {
+            Merge merge = new Merge();
+
+            source.id = merge.pick(source.id, cached.id);
+            source.created_at = merge.pick(source.created_at, cached.created_at);
+            source.userid = merge.pick(source.userid, cached.userid);
+            source.user = merge.pick(source.user, cached.user);
+            source.title = merge.pick(source.title, cached.title);
+            source.permalink = merge.pick(source.permalink, cached.permalink);
+            source.permalink_url = merge.pick(source.permalink_url, cached.permalink_url);
+            source.uri = merge.pick(source.uri, cached.uri);
+            source.sharing = merge.pick(source.sharing, cached.sharing);
+            source.embeddable_by = merge.pick(source.embeddable_by, cached.embeddable_by);
+            source.purchase_url = merge.pick(source.purchase_url, cached.purchase_url);
+            source.artwork_url = merge.pick(source.artwork_url, cached.artwork_url);
+            source.description = merge.pick(source.description, cached.description);
+            source.duration = merge.pick(source.duration, cached.duration);
+            source.genre = merge.pick(source.genre, cached.genre);
+            source.tags_list = merge.pick(source.tags_list, cached.tags_list);
+            source.label_id = merge.pick(source.label_id, cached.label_id);
+            source.label_name = merge.pick(source.label_name, cached.label_name);
+            source.release = merge.pick(source.release, cached.release);
+            source.release_day = merge.pick(source.release_day, cached.release_day);
+            source.release_month = merge.pick(source.release_month, cached.release_month);
+            source.release_year = merge.pick(source.release_year, cached.release_year);
+            source.is_streamable = merge.pick(present.contains(TRACK_STREAMABLE),
+                    source.is_streamable, cached.is_streamable);
+            source.is_downloadable = merge.pick(present.contains(TRACK_DOWNLOADABLE),
+                    source.is_downloadable, cached.is_downloadable);
+            source.state = merge.pick(source.state, cached.state);
+            source.license = merge.pick(source.license, cached.license);
+            source.track_type = merge.pick(source.track_type, cached.track_type);
+            source.waveform_url = merge.pick(source.waveform_url, cached.waveform_url);
+            source.download_url = merge.pick(source.download_url, cached.download_url);
+            source.stream_url = merge.pick(source.stream_url, cached.stream_url);
+            source.video_url = merge.pick(source.video_url, cached.video_url);
+            source.bpm = merge.pick(source.bpm, cached.bpm);
+            source.commentable = merge.pick(present.contains(TRACK_COMMENTABLE),
+                    source.commentable, cached.commentable);
+            source.isrc = merge.pick(source.isrc, cached.isrc);
+            source.key_signature = merge.pick(source.key_signature, cached.key_signature);
+            source.comment_count = merge.pick(source.comment_count, cached.comment_count);
+            source.download_count = merge.pick(source.download_count, cached.download_count);
+            source.playback_count = merge.pick(source.playback_count, cached.playback_count);
+            source.favoritings_count =
+                    merge.pick(source.favoritings_count, cached.favoritings_count);
+            source.original_format = merge.pick(source.original_format, cached.original_format);
+            source.original_file_size =
+                    merge.pick(source.original_file_size, cached.original_file_size);
+            source.created_with = merge.pick(source.created_with, cached.created_with);
+            source.asset_data = merge.pick(source.asset_data, cached.asset_data);
+            source.artwork_data = merge.pick(source.artwork_data, cached.artwork_data);
+            source.user_favorite = merge.pick(present.contains(TRACK_USER_FAVORITE),
+                    source.user_favorite, cached.user_favorite);
+
+            return merge.result(source, cached);
+        }
+    };
+
+    static final EntityModel<User> USER = new EntityModel<User>() {
+        @Override
+        String idOf(User entity) {
+            return entity.id;
+        }
+
+        @Override
+        int sizeOf(User entity) {
+            int size = shallowSize(20, 1);
+            size += retainedSize(entity.id);
+            size += retainedSize(entity.permalink);
+            size += retainedSize(entity.username);
+            size += retainedSize(entity.uri);
+            size += retainedSize(entity.permalink_url);
+            size += retainedSize(entity.avatar_url);
+            size += retainedSize(entity.country);
+            size += retainedSize(entity.full_name);
+            size += retainedSize(entity.city);
+            size += retainedSize(entity.description);
+            size += retainedSize(entity.discogs_name);
+            size += retainedSize(entity.myspace_name);
+            size += retainedSize(entity.website);
+            size += retainedSize(entity.website_title);
+            size += retainedSize(entity.track_count);
+            size += retainedSize(entity.playlist_count);
+            size += retainedSize(entity.followers_count);
+            size += retainedSize(entity.followings_count);
+            size += retainedSize(entity.public_favorites_count);
+            size += retainedSize(entity.avatar_data);
+
+            return size;
+        }
+
+        @Override
+        User merge(User source, User cached, EntityTypeAdapter.Booleans present) {
+            Merge merge = new Merge();
+
+            source.id = merge.pick(source.id, cached.id);
+            source.permalink = merge.pick(source.permalink, cached.permalink);
+            source.username = merge.pick(source.username, cached.username);
+            source.uri = merge.pick(source.uri, cached.uri);
+            source.permalink_url = merge.pick(source.permalink_url, cached.permalink_url);
+            source.avatar_url = merge.pick(source.avatar_url, cached.avatar_url);
+            source.country = merge.pick(source.country, cached.country);
+            source.full_name = merge.pick(source.full_name, cached.full_name);
+            source.city = merge.pick(source.city, cached.city);
+            source.description = merge.pick(source.description, cached.description);
+            source.discogs_name = merge.pick(source.discogs_name, cached.discogs_name);
+            source.myspace_name = merge.pick(source.myspace_name, cached.myspace_name);
+            source.website = merge.pick(source.website, cached.website);
+            source.website_title = merge.pick(source.website_title, cached.website_title);
+            source.is_online = merge.pick(present.contains(USER_ONLINE),
+                    source.is_online, cached.is_online);
+            source.track_count = merge.pick(source.track_count, cached.track_count);
+            source.playlist_count = merge.pick(source.playlist_count, cached.playlist_count);
+            source.followers_count = merge.pick(source.followers_count, cached.followers_count);
+            source.followings_count = merge.pick(source.followings_count, cached.followings_count);
+            source.public_favorites_count =
+                    merge.pick(source.public_favorites_count, cached.public_favorites_count);
+            source.avatar_data = merge.pick(source.avatar_data, cached.avatar_data);
+
+            return merge.result(source, cached);
+        }
+    };
+
+    static final EntityModel<MiniUser> MINI_USER = new EntityModel<MiniUser>() {
+        @Override
+        String idOf(MiniUser entity) {
+            return entity.id;
+        }
+
+        @Override
+        int sizeOf(MiniUser entity) {
+            int size = shallowSize(8, 0);
+            size += retainedSize(entity.avatar_url);
+            size += retainedSize(entity.id);
+            size += retainedSize(entity.kind);
+            size += retainedSize(entity.last_modified);
+            size += retainedSize(entity.permalink);
+            size += retainedSize(entity.permalink_url);
+            size += retainedSize(entity.uri);
+            size += retainedSize(entity.username);
+
+            return size;
+        }
+
+        @Override
+        MiniUser merge(MiniUser source, MiniUser cached, EntityTypeAdapter.Booleans present) {
+            Merge merge = new Merge();
+
+            source.avatar_url = merge.pick(source.avatar_url, cached.avatar_url);
+            source.id = merge.pick(source.id, cached.id);
+            source.kind = merge.pick(source.kind, cached.kind);
+            source.last_modified = merge.pick(source.last_modified, cached.last_modified);
+            source.permalink = merge.pick(source.permalink, cached.permalink);
+            source.permalink_url = merge.pick(source.permalink_url, cached.permalink_url);
+            source.uri = merge.pick(source.uri, cached.uri);
+            source.username = merge.pick(source.username, cached.username);
+
+            return merge.result(source, cached);
+        }
+    };
+
+    static final EntityModel<Playlist> PLAYLIST = new EntityModel<Playlist>() {
+        @Override
+        String idOf(Playlist entity) {
+            return entity.id;
+        }
+
+        @Override
+        int sizeOf(Playlist entity) {
+            int size = shallowSize(30, 2);
+            size += retainedSize(entity.kind);
+            size += retainedSize(entity.id);
+            size += retainedSize(entity.created_at);
+            size += retainedSize(entity.user_id);
+            size += retainedSize(entity.duration);
+            size += retainedSize(entity.sharing);
+            size += retainedSize(entity.tag_list);
+            size += retainedSize(entity.permalink);
+            size += retainedSize(entity.track_count);
+            size += retainedSize(entity.embeddable_by);
+            size += retainedSize(entity.purchase_url);
+            size += retainedSize(entity.label_id);
+            size += retainedSize(entity.type);
+            size += retainedSize(entity.playlist_type);
+            size += retainedSize(entity.ean);
+            size += retainedSize(entity.description);
+            size += retainedSize(entity.genre);
+            size += retainedSize(entity.release);
+            size += retainedSize(entity.purchase_title);
+            size += retainedSize(entity.label_name);
+            size += retainedSize(entity.title);
+            size += retainedSize(entity.release_year);
+            size += retainedSize(entity.release_month);
+            size += retainedSize(entity.release_day);
+            size += retainedSize(entity.license);
+            size += retainedSize(entity.uri);
+            size += retainedSize(entity.permalink_url);
+            size += retainedSize(entity.artwork_url);
+            size += retainedSize(entity.tracks);
+
+            return size;
+        }
+
+        @Override
+        Playlist merge(Playlist source, Playlist cached, EntityTypeAdapter.Booleans present) {
+            Merge merge = new Merge();
+
+            source.kind = merge.pick(source.kind, cached.kind);
+            source.id = merge.pick(source.id, cached.id);
+            source.created_at = merge.pick(source.created_at, cached.created_at);
+            source.user_id = merge.pick(source.user_id, cached.user_id);
+            source.duration = merge.pick(source.duration, cached.duration);
+            source.sharing = merge.pick(source.sharing, cached.sharing);
+            source.tag_list = merge.pick(source.tag_list, cached.tag_list);
+            source.permalink = merge.pick(source.permalink, cached.permalink);
+            source.track_count = merge.pick(source.track_count, cached.track_count);
+            source.is_streamable = merge.pick(present.contains(PLAYLIST_STREAMABLE),
+                    source.is_streamable, cached.is_streamable);
+            source.is_downloadable = merge.pick(present.contains(PLAYLIST_DOWNLOADABLE),
+                    source.is_downloadable, cached.is_downloadable);
+            source.embeddable_by = merge.pick(source.embeddable_by, cached.embeddable_by);
+            source.purchase_url = merge.pick(source.purchase_url, cached.purchase_url);
+            source.label_id = merge.pick(source.label_id, cached.label_id);
+            source.type = merge.pick(source.type, cached.type);
+            source.playlist_type = merge.pick(source.playlist_type, cached.playlist_type);
+            source.ean = merge.pick(source.ean, cached.ean);
+            source.description = merge.pick(source.description, cached.description);
+            source.genre = merge.pick(source.genre, cached.genre);
+            source.release = merge.pick(source.release, cached.release);
+            source.purchase_title = merge.pick(source.purchase_title, cached.purchase_title);
+            source.label_name = merge.pick(source.label_name, cached.label_name);
+            source.title = merge.pick(source.title, cached.title);
+            source.release_year = merge.pick(source.release_year, cached.release_year);
+            source.release_month = merge.pick(source.release_month, cached.release_month);
+            source.release_day = merge.pick(source.release_day, cached.release_day);
+            source.license = merge.pick(source.license, cached.license);
+            source.uri = merge.pick(source.uri, cached.uri);
+            source.permalink_url = merge.pick(source.permalink_url, cached.permalink_url);
+            source.artwork_url = merge.pick(source.artwork_url, cached.artwork_url);
+            source.user = merge.pick(source.user, cached.user);
+            source.tracks = merge.pick(source.tracks, cached.tracks);
+
+            return merge.result(source, cached);
+        }
+    };
+
+    /**
+     * How the entities of one type are cached. Implements {@link EntityCache.Model} once the
+     * boolean fields of a decoded entity are known.
+     */
+    abstract static class EntityModel<T> {
+
+        abstract String idOf(T entity);
+
+        abstract int sizeOf(T entity);
+
+        /**
+         * @see EntityCache.Model#merge(Object, Object)
+         */
+        abstract T merge(T source, T cached, EntityTypeAdapter.Booleans present);
+
+        /**
+         * @param present The boolean fields the decoded entity carried.
+         * @return The model to intern the decoded entity with.
+         */
+        EntityCache.Model<T> forDecoded(final EntityTypeAdapter.Booleans present) {
+            return new EntityCache.Model<T>() {
+                @Override
+                public String idOf(T entity) {
+                    return EntityModel.this.idOf(entity);
+                }
+
+                @Override
+                public int sizeOf(T entity) {
+                    return EntityModel.this.sizeOf(entity);
+                }
+
+                @Override
+                public T merge(T source, T cached) {
+                    return EntityModel.this.merge(source, cached, present);
+                }
+            };
+        }
+    }
+
+    /**
+     * Fills in the values a decoded entity lacks from the cached instance, and notes whether the
+     * decoded entity carried anything new.
+     */
+    private static final class Merge {
+
+        private boolean changed;
+
+        <T> T pick(T newer, T cached) {
+            if (newer == null) {
+                return cached;
+            }
+
+            if (!newer.equals(cached)) {
+                changed = true;
+            }
+
+            return newer;
+        }
+
+        boolean pick(boolean present, boolean newer, boolean cached) {
+            if (!present) {
+                return cached;
+            }
+
+            if (newer != cached) {
+                changed = true;
+            }
+
+            return newer;
+        }
+
+        /**
+         * @return The decoded entity if it changed anything, so that the cached instance, which
+         * may be in use on other threads, is never modified.
+         */
+        <T> T result(T source, T cached) {
+            return changed ? source : cached;
+        }
+    }
+
+    private static int shallowSize(int references, int booleans) {
+        return align(8 + 4 * references + booleans);
+    }
+
+    private static int retainedSize(String value) {
+        if (value == null) {
+            return 0;
+        }
+
+        // String object plus its char array.
+        return align(8 + 4 * 4) + align(12 + 2 * value.length());
+    }
+
+    private static int retainedSize(List<?> list) {
+        if (list == null) {
+            return 0;
+        }
+
+        // ArrayList object plus its backing array.
+        return align(8 + 4 + 4 + 4) + align(12 + 4 * list.size());
+    }
+
+    private static int align(int size) {
+        return (size + 7) & ~7;
+    }
+}
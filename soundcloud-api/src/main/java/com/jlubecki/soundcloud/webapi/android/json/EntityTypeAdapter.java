@@ -0,0 +1,67 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.json;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+
+/**
+ * Adapter for an entity that can be merged with a cached instance. A missing boolean reads as
+ * false, so the adapter also reports which boolean fields the JSON actually carried.
+ */
+abstract class EntityTypeAdapter<T> extends TypeAdapter<T> {
+
+    @Override
+    public final T read(JsonReader in) throws IOException {
+        return read(in, new Booleans());
+    }
+
+    /**
+     * @param in      The reader positioned at an entity.
+     * @param present Receives the boolean fields that were present, as defined by {@link
+     *                EntityModels}.
+     * @return The decoded entity.
+     * @throws IOException if the entity could not be read.
+     */
+    abstract T read(JsonReader in, Booleans present) throws IOException;
+
+    /**
+     * Set of boolean fields of one decoded entity.
+     */
+    static final class Booleans {
+
+        private int fields;
+
+        void add(int field) {
+            fields |= field;
+        }
+
+        boolean contains(int field) {
+            return (fields & field) != 0;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.json;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.jlubecki.soundcloud.webapi.android.cache.EntityCache;
+
+import java.io.IOException;
+
+/**
+ * Wraps an entity adapter so that every decoded entity goes through an {@link EntityCache}.
+ * Writing is delegated unchanged.
+ */
+final class InterningTypeAdapter<T> extends TypeAdapter<T> {
+
+    private final Class<T> type;
+    private final EntityTypeAdapter<T> delegate;
+    private final EntityCache cache;
+    private final EntityModels.EntityModel<T> model;
+
+    InterningTypeAdapter(Class<T> type, EntityTypeAdapter<T> delegate, EntityCache cache,
+                         EntityModels.EntityModel<T> model) {
+        this.type = type;
+        this.delegate = delegate;
+        this.cache = cache;
+        this.model = model;
+    }
+
+    @Override
+    public void write(JsonWriter out, T value) throws IOException {
+        delegate.write(out, value);
+    }
+
+    @Override
+    public T read(JsonReader in) throws IOException {
+        EntityTypeAdapter.Booleans present = new EntityTypeAdapter.Booleans();
+        T entity = delegate.read(in, present);
+
+        return cache.intern(type, entity, model.forDecoded(present));
+    }
+}
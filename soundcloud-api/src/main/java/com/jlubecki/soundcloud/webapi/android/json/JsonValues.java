@@ -0,0 +1,231 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.json;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Reads primitive JSON values the same way Gson's built in adapters do, so that the hand written
+ * model adapters stay interchangeable with the reflective ones.
+ */
+final class JsonValues {
+
+    private JsonValues() {
+        // Static helpers only.
+    }
+
+    /**
+     * Reads a value as a {@link String}. Numbers and booleans are returned as their literal text.
+     *
+     * @param in The reader positioned at a value.
+     * @return The value as a string, or null if the value was a JSON null.
+     * @throws IOException if the value could not be read.
+     */
+    static String nextString(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        if (token == JsonToken.BOOLEAN) {
+            return Boolean.toString(in.nextBoolean());
+        }
+
+        return in.nextString();
+    }
+
+    /**
+     * Reads a value as a boolean. JSON nulls are treated as false, and strings are parsed with
+     * {@link Boolean#parseBoolean(String)}.
+     *
+     * @param in The reader positioned at a value.
+     * @return The value as a boolean.
+     * @throws IOException if the value could not be read.
+     */
+    static boolean nextBoolean(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return false;
+        }
+
+        if (token == JsonToken.STRING) {
+            return Boolean.parseBoolean(in.nextString());
+        }
+
+        return in.nextBoolean();
+    }
+
+    /**
+     * Reads a numeric value as a long. Numbers may also be quoted, and fractional numbers are
+     * truncated. JSON nulls and empty strings are read as 0.
+     *
+     * @param in The reader positioned at a value.
+     * @return The value as a long.
+     * @throws IOException if the value could not be read.
+     */
+    static long nextLong(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return 0;
+        }
+
+        if (token == JsonToken.STRING) {
+            return parseLong(in.nextString());
+        }
+
+        try {
+            return in.nextLong();
+        } catch (NumberFormatException e) {
+            // The reader keeps the number buffered, so it can be re-read as a double.
+            return (long) in.nextDouble();
+        }
+    }
+
+    /**
+     * Reads a numeric value as an int. See {@link #nextLong(JsonReader)}. Counts that can grow
+     * past {@link Integer#MAX_VALUE}, such as playback counts, should be read as longs.
+     *
+     * @param in The reader positioned at a value.
+     * @return The value as an int.
+     * @throws IOException if the value could not be read.
+     * @throws JsonSyntaxException if the value doesn't fit into an int.
+     */
+    static int nextInt(JsonReader in) throws IOException {
+        long value = nextLong(in);
+
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new JsonSyntaxException("Expected an int but was " + value + " at path "
+                    + in.getPath());
+        }
+
+        return (int) value;
+    }
+
+    /**
+     * Reads a numeric value as a float. JSON nulls and empty strings are read as 0.
+     *
+     * @param in The reader positioned at a value.
+     * @return The value as a float.
+     * @throws IOException if the value could not be read.
+     */
+    static float nextFloat(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return 0;
+        }
+
+        if (token == JsonToken.STRING) {
+            String value = in.nextString();
+
+            return value.isEmpty() ? 0 : Float.parseFloat(value);
+        }
+
+        return (float) in.nextDouble();
+    }
+
+    /**
+     * Reads a timestamp as milliseconds since the epoch. Numbers are taken to already be in
+     * milliseconds since the epoch, and JSON nulls are read as 0.
+     *
+     * @param in The reader positioned at a value.
+     * @return The value in milliseconds since the epoch.
+     * @throws IOException if the value could not be read.
+     * @see Timestamps#parse(String)
+     */
+    static long nextTimestamp(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NUMBER) {
+            return in.nextLong();
+        }
+
+        String value = nextString(in);
+
+        if (value == null || value.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            return Timestamps.parse(value);
+        } catch (IllegalArgumentException e) {
+            throw new NumberFormatException(e.getMessage());
+        }
+    }
+
+    /**
+     * Reads a value as a {@link String}, returning a shared instance for values that have been
+     * seen before. Meant for low cardinality fields such as licenses, states and genres, which
+     * otherwise repeat the same text for every item in a list.
+     *
+     * @param in       The reader positioned at a value.
+     * @param pool     Canonical instances, shared between readers.
+     * @param capacity Maximum number of values to keep in the pool.
+     * @return The value as a string, or null if the value was a JSON null.
+     * @throws IOException if the value could not be read.
+     */
+    static String nextPooledString(JsonReader in, Map<String, String> pool, int capacity)
+            throws IOException {
+        String value = nextString(in);
+
+        if (value == null) {
+            return null;
+        }
+
+        String pooled = pool.get(value);
+
+        if (pooled != null) {
+            return pooled;
+        }
+
+        if (pool.size() < capacity) {
+            pool.put(value, value);
+        }
+
+        return value;
+    }
+
+    private static long parseLong(String value) {
+        if (value.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return (long) Double.parseDouble(value);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.json;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.jlubecki.soundcloud.webapi.android.models.MiniUser;
+
+import java.io.IOException;
+
+/**
+ * Streaming adapter for {@link MiniUser}.
+ */
+final class MiniUserTypeAdapter extends EntityTypeAdapter<MiniUser> {
+
+    @Override
+    public void write(JsonWriter out, MiniUser user) throws IOException {
+        out.beginObject();
+        out.name("avatar_url").value(user.avatar_url);
+        out.name("id").value(user.id);
+        out.name("kind").value(user.kind);
+        out.name("last_modified").value(user.last_modified);
+        out.name("permalink").value(user.permalink);
+        out.name("permalink_url").value(user.permalink_url);
+        out.name("uri").value(user.uri);
+        out.name("username").value(user.username);
+        out.endObject();
+    }
+
+    @Override
+    MiniUser read(JsonReader in, Booleans present) throws IOException {
+        MiniUser user = new MiniUser();
+
+        try {
+            in.beginObject();
+
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "avatar_url":
+                        user.avatar_url = JsonValues.nextString(in);
+                        break;
+                    case "id":
+                        user.id = JsonValues.nextString(in);
+                        break;
+                    case "kind":
+                        user.kind = JsonValues.nextString(in);
+                        break;
+                    case "last_modified":
+                        user.last_modified = JsonValues.nextString(in);
+                        break;
+                    case "permalink":
+                        user.permalink = JsonValues.nextString(in);
+                        break;
+                    case "permalink_url":
+                        user.permalink_url = JsonValues.nextString(in);
+                        break;
+                    case "uri":
+                        user.uri = JsonValues.nextString(in);
+                        break;
+                    case "username":
+                        user.username = JsonValues.nextString(in);
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+
+            in.endObject();
+        } catch (IllegalStateException e) {
+            throw new JsonSyntaxException(e);
+        }
+
+        return user;
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.json;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.jlubecki.soundcloud.webapi.android.cache.EntityCache;
+import com.jlubecki.soundcloud.webapi.android.models.Comment;
+import com.jlubecki.soundcloud.webapi.android.models.CreatorApp;
+import com.jlubecki.soundcloud.webapi.android.models.MiniUser;
+import com.jlubecki.soundcloud.webapi.android.models.Playlist;
+import com.jlubecki.soundcloud.webapi.android.models.Track;
+import com.jlubecki.soundcloud.webapi.android.models.User;
+import com.jlubecki.soundcloud.webapi.android.models.compact.CompactComment;
+import com.jlubecki.soundcloud.webapi.android.models.compact.CompactPlaylist;
+import com.jlubecki.soundcloud.webapi.android.models.compact.CompactTrack;
+import com.jlubecki.soundcloud.webapi.android.models.compact.CompactUser;
+
+import java.util.List;
+
+/**
+ * Provides hand written, streaming {@link TypeAdapter}s for the models that come back in large
+ * lists: {@link Track}, {@link User}, {@link MiniUser}, {@link Playlist}, {@link Comment} and
+ * {@link CreatorApp}. The adapters read fields straight off the {@link
+ * com.google.gson.stream.JsonReader} without reflection, and map JSON names exactly like the
+ * reflective adapter configured in {@link com.jlubecki.soundcloud.webapi.android.SoundCloudAPI}.
+ * <p/>
+ * Also provides the adapters for the primitive based models in the {@code models.compact}
+ * package, which decode counts, durations and ids as numbers and timestamps as milliseconds
+ * since the epoch.
+ * <p/>
+ * If an {@link EntityCache} is given, decoded tracks, users, mini users and playlists are
+ * deduplicated by id through it.
+ */
+public class ModelTypeAdapterFactory implements TypeAdapterFactory {
+
+    private final EntityCache entityCache;
+
+    public ModelTypeAdapterFactory() {
+        this(null);
+    }
+
+    /**
+     * @param entityCache Cache through which decoded entities are deduplicated, or null.
+     */
+    public ModelTypeAdapterFactory(EntityCache entityCache) {
+        this.entityCache = entityCache;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        Class<? super T> rawType = type.getRawType();
+
+        if (rawType == Track.class) {
+            EntityTypeAdapter<Track> adapter = new TrackTypeAdapter(
+                    gson.getAdapter(MiniUser.class),
+                    gson.getAdapter(CreatorApp.class));
+
+            return (TypeAdapter<T>) interning(Track.class, adapter, EntityModels.TRACK).nullSafe();
+        }
+
+        if (rawType == User.class) {
+            EntityTypeAdapter<User> adapter = new UserTypeAdapter();
+
+            return (TypeAdapter<T>) interning(User.class, adapter, EntityModels.USER).nullSafe();
+        }
+
+        if (rawType == MiniUser.class) {
+            EntityTypeAdapter<MiniUser> adapter = new MiniUserTypeAdapter();
+
+            return (TypeAdapter<T>) interning(MiniUser.class, adapter, EntityModels.MINI_USER)
+                    .nullSafe();
+        }
+
+        if (rawType == Playlist.class) {
+            EntityTypeAdapter<Playlist> adapter = new PlaylistTypeAdapter(
+                    gson.getAdapter(MiniUser.class),
+                    gson.getAdapter(new TypeToken<List<Track>>() { }));
+
+            return (TypeAdapter<T>) interning(Playlist.class, adapter, EntityModels.PLAYLIST)
+                    .nullSafe();
+        }
+
+        if (rawType == Comment.class) {
+            return (TypeAdapter<T>) new CommentTypeAdapter(
+                    gson.getAdapter(MiniUser.class)).nullSafe();
+        }
+
+        if (rawType == CreatorApp.class) {
+            return (TypeAdapter<T>) new CreatorAppTypeAdapter().nullSafe();
+        }
+
+        if (rawType == CompactTrack.class) {
+            return (TypeAdapter<T>) new CompactTrackTypeAdapter(
+                    gson.getAdapter(CompactUser.class)).nullSafe();
+        }
+
+        if (rawType == CompactUser.class) {
+            return (TypeAdapter<T>) new CompactUserTypeAdapter().nullSafe();
+        }
+
+        if (rawType == CompactPlaylist.class) {
+            return (TypeAdapter<T>) new CompactPlaylistTypeAdapter(
+                    gson.getAdapter(CompactUser.class),
+                    gson.getAdapter(new TypeToken<List<CompactTrack>>() { })).nullSafe();
+        }
+
+        if (rawType == CompactComment.class) {
+            return (TypeAdapter<T>) new CompactCommentTypeAdapter(
+                    gson.getAdapter(CompactUser.class)).nullSafe();
+        }
+
+        return null;
+    }
+
+    private <E> TypeAdapter<E> interning(Class<E> type, EntityTypeAdapter<E> adapter,
+                                         EntityModels.EntityModel<E> model) {
+        if (entityCache == null) {
+            return adapter;
+        }
+
+        return new InterningTypeAdapter<>(type, adapter, entityCache, model);
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.json;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.jlubecki.soundcloud.webapi.android.models.MiniUser;
+import com.jlubecki.soundcloud.webapi.android.models.Playlist;
+import com.jlubecki.soundcloud.webapi.android.models.Track;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Streaming adapter for {@link Playlist}. Nested tracks are decoded with the {@link Track} adapter
+ * registered on the same {@link com.google.gson.Gson} instance.
+ */
+final class PlaylistTypeAdapter extends EntityTypeAdapter<Playlist> {
+
+    private final TypeAdapter<MiniUser> userAdapter;
+    private final TypeAdapter<List<Track>> tracksAdapter;
+
+    PlaylistTypeAdapter(TypeAdapter<MiniUser> userAdapter,
+                        TypeAdapter<List<Track>> tracksAdapter) {
+        this.userAdapter = userAdapter;
+        this.tracksAdapter = tracksAdapter;
+    }
+
+    @Override
+    public void write(JsonWriter out, Playlist playlist) throws IOException {
+        out.beginObject();
+        out.name("kind").value(playlist.kind);
+        out.name("id").value(playlist.id);
+        out.name("created_at").value(playlist.created_at);
+        out.name("user_id").value(playlist.user_id);
+        out.name("duration").value(playlist.duration);
+        out.name("sharing").value(playlist.sharing);
+        out.name("tag_list").value(playlist.tag_list);
+        out.name("permalink").value(playlist.permalink);
+        out.name("track_count").value(playlist.track_count);
+        out.name("streamable").value(playlist.is_streamable);
+        out.name("downloadable").value(playlist.is_downloadable);
+        out.name("embeddable_by").value(playlist.embeddable_by);
+        out.name("purchase_url").value(playlist.purchase_url);
+        out.name("label_id").value(playlist.label_id);
+        out.name("type").value(playlist.type);
+        out.name("playlist_type").value(playlist.playlist_type);
+        out.name("ean").value(playlist.ean);
+        out.name("description").value(playlist.description);
+        out.name("genre").value(playlist.genre);
+        out.name("release").value(playlist.release);
+        out.name("purchase_title").value(playlist.purchase_title);
+        out.name("label_name").value(playlist.label_name);
+        out.name("title").value(playlist.title);
+        out.name("release_year").value(playlist.release_year);
+        out.name("release_month").value(playlist.release_month);
+        out.name("release_day").value(playlist.release_day);
+        out.name("license").value(playlist.license);
+        out.name("uri").value(playlist.uri);
+        out.name("permalink_url").value(playlist.permalink_url);
+        out.name("artwork_url").value(playlist.artwork_url);
+        out.name("user");
+        userAdapter.write(out, playlist.user);
+        out.name("tracks");
+        tracksAdapter.write(out, playlist.tracks);
+        out.endObject();
+    }
+
+    @Override
+    Playlist read(JsonReader in, Booleans present) throws IOException {
+        Playlist playlist = new Playlist();
+
+        try {
+            in.beginObject();
+
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "kind":
+                        playlist.kind = JsonValues.nextString(in);
+                        break;
+                    case "id":
+                        playlist.id = JsonValues.nextString(in);
+                        break;
+                    case "created_at":
+                        playlist.created_at = JsonValues.nextString(in);
+                        break;
+                    case "user_id":
+                        playlist.user_id = JsonValues.nextString(in);
+                        break;
+                    case "duration":
+                        playlist.duration = JsonValues.nextString(in);
+                        break;
+                    case "sharing":
+                        playlist.sharing = JsonValues.nextString(in);
+                        break;
+                    case "tag_list":
+                        playlist.tag_list = JsonValues.nextString(in);
+                        break;
+                    case "permalink":
+                        playlist.permalink = JsonValues.nextString(in);
+                        break;
+                    case "track_count":
+                        playlist.track_count = JsonValues.nextString(in);
+                        break;
+                    case "streamable":
+                        playlist.is_streamable = JsonValues.nextBoolean(in);
+                        present.add(EntityModels.PLAYLIST_STREAMABLE);
+                        break;
+                    case "downloadable":
+                        playlist.is_downloadable = JsonValues.nextBoolean(in);
+                        present.add(EntityModels.PLAYLIST_DOWNLOADABLE);
+                        break;
+                    case "embeddable_by":
+                        playlist.embeddable_by = JsonValues.nextString(in);
+                        break;
+                    case "purchase_url":
+                        playlist.purchase_url = JsonValues.nextString(in);
+                        break;
+                    case "label_id":
+                        playlist.label_id = JsonValues.nextString(in);
+                        break;
+                    case "type":
+                        playlist.type = JsonValues.nextString(in);
+                        break;
+                    case "playlist_type":
+                        playlist.playlist_type = JsonValues.nextString(in);
+                        break;
+                    case "ean":
+                        playlist.ean = JsonValues.nextString(in);
+                        break;
+                    case "description":
+                        playlist.description = JsonValues.nextString(in);
+                        break;
+                    case "genre":
+                        playlist.genre = JsonValues.nextString(in);
+                        break;
+                    case "release":
+                        playlist.release = JsonValues.nextString(in);
+                        break;
+                    case "purchase_title":
+                        playlist.purchase_title = JsonValues.nextString(in);
+                        break;
+                    case "label_name":
+                        playlist.label_name = JsonValues.nextString(in);
+                        break;
+                    case "title":
+                        playlist.title = JsonValues.nextString(in);
+                        break;
+                    case "release_year":
+                        playlist.release_year = JsonValues.nextString(in);
+                        break;
+                    case "release_month":
+                        playlist.release_month = JsonValues.nextString(in);
+                        break;
+                    case "release_day":
+                        playlist.release_day = JsonValues.nextString(in);
+                        break;
+                    case "license":
+                        playlist.license = JsonValues.nextString(in);
+                        break;
+                    case "uri":
+                        playlist.uri = JsonValues.nextString(in);
+                        break;
+                    case "permalink_url":
+                        playlist.permalink_url = JsonValues.nextString(in);
+                        break;
+                    case "artwork_url":
+                        playlist.artwork_url = JsonValues.nextString(in);
+                        break;
+                    case "user":
+                        playlist.user = userAdapter.read(in);
+                        break;
+                    case "tracks":
+                        playlist.tracks = tracksAdapter.read(in);
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+
+            in.endObject();
+        } catch (IllegalStateException e) {
+            throw new JsonSyntaxException(e);
+        }
+
+        return playlist;
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.json;
+
+/**
+ * Parses the timestamps returned by the SoundCloud API into milliseconds since the epoch without
+ * going through {@link java.text.SimpleDateFormat}.
+ * <p/>
+ * Accepted formats:
+ * <ul>
+ * <li>"yyyy/MM/dd HH:mm:ss +0000", used by most API resources</li>
+ * <li>"yyyy-MM-dd HH:mm:ss", used by query parameters such as created_at[from]</li>
+ * <li>"yyyy-MM-ddTHH:mm:ssZ" and "yyyy-MM-ddTHH:mm:ss.SSS+00:00"</li>
+ * </ul>
+ * Timestamps without an offset are treated as UTC.
+ */
+public final class Timestamps {
+
+    private Timestamps() {
+        // Static helpers only.
+    }
+
+    /**
+     * Parses a SoundCloud timestamp.
+     *
+     * @param timestamp The timestamp to parse.
+     * @return Milliseconds since the epoch.
+     * @throws IllegalArgumentException if the timestamp is not in a supported format.
+     */
+    public static long parse(String timestamp) {
+        if (timestamp == null || timestamp.length() < 19) {
+            throw new IllegalArgumentException("Unsupported timestamp: " + timestamp);
+        }
+
+        char dateSeparator = timestamp.charAt(4);
+        char timeSeparator = timestamp.charAt(10);
+
+        if ((dateSeparator != '/' && dateSeparator != '-')
+                || timestamp.charAt(7) != dateSeparator
+                || (timeSeparator != ' ' && timeSeparator != 'T')
+                || timestamp.charAt(13) != ':'
+                || timestamp.charAt(16) != ':') {
+            throw new IllegalArgumentException("Unsupported timestamp: " + timestamp);
+        }
+
+        int year = digits(timestamp, 0, 4);
+        int month = digits(timestamp, 5, 7);
+        int day = digits(timestamp, 8, 10);
+        int hour = digits(timestamp, 11, 13);
+        int minute = digits(timestamp, 14, 16);
+        int second = digits(timestamp, 17, 19);
+
+        int position = 19;
+        int millis = 0;
+
+        if (position < timestamp.length() && timestamp.charAt(position) == '.') {
+            int start = ++position;
+
+            while (position < timestamp.length() && isDigit(timestamp.charAt(position))) {
+                position++;
+            }
+
+            if (position == start) {
+                throw new IllegalArgumentException("Unsupported timestamp: " + timestamp);
+            }
+
+            // Only the first three fractional digits are significant.
+            int end = Math.min(position, start + 3);
+            millis = digits(timestamp, start, end);
+            for (int i = end - start; i < 3; i++) {
+                millis *= 10;
+            }
+        }
+
+        while (position < timestamp.length() && timestamp.charAt(position) == ' ') {
+            position++;
+        }
+
+        int offsetMinutes = 0;
+
+        if (position < timestamp.length()) {
+            char sign = timestamp.charAt(position);
+
+            if (sign == 'Z' && position == timestamp.length() - 1) {
+                offsetMinutes = 0;
+            } else if (sign == '+' || sign == '-') {
+                int hours = digits(timestamp, position + 1, position + 3);
+                int minutesStart = position + 3;
+
+                if (minutesStart < timestamp.length() && timestamp.charAt(minutesStart) == ':') {
+                    minutesStart++;
+                }
+
+                if (minutesStart + 2 != timestamp.length()) {
+                    throw new IllegalArgumentException("Unsupported timestamp: " + timestamp);
+                }
+
+                offsetMinutes = hours * 60 + digits(timestamp, minutesStart, minutesStart + 2);
+
+                if (sign == '-') {
+                    offsetMinutes = -offsetMinutes;
+                }
+            } else {
+                throw new IllegalArgumentException("Unsupported timestamp: " + timestamp);
+            }
+        }
+
+        if (month < 1 || month > 12 || day < 1 || day > 31
+                || hour > 23 || minute > 59 || second > 60) {
+            throw new IllegalArgumentException("Unsupported timestamp: " + timestamp);
+        }
+
+        long days = daysFromCivil(year, month, day);
+        long seconds = days * 86400L + hour * 3600L + minute * 60L + second - offsetMinutes * 60L;
+
+        return seconds * 1000L + millis;
+    }
+
+    /**
+     * Days since 1970-01-01 for a date in the proleptic Gregorian calendar.
+     */
+    private static long daysFromCivil(int year, int month, int day) {
+        year -= month <= 2 ? 1 : 0;
+
+        long era = (year >= 0 ? year : year - 399) / 400;
+        long yearOfEra = year - era * 400;
+        long dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    private static int digits(String value, int start, int end) {
+        if (end > value.length()) {
+            throw new IllegalArgumentException("Unsupported timestamp: " + value);
+        }
+
+        int result = 0;
+
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+
+            if (!isDigit(c)) {
+                throw new IllegalArgumentException("Unsupported timestamp: " + value);
+            }
+
+            result = result * 10 + (c - '0');
+        }
+
+        return result;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
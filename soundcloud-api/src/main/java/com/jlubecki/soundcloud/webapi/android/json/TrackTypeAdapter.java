@@ -0,0 +1,265 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.json;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.jlubecki.soundcloud.webapi.android.models.CreatorApp;
+import com.jlubecki.soundcloud.webapi.android.models.MiniUser;
+import com.jlubecki.soundcloud.webapi.android.models.Track;
+
+import java.io.IOException;
+
+/**
+ * Streaming adapter for {@link Track}. Field names match the reflective mapping, including the
+ * {@code streamable} and {@code downloadable} aliases.
+ */
+final class TrackTypeAdapter extends EntityTypeAdapter<Track> {
+
+    private final TypeAdapter<MiniUser> userAdapter;
+    private final TypeAdapter<CreatorApp> creatorAppAdapter;
+
+    TrackTypeAdapter(TypeAdapter<MiniUser> userAdapter, TypeAdapter<CreatorApp> creatorAppAdapter) {
+        this.userAdapter = userAdapter;
+        this.creatorAppAdapter = creatorAppAdapter;
+    }
+
+    @Override
+    public void write(JsonWriter out, Track track) throws IOException {
+        out.beginObject();
+        out.name("id").value(track.id);
+        out.name("created_at").value(track.created_at);
+        out.name("userid").value(track.userid);
+        out.name("user");
+        userAdapter.write(out, track.user);
+        out.name("title").value(track.title);
+        out.name("permalink").value(track.permalink);
+        out.name("permalink_url").value(track.permalink_url);
+        out.name("uri").value(track.uri);
+        out.name("sharing").value(track.sharing);
+        out.name("embeddable_by").value(track.embeddable_by);
+        out.name("purchase_url").value(track.purchase_url);
+        out.name("artwork_url").value(track.artwork_url);
+        out.name("description").value(track.description);
+        out.name("duration").value(track.duration);
+        out.name("genre").value(track.genre);
+        out.name("tags_list").value(track.tags_list);
+        out.name("label_id").value(track.label_id);
+        out.name("label_name").value(track.label_name);
+        out.name("release").value(track.release);
+        out.name("release_day").value(track.release_day);
+        out.name("release_month").value(track.release_month);
+        out.name("release_year").value(track.release_year);
+        out.name("streamable").value(track.is_streamable);
+        out.name("downloadable").value(track.is_downloadable);
+        out.name("state").value(track.state);
+        out.name("license").value(track.license);
+        out.name("track_type").value(track.track_type);
+        out.name("waveform_url").value(track.waveform_url);
+        out.name("download_url").value(track.download_url);
+        out.name("stream_url").value(track.stream_url);
+        out.name("video_url").value(track.video_url);
+        out.name("bpm").value(track.bpm);
+        out.name("commentable").value(track.commentable);
+        out.name("isrc").value(track.isrc);
+        out.name("key_signature").value(track.key_signature);
+        out.name("comment_count").value(track.comment_count);
+        out.name("download_count").value(track.download_count);
+        out.name("playback_count").value(track.playback_count);
+        out.name("favoritings_count").value(track.favoritings_count);
+        out.name("original_format").value(track.original_format);
+        out.name("original_file_size").value(track.original_file_size);
+        out.name("created_with");
+        creatorAppAdapter.write(out, track.created_with);
+        out.name("asset_data").value(track.asset_data);
+        out.name("artwork_data").value(track.artwork_data);
+        out.name("user_favorite").value(track.user_favorite);
+        out.endObject();
+    }
+
+    @Override
+    Track read(JsonReader in, Booleans present) throws IOException {
+        Track track = new Track();
+
+        try {
+            in.beginObject();
+
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id":
+                        track.id = JsonValues.nextString(in);
+                        break;
+                    case "created_at":
+                        track.created_at = JsonValues.nextString(in);
+                        break;
+                    case "userid":
+                        track.userid = JsonValues.nextString(in);
+                        break;
+                    case "user":
+                        track.user = userAdapter.read(in);
+                        break;
+                    case "title":
+                        track.title = JsonValues.nextString(in);
+                        break;
+                    case "permalink":
+                        track.permalink = JsonValues.nextString(in);
+                        break;
+                    case "permalink_url":
+                        track.permalink_url = JsonValues.nextString(in);
+                        break;
+                    case "uri":
+                        track.uri = JsonValues.nextString(in);
+                        break;
+                    case "sharing":
+                        track.sharing = JsonValues.nextString(in);
+                        break;
+                    case "embeddable_by":
+                        track.embeddable_by = JsonValues.nextString(in);
+                        break;
+                    case "purchase_url":
+                        track.purchase_url = JsonValues.nextString(in);
+                        break;
+                    case "artwork_url":
+                        track.artwork_url = JsonValues.nextString(in);
+                        break;
+                    case "description":
+                        track.description = JsonValues.nextString(in);
+                        break;
+                    case "duration":
+                        track.duration = JsonValues.nextString(in);
+                        break;
+                    case "genre":
+                        track.genre = JsonValues.nextString(in);
+                        break;
+                    case "tags_list":
+                        track.tags_list = JsonValues.nextString(in);
+                        break;
+                    case "label_id":
+                        track.label_id = JsonValues.nextString(in);
+                        break;
+                    case "label_name":
+                        track.label_name = JsonValues.nextString(in);
+                        break;
+                    case "release":
+                        track.release = JsonValues.nextString(in);
+                        break;
+                    case "release_day":
+                        track.release_day = JsonValues.nextString(in);
+                        break;
+                    case "release_month":
+                        track.release_month = JsonValues.nextString(in);
+                        break;
+                    case "release_year":
+                        track.release_year = JsonValues.nextString(in);
+                        break;
+                    case "streamable":
+                        track.is_streamable = JsonValues.nextBoolean(in);
+                        present.add(EntityModels.TRACK_STREAMABLE);
+                        break;
+                    case "downloadable":
+                        track.is_downloadable = JsonValues.nextBoolean(in);
+                        present.add(EntityModels.TRACK_DOWNLOADABLE);
+                        break;
+                    case "state":
+                        track.state = JsonValues.nextString(in);
+                        break;
+                    case "license":
+                        track.license = JsonValues.nextString(in);
+                        break;
+                    case "track_type":
+                        track.track_type = JsonValues.nextString(in);
+                        break;
+                    case "waveform_url":
+                        track.waveform_url = JsonValues.nextString(in);
+                        break;
+                    case "download_url":
+                        track.download_url = JsonValues.nextString(in);
+                        break;
+                    case "stream_url":
+                        track.stream_url = JsonValues.nextString(in);
+                        break;
+                    case "video_url":
+                        track.video_url = JsonValues.nextString(in);
+                        break;
+                    case "bpm":
+                        track.bpm = JsonValues.nextString(in);
+                        break;
+                    case "commentable":
+                        track.commentable = JsonValues.nextBoolean(in);
+                        present.add(EntityModels.TRACK_COMMENTABLE);
+                        break;
+                    case "isrc":
+                        track.isrc = JsonValues.nextString(in);
+                        break;
+                    case "key_signature":
+                        track.key_signature = JsonValues.nextString(in);
+                        break;
+                    case "comment_count":
+                        track.comment_count = JsonValues.nextString(in);
+                        break;
+                    case "download_count":
+                        track.download_count = JsonValues.nextString(in);
+                        break;
+                    case "playback_count":
+                        track.playback_count = JsonValues.nextString(in);
+                        break;
+                    case "favoritings_count":
+                        track.favoritings_count = JsonValues.nextString(in);
+                        break;
+                    case "original_format":
+                        track.original_format = JsonValues.nextString(in);
+                        break;
+                    case "original_file_size":
+                        track.original_file_size = JsonValues.nextString(in);
+                        break;
+                    case "created_with":
+                        track.created_with = creatorAppAdapter.read(in);
+                        break;
+                    case "asset_data":
+                        track.asset_data = JsonValues.nextString(in);
+                        break;
+                    case "artwork_data":
+                        track.artwork_data = JsonValues.nextString(in);
+                        break;
+                    case "user_favorite":
+                        track.user_favorite = JsonValues.nextBoolean(in);
+                        present.add(EntityModels.TRACK_USER_FAVORITE);
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+
+            in.endObject();
+        } catch (IllegalStateException e) {
+            throw new JsonSyntaxException(e);
+        }
+
+        return track;
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.json;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.jlubecki.soundcloud.webapi.android.models.User;
+
+import java.io.IOException;
+
+/**
+ * Streaming adapter for {@link User}. Field names match the reflective mapping, including the
+ * hyphenated profile names and the {@code online} alias.
+ */
+final class UserTypeAdapter extends EntityTypeAdapter<User> {
+
+    @Override
+    public void write(JsonWriter out, User user) throws IOException {
+        out.beginObject();
+        out.name("id").value(user.id);
+        out.name("permalink").value(user.permalink);
+        out.name("username").value(user.username);
+        out.name("uri").value(user.uri);
+        out.name("permalink_url").value(user.permalink_url);
+        out.name("avatar_url").value(user.avatar_url);
+        out.name("country").value(user.country);
+        out.name("full_name").value(user.full_name);
+        out.name("city").value(user.city);
+        out.name("description").value(user.description);
+        out.name("discogs-name").value(user.discogs_name);
+        out.name("myspace-name").value(user.myspace_name);
+        out.name("website").value(user.website);
+        out.name("website-tile").value(user.website_title);
+        out.name("online").value(user.is_online);
+        out.name("track_count").value(user.track_count);
+        out.name("playlist_count").value(user.playlist_count);
+        out.name("followers_count").value(user.followers_count);
+        out.name("followings_count").value(user.followings_count);
+        out.name("public_favorites_count").value(user.public_favorites_count);
+        out.name("avatar_data").value(user.avatar_data);
+        out.endObject();
+    }
+
+    @Override
+    User read(JsonReader in, Booleans present) throws IOException {
+        User user = new User();
+
+        try {
+            in.beginObject();
+
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id":
+                        user.id = JsonValues.nextString(in);
+                        break;
+                    case "permalink":
+                        user.permalink = JsonValues.nextString(in);
+                        break;
+                    case "username":
+                        user.username = JsonValues.nextString(in);
+                        break;
+                    case "uri":
+                        user.uri = JsonValues.nextString(in);
+                        break;
+                    case "permalink_url":
+                        user.permalink_url = JsonValues.nextString(in);
+                        break;
+                    case "avatar_url":
+                        user.avatar_url = JsonValues.nextString(in);
+                        break;
+                    case "country":
+                        user.country = JsonValues.nextString(in);
+                        break;
+                    case "full_name":
+                        user.full_name = JsonValues.nextString(in);
+                        break;
+                    case "city":
+                        user.city = JsonValues.nextString(in);
+                        break;
+                    case "description":
+                        user.description = JsonValues.nextString(in);
+                        break;
+                    case "discogs-name":
+                        user.discogs_name = JsonValues.nextString(in);
+                        break;
+                    case "myspace-name":
+                        user.myspace_name = JsonValues.nextString(in);
+                        break;
+                    case "website":
+                        user.website = JsonValues.nextString(in);
+                        break;
+                    case "website-tile":
+                    case "website-title":
+                        user.website_title = JsonValues.nextString(in);
+                        break;
+                    case "online":
+                        user.is_online = JsonValues.nextBoolean(in);
+                        present.add(EntityModels.USER_ONLINE);
+                        break;
+                    case "track_count":
+                        user.track_count = JsonValues.nextString(in);
+                        break;
+                    case "playlist_count":
+                        user.playlist_count = JsonValues.nextString(in);
+                        break;
+                    case "followers_count":
+                        user.followers_count = JsonValues.nextString(in);
+                        break;
+                    case "followings_count":
+                        user.followings_count = JsonValues.nextString(in);
+                        break;
+                    case "public_favorites_count":
+                        user.public_favorites_count = JsonValues.nextString(in);
+                        break;
+                    case "avatar_data":
+                        user.avatar_data = JsonValues.nextString(in);
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+
+            in.endObject();
+        } catch (IllegalStateException e) {
+            throw new JsonSyntaxException(e);
+        }
+
+        return user;
+    }
+}
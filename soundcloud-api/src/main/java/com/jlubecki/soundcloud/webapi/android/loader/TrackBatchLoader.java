@@ -0,0 +1,373 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.loader;
+
+import com.jlubecki.soundcloud.webapi.android.SoundCloudService;
+import com.jlubecki.soundcloud.webapi.android.cache.EntityCache;
+import com.jlubecki.soundcloud.webapi.android.concurrent.DaemonThreadFactory;
+import com.jlubecki.soundcloud.webapi.android.concurrent.SettableFuture;
+import com.jlubecki.soundcloud.webapi.android.models.Track;
+import com.jlubecki.soundcloud.webapi.android.query.Pager;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Loads tracks by id, coalescing the requests made within a short window into
+ * {@code /tracks?ids=} queries made with {@link SoundCloudService#searchTracks(HashMap)}.
+ * <p/>
+ * Each call to {@link #load(String)} returns a future for one track. Ids requested while a batch
+ * is collecting, or while the request for their batch is running, share that request, but every
+ * caller gets its own future, so cancelling one doesn't affect the others. An id whose callers
+ * all cancelled before its batch was sent is left out of the batch. A batch
+ * is sent once it reaches the maximum batch size or once the window since its first id elapses,
+ * whichever comes first. Hydrating a 200 track playlist therefore takes one request instead of
+ * 200.
+ * <p/>
+ * Tracks that aren't part of a batch response, e.g. because they were deleted or are private,
+ * complete with null.
+ */
+public class TrackBatchLoader {
+
+    public static final int MAX_BATCH_SIZE_DEFAULT = 50;
+    public static final long BATCH_WINDOW_MILLIS_DEFAULT = 10;
+
+    private static final String IDS = "ids";
+
+    private final SoundCloudService service;
+    private final EntityCache entityCache;
+    private final ScheduledExecutorService scheduler;
+    private final int maxBatchSize;
+    private final long batchWindowNanos;
+
+    private final Object lock = new Object();
+    private final Map<String, Load> inFlight = new HashMap<>();
+    private LinkedHashMap<String, Load> pending = new LinkedHashMap<>();
+    private ScheduledFuture<?> scheduledDispatch;
+
+    private TrackBatchLoader(Builder builder) {
+        this.service = builder.service;
+        this.entityCache = builder.entityCache;
+        this.scheduler = builder.scheduler != null ? builder.scheduler : DefaultScheduler.INSTANCE;
+        this.maxBatchSize = builder.maxBatchSize;
+        this.batchWindowNanos = builder.batchWindowNanos;
+    }
+
+    /**
+     * Requests a track. The request joins the batch that is currently collecting.
+     *
+     * @param trackId ID of the track.
+     * @return A future for the track, completed with null if the track doesn't exist.
+     */
+    public SettableFuture<Track> load(String trackId) {
+        if (entityCache != null) {
+            Track cached = entityCache.get(Track.class, trackId);
+
+            if (cached != null) {
+                SettableFuture<Track> future = new SettableFuture<>();
+                future.set(cached);
+
+                return future;
+            }
+        }
+
+        synchronized (lock) {
+            Load load = pending.get(trackId);
+
+            if (load == null) {
+                load = inFlight.get(trackId);
+            }
+
+            if (load == null) {
+                load = new Load();
+                pending.put(trackId, load);
+
+                if (pending.size() >= maxBatchSize) {
+                    dispatchLocked();
+                } else if (scheduledDispatch == null) {
+                    scheduledDispatch = scheduler.schedule(new Runnable() {
+                        @Override
+                        public void run() {
+                            dispatch();
+                        }
+                    }, batchWindowNanos, TimeUnit.NANOSECONDS);
+                }
+            }
+
+            return addCaller(trackId, load);
+        }
+    }
+
+    /**
+     * Requests several tracks, in as few requests as the maximum batch size allows.
+     *
+     * @param trackIds IDs of the tracks.
+     * @return Futures for the tracks, in the same order as the ids.
+     */
+    public List<SettableFuture<Track>> loadAll(List<String> trackIds) {
+        List<SettableFuture<Track>> futures = new ArrayList<>(trackIds.size());
+
+        for (String trackId : trackIds) {
+            futures.add(load(trackId));
+        }
+
+        return futures;
+    }
+
+    /**
+     * Sends the batch that is currently collecting without waiting for the window to elapse.
+     */
+    public void dispatch() {
+        synchronized (lock) {
+            dispatchLocked();
+        }
+    }
+
+    private SettableFuture<Track> addCaller(final String trackId, final Load load) {
+        SettableFuture<Track> caller = new SettableFuture<Track>() {
+            @Override
+            protected void onCancelled() {
+                removeCaller(trackId, load, this);
+            }
+        };
+
+        load.callers.add(caller);
+
+        return caller;
+    }
+
+    private void removeCaller(String trackId, Load load, SettableFuture<Track> caller) {
+        synchronized (lock) {
+            load.callers.remove(caller);
+
+            if (load.callers.isEmpty() && pending.get(trackId) == load) {
+                pending.remove(trackId);
+
+                if (pending.isEmpty() && scheduledDispatch != null) {
+                    scheduledDispatch.cancel(false);
+                    scheduledDispatch = null;
+                }
+            }
+        }
+    }
+
+    private void dispatchLocked() {
+        if (scheduledDispatch != null) {
+            scheduledDispatch.cancel(false);
+            scheduledDispatch = null;
+        }
+
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        final Map<String, Load> batch = pending;
+        pending = new LinkedHashMap<>();
+        inFlight.putAll(batch);
+
+        StringBuilder ids = new StringBuilder();
+
+        for (String id : batch.keySet()) {
+            if (ids.length() > 0) {
+                ids.append(',');
+            }
+
+            ids.append(id);
+        }
+
+        HashMap<String, String> queryMap = new HashMap<>();
+        queryMap.put(IDS, ids.toString());
+        queryMap.put(Pager.LIMIT, String.valueOf(batch.size()));
+
+        service.searchTracks(queryMap).enqueue(new Callback<List<Track>>() {
+            @Override
+            public void onResponse(Call<List<Track>> call, Response<List<Track>> response) {
+                if (!response.isSuccessful()) {
+                    fail(batch, new IOException(
+                            "Batch request failed: " + response.code() + " " + response.message()));
+                    return;
+                }
+
+                Map<String, Track> tracks = new HashMap<>();
+
+                if (response.body() != null) {
+                    for (Track track : response.body()) {
+                        tracks.put(track.id, track);
+                    }
+                }
+
+                complete(batch, tracks);
+            }
+
+            @Override
+            public void onFailure(Call<List<Track>> call, Throwable t) {
+                fail(batch, t);
+            }
+        });
+    }
+
+    private void complete(Map<String, Load> batch, Map<String, Track> tracks) {
+        for (Map.Entry<String, List<SettableFuture<Track>>> entry : release(batch).entrySet()) {
+            Track track = tracks.get(entry.getKey());
+
+            for (SettableFuture<Track> caller : entry.getValue()) {
+                caller.set(track);
+            }
+        }
+    }
+
+    private void fail(Map<String, Load> batch, Throwable t) {
+        for (List<SettableFuture<Track>> callers : release(batch).values()) {
+            for (SettableFuture<Track> caller : callers) {
+                caller.setException(t);
+            }
+        }
+    }
+
+    /**
+     * Ends a batch, so later loads of its ids start a new one.
+     *
+     * @return The callers waiting for each id of the batch.
+     */
+    private Map<String, List<SettableFuture<Track>>> release(Map<String, Load> batch) {
+        Map<String, List<SettableFuture<Track>>> callers = new HashMap<>();
+
+        synchronized (lock) {
+            inFlight.keySet().removeAll(batch.keySet());
+
+            for (Map.Entry<String, Load> entry : batch.entrySet()) {
+                callers.put(entry.getKey(), new ArrayList<>(entry.getValue().callers));
+            }
+        }
+
+        return callers;
+    }
+
+    /**
+     * The callers waiting for one id.
+     */
+    private static final class Load {
+
+        final List<SettableFuture<Track>> callers = new ArrayList<>();
+    }
+
+    private static final class DefaultScheduler {
+
+        static final ScheduledExecutorService INSTANCE = Executors.newSingleThreadScheduledExecutor(
+                new DaemonThreadFactory("TrackBatchLoader"));
+    }
+
+    public static class Builder {
+
+        private final SoundCloudService service;
+        private EntityCache entityCache;
+        private ScheduledExecutorService scheduler;
+        private int maxBatchSize = MAX_BATCH_SIZE_DEFAULT;
+        private long batchWindowNanos = TimeUnit.MILLISECONDS.toNanos(BATCH_WINDOW_MILLIS_DEFAULT);
+
+        /**
+         * @param service The service used to request batches, usually from
+         *                {@link com.jlubecki.soundcloud.webapi.android.SoundCloudAPI#getService()}.
+         */
+        public Builder(SoundCloudService service) {
+            this.service = service;
+        }
+
+        /**
+         * Sets the maximum number of ids in one request.
+         *
+         * @param maxBatchSize The maximum batch size, at most {@link Pager#LIMIT_MAX}.
+         * @return The instance of the builder that was just updated.
+         */
+        public Builder setMaxBatchSize(int maxBatchSize) {
+            if (maxBatchSize < 1 || maxBatchSize > Pager.LIMIT_MAX) {
+                throw new IllegalArgumentException("maxBatchSize out of range: " + maxBatchSize);
+            }
+
+            this.maxBatchSize = maxBatchSize;
+
+            return this;
+        }
+
+        /**
+         * Sets how long a batch collects ids after its first one before it is sent.
+         *
+         * @param window Length of the window.
+         * @param unit   Unit of the window.
+         * @return The instance of the builder that was just updated.
+         */
+        public Builder setBatchWindow(long window, TimeUnit unit) {
+            if (window < 0) {
+                throw new IllegalArgumentException("window < 0: " + window);
+            }
+
+            this.batchWindowNanos = unit.toNanos(window);
+
+            return this;
+        }
+
+        /**
+         * Completes requests for tracks that are already in an {@link EntityCache} without
+         * adding them to a batch.
+         *
+         * @param entityCache The cache to check, usually the one the service decodes into.
+         * @return The instance of the builder that was just updated.
+         */
+        public Builder setEntityCache(EntityCache entityCache) {
+            this.entityCache = entityCache;
+
+            return this;
+        }
+
+        /**
+         * Sets the executor that sends batches once their window elapses. By default a shared
+         * daemon thread is used.
+         *
+         * @param scheduler The executor to use.
+         * @return The instance of the builder that was just updated.
+         */
+        public Builder setScheduler(ScheduledExecutorService scheduler) {
+            this.scheduler = scheduler;
+
+            return this;
+        }
+
+        public TrackBatchLoader build() {
+            return new TrackBatchLoader(this);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.loader;
+
+import com.jlubecki.soundcloud.webapi.android.models.Playlist;
+import com.jlubecki.soundcloud.webapi.android.models.Track;
+import com.jlubecki.soundcloud.webapi.android.models.User;
+import com.jlubecki.soundcloud.webapi.android.models.WebProfile;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Everything a profile screen shows about a user, as loaded by a {@link UserProfileLoader}.
+ * <p/>
+ * A profile is immutable. Parts that could not be loaded under
+ * {@link UserProfileLoader.PartialResultPolicy#ALLOW_PARTIAL} are empty, and are listed by
+ * {@link #getMissingParts()} along with the reason from {@link #getFailure(Part)}.
+ */
+public final class UserProfile {
+
+    /**
+     * The requests a profile is made of.
+     */
+    public enum Part {
+        USER,
+        TRACKS,
+        PLAYLISTS,
+        FOLLOWERS,
+        FOLLOWINGS,
+        WEB_PROFILES
+    }
+
+    private final User user;
+    private final List<Track> tracks;
+    private final List<Playlist> playlists;
+    private final List<User> followers;
+    private final List<User> followings;
+    private final List<WebProfile> webProfiles;
+    private final Map<Part, Throwable> failures;
+
+    UserProfile(User user, List<Track> tracks, List<Playlist> playlists, List<User> followers,
+                List<User> followings, List<WebProfile> webProfiles,
+                Map<Part, Throwable> failures) {
+        this.user = user;
+        this.tracks = unmodifiable(tracks);
+        this.playlists = unmodifiable(playlists);
+        this.followers = unmodifiable(followers);
+        this.followings = unmodifiable(followings);
+        this.webProfiles = unmodifiable(webProfiles);
+        this.failures = failures.isEmpty() ? Collections.<Part, Throwable>emptyMap()
+                : Collections.unmodifiableMap(new EnumMap<>(failures));
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public List<Track> getTracks() {
+        return tracks;
+    }
+
+    public List<Playlist> getPlaylists() {
+        return playlists;
+    }
+
+    public List<User> getFollowers() {
+        return followers;
+    }
+
+    public List<User> getFollowings() {
+        return followings;
+    }
+
+    public List<WebProfile> getWebProfiles() {
+        return webProfiles;
+    }
+
+    /**
+     * @return True if every part was loaded.
+     */
+    public boolean isComplete() {
+        return failures.isEmpty();
+    }
+
+    /**
+     * @return The parts that could not be loaded.
+     */
+    public Set<Part> getMissingParts() {
+        return failures.keySet();
+    }
+
+    /**
+     * @param part A part of the profile.
+     * @return Why the part could not be loaded, or null if it was loaded.
+     */
+    public Throwable getFailure(Part part) {
+        return failures.get(part);
+    }
+
+    private static <T> List<T> unmodifiable(List<T> list) {
+        return list == null ? Collections.<T>emptyList() : Collections.unmodifiableList(list);
+    }
+}
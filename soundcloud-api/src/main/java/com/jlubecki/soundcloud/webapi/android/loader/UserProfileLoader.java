@@ -0,0 +1,365 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.loader;
+
+import com.jlubecki.soundcloud.webapi.android.FutureSoundCloudService;
+import com.jlubecki.soundcloud.webapi.android.async.Futures;
+import com.jlubecki.soundcloud.webapi.android.concurrent.DaemonThreadFactory;
+import com.jlubecki.soundcloud.webapi.android.concurrent.SettableFuture;
+import com.jlubecki.soundcloud.webapi.android.loader.UserProfile.Part;
+import com.jlubecki.soundcloud.webapi.android.models.Playlist;
+import com.jlubecki.soundcloud.webapi.android.models.Track;
+import com.jlubecki.soundcloud.webapi.android.models.User;
+import com.jlubecki.soundcloud.webapi.android.models.WebProfile;
+import com.jlubecki.soundcloud.webapi.android.query.Pager;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Loads a {@link UserProfile}: a user along with their tracks, playlists, followers, followings
+ * and web profiles.
+ * <p/>
+ * The six requests run in parallel, so a profile takes about as long as its slowest request,
+ * provided the dispatcher allows six requests per host; OkHttp's default is five, see
+ * {@link com.jlubecki.soundcloud.webapi.android.SoundCloudAPI.Builder#setMaxRequestsPerHost(int)}.
+ * The whole profile has one deadline. When a request fails, or the deadline passes, the
+ * {@link PartialResultPolicy} decides whether the profile fails, cancelling the requests still
+ * running, or completes without the missing parts. Cancelling the future returned by
+ * {@link #load(String)} cancels every request.
+ */
+public class UserProfileLoader {
+
+    public static final long DEADLINE_MILLIS_DEFAULT = 10000;
+
+    private static final String LIMIT = "limit";
+
+    /**
+     * What happens to a profile when one of its requests fails or misses the deadline.
+     */
+    public enum PartialResultPolicy {
+
+        /**
+         * The profile fails with the first failure, and the other requests are cancelled.
+         */
+        ALL_OR_NOTHING,
+
+        /**
+         * The profile completes without the parts that failed. The user itself is required, so
+         * the profile still fails if it can't be loaded.
+         */
+        ALLOW_PARTIAL
+    }
+
+    private final FutureSoundCloudService service;
+    private final ScheduledExecutorService scheduler;
+    private final PartialResultPolicy policy;
+    private final long deadlineNanos;
+    private final int listLimit;
+
+    private UserProfileLoader(Builder builder) {
+        this.service = builder.service;
+        this.scheduler = builder.scheduler != null ? builder.scheduler : DefaultScheduler.INSTANCE;
+        this.policy = builder.policy;
+        this.deadlineNanos = builder.deadlineNanos;
+        this.listLimit = builder.listLimit;
+    }
+
+    /**
+     * Starts loading the profile of a user.
+     *
+     * @param userId ID of the user.
+     * @return A future for the profile. It fails with a {@link TimeoutException} if the deadline
+     * passes before the required parts are loaded.
+     */
+    public SettableFuture<UserProfile> load(String userId) {
+        EnumMap<Part, SettableFuture<?>> requests = new EnumMap<>(Part.class);
+
+        requests.put(Part.USER, service.getUser(userId));
+
+        if (listLimit > 0) {
+            requests.put(Part.TRACKS, service.getUserTracks(userId, limit()));
+            requests.put(Part.PLAYLISTS, service.getUserPlaylists(userId, limit()));
+            requests.put(Part.FOLLOWERS, service.getUserFollowers(userId, limit()));
+            requests.put(Part.FOLLOWINGS, service.getUserFollowings(userId, limit()));
+        } else {
+            requests.put(Part.TRACKS, service.getUserTracks(userId));
+            requests.put(Part.PLAYLISTS, service.getUserPlaylists(userId));
+            requests.put(Part.FOLLOWERS, service.getUserFollowers(userId));
+            requests.put(Part.FOLLOWINGS, service.getUserFollowings(userId));
+        }
+
+        requests.put(Part.WEB_PROFILES, service.getUserWebProfiles(userId));
+
+        return new Hydration(userId, requests).start();
+    }
+
+    private HashMap<String, String> limit() {
+        HashMap<String, String> queries = new HashMap<>();
+        queries.put(LIMIT, String.valueOf(listLimit));
+
+        return queries;
+    }
+
+    /**
+     * The state of one {@link #load(String)}.
+     */
+    private class Hydration {
+
+        private final String userId;
+        private final EnumMap<Part, SettableFuture<?>> requests;
+        private final EnumMap<Part, Object> values = new EnumMap<>(Part.class);
+        private final EnumMap<Part, Throwable> failures = new EnumMap<>(Part.class);
+        private final SettableFuture<UserProfile> result;
+
+        private boolean deadlinePassed;
+        private ScheduledFuture<?> timer;
+
+        Hydration(String userId, EnumMap<Part, SettableFuture<?>> requests) {
+            this.userId = userId;
+            this.requests = requests;
+            this.result = new SettableFuture<UserProfile>() {
+                @Override
+                protected void onCancelled() {
+                    cancelRequests();
+                }
+            };
+        }
+
+        SettableFuture<UserProfile> start() {
+            synchronized (this) {
+                timer = scheduler.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        onDeadline();
+                    }
+                }, deadlineNanos, TimeUnit.NANOSECONDS);
+            }
+
+            for (final Map.Entry<Part, SettableFuture<?>> request : requests.entrySet()) {
+                request.getValue().addListener(new Runnable() {
+                    @Override
+                    public void run() {
+                        onDone(request.getKey(), request.getValue());
+                    }
+                }, Futures.directExecutor());
+            }
+
+            return result;
+        }
+
+        private void onDone(Part part, SettableFuture<?> request) {
+            Throwable failure = null;
+            boolean complete;
+
+            synchronized (this) {
+                try {
+                    values.put(part, request.get());
+                } catch (ExecutionException e) {
+                    failure = e.getCause();
+                } catch (CancellationException e) {
+                    failure = deadlinePassed ? timeout() : e;
+                } catch (InterruptedException e) {
+                    // The request is done, so get() doesn't wait.
+                    Thread.currentThread().interrupt();
+                    failure = e;
+                }
+
+                if (failure != null) {
+                    failures.put(part, failure);
+                }
+
+                complete = values.size() + failures.size() == requests.size();
+            }
+
+            if (failure != null && (policy == PartialResultPolicy.ALL_OR_NOTHING
+                    || part == Part.USER)) {
+                fail(failure);
+            } else if (complete) {
+                finish();
+            }
+        }
+
+        private void onDeadline() {
+            boolean userLoaded;
+
+            synchronized (this) {
+                deadlinePassed = true;
+                userLoaded = values.containsKey(Part.USER);
+            }
+
+            if (policy == PartialResultPolicy.ALL_OR_NOTHING || !userLoaded) {
+                fail(timeout());
+            } else {
+                // Each cancelled request is recorded as missing, and the last one finishes.
+                cancelRequests();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void finish() {
+            UserProfile profile;
+
+            synchronized (this) {
+                profile = new UserProfile(
+                        (User) values.get(Part.USER),
+                        (List<Track>) values.get(Part.TRACKS),
+                        (List<Playlist>) values.get(Part.PLAYLISTS),
+                        (List<User>) values.get(Part.FOLLOWERS),
+                        (List<User>) values.get(Part.FOLLOWINGS),
+                        (List<WebProfile>) values.get(Part.WEB_PROFILES),
+                        failures);
+            }
+
+            if (result.set(profile)) {
+                cancelTimer();
+            }
+        }
+
+        private void fail(Throwable failure) {
+            if (result.setException(failure)) {
+                cancelTimer();
+                cancelRequests();
+            }
+        }
+
+        private void cancelRequests() {
+            for (SettableFuture<?> request : requests.values()) {
+                request.cancel(false);
+            }
+        }
+
+        private synchronized void cancelTimer() {
+            if (timer != null) {
+                timer.cancel(false);
+            }
+        }
+
+        private TimeoutException timeout() {
+            return new TimeoutException("Profile of user " + userId + " not loaded within "
+                    + TimeUnit.NANOSECONDS.toMillis(deadlineNanos) + " ms");
+        }
+    }
+
+    private static final class DefaultScheduler {
+
+        static final ScheduledExecutorService INSTANCE = Executors.newSingleThreadScheduledExecutor(
+                new DaemonThreadFactory("UserProfileLoader"));
+    }
+
+    public static class Builder {
+
+        private final FutureSoundCloudService service;
+        private ScheduledExecutorService scheduler;
+        private PartialResultPolicy policy = PartialResultPolicy.ALL_OR_NOTHING;
+        private long deadlineNanos = TimeUnit.MILLISECONDS.toNanos(DEADLINE_MILLIS_DEFAULT);
+        private int listLimit;
+
+        /**
+         * @param service The service used to make the requests, usually from
+         *                {@link com.jlubecki.soundcloud.webapi.android.SoundCloudAPI#getFutureService()}.
+         */
+        public Builder(FutureSoundCloudService service) {
+            this.service = service;
+        }
+
+        /**
+         * Sets how long loading a whole profile may take. Defaults to
+         * {@value #DEADLINE_MILLIS_DEFAULT} ms.
+         *
+         * @param deadline Length of the deadline.
+         * @param unit     Unit of the deadline.
+         * @return The instance of the builder that was just updated.
+         */
+        public Builder setDeadline(long deadline, TimeUnit unit) {
+            if (deadline <= 0) {
+                throw new IllegalArgumentException("deadline <= 0: " + deadline);
+            }
+
+            this.deadlineNanos = unit.toNanos(deadline);
+
+            return this;
+        }
+
+        /**
+         * Sets what happens when a request fails or misses the deadline. Defaults to
+         * {@link PartialResultPolicy#ALL_OR_NOTHING}.
+         *
+         * @param policy The policy to apply.
+         * @return The instance of the builder that was just updated.
+         */
+        public Builder setPartialResultPolicy(PartialResultPolicy policy) {
+            if (policy == null) {
+                throw new IllegalArgumentException("policy == null");
+            }
+
+            this.policy = policy;
+
+            return this;
+        }
+
+        /**
+         * Sets how many tracks, playlists, followers and followings are requested. By default
+         * the API's default page size is used.
+         *
+         * @param listLimit The number of items per list, at most {@link Pager#LIMIT_MAX}.
+         * @return The instance of the builder that was just updated.
+         */
+        public Builder setListLimit(int listLimit) {
+            if (listLimit < 1 || listLimit > Pager.LIMIT_MAX) {
+                throw new IllegalArgumentException("listLimit out of range: " + listLimit);
+            }
+
+            this.listLimit = listLimit;
+
+            return this;
+        }
+
+        /**
+         * Sets the executor that enforces deadlines. By default a shared daemon thread is used.
+         *
+         * @param scheduler The executor to use.
+         * @return The instance of the builder that was just updated.
+         */
+        public Builder setScheduler(ScheduledExecutorService scheduler) {
+            this.scheduler = scheduler;
+
+            return this;
+        }
+
+        public UserProfileLoader build() {
+            return new UserProfileLoader(this);
+        }
+    }
+}
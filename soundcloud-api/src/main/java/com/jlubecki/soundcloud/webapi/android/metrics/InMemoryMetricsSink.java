@@ -0,0 +1,168 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link MetricsSink} that aggregates measurements in memory, by endpoint template, and exposes
+ * them through {@link #snapshot()}. Latencies are kept in {@link LatencyHistogram}s, so memory
+ * use depends on the number of endpoints rather than the number of calls.
+ */
+public class InMemoryMetricsSink implements MetricsSink {
+
+    private final ConcurrentMap<String, EndpointStats> endpoints = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicLong> counters = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicLong> gauges = new ConcurrentHashMap<>();
+
+    @Override
+    public void onRequest(RequestMetrics metrics) {
+        EndpointStats stats = endpoints.get(metrics.endpoint());
+
+        if (stats == null) {
+            EndpointStats created = new EndpointStats();
+            stats = endpoints.putIfAbsent(metrics.endpoint(), created);
+
+            if (stats == null) {
+                stats = created;
+            }
+        }
+
+        stats.record(metrics);
+    }
+
+    @Override
+    public void onCount(String name, long delta) {
+        get(counters, name).addAndGet(delta);
+    }
+
+    @Override
+    public void onGauge(String name, long value) {
+        get(gauges, name).set(value);
+    }
+
+    /**
+     * @return A copy of everything measured so far.
+     */
+    public MetricsSnapshot snapshot() {
+        Map<String, MetricsSnapshot.Endpoint> endpointSnapshots = new HashMap<>();
+
+        for (Map.Entry<String, EndpointStats> entry : endpoints.entrySet()) {
+            endpointSnapshots.put(entry.getKey(), entry.getValue().snapshot());
+        }
+
+        return new MetricsSnapshot(endpointSnapshots, copy(counters), copy(gauges));
+    }
+
+    /**
+     * Discards everything measured so far.
+     */
+    public void reset() {
+        endpoints.clear();
+        counters.clear();
+        gauges.clear();
+    }
+
+    private static AtomicLong get(ConcurrentMap<String, AtomicLong> values, String name) {
+        AtomicLong value = values.get(name);
+
+        if (value == null) {
+            AtomicLong created = new AtomicLong();
+            value = values.putIfAbsent(name, created);
+
+            if (value == null) {
+                value = created;
+            }
+        }
+
+        return value;
+    }
+
+    private static <K> Map<K, Long> copy(Map<K, AtomicLong> values) {
+        Map<K, Long> copy = new HashMap<>();
+
+        for (Map.Entry<K, AtomicLong> entry : values.entrySet()) {
+            copy.put(entry.getKey(), entry.getValue().get());
+        }
+
+        return copy;
+    }
+
+    private static final class EndpointStats {
+
+        final AtomicLong requestCount = new AtomicLong();
+        final AtomicLong failureCount = new AtomicLong();
+        final AtomicLong retryCount = new AtomicLong();
+        final AtomicLong requestBytes = new AtomicLong();
+        final AtomicLong responseBytes = new AtomicLong();
+        final ConcurrentMap<Integer, AtomicLong> statusCounts = new ConcurrentHashMap<>();
+        final LatencyHistogram total = new LatencyHistogram();
+        final LatencyHistogram timeToFirstByte = new LatencyHistogram();
+        final LatencyHistogram dns = new LatencyHistogram();
+        final LatencyHistogram connect = new LatencyHistogram();
+        final LatencyHistogram tls = new LatencyHistogram();
+
+        void record(RequestMetrics metrics) {
+            requestCount.incrementAndGet();
+            retryCount.addAndGet(metrics.retries());
+            requestBytes.addAndGet(metrics.requestBytes());
+            responseBytes.addAndGet(metrics.responseBytes());
+
+            if (metrics.code() == RequestMetrics.NO_RESPONSE) {
+                failureCount.incrementAndGet();
+            } else {
+                AtomicLong statusCount = statusCounts.get(metrics.code());
+
+                if (statusCount == null) {
+                    AtomicLong created = new AtomicLong();
+                    statusCount = statusCounts.putIfAbsent(metrics.code(), created);
+
+                    if (statusCount == null) {
+                        statusCount = created;
+                    }
+                }
+
+                statusCount.incrementAndGet();
+            }
+
+            total.record(metrics.totalNanos());
+            timeToFirstByte.record(metrics.timeToFirstByteNanos());
+            dns.record(metrics.dnsNanos());
+            connect.record(metrics.connectNanos());
+            tls.record(metrics.tlsNanos());
+        }
+
+        MetricsSnapshot.Endpoint snapshot() {
+            return new MetricsSnapshot.Endpoint(requestCount.get(), failureCount.get(),
+                    retryCount.get(), requestBytes.get(), responseBytes.get(), copy(statusCounts),
+                    total.snapshot(), timeToFirstByte.snapshot(), dns.snapshot(),
+                    connect.snapshot(), tls.snapshot());
+        }
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock free histogram of durations with log-linear buckets, in the style of HdrHistogram.
+ * <p/>
+ * Durations are counted in microseconds. Below 64 µs every value has its own bucket; above, each
+ * power of two is split into 32 buckets, so recorded values keep a relative precision of about
+ * 3% up to the maximum of about 35 minutes. Longer durations are counted as the maximum. A
+ * histogram takes about 7 KB whatever the number of recorded values.
+ */
+public class LatencyHistogram {
+
+    private static final int LINEAR_BUCKETS = 64;
+    private static final int SUB_BUCKETS = 32;
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final long MAX_MICROS = Integer.MAX_VALUE;
+
+    private static final int BUCKET_COUNT = indexOf(MAX_MICROS) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos The duration in nanoseconds. Negative durations are ignored.
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            return;
+        }
+
+        long micros = Math.min(TimeUnit.NANOSECONDS.toMicros(nanos), MAX_MICROS);
+
+        counts.incrementAndGet(indexOf(micros));
+        count.incrementAndGet();
+        sum.addAndGet(micros);
+
+        long current;
+        while (micros < (current = min.get()) && !min.compareAndSet(current, micros)) {
+            // Retry until the minimum is updated or no longer larger.
+        }
+        while (micros > (current = max.get()) && !max.compareAndSet(current, micros)) {
+            // Retry until the maximum is updated or no longer smaller.
+        }
+    }
+
+    /**
+     * @return A copy of the recorded values. Values recorded while the copy is made may or may
+     * not be included.
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKET_COUNT];
+
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            copy[i] = counts.get(i);
+        }
+
+        long total = count.get();
+
+        return new Snapshot(copy, total, total > 0 ? min.get() : 0, max.get(), sum.get());
+    }
+
+    private static int indexOf(long micros) {
+        if (micros < LINEAR_BUCKETS) {
+            return (int) micros;
+        }
+
+        int magnitude = 63 - Long.numberOfLeadingZeros(micros);
+        int shift = magnitude - SUB_BUCKET_BITS;
+        int subBucket = (int) (micros >>> shift);
+
+        return LINEAR_BUCKETS + (shift - 1) * SUB_BUCKETS + (subBucket - SUB_BUCKETS);
+    }
+
+    private static long lowestValueAt(int index) {
+        if (index < LINEAR_BUCKETS) {
+            return index;
+        }
+
+        int shift = (index - LINEAR_BUCKETS) / SUB_BUCKETS + 1;
+        long subBucket = (index - LINEAR_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS;
+
+        return subBucket << shift;
+    }
+
+    private static long highestValueAt(int index) {
+        return index + 1 < BUCKET_COUNT ? lowestValueAt(index + 1) - 1 : MAX_MICROS;
+    }
+
+    /**
+     * Immutable copy of a {@link LatencyHistogram}. Durations are returned in nanoseconds.
+     */
+    public static final class Snapshot {
+
+        private final long[] counts;
+        private final long count;
+        private final long minMicros;
+        private final long maxMicros;
+        private final long sumMicros;
+
+        Snapshot(long[] counts, long count, long minMicros, long maxMicros, long sumMicros) {
+            this.counts = counts;
+            this.count = count;
+            this.minMicros = minMicros;
+            this.maxMicros = maxMicros;
+            this.sumMicros = sumMicros;
+        }
+
+        /**
+         * @return The number of recorded durations.
+         */
+        public long count() {
+            return count;
+        }
+
+        /**
+         * @return The shortest recorded duration, or 0 if none was recorded.
+         */
+        public long minNanos() {
+            return TimeUnit.MICROSECONDS.toNanos(minMicros);
+        }
+
+        /**
+         * @return The longest recorded duration, or 0 if none was recorded.
+         */
+        public long maxNanos() {
+            return TimeUnit.MICROSECONDS.toNanos(maxMicros);
+        }
+
+        /**
+         * @return The mean of the recorded durations, or 0 if none was recorded.
+         */
+        public long meanNanos() {
+            return count > 0 ? TimeUnit.MICROSECONDS.toNanos(sumMicros / count) : 0;
+        }
+
+        /**
+         * Returns the duration below which a given percentage of the recorded durations fall.
+         *
+         * @param percentile The percentile, from 0 to 100, e.g. 99 for the p99 latency.
+         * @return The duration at the percentile, or 0 if none was recorded.
+         */
+        public long percentileNanos(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+
+            long rank = (long) Math.ceil(Math.min(Math.max(percentile, 0), 100) / 100 * count);
+            long seen = 0;
+
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+
+                if (seen >= Math.max(rank, 1)) {
+                    long value = Math.min(highestValueAt(i), maxMicros);
+
+                    return TimeUnit.MICROSECONDS.toNanos(Math.max(value, minMicros));
+                }
+            }
+
+            return maxNanos();
+        }
+    }
+}
@@ -0,0 +1,460 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.metrics;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+
+import javax.net.SocketFactory;
+
+import okhttp3.Dns;
+import okhttp3.Headers;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+import okio.Source;
+
+/**
+ * Measures the calls made by an {@link okhttp3.OkHttpClient} and reports them to a
+ * {@link MetricsSink}, one {@link RequestMetrics} per call.
+ * <p/>
+ * OkHttp 3.3 has no event listener API, so the phases of a call are observed through the hooks
+ * it does offer. The {@link #interceptor() application interceptor} starts and finishes a call,
+ * the {@link #dns(Dns) Dns} wrapper and the {@link #socketFactory() SocketFactory} time
+ * host lookups and TCP connects, and the {@link #networkInterceptor() network interceptor} sees
+ * each request that goes over the network, which gives the TLS time, time to first byte, retry
+ * count and wire sizes. Connections are set up on the thread that runs the call, so the phases
+ * are attributed to the call through a thread local.
+ * <p/>
+ * Calls are grouped by endpoint template: the URL path with numeric segments replaced by
+ * {@code {id}}, e.g. {@code users/{id}/favorites}.
+ */
+public class MetricsCollector {
+
+    private static final String ID_SEGMENT = "{id}";
+
+    private final MetricsSink sink;
+    private final ThreadLocal<CallTimings> current = new ThreadLocal<>();
+
+    public MetricsCollector(MetricsSink sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * @return The sink measurements are reported to.
+     */
+    public MetricsSink getSink() {
+        return sink;
+    }
+
+    /**
+     * Returns the application interceptor that measures complete calls. It should be the first
+     * application interceptor, so that time spent in the others is included.
+     *
+     * @return An interceptor to add with {@code OkHttpClient.Builder#addInterceptor}.
+     */
+    public Interceptor interceptor() {
+        return new CallInterceptor();
+    }
+
+    /**
+     * Returns the network interceptor that measures each request sent over the network.
+     *
+     * @return An interceptor to add with {@code OkHttpClient.Builder#addNetworkInterceptor}.
+     */
+    public Interceptor networkInterceptor() {
+        return new NetworkInterceptor();
+    }
+
+    /**
+     * Wraps a {@link Dns} to time host name lookups.
+     *
+     * @param delegate The resolver to time, usually {@link Dns#SYSTEM}.
+     * @return A resolver to set with {@code OkHttpClient.Builder#dns}.
+     */
+    public Dns dns(final Dns delegate) {
+        return new Dns() {
+            @Override
+            public List<InetAddress> lookup(String hostname) throws UnknownHostException {
+                long start = System.nanoTime();
+
+                try {
+                    return delegate.lookup(hostname);
+                } finally {
+                    CallTimings timings = current.get();
+
+                    if (timings != null) {
+                        timings.dnsNanos = add(timings.dnsNanos, System.nanoTime() - start);
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Returns a replacement for the default {@link SocketFactory} that times TCP connects.
+     *
+     * @return A factory to set with {@code OkHttpClient.Builder#socketFactory}.
+     */
+    public SocketFactory socketFactory() {
+        return new TimedSocketFactory(SocketFactory.getDefault());
+    }
+
+    /**
+     * Returns the endpoint template of a request.
+     *
+     * @param request The request.
+     * @return The path with numeric segments replaced by {@code {id}}.
+     */
+    public static String endpointOf(Request request) {
+        List<String> segments = request.url().pathSegments();
+        StringBuilder endpoint = new StringBuilder();
+
+        for (String segment : segments) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+
+            if (endpoint.length() > 0) {
+                endpoint.append('/');
+            }
+
+            endpoint.append(isId(segment) ? ID_SEGMENT : segment);
+        }
+
+        return endpoint.toString();
+    }
+
+    private static boolean isId(String segment) {
+        for (int i = 0; i < segment.length(); i++) {
+            if (!Character.isDigit(segment.charAt(i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static long add(long total, long nanos) {
+        return total == RequestMetrics.NOT_MEASURED ? nanos : total + nanos;
+    }
+
+    private static long headerBytes(Headers headers) {
+        long size = 0;
+
+        for (int i = 0; i < headers.size(); i++) {
+            // "Name: value\r\n"
+            size += headers.name(i).length() + headers.value(i).length() + 4;
+        }
+
+        return size;
+    }
+
+    private void report(CallTimings timings, int code) {
+        long total = System.nanoTime() - timings.startNanos;
+
+        sink.onRequest(new RequestMetrics(timings.endpoint, timings.method, code,
+                timings.attempts, timings.dnsNanos, timings.connectNanos, timings.tlsNanos,
+                timings.firstByteNanos, total, timings.requestBytes, timings.responseBytes));
+    }
+
+    /**
+     * Measurements of one call while it is running.
+     */
+    private static final class CallTimings {
+
+        final String endpoint;
+        final String method;
+        final long startNanos = System.nanoTime();
+
+        int attempts;
+        long dnsNanos = RequestMetrics.NOT_MEASURED;
+        long connectNanos = RequestMetrics.NOT_MEASURED;
+        long connectEndNanos = RequestMetrics.NOT_MEASURED;
+        long tlsNanos = RequestMetrics.NOT_MEASURED;
+        long firstByteNanos = RequestMetrics.NOT_MEASURED;
+        long requestBytes;
+        volatile long responseBytes;
+
+        boolean reported;
+
+        CallTimings(Request request) {
+            this.endpoint = endpointOf(request);
+            this.method = request.method();
+        }
+    }
+
+    private class CallInterceptor implements Interceptor {
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            final CallTimings timings = new CallTimings(chain.request());
+            CallTimings outer = current.get();
+            current.set(timings);
+
+            Response response;
+
+            try {
+                response = chain.proceed(chain.request());
+            } catch (IOException e) {
+                report(timings, RequestMetrics.NO_RESPONSE);
+                throw e;
+            } finally {
+                current.set(outer);
+            }
+
+            if (timings.firstByteNanos == RequestMetrics.NOT_MEASURED) {
+                // Answered without going to the network, e.g. by the cache.
+                timings.firstByteNanos = System.nanoTime() - timings.startNanos;
+            }
+
+            final int code = response.code();
+            ResponseBody body = response.body();
+
+            if (body == null) {
+                report(timings, code);
+                return response;
+            }
+
+            return response.newBuilder()
+                    .body(new ReportingBody(body, new Runnable() {
+                        @Override
+                        public void run() {
+                            synchronized (timings) {
+                                if (timings.reported) {
+                                    return;
+                                }
+
+                                timings.reported = true;
+                            }
+
+                            report(timings, code);
+                        }
+                    }))
+                    .build();
+        }
+    }
+
+    private class NetworkInterceptor implements Interceptor {
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            Request request = chain.request();
+            final CallTimings timings = current.get();
+
+            if (timings == null) {
+                // Made on a client without the application interceptor.
+                return chain.proceed(request);
+            }
+
+            long sendNanos = System.nanoTime();
+
+            timings.attempts++;
+
+            if (timings.connectEndNanos != RequestMetrics.NOT_MEASURED
+                    && timings.tlsNanos == RequestMetrics.NOT_MEASURED
+                    && request.isHttps()) {
+                timings.tlsNanos = sendNanos - timings.connectEndNanos;
+            }
+
+            timings.requestBytes += headerBytes(request.headers())
+                    + request.method().length() + request.url().encodedPath().length() + 12;
+
+            if (request.body() != null && request.body().contentLength() > 0) {
+                timings.requestBytes += request.body().contentLength();
+            }
+
+            Response response = chain.proceed(request);
+
+            timings.firstByteNanos = System.nanoTime() - timings.startNanos;
+            timings.responseBytes += headerBytes(response.headers()) + 17;
+
+            ResponseBody body = response.body();
+
+            if (body == null) {
+                return response;
+            }
+
+            final MediaType contentType = body.contentType();
+            final long contentLength = body.contentLength();
+            final BufferedSource counting = Okio.buffer(new ForwardingSource(body.source()) {
+                @Override
+                public long read(Buffer sink, long byteCount) throws IOException {
+                    long read = super.read(sink, byteCount);
+
+                    if (read > 0) {
+                        timings.responseBytes += read;
+                    }
+
+                    return read;
+                }
+            });
+
+            return response.newBuilder()
+                    .body(new ResponseBody() {
+                        @Override
+                        public MediaType contentType() {
+                            return contentType;
+                        }
+
+                        @Override
+                        public long contentLength() {
+                            return contentLength;
+                        }
+
+                        @Override
+                        public BufferedSource source() {
+                            return counting;
+                        }
+                    })
+                    .build();
+        }
+    }
+
+    /**
+     * Response body that runs a callback once it is read to the end or closed.
+     */
+    private static final class ReportingBody extends ResponseBody {
+
+        private final ResponseBody delegate;
+        private final BufferedSource source;
+
+        ReportingBody(ResponseBody delegate, final Runnable onDone) {
+            this.delegate = delegate;
+
+            Source reporting = new ForwardingSource(delegate.source()) {
+                @Override
+                public long read(Buffer sink, long byteCount) throws IOException {
+                    long read;
+
+                    try {
+                        read = super.read(sink, byteCount);
+                    } catch (IOException e) {
+                        onDone.run();
+                        throw e;
+                    }
+
+                    if (read == -1) {
+                        onDone.run();
+                    }
+
+                    return read;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        onDone.run();
+                    }
+                }
+            };
+
+            this.source = Okio.buffer(reporting);
+        }
+
+        @Override
+        public MediaType contentType() {
+            return delegate.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return delegate.contentLength();
+        }
+
+        @Override
+        public BufferedSource source() {
+            return source;
+        }
+    }
+
+    private class TimedSocketFactory extends SocketFactory {
+
+        private final SocketFactory delegate;
+
+        TimedSocketFactory(SocketFactory delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Socket createSocket() throws IOException {
+            return new TimedSocket();
+        }
+
+        @Override
+        public Socket createSocket(String host, int port) throws IOException {
+            return delegate.createSocket(host, port);
+        }
+
+        @Override
+        public Socket createSocket(String host, int port, InetAddress localHost, int localPort)
+                throws IOException {
+            return delegate.createSocket(host, port, localHost, localPort);
+        }
+
+        @Override
+        public Socket createSocket(InetAddress host, int port) throws IOException {
+            return delegate.createSocket(host, port);
+        }
+
+        @Override
+        public Socket createSocket(InetAddress address, int port, InetAddress localAddress,
+                                   int localPort) throws IOException {
+            return delegate.createSocket(address, port, localAddress, localPort);
+        }
+    }
+
+    /**
+     * Unconnected socket that times its connect. OkHttp always creates sockets unconnected.
+     */
+    private class TimedSocket extends Socket {
+        @Override
+        public void connect(SocketAddress endpoint, int timeout) throws IOException {
+            long start = System.nanoTime();
+
+            try {
+                super.connect(endpoint, timeout);
+            } finally {
+                long end = System.nanoTime();
+                CallTimings timings = current.get();
+
+                if (timings != null) {
+                    timings.connectNanos = add(timings.connectNanos, end - start);
+                    timings.connectEndNanos = end;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.metrics;
+
+/**
+ * Receives the measurements taken by the library. Implementations must be thread safe, and
+ * should return quickly since they are called on the threads that make requests.
+ *
+ * @see InMemoryMetricsSink
+ * @see com.jlubecki.soundcloud.webapi.android.SoundCloudAPI.Builder#setMetricsSink(MetricsSink)
+ */
+public interface MetricsSink {
+
+    /**
+     * Called once per call made through the API, after its response body is closed or the call
+     * fails.
+     *
+     * @param metrics The measurements of the call.
+     */
+    void onRequest(RequestMetrics metrics);
+
+    /**
+     * Called when a named counter changes, e.g. when a request is throttled.
+     *
+     * @param name  Name of the counter.
+     * @param delta The amount to add to the counter.
+     */
+    void onCount(String name, long delta);
+
+    /**
+     * Called when a named value is sampled, e.g. the number of requests waiting for a permit.
+     *
+     * @param name  Name of the gauge.
+     * @param value The current value.
+     */
+    void onGauge(String name, long value);
+}
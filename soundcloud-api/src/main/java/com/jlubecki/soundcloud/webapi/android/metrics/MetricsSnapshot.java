@@ -0,0 +1,179 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Immutable copy of the measurements collected by an {@link InMemoryMetricsSink}.
+ */
+public final class MetricsSnapshot {
+
+    private final Map<String, Endpoint> endpoints;
+    private final Map<String, Long> counters;
+    private final Map<String, Long> gauges;
+
+    MetricsSnapshot(Map<String, Endpoint> endpoints, Map<String, Long> counters,
+                    Map<String, Long> gauges) {
+        this.endpoints = Collections.unmodifiableMap(endpoints);
+        this.counters = Collections.unmodifiableMap(counters);
+        this.gauges = Collections.unmodifiableMap(gauges);
+    }
+
+    /**
+     * @return Measurements by endpoint template, e.g. {@code users/{id}/favorites}.
+     */
+    public Map<String, Endpoint> endpoints() {
+        return endpoints;
+    }
+
+    /**
+     * @return The value of each counter.
+     */
+    public Map<String, Long> counters() {
+        return counters;
+    }
+
+    /**
+     * @return The last value of each gauge.
+     */
+    public Map<String, Long> gauges() {
+        return gauges;
+    }
+
+    /**
+     * Measurements of the calls made to one endpoint template.
+     */
+    public static final class Endpoint {
+
+        private final long requestCount;
+        private final long failureCount;
+        private final long retryCount;
+        private final long requestBytes;
+        private final long responseBytes;
+        private final Map<Integer, Long> statusCounts;
+        private final LatencyHistogram.Snapshot total;
+        private final LatencyHistogram.Snapshot timeToFirstByte;
+        private final LatencyHistogram.Snapshot dns;
+        private final LatencyHistogram.Snapshot connect;
+        private final LatencyHistogram.Snapshot tls;
+
+        Endpoint(long requestCount, long failureCount, long retryCount, long requestBytes,
+                 long responseBytes, Map<Integer, Long> statusCounts,
+                 LatencyHistogram.Snapshot total, LatencyHistogram.Snapshot timeToFirstByte,
+                 LatencyHistogram.Snapshot dns, LatencyHistogram.Snapshot connect,
+                 LatencyHistogram.Snapshot tls) {
+            this.requestCount = requestCount;
+            this.failureCount = failureCount;
+            this.retryCount = retryCount;
+            this.requestBytes = requestBytes;
+            this.responseBytes = responseBytes;
+            this.statusCounts = Collections.unmodifiableMap(statusCounts);
+            this.total = total;
+            this.timeToFirstByte = timeToFirstByte;
+            this.dns = dns;
+            this.connect = connect;
+            this.tls = tls;
+        }
+
+        /**
+         * @return The number of calls.
+         */
+        public long requestCount() {
+            return requestCount;
+        }
+
+        /**
+         * @return The number of calls that failed without a response.
+         */
+        public long failureCount() {
+            return failureCount;
+        }
+
+        /**
+         * @return The number of requests sent after the first one of their call.
+         */
+        public long retryCount() {
+            return retryCount;
+        }
+
+        /**
+         * @return The approximate number of bytes sent.
+         */
+        public long requestBytes() {
+            return requestBytes;
+        }
+
+        /**
+         * @return The number of bytes received over the network.
+         */
+        public long responseBytes() {
+            return responseBytes;
+        }
+
+        /**
+         * @return The number of calls by status code of their final response.
+         */
+        public Map<Integer, Long> statusCounts() {
+            return statusCounts;
+        }
+
+        /**
+         * @return Durations of complete calls, until their body was closed.
+         */
+        public LatencyHistogram.Snapshot total() {
+            return total;
+        }
+
+        /**
+         * @return Durations until the headers of the final response arrived.
+         */
+        public LatencyHistogram.Snapshot timeToFirstByte() {
+            return timeToFirstByte;
+        }
+
+        /**
+         * @return Durations of host name lookups.
+         */
+        public LatencyHistogram.Snapshot dns() {
+            return dns;
+        }
+
+        /**
+         * @return Durations of TCP connects.
+         */
+        public LatencyHistogram.Snapshot connect() {
+            return connect;
+        }
+
+        /**
+         * @return Durations of TLS handshakes.
+         */
+        public LatencyHistogram.Snapshot tls() {
+            return tls;
+        }
+    }
+}
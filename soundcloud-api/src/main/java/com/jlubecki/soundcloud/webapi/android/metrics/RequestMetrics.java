@@ -0,0 +1,161 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.metrics;
+
+/**
+ * Measurements of one call. Durations are in nanoseconds and are negative when the phase didn't
+ * happen, e.g. DNS and connect times for a call that reused a pooled connection.
+ */
+public final class RequestMetrics {
+
+    /**
+     * Status code of calls that failed without a response.
+     */
+    public static final int NO_RESPONSE = -1;
+
+    /**
+     * Duration of phases that didn't happen.
+     */
+    public static final long NOT_MEASURED = -1;
+
+    private final String endpoint;
+    private final String method;
+    private final int code;
+    private final int attempts;
+    private final long dnsNanos;
+    private final long connectNanos;
+    private final long tlsNanos;
+    private final long timeToFirstByteNanos;
+    private final long totalNanos;
+    private final long requestBytes;
+    private final long responseBytes;
+
+    RequestMetrics(String endpoint, String method, int code, int attempts, long dnsNanos,
+                   long connectNanos, long tlsNanos, long timeToFirstByteNanos, long totalNanos,
+                   long requestBytes, long responseBytes) {
+        this.endpoint = endpoint;
+        this.method = method;
+        this.code = code;
+        this.attempts = attempts;
+        this.dnsNanos = dnsNanos;
+        this.connectNanos = connectNanos;
+        this.tlsNanos = tlsNanos;
+        this.timeToFirstByteNanos = timeToFirstByteNanos;
+        this.totalNanos = totalNanos;
+        this.requestBytes = requestBytes;
+        this.responseBytes = responseBytes;
+    }
+
+    /**
+     * @return The endpoint template of the call, e.g. {@code tracks/{id}/comments}.
+     */
+    public String endpoint() {
+        return endpoint;
+    }
+
+    /**
+     * @return The HTTP method of the call.
+     */
+    public String method() {
+        return method;
+    }
+
+    /**
+     * @return The status code of the final response, or {@link #NO_RESPONSE}.
+     */
+    public int code() {
+        return code;
+    }
+
+    /**
+     * @return The number of requests sent over the network, including retries and redirects.
+     * Zero if the call was answered by the cache.
+     */
+    public int attempts() {
+        return attempts;
+    }
+
+    /**
+     * @return The number of requests sent after the first one.
+     */
+    public int retries() {
+        return Math.max(0, attempts - 1);
+    }
+
+    /**
+     * @return Time spent resolving the host name.
+     */
+    public long dnsNanos() {
+        return dnsNanos;
+    }
+
+    /**
+     * @return Time spent opening the TCP connection.
+     */
+    public long connectNanos() {
+        return connectNanos;
+    }
+
+    /**
+     * @return Time spent between opening the TCP connection and being ready to send the request,
+     * which is mostly the TLS handshake.
+     */
+    public long tlsNanos() {
+        return tlsNanos;
+    }
+
+    /**
+     * @return Time from the start of the call until the headers of the final response arrived.
+     */
+    public long timeToFirstByteNanos() {
+        return timeToFirstByteNanos;
+    }
+
+    /**
+     * @return Time from the start of the call until its response body was closed.
+     */
+    public long totalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * @return Approximate size of the requests sent, headers included.
+     */
+    public long requestBytes() {
+        return requestBytes;
+    }
+
+    /**
+     * @return Size of the responses received, as sent over the network, headers included.
+     */
+    public long responseBytes() {
+        return responseBytes;
+    }
+
+    @Override
+    public String toString() {
+        return method + " " + endpoint + " " + code + " in " + (totalNanos / 1000000) + " ms";
+    }
+}
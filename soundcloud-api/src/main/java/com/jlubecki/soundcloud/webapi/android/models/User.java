@@ -65,7 +65,7 @@ public class User {
 
     public String website;
 
-    @SerializedName("website-tile")
+    @SerializedName(value = "website-tile", alternate = "website-title")
     public String website_title;
 
     @SerializedName("online")
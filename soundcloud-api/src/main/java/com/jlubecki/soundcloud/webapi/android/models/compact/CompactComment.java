@@ -0,0 +1,59 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.models.compact;
+
+import com.jlubecki.soundcloud.webapi.android.models.Comment;
+
+/**
+ * Representation of a SoundCloud comment with ids decoded as primitives.
+ * <p/>
+ * Use {@link Comment} for the complete, string based representation.
+ *
+ * @see com.jlubecki.soundcloud.webapi.android.CompactSoundCloudService
+ */
+public class CompactComment {
+
+    public long id;
+
+    public String uri;
+
+    /**
+     * Creation time in milliseconds since the epoch.
+     */
+    public long created_at;
+
+    public String body;
+
+    /**
+     * Position in the track the comment refers to, in milliseconds.
+     */
+    public long timestamp;
+
+    public long user_id;
+
+    public CompactUser user;
+
+    public long track_id;
+}
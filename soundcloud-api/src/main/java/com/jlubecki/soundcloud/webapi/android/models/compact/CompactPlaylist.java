@@ -0,0 +1,115 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.models.compact;
+
+import com.jlubecki.soundcloud.webapi.android.models.Playlist;
+
+import java.util.List;
+
+/**
+ * Representation of a SoundCloud playlist with numeric fields decoded as primitives and
+ * timestamps decoded as milliseconds since the epoch.
+ * <p/>
+ * Use {@link Playlist} for the complete, string based representation.
+ *
+ * @see com.jlubecki.soundcloud.webapi.android.CompactSoundCloudService
+ */
+public class CompactPlaylist {
+
+    public long id;
+
+    /**
+     * Creation time in milliseconds since the epoch.
+     */
+    public long created_at;
+
+    public long user_id;
+
+    /**
+     * Length of all tracks in milliseconds.
+     */
+    public long duration;
+
+    public String sharing;
+
+    /**
+     * @see Playlist#tag_list
+     */
+    public String tag_list;
+
+    public String permalink;
+
+    public int track_count;
+
+    public boolean is_streamable;
+
+    public boolean is_downloadable;
+
+    public String embeddable_by;
+
+    public String purchase_url;
+
+    public long label_id;
+
+    /**
+     * @see Playlist.Type
+     */
+    public String playlist_type;
+
+    public String ean;
+
+    public String description;
+
+    public String genre;
+
+    public String release;
+
+    public String purchase_title;
+
+    public String label_name;
+
+    public String title;
+
+    public int release_year;
+
+    public int release_month;
+
+    public int release_day;
+
+    public String license;
+
+    public String uri;
+
+    public String permalink_url;
+
+    /**
+     * @see Playlist#artwork_url
+     */
+    public String artwork_url;
+
+    public CompactUser user;
+
+    public List<CompactTrack> tracks;
+}
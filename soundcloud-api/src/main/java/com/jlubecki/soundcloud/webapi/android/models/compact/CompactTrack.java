@@ -0,0 +1,149 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.models.compact;
+
+import com.jlubecki.soundcloud.webapi.android.models.Track;
+
+/**
+ * Representation of a SoundCloud track with numeric fields decoded as primitives and timestamps
+ * decoded as milliseconds since the epoch. Numbers that are missing from a response are 0.
+ * <p/>
+ * Use {@link Track} for the complete, string based representation.
+ *
+ * @see com.jlubecki.soundcloud.webapi.android.CompactSoundCloudService
+ */
+public class CompactTrack {
+
+    public long id;
+
+    /**
+     * Creation time in milliseconds since the epoch.
+     */
+    public long created_at;
+
+    public long user_id;
+
+    public CompactUser user;
+
+    public String title;
+
+    public String permalink;
+
+    public String permalink_url;
+
+    public String uri;
+
+    public String sharing;
+
+    public String embeddable_by;
+
+    public String purchase_url;
+
+    /**
+     * @see Track#artwork_url
+     */
+    public String artwork_url;
+
+    public String description;
+
+    /**
+     * Length of track in milliseconds.
+     */
+    public long duration;
+
+    public String genre;
+
+    /**
+     * @see Track#tags_list
+     */
+    public String tag_list;
+
+    public long label_id;
+
+    public String label_name;
+
+    public String release;
+
+    public int release_day;
+
+    public int release_month;
+
+    public int release_year;
+
+    public boolean is_streamable;
+
+    public boolean is_downloadable;
+
+    /**
+     * @see Track.State
+     */
+    public String state;
+
+    /**
+     * @see Track.License
+     */
+    public String license;
+
+    /**
+     * @see Track.Type
+     */
+    public String track_type;
+
+    public String waveform_url;
+
+    public String download_url;
+
+    public String stream_url;
+
+    public String video_url;
+
+    public float bpm;
+
+    public boolean commentable;
+
+    public String isrc;
+
+    public String key_signature;
+
+    public long comment_count;
+
+    public long download_count;
+
+    public long playback_count;
+
+    public long favoritings_count;
+
+    public String original_format;
+
+    /**
+     * Size in bytes of the uploaded file.
+     */
+    public long original_file_size;
+
+    /**
+     * Authenticated requests only. Whether or not track is favorited by current user.
+     */
+    public boolean user_favorite;
+}
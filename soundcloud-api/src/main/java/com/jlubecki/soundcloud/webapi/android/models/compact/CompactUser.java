@@ -0,0 +1,84 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.models.compact;
+
+import com.jlubecki.soundcloud.webapi.android.models.User;
+
+/**
+ * Representation of a SoundCloud user with counts decoded as primitives. Also used for the
+ * miniature users nested in tracks, playlists and comments, in which case only the fields
+ * present in the miniature representation are set.
+ * <p/>
+ * Use {@link User} for the complete, string based representation.
+ *
+ * @see com.jlubecki.soundcloud.webapi.android.CompactSoundCloudService
+ */
+public class CompactUser {
+
+    public long id;
+
+    public String permalink;
+
+    public String username;
+
+    public String uri;
+
+    public String permalink_url;
+
+    public String avatar_url;
+
+    public String country;
+
+    public String full_name;
+
+    public String city;
+
+    public String description;
+
+    public String discogs_name;
+
+    public String myspace_name;
+
+    public String website;
+
+    public String website_title;
+
+    public boolean is_online;
+
+    public int track_count;
+
+    public int playlist_count;
+
+    public long followers_count;
+
+    public long followings_count;
+
+    public long public_favorites_count;
+
+    /**
+     * Last modification time in milliseconds since the epoch. Only set on miniature users.
+     */
+    public long last_modified;
+}
@@ -0,0 +1,426 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.paging;
+
+import com.jlubecki.soundcloud.webapi.android.SoundCloudService;
+import com.jlubecki.soundcloud.webapi.android.concurrent.SettableFuture;
+import com.jlubecki.soundcloud.webapi.android.models.Comment;
+import com.jlubecki.soundcloud.webapi.android.models.Pager;
+import com.jlubecki.soundcloud.webapi.android.models.Playlist;
+import com.jlubecki.soundcloud.webapi.android.models.Track;
+import com.jlubecki.soundcloud.webapi.android.models.User;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+
+import okhttp3.HttpUrl;
+import retrofit2.Call;
+import retrofit2.Response;
+
+import static com.jlubecki.soundcloud.webapi.android.query.Pager.LIMIT;
+import static com.jlubecki.soundcloud.webapi.android.query.Pager.LIMIT_DEFAULT;
+import static com.jlubecki.soundcloud.webapi.android.query.Pager.LIMIT_MAX;
+import static com.jlubecki.soundcloud.webapi.android.query.Pager.OFFSET;
+
+/**
+ * Walks every item of a list endpoint using cursor based paging.
+ * <p/>
+ * The endpoint is requested with {@code linked_partitioning=1}, which makes SoundCloud return a
+ * {@link Pager} holding one page of items and the {@code next_href} of the following page. Pages
+ * are requested lazily as the iterator reaches the end of the current one, so only one or two
+ * pages are held in memory however long the list is. With read-ahead enabled, the next page is
+ * requested in the background as soon as the current one arrives.
+ * <p/>
+ * Iterators block while a page loads, so they must not be used on the main thread. They throw a
+ * {@link PagingException} if a page can't be loaded.
+ * <pre>
+ * for (User follower : PagedIterable.users(service, service.getUserFollowers(userId))) {
+ *     ...
+ * }
+ * </pre>
+ *
+ * @param <T> The type of the items.
+ */
+public class PagedIterable<T> implements Iterable<T> {
+
+    public static final String LINKED_PARTITIONING = "linked_partitioning";
+
+    private final String firstUrl;
+    private final PageSource<T> source;
+    private final Executor readAheadExecutor;
+
+    private PagedIterable(Builder<T> builder) {
+        HttpUrl url = builder.listCall.request().url();
+
+        this.firstUrl = url.newBuilder()
+                .removeAllQueryParameters(OFFSET)
+                .setQueryParameter(LINKED_PARTITIONING, "1")
+                .setQueryParameter(LIMIT, String.valueOf(builder.pageSize))
+                .build()
+                .toString();
+        this.source = builder.source;
+        this.readAheadExecutor = builder.readAhead
+                ? (builder.executor != null ? builder.executor : DefaultExecutor.INSTANCE)
+                : null;
+    }
+
+    /**
+     * Pages through the tracks of a list endpoint, with the default page size and read-ahead.
+     *
+     * @param service  The service used to load pages.
+     * @param listCall A call to the endpoint, e.g. {@code service.getUserFavorites(userId)}. It is
+     *                 only used for its URL and is never executed.
+     * @return An iterable over every track of the endpoint.
+     */
+    public static PagedIterable<Track> tracks(SoundCloudService service,
+                                              Call<List<Track>> listCall) {
+        return new Builder<>(listCall, trackPages(service)).build();
+    }
+
+    /**
+     * Pages through the users of a list endpoint, with the default page size and read-ahead.
+     *
+     * @param service  The service used to load pages.
+     * @param listCall A call to the endpoint, e.g. {@code service.getUserFollowers(userId)}. It
+     *                 is only used for its URL and is never executed.
+     * @return An iterable over every user of the endpoint.
+     */
+    public static PagedIterable<User> users(SoundCloudService service, Call<List<User>> listCall) {
+        return new Builder<>(listCall, userPages(service)).build();
+    }
+
+    /**
+     * Pages through the playlists of a list endpoint, with the default page size and read-ahead.
+     *
+     * @param service  The service used to load pages.
+     * @param listCall A call to the endpoint, e.g. {@code service.getUserPlaylists(userId)}. It
+     *                 is only used for its URL and is never executed.
+     * @return An iterable over every playlist of the endpoint.
+     */
+    public static PagedIterable<Playlist> playlists(SoundCloudService service,
+                                                    Call<List<Playlist>> listCall) {
+        return new Builder<>(listCall, playlistPages(service)).build();
+    }
+
+    /**
+     * Pages through the comments of a list endpoint, with the default page size and read-ahead.
+     *
+     * @param service  The service used to load pages.
+     * @param listCall A call to the endpoint, e.g. {@code service.getTrackComments(trackId)}. It
+     *                 is only used for its URL and is never executed.
+     * @return An iterable over every comment of the endpoint.
+     */
+    public static PagedIterable<Comment> comments(SoundCloudService service,
+                                                  Call<List<Comment>> listCall) {
+        return new Builder<>(listCall, commentPages(service)).build();
+    }
+
+    /**
+     * @param service The service used to load pages.
+     * @return A source that loads pages of tracks.
+     */
+    public static PageSource<Track> trackPages(final SoundCloudService service) {
+        return new PageSource<Track>() {
+            @Override
+            public Call<Pager<Track>> getPage(String url) {
+                return service.getTrackPage(url);
+            }
+        };
+    }
+
+    /**
+     * @param service The service used to load pages.
+     * @return A source that loads pages of users.
+     */
+    public static PageSource<User> userPages(final SoundCloudService service) {
+        return new PageSource<User>() {
+            @Override
+            public Call<Pager<User>> getPage(String url) {
+                return service.getUserPage(url);
+            }
+        };
+    }
+
+    /**
+     * @param service The service used to load pages.
+     * @return A source that loads pages of playlists.
+     */
+    public static PageSource<Playlist> playlistPages(final SoundCloudService service) {
+        return new PageSource<Playlist>() {
+            @Override
+            public Call<Pager<Playlist>> getPage(String url) {
+                return service.getPlaylistPage(url);
+            }
+        };
+    }
+
+    /**
+     * @param service The service used to load pages.
+     * @return A source that loads pages of comments.
+     */
+    public static PageSource<Comment> commentPages(final SoundCloudService service) {
+        return new PageSource<Comment>() {
+            @Override
+            public Call<Pager<Comment>> getPage(String url) {
+                return service.getCommentPage(url);
+            }
+        };
+    }
+
+    /**
+     * Starts a new walk from the first page.
+     *
+     * @return An iterator that loads pages as it goes. Close it to cancel a page that is being
+     * read ahead if iteration stops early.
+     */
+    @Override
+    public PagedIterator<T> iterator() {
+        return new PagedIterator<>(firstUrl, source, readAheadExecutor);
+    }
+
+    /**
+     * Loads the pages of one type of item. Retrofit can't declare a generic page method, so
+     * there is one per type on {@link SoundCloudService}.
+     *
+     * @param <T> The type of the items.
+     */
+    public interface PageSource<T> {
+
+        /**
+         * @param url Absolute URL of the page.
+         * @return A call that loads the page.
+         */
+        Call<Pager<T>> getPage(String url);
+    }
+
+    /**
+     * Iterator over the items of a {@link PagedIterable}.
+     *
+     * @param <T> The type of the items.
+     */
+    public static class PagedIterator<T> implements Iterator<T>, Closeable {
+
+        private final PageSource<T> source;
+        private final Executor readAheadExecutor;
+
+        private Iterator<T> current = Collections.<T>emptyList().iterator();
+        private String nextUrl;
+        private SettableFuture<Pager<T>> nextPage;
+        private boolean closed;
+
+        PagedIterator(String firstUrl, PageSource<T> source, Executor readAheadExecutor) {
+            this.source = source;
+            this.readAheadExecutor = readAheadExecutor;
+            this.nextUrl = firstUrl;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext()) {
+                if (closed || (nextPage == null && nextUrl == null)) {
+                    return false;
+                }
+
+                Pager<T> page = nextPage != null ? await(nextPage) : load(nextUrl);
+                nextPage = null;
+                nextUrl = page.next_href;
+
+                List<T> items = page.collection;
+                current = items != null ? items.iterator() : Collections.<T>emptyList().iterator();
+
+                if (readAheadExecutor != null && nextUrl != null) {
+                    nextPage = loadAsync(nextUrl);
+                    nextUrl = null;
+                }
+            }
+
+            return true;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            return current.next();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("remove");
+        }
+
+        /**
+         * Stops the iteration and cancels the page being read ahead, if any.
+         */
+        @Override
+        public void close() {
+            closed = true;
+            current = Collections.<T>emptyList().iterator();
+
+            if (nextPage != null) {
+                nextPage.cancel(true);
+                nextPage = null;
+            }
+        }
+
+        private Pager<T> load(String url) {
+            try {
+                return body(source.getPage(url).execute());
+            } catch (IOException e) {
+                throw new PagingException(e);
+            }
+        }
+
+        private SettableFuture<Pager<T>> loadAsync(String url) {
+            final Call<Pager<T>> call = source.getPage(url);
+
+            final SettableFuture<Pager<T>> future = new SettableFuture<Pager<T>>() {
+                @Override
+                protected void onCancelled() {
+                    call.cancel();
+                }
+            };
+
+            readAheadExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    if (future.isDone()) {
+                        return;
+                    }
+
+                    try {
+                        future.set(body(call.execute()));
+                    } catch (Throwable t) {
+                        future.setException(t);
+                    }
+                }
+            });
+
+            return future;
+        }
+
+        private Pager<T> await(SettableFuture<Pager<T>> future) {
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new PagingException(e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+
+                if (cause instanceof PagingException) {
+                    throw (PagingException) cause;
+                }
+
+                throw new PagingException(cause);
+            }
+        }
+
+        private static <T> Pager<T> body(Response<Pager<T>> response) {
+            if (!response.isSuccessful()) {
+                throw new PagingException(
+                        "Page request failed: " + response.code() + " " + response.message());
+            }
+
+            Pager<T> page = response.body();
+
+            return page != null ? page : new Pager<T>();
+        }
+    }
+
+    public static class Builder<T> {
+
+        private final Call<?> listCall;
+        private final PageSource<T> source;
+        private int pageSize = LIMIT_DEFAULT;
+        private boolean readAhead = true;
+        private Executor executor;
+
+        /**
+         * @param listCall A call to the list endpoint to page through. It is only used for its
+         *                 URL and is never executed.
+         * @param source   Loads pages of the endpoint's items, e.g. {@link #userPages}.
+         */
+        public Builder(Call<?> listCall, PageSource<T> source) {
+            this.listCall = listCall;
+            this.source = source;
+        }
+
+        /**
+         * Sets the number of items requested per page.
+         *
+         * @param pageSize The page size, from 1 to 200.
+         * @return The instance of the builder that was just updated.
+         */
+        public Builder<T> setPageSize(int pageSize) {
+            if (pageSize < 1 || pageSize > LIMIT_MAX) {
+                throw new IllegalArgumentException("pageSize out of range: " + pageSize);
+            }
+
+            this.pageSize = pageSize;
+
+            return this;
+        }
+
+        /**
+         * Sets whether the next page is requested while the current one is consumed. Read-ahead
+         * is enabled by default.
+         *
+         * @param readAhead True to read ahead.
+         * @return The instance of the builder that was just updated.
+         */
+        public Builder<T> setReadAhead(boolean readAhead) {
+            this.readAhead = readAhead;
+
+            return this;
+        }
+
+        /**
+         * Sets the executor that reads pages ahead. By default a shared pool of daemon threads
+         * is used.
+         *
+         * @param executor The executor to use.
+         * @return The instance of the builder that was just updated.
+         */
+        public Builder<T> setExecutor(Executor executor) {
+            this.executor = executor;
+
+            return this;
+        }
+
+        public PagedIterable<T> build() {
+            return new PagedIterable<>(this);
+        }
+    }
+}
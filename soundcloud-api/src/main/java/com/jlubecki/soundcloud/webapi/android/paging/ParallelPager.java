@@ -0,0 +1,307 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.paging;
+
+import com.jlubecki.soundcloud.webapi.android.concurrent.SettableFuture;
+import com.jlubecki.soundcloud.webapi.android.query.Pager;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+
+import retrofit2.Call;
+import retrofit2.Response;
+
+/**
+ * Requests several offset based pages at the same time when the total number of results is
+ * known, e.g. from {@code User.public_favorites_count} or {@code User.followers_count}.
+ * <p/>
+ * Up to a configurable number of pages are in flight at once, starting at the offset of the
+ * given {@link Pager}. Results are delivered in order: the iterator waits for the earliest
+ * outstanding page and requests the next missing page as soon as one is consumed. The pager
+ * itself isn't moved. If a page comes back empty, the list ended before its count and the
+ * remaining requests are cancelled. Shorter pages don't end the list, since the API may return
+ * fewer results than the limit for pages in the middle.
+ * <p/>
+ * Iterators block while a page loads, so they must not be used on the main thread. Close an
+ * iterator to cancel the outstanding requests when iteration stops early.
+ * <pre>
+ * ParallelPager&lt;Track&gt; favorites = new ParallelPager.Builder&lt;&gt;(new Pager(200),
+ *         Integer.parseInt(user.public_favorites_count),
+ *         new ParallelPager.PageLoader&lt;Track&gt;() {
+ *             public Call&lt;List&lt;Track&gt;&gt; getPage(HashMap&lt;String, String&gt; queries) {
+ *                 return service.getUserFavorites(userId, queries);
+ *             }
+ *         }).setConcurrency(4).build();
+ * </pre>
+ *
+ * @param <T> The type of the results.
+ */
+public class ParallelPager<T> implements Iterable<T> {
+
+    public static final int CONCURRENCY_DEFAULT = 4;
+
+    private final Pager pager;
+    private final int totalCount;
+    private final PageLoader<T> loader;
+    private final int concurrency;
+    private final Executor executor;
+
+    private ParallelPager(Builder<T> builder) {
+        this.pager = builder.pager;
+        this.totalCount = builder.totalCount;
+        this.loader = builder.loader;
+        this.concurrency = builder.concurrency;
+        this.executor = builder.executor != null ? builder.executor : DefaultExecutor.INSTANCE;
+    }
+
+    /**
+     * Creates an iterator that requests pages from the offset of the pager. No request is made
+     * until {@link Iterator#hasNext()} or {@link Iterator#next()} is called.
+     *
+     * @return An iterator over the results, in order.
+     */
+    @Override
+    public ParallelIterator<T> iterator() {
+        return new ParallelIterator<>(this);
+    }
+
+    /**
+     * Creates the call for one page of an endpoint.
+     *
+     * @param <T> The type of the results.
+     */
+    public interface PageLoader<T> {
+
+        /**
+         * @param queries The query map of the page, including its limit and offset.
+         * @return A call that loads the page.
+         */
+        Call<List<T>> getPage(HashMap<String, String> queries);
+    }
+
+    /**
+     * Iterator over the results of a {@link ParallelPager}.
+     *
+     * @param <T> The type of the results.
+     */
+    public static class ParallelIterator<T> implements Iterator<T>, Closeable {
+
+        private final ParallelPager<T> parallelPager;
+        private final int pageSize;
+
+        private final ArrayDeque<SettableFuture<List<T>>> inFlight = new ArrayDeque<>();
+        private Iterator<T> current = Collections.<T>emptyList().iterator();
+        private int nextOffset;
+        private boolean exhausted;
+
+        ParallelIterator(ParallelPager<T> parallelPager) {
+            this.parallelPager = parallelPager;
+            this.pageSize = parallelPager.pager.getPageSize();
+            this.nextOffset = parallelPager.pager.getOffset();
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext()) {
+                fill();
+
+                if (inFlight.isEmpty()) {
+                    return false;
+                }
+
+                List<T> page = await(inFlight.poll());
+
+                if (page.isEmpty()) {
+                    // The list is shorter than its count said, so later pages are empty too.
+                    exhausted = true;
+                    cancelInFlight();
+                }
+
+                current = page.iterator();
+            }
+
+            return true;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            return current.next();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("remove");
+        }
+
+        /**
+         * Stops the iteration and cancels the pages that are still loading.
+         */
+        @Override
+        public void close() {
+            exhausted = true;
+            current = Collections.<T>emptyList().iterator();
+            cancelInFlight();
+        }
+
+        private void fill() {
+            while (!exhausted
+                    && inFlight.size() < parallelPager.concurrency
+                    && nextOffset < parallelPager.totalCount) {
+                inFlight.add(load(parallelPager.pager.createMap(nextOffset)));
+                nextOffset += pageSize;
+            }
+        }
+
+        private void cancelInFlight() {
+            SettableFuture<List<T>> future;
+
+            while ((future = inFlight.poll()) != null) {
+                future.cancel(true);
+            }
+        }
+
+        private SettableFuture<List<T>> load(HashMap<String, String> queries) {
+            final Call<List<T>> call = parallelPager.loader.getPage(queries);
+
+            final SettableFuture<List<T>> future = new SettableFuture<List<T>>() {
+                @Override
+                protected void onCancelled() {
+                    call.cancel();
+                }
+            };
+
+            parallelPager.executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    if (future.isDone()) {
+                        return;
+                    }
+
+                    try {
+                        Response<List<T>> response = call.execute();
+
+                        if (!response.isSuccessful()) {
+                            future.setException(new PagingException("Page request failed: "
+                                    + response.code() + " " + response.message()));
+                            return;
+                        }
+
+                        List<T> page = response.body();
+                        future.set(page != null ? page : Collections.<T>emptyList());
+                    } catch (Throwable t) {
+                        future.setException(t);
+                    }
+                }
+            });
+
+            return future;
+        }
+
+        private List<T> await(SettableFuture<List<T>> future) {
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new PagingException(e);
+            } catch (ExecutionException e) {
+                close();
+
+                Throwable cause = e.getCause();
+
+                if (cause instanceof PagingException) {
+                    throw (PagingException) cause;
+                }
+
+                throw new PagingException(cause);
+            }
+        }
+    }
+
+    public static class Builder<T> {
+
+        private final Pager pager;
+        private final int totalCount;
+        private final PageLoader<T> loader;
+        private int concurrency = CONCURRENCY_DEFAULT;
+        private Executor executor;
+
+        /**
+         * @param pager      Pager holding the page size, the starting offset and any other query
+         *                   parameters. It is not modified.
+         * @param totalCount The total number of results of the endpoint.
+         * @param loader     Creates the call for each page.
+         */
+        public Builder(Pager pager, int totalCount, PageLoader<T> loader) {
+            this.pager = pager;
+            this.totalCount = totalCount;
+            this.loader = loader;
+        }
+
+        /**
+         * Sets how many pages may be loading at the same time.
+         *
+         * @param concurrency The maximum number of pages in flight.
+         * @return The instance of the builder that was just updated.
+         */
+        public Builder<T> setConcurrency(int concurrency) {
+            if (concurrency < 1) {
+                throw new IllegalArgumentException("concurrency < 1: " + concurrency);
+            }
+
+            this.concurrency = concurrency;
+
+            return this;
+        }
+
+        /**
+         * Sets the executor that runs page requests. It needs at least as many threads as the
+         * concurrency. By default a shared pool of daemon threads is used.
+         *
+         * @param executor The executor to use.
+         * @return The instance of the builder that was just updated.
+         */
+        public Builder<T> setExecutor(Executor executor) {
+            this.executor = executor;
+
+            return this;
+        }
+
+        public ParallelPager<T> build() {
+            return new ParallelPager<>(this);
+        }
+    }
+}
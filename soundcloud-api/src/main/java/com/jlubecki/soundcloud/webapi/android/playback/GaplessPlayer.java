@@ -0,0 +1,678 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.playback;
+
+import android.content.Context;
+import android.media.AudioManager;
+import android.media.MediaPlayer;
+import android.os.SystemClock;
+
+import com.jlubecki.soundcloud.webapi.android.metrics.MetricsSink;
+import com.jlubecki.soundcloud.webapi.android.models.Track;
+import com.jlubecki.soundcloud.webapi.android.stream.StreamPrefetcher;
+import com.jlubecki.soundcloud.webapi.android.stream.StreamProxy;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Plays a {@link PlayQueue} without gaps between tracks.
+ * <p/>
+ * While a track plays, a second {@link MediaPlayer} is prepared on the next track and chained
+ * with {@link MediaPlayer#setNextMediaPlayer(MediaPlayer)}, so the platform starts it the moment
+ * the current track ends. Changes to the queue that change the next track, such as shuffling or
+ * inserting a track, prepare the new next track instead. Streams are played through a {@link
+ * StreamProxy}, so prepared tracks come from its cache.
+ * <p/>
+ * Every track change is reported to the {@link Listener} as a {@link Transition} with its time to
+ * audible, and to the {@link MetricsSink} if one is set.
+ * <p/>
+ * A player must be created and used on a thread with a looper, usually the main thread, where it
+ * receives the callbacks of its media players.
+ * <pre>
+ * GaplessPlayer player = new GaplessPlayer.Builder(proxy)
+ *         .setPrefetcher(prefetcher)
+ *         .build();
+ *
+ * player.getQueue().setTracks(tracks, -1);
+ * player.play(0);
+ * </pre>
+ */
+public class GaplessPlayer {
+
+    public static final String TIME_TO_AUDIBLE = "playback.time_to_audible_ms";
+    public static final String PREPARED_TRANSITIONS = "playback.prepared_transitions";
+    public static final String COLD_TRANSITIONS = "playback.cold_transitions";
+
+    /**
+     * Receives the events of a player, on the player's thread.
+     */
+    public interface Listener {
+
+        /**
+         * Called when a track starts playing.
+         *
+         * @param transition How the player got to the track.
+         */
+        void onTrackStarted(Transition transition);
+
+        /**
+         * Called when the last track of the queue ended.
+         */
+        void onQueueEnded();
+
+        /**
+         * Called when a track can't be played. Playback stops until the next call to a play or
+         * skip method.
+         *
+         * @param track The track.
+         * @param what  The error type reported by {@link MediaPlayer.OnErrorListener}.
+         * @param extra The extra code reported by {@link MediaPlayer.OnErrorListener}.
+         */
+        void onError(Track track, int what, int extra);
+    }
+
+    private final StreamProxy proxy;
+    private final StreamPrefetcher prefetcher;
+    private final MetricsSink sink;
+    private final Context wakeContext;
+    private final int wakeMode;
+    private final PlayQueue queue;
+    private final Callbacks callbacks = new Callbacks();
+
+    private Listener listener;
+
+    private MediaPlayer current;
+    private Track currentTrack;
+    private boolean currentPrepared;
+
+    private MediaPlayer next;
+    private Track nextTrack;
+    private int nextPosition = -1;
+    private boolean nextPrepared;
+
+    /**
+     * A reset player kept for the next track, so players aren't created for every track.
+     */
+    private MediaPlayer spare;
+
+    private boolean paused;
+    private boolean released;
+
+    /**
+     * The transition in progress, until its track starts playing.
+     */
+    private Transition.Cause pendingCause;
+    private Track pendingFrom;
+    private long pendingStart;
+    private boolean waitingForNext;
+
+    private Transition lastTransition;
+
+    private GaplessPlayer(Builder builder) {
+        this.proxy = builder.proxy;
+        this.prefetcher = builder.prefetcher;
+        this.sink = builder.sink;
+        this.wakeContext = builder.wakeContext;
+        this.wakeMode = builder.wakeMode;
+        this.queue = builder.queue;
+
+        queue.setOnChange(new Runnable() {
+            @Override
+            public void run() {
+                onQueueChanged();
+            }
+        });
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * @return The queue being played. Changes to it take effect at the next track change.
+     */
+    public PlayQueue getQueue() {
+        return queue;
+    }
+
+    /**
+     * @return The track that is playing or being prepared, or null if there is none.
+     */
+    public Track getCurrentTrack() {
+        return currentTrack;
+    }
+
+    /**
+     * @return The last track change, or null if no track played yet.
+     */
+    public Transition getLastTransition() {
+        return lastTransition;
+    }
+
+    /**
+     * Plays a track of the queue from its start.
+     *
+     * @param position Position of the track in play order.
+     */
+    public void play(int position) {
+        startTrack(position, Transition.Cause.PLAY);
+    }
+
+    /**
+     * Skips to the next track of the queue. With {@link PlayQueue.RepeatMode#ONE}, the next
+     * track is the one after the current track rather than the current track again.
+     *
+     * @return False if there is no next track.
+     */
+    public boolean skipToNext() {
+        checkNotReleased();
+
+        int position = queue.getPosition() + 1;
+
+        if (position >= queue.size()) {
+            if (queue.getRepeatMode() == PlayQueue.RepeatMode.OFF || queue.size() == 0) {
+                return false;
+            }
+
+            position = 0;
+        }
+
+        if (next != null && nextPrepared && nextPosition == position) {
+            beginTransition(Transition.Cause.SKIP);
+            current.setNextMediaPlayer(null);
+            current.pause();
+            paused = false;
+            promoteNext(true);
+        } else {
+            startTrack(position, Transition.Cause.SKIP);
+        }
+
+        return true;
+    }
+
+    /**
+     * Skips to the previous track of the queue.
+     *
+     * @return False if there is no previous track.
+     */
+    public boolean skipToPrevious() {
+        checkNotReleased();
+
+        int position = queue.getPreviousPosition();
+
+        if (position < 0) {
+            return false;
+        }
+
+        startTrack(position, Transition.Cause.SKIP);
+
+        return true;
+    }
+
+    public void pause() {
+        paused = true;
+
+        if (current != null && currentPrepared && current.isPlaying()) {
+            current.pause();
+        }
+    }
+
+    /**
+     * Resumes playback after {@link #pause()}. A track that is still being prepared starts
+     * once it is prepared.
+     */
+    public void resume() {
+        paused = false;
+
+        if (current != null && currentPrepared && !current.isPlaying()) {
+            current.start();
+        }
+    }
+
+    public boolean isPlaying() {
+        return current != null && currentPrepared && current.isPlaying();
+    }
+
+    /**
+     * @param millis Position in the current track.
+     */
+    public void seekTo(int millis) {
+        if (current != null && currentPrepared) {
+            current.seekTo(millis);
+        }
+    }
+
+    /**
+     * @return Position in the current track in milliseconds, or 0 if it isn't prepared yet.
+     */
+    public int getCurrentPosition() {
+        return current != null && currentPrepared ? current.getCurrentPosition() : 0;
+    }
+
+    /**
+     * @return Duration of the current track in milliseconds, or 0 if it isn't prepared yet.
+     */
+    public int getDuration() {
+        return current != null && currentPrepared ? current.getDuration() : 0;
+    }
+
+    /**
+     * Stops playback and frees the media players. The queue is kept.
+     */
+    public void stop() {
+        releaseNext();
+        releasePlayer(current);
+        releasePlayer(spare);
+
+        current = null;
+        spare = null;
+        currentTrack = null;
+        currentPrepared = false;
+        pendingCause = null;
+        waitingForNext = false;
+
+        if (prefetcher != null) {
+            prefetcher.cancel();
+        }
+    }
+
+    /**
+     * Stops playback for good. The player can't be used afterwards.
+     */
+    public void release() {
+        stop();
+        queue.setOnChange(null);
+        released = true;
+    }
+
+    private void startTrack(int position, Transition.Cause cause) {
+        checkNotReleased();
+
+        beginTransition(cause);
+        releaseNext();
+        queue.moveTo(position);
+        paused = false;
+
+        if (current == null) {
+            current = newPlayer();
+        } else {
+            current.reset();
+        }
+
+        currentTrack = queue.getCurrent();
+        currentPrepared = false;
+
+        if (setDataSource(current, currentTrack)) {
+            current.prepareAsync();
+        } else {
+            fail(currentTrack, MediaPlayer.MEDIA_ERROR_UNKNOWN, 0);
+        }
+    }
+
+    private void beginTransition(Transition.Cause cause) {
+        pendingCause = cause;
+        pendingFrom = currentTrack;
+        pendingStart = SystemClock.elapsedRealtime();
+        waitingForNext = false;
+    }
+
+    private void finishTransition(boolean prepared) {
+        if (pendingCause == null) {
+            return;
+        }
+
+        long timeToAudible = SystemClock.elapsedRealtime() - pendingStart;
+        Transition transition = new Transition(pendingFrom, currentTrack, pendingCause, prepared,
+                timeToAudible);
+
+        pendingCause = null;
+        pendingFrom = null;
+        lastTransition = transition;
+
+        if (sink != null) {
+            sink.onGauge(TIME_TO_AUDIBLE, timeToAudible);
+            sink.onCount(prepared ? PREPARED_TRANSITIONS : COLD_TRANSITIONS, 1);
+        }
+
+        if (listener != null) {
+            listener.onTrackStarted(transition);
+        }
+    }
+
+    /**
+     * Makes the next player current, starting it unless the platform already did.
+     */
+    private void promoteNext(boolean prepared) {
+        MediaPlayer previous = current;
+
+        current = next;
+        currentTrack = nextTrack;
+        currentPrepared = true;
+        queue.moveTo(nextPosition);
+
+        next = null;
+        nextTrack = null;
+        nextPosition = -1;
+        nextPrepared = false;
+
+        recycle(previous);
+
+        if (!current.isPlaying() && !paused) {
+            current.start();
+        }
+
+        finishTransition(prepared);
+        prepareNext();
+        prefetch();
+    }
+
+    /**
+     * Prepares the next track of the queue on the second player.
+     */
+    private void prepareNext() {
+        releaseNext();
+
+        int position = queue.getNextPosition();
+
+        if (position < 0 || current == null || !currentPrepared) {
+            return;
+        }
+
+        Track track = queue.get(position);
+        MediaPlayer player = spare != null ? spare : newPlayer();
+        spare = null;
+
+        if (!setDataSource(player, track)) {
+            releasePlayer(player);
+            return;
+        }
+
+        next = player;
+        nextTrack = track;
+        nextPosition = position;
+        nextPrepared = false;
+
+        player.prepareAsync();
+    }
+
+    private void onQueueChanged() {
+        if (current == null || !currentPrepared) {
+            return;
+        }
+
+        int position = queue.getNextPosition();
+        Track track = position >= 0 ? queue.get(position) : null;
+
+        // Adding tracks after the next one changes nothing that is prepared.
+        if (position != nextPosition || track != nextTrack) {
+            prepareNext();
+        }
+    }
+
+    private void releaseNext() {
+        if (next == null) {
+            return;
+        }
+
+        if (current != null && currentPrepared) {
+            current.setNextMediaPlayer(null);
+        }
+
+        recycle(next);
+
+        next = null;
+        nextTrack = null;
+        nextPosition = -1;
+        nextPrepared = false;
+    }
+
+    private void prefetch() {
+        if (prefetcher != null) {
+            // The track after the current one is prepared already.
+            List<Track> upcoming = queue.getUpcoming(queue.size());
+            prefetcher.prefetch(upcoming.size() > 1 ? upcoming.subList(1, upcoming.size())
+                    : upcoming.subList(0, 0));
+        }
+    }
+
+    private void fail(Track track, int what, int extra) {
+        if (current != null) {
+            current.reset();
+        }
+
+        currentPrepared = false;
+        pendingCause = null;
+        waitingForNext = false;
+        releaseNext();
+
+        if (listener != null) {
+            listener.onError(track, what, extra);
+        }
+    }
+
+    private MediaPlayer newPlayer() {
+        MediaPlayer player = new MediaPlayer();
+
+        player.setAudioStreamType(AudioManager.STREAM_MUSIC);
+        player.setOnPreparedListener(callbacks);
+        player.setOnCompletionListener(callbacks);
+        player.setOnErrorListener(callbacks);
+
+        if (wakeContext != null) {
+            player.setWakeMode(wakeContext, wakeMode);
+        }
+
+        return player;
+    }
+
+    private boolean setDataSource(MediaPlayer player, Track track) {
+        try {
+            player.setDataSource(proxy.proxyUrl(track));
+
+            return true;
+        } catch (IOException | RuntimeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Resets a player and keeps it as the spare, or releases it if there already is one.
+     */
+    private void recycle(MediaPlayer player) {
+        if (spare == null) {
+            player.reset();
+            spare = player;
+        } else {
+            player.release();
+        }
+    }
+
+    private static void releasePlayer(MediaPlayer player) {
+        if (player != null) {
+            player.release();
+        }
+    }
+
+    private void checkNotReleased() {
+        if (released) {
+            throw new IllegalStateException("The player was released.");
+        }
+    }
+
+    private class Callbacks implements MediaPlayer.OnPreparedListener,
+            MediaPlayer.OnCompletionListener, MediaPlayer.OnErrorListener {
+
+        @Override
+        public void onPrepared(MediaPlayer player) {
+            if (player == current && !currentPrepared) {
+                currentPrepared = true;
+
+                if (!paused) {
+                    player.start();
+                }
+
+                finishTransition(false);
+                prepareNext();
+                prefetch();
+            } else if (player == next) {
+                nextPrepared = true;
+
+                if (waitingForNext) {
+                    // The current track ended while this one was still being prepared.
+                    waitingForNext = false;
+                    promoteNext(false);
+                } else {
+                    current.setNextMediaPlayer(player);
+                }
+            }
+        }
+
+        @Override
+        public void onCompletion(MediaPlayer player) {
+            if (player != current) {
+                return;
+            }
+
+            if (next != null && nextPrepared) {
+                // The platform has already started the next player.
+                beginTransition(Transition.Cause.COMPLETION);
+                promoteNext(true);
+            } else if (next != null) {
+                beginTransition(Transition.Cause.COMPLETION);
+                waitingForNext = true;
+            } else {
+                int position = queue.getNextPosition();
+
+                if (position >= 0) {
+                    startTrack(position, Transition.Cause.COMPLETION);
+                } else if (listener != null) {
+                    listener.onQueueEnded();
+                }
+            }
+        }
+
+        @Override
+        public boolean onError(MediaPlayer player, int what, int extra) {
+            if (player == current) {
+                fail(currentTrack, what, extra);
+            } else if (player == next) {
+                Track track = nextTrack;
+                boolean waited = waitingForNext;
+
+                releaseNext();
+
+                if (waited) {
+                    fail(track, what, extra);
+                }
+                // Otherwise the track is prepared again when the current one ends.
+            }
+
+            return true;
+        }
+    }
+
+    public static class Builder {
+
+        private final StreamProxy proxy;
+        private StreamPrefetcher prefetcher;
+        private MetricsSink sink;
+        private Context wakeContext;
+        private int wakeMode;
+        private PlayQueue queue = new PlayQueue();
+
+        /**
+         * @param proxy The proxy tracks are played through. It must be running while the player
+         *              plays.
+         */
+        public Builder(StreamProxy proxy) {
+            if (proxy == null) {
+                throw new IllegalArgumentException("proxy == null");
+            }
+
+            this.proxy = proxy;
+        }
+
+        /**
+         * Sets a prefetcher that warms the tracks after the next one whenever a track starts.
+         *
+         * @param prefetcher The prefetcher, usually on the same proxy.
+         * @return The instance of the builder that was just updated.
+         */
+        public Builder setPrefetcher(StreamPrefetcher prefetcher) {
+            this.prefetcher = prefetcher;
+
+            return this;
+        }
+
+        /**
+         * Sets a sink that receives the time to audible of every transition as the gauge
+         * {@value #TIME_TO_AUDIBLE}, and counts prepared and cold transitions.
+         *
+         * @param sink The sink.
+         * @return The instance of the builder that was just updated.
+         */
+        public Builder setMetricsSink(MetricsSink sink) {
+            this.sink = sink;
+
+            return this;
+        }
+
+        /**
+         * Keeps the device awake while tracks play, see {@link MediaPlayer#setWakeMode(Context,
+         * int)}. Requires the {@code WAKE_LOCK} permission.
+         *
+         * @param context A context.
+         * @param mode    The wake lock flags, e.g. {@code PowerManager.PARTIAL_WAKE_LOCK}.
+         * @return The instance of the builder that was just updated.
+         */
+        public Builder setWakeMode(Context context, int mode) {
+            this.wakeContext = context.getApplicationContext();
+            this.wakeMode = mode;
+
+            return this;
+        }
+
+        /**
+         * Sets the queue to play, e.g. one with a seeded shuffle. Defaults to an empty queue.
+         *
+         * @param queue The queue. It must not be shared with another player.
+         * @return The instance of the builder that was just updated.
+         */
+        public Builder setQueue(PlayQueue queue) {
+            if (queue == null) {
+                throw new IllegalArgumentException("queue == null");
+            }
+
+            this.queue = queue;
+
+            return this;
+        }
+
+        public GaplessPlayer build() {
+            return new GaplessPlayer(this);
+        }
+    }
+}
@@ -0,0 +1,348 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.playback;
+
+import com.jlubecki.soundcloud.webapi.android.models.Track;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The tracks a {@link GaplessPlayer} plays, with shuffle and repeat. Positions are in play order,
+ * which differs from the order the tracks were added in while shuffle is on.
+ * <p/>
+ * Like the player, a queue must only be used from the thread the player was created on.
+ */
+public class PlayQueue {
+
+    public enum RepeatMode {
+        /**
+         * Playback stops after the last track.
+         */
+        OFF,
+
+        /**
+         * Playback starts over after the last track.
+         */
+        ALL,
+
+        /**
+         * The current track plays again and again.
+         */
+        ONE
+    }
+
+    private final List<Track> tracks = new ArrayList<>();
+
+    /**
+     * Indices into {@link #tracks}, in play order.
+     */
+    private final List<Integer> order = new ArrayList<>();
+    private final Random random;
+
+    private int position = -1;
+    private boolean shuffled;
+    private RepeatMode repeatMode = RepeatMode.OFF;
+    private Runnable onChange;
+
+    public PlayQueue() {
+        this(new Random());
+    }
+
+    /**
+     * @param random Source of shuffle orders, e.g. a seeded one to make them reproducible.
+     */
+    public PlayQueue(Random random) {
+        this.random = random;
+    }
+
+    /**
+     * Replaces the tracks of the queue.
+     *
+     * @param tracks   The tracks, in order.
+     * @param position Position of the current track, or -1 for none.
+     */
+    public void setTracks(List<Track> tracks, int position) {
+        if (position < -1 || position >= tracks.size()) {
+            throw new IllegalArgumentException("position out of range: " + position);
+        }
+
+        this.tracks.clear();
+        this.tracks.addAll(tracks);
+        this.order.clear();
+
+        for (int i = 0; i < tracks.size(); i++) {
+            order.add(i);
+        }
+
+        this.position = position;
+
+        if (shuffled) {
+            shuffle();
+        }
+
+        changed();
+    }
+
+    /**
+     * Adds a track to the end of the queue.
+     *
+     * @param track The track.
+     */
+    public void add(Track track) {
+        tracks.add(track);
+        order.add(tracks.size() - 1);
+
+        changed();
+    }
+
+    /**
+     * Adds a track right after the current one, so that it plays next even while shuffle is on.
+     *
+     * @param track The track.
+     */
+    public void insertNext(Track track) {
+        // The track also follows the current one in the unshuffled order.
+        int index = position >= 0 ? order.get(position) + 1 : 0;
+
+        for (int i = 0; i < order.size(); i++) {
+            if (order.get(i) >= index) {
+                order.set(i, order.get(i) + 1);
+            }
+        }
+
+        tracks.add(index, track);
+        order.add(position + 1, index);
+
+        changed();
+    }
+
+    /**
+     * Removes a track. If it is the current track, the track before it becomes current, so that
+     * playback continues with the track that followed the removed one.
+     *
+     * @param position Position of the track in play order.
+     * @return The removed track.
+     */
+    public Track remove(int position) {
+        checkPosition(position);
+
+        int index = order.remove(position);
+        Track removed = tracks.remove(index);
+
+        for (int i = 0; i < order.size(); i++) {
+            if (order.get(i) > index) {
+                order.set(i, order.get(i) - 1);
+            }
+        }
+
+        if (position <= this.position) {
+            this.position--;
+        }
+
+        changed();
+
+        return removed;
+    }
+
+    /**
+     * Turns shuffle on or off. The current track stays current and the other tracks are
+     * shuffled after it, or return to the order they were added in.
+     *
+     * @param shuffled True to shuffle.
+     */
+    public void setShuffled(boolean shuffled) {
+        if (this.shuffled == shuffled) {
+            return;
+        }
+
+        this.shuffled = shuffled;
+
+        if (shuffled) {
+            shuffle();
+        } else {
+            int current = position >= 0 ? order.get(position) : -1;
+
+            Collections.sort(order);
+            position = current;
+        }
+
+        changed();
+    }
+
+    public boolean isShuffled() {
+        return shuffled;
+    }
+
+    public void setRepeatMode(RepeatMode repeatMode) {
+        if (repeatMode == null) {
+            throw new IllegalArgumentException("repeatMode == null");
+        }
+
+        this.repeatMode = repeatMode;
+
+        changed();
+    }
+
+    public RepeatMode getRepeatMode() {
+        return repeatMode;
+    }
+
+    /**
+     * @return The number of tracks.
+     */
+    public int size() {
+        return order.size();
+    }
+
+    /**
+     * @param position A position in play order.
+     * @return The track at the position.
+     */
+    public Track get(int position) {
+        checkPosition(position);
+
+        return tracks.get(order.get(position));
+    }
+
+    /**
+     * @return Position of the current track, or -1 if there is none.
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * @return The current track, or null if there is none.
+     */
+    public Track getCurrent() {
+        return position >= 0 ? get(position) : null;
+    }
+
+    /**
+     * @return Position of the track that plays after the current one, taking the repeat mode
+     * into account, or -1 if playback ends after the current track.
+     */
+    public int getNextPosition() {
+        if (order.isEmpty()) {
+            return -1;
+        }
+
+        if (repeatMode == RepeatMode.ONE && position >= 0) {
+            return position;
+        }
+
+        if (position + 1 < order.size()) {
+            return position + 1;
+        }
+
+        return repeatMode == RepeatMode.ALL ? 0 : -1;
+    }
+
+    /**
+     * @return Position of the track before the current one, or -1 if there is none.
+     */
+    public int getPreviousPosition() {
+        if (position > 0) {
+            return position - 1;
+        }
+
+        return repeatMode == RepeatMode.ALL && !order.isEmpty() ? order.size() - 1 : -1;
+    }
+
+    /**
+     * @return The track that plays after the current one, or null if playback ends.
+     */
+    public Track peekNext() {
+        int next = getNextPosition();
+
+        return next >= 0 ? get(next) : null;
+    }
+
+    /**
+     * @param max The maximum number of tracks.
+     * @return The tracks that play after the current one, in order, e.g. to prefetch them.
+     */
+    public List<Track> getUpcoming(int max) {
+        List<Track> upcoming = new ArrayList<>(Math.min(max, order.size()));
+
+        if (repeatMode == RepeatMode.ONE) {
+            return position >= 0 && max > 0 ? Collections.singletonList(getCurrent()) : upcoming;
+        }
+
+        for (int i = position + 1; upcoming.size() < max && i < order.size(); i++) {
+            upcoming.add(get(i));
+        }
+
+        if (repeatMode == RepeatMode.ALL) {
+            for (int i = 0; upcoming.size() < max && i <= position; i++) {
+                upcoming.add(get(i));
+            }
+        }
+
+        return upcoming;
+    }
+
+    /**
+     * Makes a track current. Only the player should move the queue while it plays.
+     */
+    void moveTo(int position) {
+        checkPosition(position);
+
+        this.position = position;
+    }
+
+    /**
+     * Sets the hook the player uses to learn that the next track may have changed.
+     */
+    void setOnChange(Runnable onChange) {
+        this.onChange = onChange;
+    }
+
+    private void shuffle() {
+        int current = position >= 0 ? order.remove(position) : -1;
+
+        Collections.shuffle(order, random);
+
+        if (current >= 0) {
+            order.add(0, current);
+            position = 0;
+        }
+    }
+
+    private void checkPosition(int position) {
+        if (position < 0 || position >= order.size()) {
+            throw new IndexOutOfBoundsException("position " + position + ", size " + order.size());
+        }
+    }
+
+    private void changed() {
+        if (onChange != null) {
+            onChange.run();
+        }
+    }
+}
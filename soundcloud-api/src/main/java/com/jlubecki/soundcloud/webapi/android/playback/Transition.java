@@ -0,0 +1,111 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.playback;
+
+import com.jlubecki.soundcloud.webapi.android.models.Track;
+
+/**
+ * Describes how a {@link GaplessPlayer} moved from one track to the next.
+ */
+public final class Transition {
+
+    public enum Cause {
+        /**
+         * The previous track ended.
+         */
+        COMPLETION,
+
+        /**
+         * The listener skipped forward or back.
+         */
+        SKIP,
+
+        /**
+         * A track was played directly, e.g. from a list.
+         */
+        PLAY
+    }
+
+    private final Track from;
+    private final Track to;
+    private final Cause cause;
+    private final boolean prepared;
+    private final long timeToAudibleMillis;
+
+    Transition(Track from, Track to, Cause cause, boolean prepared, long timeToAudibleMillis) {
+        this.from = from;
+        this.to = to;
+        this.cause = cause;
+        this.prepared = prepared;
+        this.timeToAudibleMillis = timeToAudibleMillis;
+    }
+
+    /**
+     * @return The track that played before, or null if nothing did.
+     */
+    public Track getFrom() {
+        return from;
+    }
+
+    /**
+     * @return The track that plays now.
+     */
+    public Track getTo() {
+        return to;
+    }
+
+    public Cause getCause() {
+        return cause;
+    }
+
+    /**
+     * @return True if the track was already prepared when the transition began. Completions of
+     * prepared tracks are gapless.
+     */
+    public boolean wasPrepared() {
+        return prepared;
+    }
+
+    /**
+     * @return True if the track followed the previous one without any silence.
+     */
+    public boolean isGapless() {
+        return prepared && cause == Cause.COMPLETION;
+    }
+
+    /**
+     * @return The time from the start of the transition, e.g. the end of the previous track,
+     * until the track started playing.
+     */
+    public long getTimeToAudibleMillis() {
+        return timeToAudibleMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "Transition{cause=" + cause + ", prepared=" + prepared + ", timeToAudibleMillis="
+                + timeToAudibleMillis + "}";
+    }
+}
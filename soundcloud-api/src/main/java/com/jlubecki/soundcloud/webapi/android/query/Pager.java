@@ -44,14 +44,29 @@ public class Pager {
     private int offset = 0;
 
     public Pager(Query query) {
-        this.queryMap = query.createMap();
+        this.queryMap = queryMapOf(query);
 
         updateLimit(limit);
         updateOffset(offset);
     }
 
     public Pager(Query query, @IntRange(from = 1, to = 200) int pageSize) {
-        this.queryMap = query.createMap();
+        this.queryMap = queryMapOf(query);
+
+        this.limit = pageSize;
+
+        updateLimit(limit);
+        updateOffset(offset);
+    }
+
+    /**
+     * Creates a pager for endpoints that take no other query parameters, such as a user's
+     * favorites or followers.
+     *
+     * @param pageSize The number of results per page.
+     */
+    public Pager(@IntRange(from = 1, to = 200) int pageSize) {
+        this.queryMap = new HashMap<>();
 
         this.limit = pageSize;
 
@@ -76,6 +91,28 @@ public class Pager {
         return queryMap;
     }
 
+    /**
+     * Creates a copy of the query map for the page at a given offset, without moving this pager.
+     * Several pages can be requested at once this way.
+     *
+     * @param offset The offset of the first result of the page.
+     * @return A new query map for the page.
+     */
+    public HashMap<String, String> createMap(int offset) {
+        HashMap<String, String> pageMap = new HashMap<>(queryMap);
+        pageMap.put(OFFSET, String.valueOf(offset));
+
+        return pageMap;
+    }
+
+    public int getPageSize() {
+        return limit;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
     public void setPageSize(int pageSize) {
         updateLimit(pageSize);
     }
@@ -97,6 +134,13 @@ public class Pager {
         updateOffset(0);
     }
 
+    private static HashMap<String, String> queryMapOf(Query query) {
+        HashMap<String, String> queryMap = query.createMap();
+
+        // Queries without parameters create no map.
+        return queryMap != null ? queryMap : new HashMap<String, String>();
+    }
+
     private void updateLimit(@IntRange(from = 1, to = 200) int limit) {
         this.limit = limit;
 
@@ -123,11 +123,11 @@ public class TrackQuery extends Query {
             queryMap.put("ids", ids);
         }
 
-        if (createdAtTo != null) {
+        if (genres != null) {
             queryMap.put("genres", genres);
         }
 
-        if (createdAtTo != null) {
+        if (types != null) {
             queryMap.put("types", types);
         }
 
@@ -0,0 +1,375 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.ratelimit;
+
+import com.jlubecki.soundcloud.webapi.android.metrics.MetricsSink;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.text.DateFormat;
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Client wide rate limiting and retries for the SoundCloud API.
+ * <p/>
+ * Every request takes a permit from a token bucket shared by all requests made with the same
+ * {@code client_id}, so concurrent callers are spread out instead of hitting the API together.
+ * Requests wait for a permit on the thread that runs them. {@code only-if-cached} requests, such
+ * as the probes of {@link com.jlubecki.soundcloud.webapi.android.cache.ResponseCache}, never
+ * reach the server and pass without one.
+ * <p/>
+ * GET requests that are answered with 429 or a 5xx status are retried with exponential backoff
+ * and full jitter. A {@code Retry-After} header replaces the backoff, and a 429 also pauses the
+ * bucket of its {@code client_id} so that other requests wait as well. Other methods are never
+ * retried, since they might not be idempotent, and neither are responses made by the cache.
+ * <p/>
+ * If a {@link MetricsSink} is given, the number of requests waiting for a permit is published as
+ * the {@value #QUEUE_DEPTH} gauge, and throttled responses and retries as the
+ * {@value #THROTTLED} and {@value #RETRIES} counters.
+ *
+ * @see com.jlubecki.soundcloud.webapi.android.SoundCloudAPI.Builder#setRateGovernor(RateGovernor)
+ */
+public class RateGovernor {
+
+    public static final String QUEUE_DEPTH = "ratelimit.queue_depth";
+    public static final String THROTTLED = "ratelimit.throttled";
+    public static final String RETRIES = "ratelimit.retries";
+
+    private static final String CLIENT_ID = "client_id";
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    private final double permitsPerSecond;
+    private final int burst;
+    private final int maxRetries;
+    private final long baseBackoffNanos;
+    private final long maxBackoffNanos;
+    private final long maxRetryAfterNanos;
+
+    private final ConcurrentMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final Random random = new Random();
+
+    private RateGovernor(Builder builder) {
+        this.permitsPerSecond = builder.permitsPerSecond;
+        this.burst = builder.burst;
+        this.maxRetries = builder.maxRetries;
+        this.baseBackoffNanos = builder.baseBackoffNanos;
+        this.maxBackoffNanos = builder.maxBackoffNanos;
+        this.maxRetryAfterNanos = builder.maxRetryAfterNanos;
+    }
+
+    /**
+     * Creates the application interceptor that applies this governor. It must run after the
+     * interceptor that adds the {@code client_id} to requests.
+     *
+     * @param sink Sink for the queue depth and counters, or null.
+     * @return The interceptor.
+     */
+    public Interceptor interceptor(MetricsSink sink) {
+        return new GovernorInterceptor(sink);
+    }
+
+    /**
+     * @return The number of requests currently waiting for a permit, over all client ids.
+     */
+    public int queueDepth() {
+        int depth = 0;
+
+        for (TokenBucket bucket : buckets.values()) {
+            depth += bucket.waiting();
+        }
+
+        return depth;
+    }
+
+    private TokenBucket bucketFor(Request request) {
+        String clientId = request.url().queryParameter(CLIENT_ID);
+        String key = clientId != null ? clientId : "";
+
+        TokenBucket bucket = buckets.get(key);
+
+        if (bucket == null) {
+            TokenBucket created = new TokenBucket(permitsPerSecond, burst);
+            bucket = buckets.putIfAbsent(key, created);
+
+            if (bucket == null) {
+                bucket = created;
+            }
+        }
+
+        return bucket;
+    }
+
+    private static boolean isRetryable(Request request, Response response) {
+        String method = request.method();
+
+        if (!"GET".equals(method) && !"HEAD".equals(method)) {
+            return false;
+        }
+
+        if (response.networkResponse() == null) {
+            return false; // Served or refused by the cache, so the server wasn't asked.
+        }
+
+        int code = response.code();
+
+        return code == TOO_MANY_REQUESTS || code == 500 || code == 502 || code == 503
+                || code == 504;
+    }
+
+    private long backoffNanos(int retry) {
+        long ceiling = baseBackoffNanos << Math.min(retry, 30);
+
+        if (ceiling <= 0 || ceiling > maxBackoffNanos) {
+            ceiling = maxBackoffNanos;
+        }
+
+        // Full jitter: anywhere between no delay and the exponential ceiling.
+        return (long) (random.nextDouble() * ceiling);
+    }
+
+    /**
+     * Parses a {@code Retry-After} header, given either as seconds or as an HTTP date.
+     *
+     * @return The delay in nanoseconds, or -1 if there is no valid header.
+     */
+    private static long retryAfterNanos(Response response) {
+        String value = response.header("Retry-After");
+
+        if (value == null) {
+            return -1;
+        }
+
+        value = value.trim();
+
+        try {
+            return TimeUnit.SECONDS.toNanos(Math.max(0, Long.parseLong(value)));
+        } catch (NumberFormatException e) {
+            Date date = parseHttpDate(value);
+
+            if (date == null) {
+                return -1;
+            }
+
+            long millis = date.getTime() - System.currentTimeMillis();
+
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, millis));
+        }
+    }
+
+    /**
+     * @return The date, or null if the value isn't an RFC 1123 date.
+     */
+    private static Date parseHttpDate(String value) {
+        // Formats aren't thread safe, and Retry-After dates are rare enough to create one each.
+        DateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("GMT"));
+
+        return format.parse(value, new ParsePosition(0));
+    }
+
+    private class GovernorInterceptor implements Interceptor {
+
+        private final MetricsSink sink;
+        private final TokenBucket.QueueListener queueListener;
+
+        GovernorInterceptor(final MetricsSink sink) {
+            this.sink = sink;
+            this.queueListener = sink == null ? null : new TokenBucket.QueueListener() {
+                @Override
+                public void onQueueDepth(int depth) {
+                    sink.onGauge(QUEUE_DEPTH, queueDepth());
+                }
+            };
+        }
+
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            Request request = chain.request();
+
+            if (request.cacheControl().onlyIfCached()) {
+                // Answered by the cache alone, e.g. the stale-while-revalidate probe.
+                return chain.proceed(request);
+            }
+
+            TokenBucket bucket = bucketFor(request);
+
+            for (int retry = 0; ; retry++) {
+                acquire(bucket);
+
+                Response response = chain.proceed(request);
+
+                if (!isRetryable(request, response)) {
+                    return response;
+                }
+
+                long retryAfter = retryAfterNanos(response);
+
+                if (response.code() == TOO_MANY_REQUESTS) {
+                    count(THROTTLED);
+
+                    long pause = retryAfter >= 0 ? retryAfter : backoffNanos(retry);
+                    bucket.pauseUntil(System.nanoTime() + Math.min(pause, maxRetryAfterNanos));
+                }
+
+                if (retry >= maxRetries || retryAfter > maxRetryAfterNanos) {
+                    return response;
+                }
+
+                response.body().close();
+                count(RETRIES);
+
+                // After a 429 the paused bucket provides the delay.
+                if (response.code() != TOO_MANY_REQUESTS) {
+                    sleep(retryAfter >= 0 ? retryAfter : backoffNanos(retry));
+                }
+            }
+        }
+
+        private void acquire(TokenBucket bucket) throws IOException {
+            try {
+                bucket.acquire(queueListener);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for a permit");
+            }
+        }
+
+        private void sleep(long nanos) throws IOException {
+            try {
+                TimeUnit.NANOSECONDS.sleep(nanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while backing off");
+            }
+        }
+
+        private void count(String name) {
+            if (sink != null) {
+                sink.onCount(name, 1);
+            }
+        }
+    }
+
+    public static class Builder {
+
+        private double permitsPerSecond = 10;
+        private int burst = 10;
+        private int maxRetries = 3;
+        private long baseBackoffNanos = TimeUnit.MILLISECONDS.toNanos(250);
+        private long maxBackoffNanos = TimeUnit.SECONDS.toNanos(10);
+        private long maxRetryAfterNanos = TimeUnit.SECONDS.toNanos(60);
+
+        /**
+         * Sets the steady request rate per client id and the size of bursts above it. Defaults
+         * to 10 requests per second with bursts of 10.
+         *
+         * @param permitsPerSecond The number of requests allowed per second.
+         * @param burst            The number of requests that may be made at once after a
+         *                         quiet period.
+         * @return The instance of the builder that was just updated.
+         */
+        public Builder setRate(double permitsPerSecond, int burst) {
+            if (permitsPerSecond <= 0) {
+                throw new IllegalArgumentException("permitsPerSecond <= 0: " + permitsPerSecond);
+            }
+
+            if (burst < 1) {
+                throw new IllegalArgumentException("burst < 1: " + burst);
+            }
+
+            this.permitsPerSecond = permitsPerSecond;
+            this.burst = burst;
+
+            return this;
+        }
+
+        /**
+         * Sets how many times a throttled or failed GET is retried. Defaults to 3.
+         *
+         * @param maxRetries The maximum number of retries, or 0 to never retry.
+         * @return The instance of the builder that was just updated.
+         */
+        public Builder setMaxRetries(int maxRetries) {
+            if (maxRetries < 0) {
+                throw new IllegalArgumentException("maxRetries < 0: " + maxRetries);
+            }
+
+            this.maxRetries = maxRetries;
+
+            return this;
+        }
+
+        /**
+         * Sets the exponential backoff between retries. The n-th retry waits a random time
+         * between zero and {@code base * 2^n}, capped at the maximum. Defaults to 250 ms and 10
+         * seconds.
+         *
+         * @param base The ceiling of the first backoff.
+         * @param max  The largest ceiling.
+         * @param unit Unit of both durations.
+         * @return The instance of the builder that was just updated.
+         */
+        public Builder setBackoff(long base, long max, TimeUnit unit) {
+            if (base < 1 || max < base) {
+                throw new IllegalArgumentException("Invalid backoff: " + base + ", " + max);
+            }
+
+            this.baseBackoffNanos = unit.toNanos(base);
+            this.maxBackoffNanos = unit.toNanos(max);
+
+            return this;
+        }
+
+        /**
+         * Sets the longest {@code Retry-After} that is waited for. Responses asking for a longer
+         * wait are returned to the caller. Defaults to 60 seconds.
+         *
+         * @param maxRetryAfter The longest wait.
+         * @param unit          Unit of the wait.
+         * @return The instance of the builder that was just updated.
+         */
+        public Builder setMaxRetryAfter(long maxRetryAfter, TimeUnit unit) {
+            this.maxRetryAfterNanos = unit.toNanos(maxRetryAfter);
+
+            return this;
+        }
+
+        public RateGovernor build() {
+            return new RateGovernor(this);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket that hands out permits at a steady rate, with bursts of up to a given size. The
+ * bucket can also be paused, e.g. while the server asks clients to back off.
+ */
+class TokenBucket {
+
+    private final double permitsPerNano;
+    private final double capacity;
+
+    private double tokens;
+    private long lastRefillNanos;
+    private long pausedUntilNanos;
+    private int waiting;
+
+    TokenBucket(double permitsPerSecond, int burst) {
+        this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.capacity = burst;
+        this.tokens = burst;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Blocks until a permit is available and takes it.
+     *
+     * @param listener Told about changes of the number of waiting threads, or null.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    void acquire(QueueListener listener) throws InterruptedException {
+        long waitNanos = tryAcquire();
+
+        if (waitNanos == 0) {
+            return;
+        }
+
+        onQueueChanged(listener, 1);
+
+        try {
+            while (waitNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+                waitNanos = tryAcquire();
+            }
+        } finally {
+            onQueueChanged(listener, -1);
+        }
+    }
+
+    /**
+     * Stops handing out permits until a given time, and empties the bucket so that waiting
+     * threads resume at the steady rate instead of all at once.
+     *
+     * @param untilNanos The {@link System#nanoTime()} at which permits are handed out again.
+     */
+    synchronized void pauseUntil(long untilNanos) {
+        if (untilNanos - pausedUntilNanos > 0) {
+            pausedUntilNanos = untilNanos;
+        }
+
+        tokens = 0;
+    }
+
+    /**
+     * @return The number of threads waiting for a permit.
+     */
+    synchronized int waiting() {
+        return waiting;
+    }
+
+    private synchronized long tryAcquire() {
+        long now = System.nanoTime();
+
+        if (pausedUntilNanos - now > 0) {
+            lastRefillNanos = now;
+
+            return pausedUntilNanos - now;
+        }
+
+        tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * permitsPerNano);
+        lastRefillNanos = now;
+
+        if (tokens >= 1) {
+            tokens -= 1;
+
+            return 0;
+        }
+
+        return Math.max(1, (long) Math.ceil((1 - tokens) / permitsPerNano));
+    }
+
+    private void onQueueChanged(QueueListener listener, int delta) {
+        int depth;
+
+        synchronized (this) {
+            waiting += delta;
+            depth = waiting;
+        }
+
+        if (listener != null) {
+            listener.onQueueDepth(depth);
+        }
+    }
+
+    interface QueueListener {
+        void onQueueDepth(int depth);
+    }
+}
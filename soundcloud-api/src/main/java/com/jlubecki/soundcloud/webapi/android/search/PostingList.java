@@ -0,0 +1,136 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.search;
+
+/**
+ * The documents a term occurs in, in increasing order, with the fields it occurs in. Each
+ * posting is the difference to the previous document as a varint, followed by a byte of field
+ * flags, so most postings take two bytes.
+ */
+final class PostingList {
+
+    private byte[] data = new byte[4];
+    private int length;
+    private int count;
+    private int lastDoc = -1;
+
+    /**
+     * Adds a document, which must not be lower than the last one. Adding the last document again
+     * adds to its fields.
+     */
+    void add(int doc, int fields) {
+        if (doc == lastDoc) {
+            data[length - 1] |= (byte) fields;
+            return;
+        }
+
+        if (doc < lastDoc) {
+            throw new IllegalArgumentException("doc " + doc + " < " + lastDoc);
+        }
+
+        ensureCapacity(length + 6);
+
+        int delta = doc - lastDoc;
+
+        while ((delta & ~0x7f) != 0) {
+            data[length++] = (byte) ((delta & 0x7f) | 0x80);
+            delta >>>= 7;
+        }
+
+        data[length++] = (byte) delta;
+        data[length++] = (byte) fields;
+
+        lastDoc = doc;
+        count++;
+    }
+
+    /**
+     * @return The number of documents.
+     */
+    int count() {
+        return count;
+    }
+
+    /**
+     * @return The approximate number of bytes the list takes in memory.
+     */
+    int sizeInBytes() {
+        return 32 + data.length;
+    }
+
+    Cursor cursor() {
+        return new Cursor();
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > data.length) {
+            byte[] grown = new byte[Math.max(capacity, data.length * 2)];
+            System.arraycopy(data, 0, grown, 0, length);
+            data = grown;
+        }
+    }
+
+    /**
+     * Reads the postings in order.
+     */
+    final class Cursor {
+
+        private int position;
+        private int doc = -1;
+        private int fields;
+
+        /**
+         * @return False once every posting was read.
+         */
+        boolean next() {
+            if (position >= length) {
+                return false;
+            }
+
+            int delta = 0;
+            int shift = 0;
+            byte b;
+
+            do {
+                b = data[position++];
+                delta |= (b & 0x7f) << shift;
+                shift += 7;
+            } while (b < 0);
+
+            doc += delta;
+            fields = data[position++] & 0xff;
+
+            return true;
+        }
+
+        int doc() {
+            return doc;
+        }
+
+        int fields() {
+            return fields;
+        }
+    }
+}
@@ -0,0 +1,651 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.search;
+
+import com.jlubecki.soundcloud.webapi.android.SoundCloudService;
+import com.jlubecki.soundcloud.webapi.android.concurrent.DaemonThreadFactory;
+import com.jlubecki.soundcloud.webapi.android.models.Group;
+import com.jlubecki.soundcloud.webapi.android.models.Track;
+import com.jlubecki.soundcloud.webapi.android.models.User;
+import com.jlubecki.soundcloud.webapi.android.query.Pager;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Turns the text of a search box into as few search requests as possible.
+ * <p/>
+ * Each {@link #setQuery(String)} supersedes the previous one: its pending request is dropped and
+ * its running {@link Call} is cancelled, so a slow response can never replace a newer one. A
+ * request is only sent once the query has stopped changing for the debounce delay. Recent
+ * results are cached, so deleting characters costs no requests. When a query extends an earlier
+ * one whose results were complete (shorter than a page), the earlier results are filtered
+ * locally and no request is sent at all. When they were not complete, the filtered results are
+ * shown right away and replaced when the response arrives.
+ * <pre>
+ * SearchSession&lt;Track&gt; session = SearchSession.tracks(service)
+ *         .setListener(listener)
+ *         .build();
+ *
+ * // In afterTextChanged:
+ * session.setQuery(s.toString());
+ * </pre>
+ * Local filtering keeps the results in which every word of the query starts a word of the item,
+ * the way SoundCloud matches; it is only available for types with a {@link Matcher}.
+ */
+public class SearchSession<T> {
+
+    public static final long DEBOUNCE_MILLIS_DEFAULT = 300;
+    public static final int CACHE_SIZE_DEFAULT = 20;
+
+    /**
+     * Creates the call for one query, e.g. {@link SoundCloudService#searchUsers(String)}.
+     */
+    public interface Searcher<T> {
+
+        Call<List<T>> search(String query);
+    }
+
+    /**
+     * Decides whether an item of an earlier result set also matches a longer query.
+     */
+    public interface Matcher<T> {
+
+        /**
+         * @param item  An item from earlier results.
+         * @param terms The words of the query, lower case and without accents. The last one may
+         *              be incomplete.
+         * @return Whether the item belongs in the results for the query.
+         */
+        boolean matches(T item, List<String> terms);
+    }
+
+    /**
+     * Receives the results of the current query. Results of superseded queries are never
+     * delivered.
+     */
+    public interface Listener<T> {
+
+        /**
+         * @param query   The query the results are for.
+         * @param results The results. The list must not be modified.
+         * @param settled False if the results were filtered from an earlier, incomplete result
+         *                set and will be replaced once the request for the query completes.
+         */
+        void onResults(String query, List<T> results, boolean settled);
+
+        void onError(String query, Throwable t);
+    }
+
+    public static final Matcher<Track> TRACK_MATCHER = new Matcher<Track>() {
+        @Override
+        public boolean matches(Track track, List<String> terms) {
+            return matchesAll(terms, track.title,
+                    track.user != null ? track.user.username : null,
+                    track.tags_list, track.genre, track.description);
+        }
+    };
+
+    public static final Matcher<User> USER_MATCHER = new Matcher<User>() {
+        @Override
+        public boolean matches(User user, List<String> terms) {
+            return matchesAll(terms, user.username, user.full_name, user.permalink);
+        }
+    };
+
+    private final Searcher<T> searcher;
+    private final Matcher<T> matcher;
+    private final Listener<T> listener;
+    private final Executor callbackExecutor;
+    private final ScheduledExecutorService scheduler;
+    private final long debounceNanos;
+    private final int pageSize;
+    private final int cacheSize;
+
+    private final LinkedHashMap<String, List<T>> cache;
+
+    private String query = "";
+    private long generation;
+    private ScheduledFuture<?> pending;
+    private Call<List<T>> running;
+
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong cacheHitCount = new AtomicLong();
+    private final AtomicLong refinedCount = new AtomicLong();
+
+    private SearchSession(Builder<T> builder) {
+        this.searcher = builder.searcher;
+        this.matcher = builder.matcher;
+        this.listener = builder.listener;
+        this.callbackExecutor = builder.callbackExecutor;
+        this.scheduler = builder.scheduler != null ? builder.scheduler : DefaultScheduler.INSTANCE;
+        this.debounceNanos = builder.debounceNanos;
+        this.pageSize = builder.pageSize;
+        this.cacheSize = builder.cacheSize;
+        this.cache = new LinkedHashMap<String, List<T>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<T>> eldest) {
+                return size() > SearchSession.this.cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Starts a builder for track searches with {@link SoundCloudService#searchTracks(String)}.
+     *
+     * @param service The service to search with.
+     * @return A builder that filters tracks locally with {@link #TRACK_MATCHER}.
+     */
+    public static Builder<Track> tracks(final SoundCloudService service) {
+        return new Builder<>(new Searcher<Track>() {
+            @Override
+            public Call<List<Track>> search(String query) {
+                return service.searchTracks(query);
+            }
+        }).setMatcher(TRACK_MATCHER);
+    }
+
+    /**
+     * Starts a builder for user searches with {@link SoundCloudService#searchUsers(String)}.
+     *
+     * @param service The service to search with.
+     * @return A builder that filters users locally with {@link #USER_MATCHER}.
+     */
+    public static Builder<User> users(final SoundCloudService service) {
+        return new Builder<>(new Searcher<User>() {
+            @Override
+            public Call<List<User>> search(String query) {
+                return service.searchUsers(query);
+            }
+        }).setMatcher(USER_MATCHER);
+    }
+
+    /**
+     * Starts a builder for group searches with {@link SoundCloudService#searchGroups(String)}.
+     * Groups don't expose their fields, so their results are never filtered locally.
+     *
+     * @param service The service to search with.
+     * @return A builder without a matcher.
+     */
+    public static Builder<Group> groups(final SoundCloudService service) {
+        return new Builder<>(new Searcher<Group>() {
+            @Override
+            public Call<List<Group>> search(String query) {
+                return service.searchGroups(query);
+            }
+        });
+    }
+
+    /**
+     * Sets the text of the search box. Call it on every change; calls that don't change the
+     * trimmed text are ignored.
+     *
+     * @param text The new text.
+     */
+    public void setQuery(String text) {
+        String next = text != null ? text.trim() : "";
+        List<T> cached;
+        List<T> refined = null;
+        boolean settled = false;
+        long current;
+
+        synchronized (this) {
+            if (next.equals(query)) {
+                return;
+            }
+
+            query = next;
+            current = ++generation;
+            cancelLocked();
+
+            if (next.isEmpty()) {
+                cached = Collections.emptyList();
+            } else {
+                cached = cache.get(next);
+            }
+
+            if (cached != null) {
+                if (!next.isEmpty()) {
+                    cacheHitCount.incrementAndGet();
+                }
+            } else {
+                Refinement<T> refinement = refineLocked(next);
+
+                if (refinement != null) {
+                    refined = refinement.results;
+                    settled = refinement.complete;
+                    refinedCount.incrementAndGet();
+
+                    if (settled) {
+                        cache.put(next, refined);
+                    }
+                }
+
+                if (!settled) {
+                    schedule(next, current);
+                }
+            }
+        }
+
+        if (cached != null) {
+            deliver(next, current, cached, true);
+        } else if (refined != null) {
+            deliver(next, current, refined, settled);
+        }
+    }
+
+    /**
+     * @return The trimmed query last passed to {@link #setQuery(String)}.
+     */
+    public synchronized String getQuery() {
+        return query;
+    }
+
+    /**
+     * Drops the pending request and cancels the running one. Results for the current query are
+     * no longer delivered, and the query is reset to the empty string so that setting the same
+     * text again searches for it again.
+     */
+    public synchronized void cancel() {
+        query = "";
+        generation++;
+        cancelLocked();
+    }
+
+    /**
+     * Forgets cached results, e.g. after the user's account changed.
+     */
+    public synchronized void clearCache() {
+        cache.clear();
+    }
+
+    /**
+     * @return The number of search requests sent.
+     */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * @return The number of queries answered from cached results.
+     */
+    public long getCacheHitCount() {
+        return cacheHitCount.get();
+    }
+
+    /**
+     * @return The number of queries answered by filtering earlier results, settled or not.
+     */
+    public long getRefinedCount() {
+        return refinedCount.get();
+    }
+
+    private void cancelLocked() {
+        if (pending != null) {
+            pending.cancel(false);
+            pending = null;
+        }
+
+        if (running != null) {
+            running.cancel();
+            running = null;
+        }
+    }
+
+    /**
+     * Filters the results of the longest cached query that the given query extends.
+     */
+    private Refinement<T> refineLocked(String next) {
+        if (matcher == null) {
+            return null;
+        }
+
+        String base = null;
+        List<T> baseResults = null;
+
+        for (Map.Entry<String, List<T>> entry : cache.entrySet()) {
+            String key = entry.getKey();
+
+            if (next.startsWith(key) && (base == null || key.length() > base.length())) {
+                base = key;
+                baseResults = entry.getValue();
+            }
+        }
+
+        if (base == null) {
+            return null;
+        }
+
+        // Refresh the base without reordering the cache while iterating it.
+        cache.get(base);
+
+        List<String> terms = Tokenizer.tokenize(next);
+        List<T> results = new ArrayList<>();
+
+        for (T item : baseResults) {
+            if (matcher.matches(item, terms)) {
+                results.add(item);
+            }
+        }
+
+        return new Refinement<>(Collections.unmodifiableList(results),
+                baseResults.size() < pageSize);
+    }
+
+    private void schedule(final String query, final long requested) {
+        pending = scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                send(query, requested);
+            }
+        }, debounceNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void send(final String query, final long requested) {
+        Call<List<T>> call;
+
+        synchronized (this) {
+            if (requested != generation) {
+                return;
+            }
+
+            pending = null;
+            call = searcher.search(query);
+            running = call;
+        }
+
+        requestCount.incrementAndGet();
+        call.enqueue(new Callback<List<T>>() {
+            @Override
+            public void onResponse(Call<List<T>> call, Response<List<T>> response) {
+                if (!response.isSuccessful()) {
+                    fail(call, query, requested, new IOException("Search failed with HTTP "
+                            + response.code() + " " + response.message()));
+                    return;
+                }
+
+                List<T> body = response.body();
+                List<T> results = body != null
+                        ? Collections.unmodifiableList(new ArrayList<>(body))
+                        : Collections.<T>emptyList();
+
+                synchronized (SearchSession.this) {
+                    // Cached even if superseded; the user may come back to the query.
+                    cache.put(query, results);
+
+                    if (running == call) {
+                        running = null;
+                    }
+                }
+
+                deliver(query, requested, results, true);
+            }
+
+            @Override
+            public void onFailure(Call<List<T>> call, Throwable t) {
+                if (!call.isCanceled()) {
+                    fail(call, query, requested, t);
+                }
+            }
+        });
+    }
+
+    private void fail(Call<List<T>> call, final String query, final long requested,
+                      final Throwable t) {
+        synchronized (this) {
+            if (running == call) {
+                running = null;
+            }
+        }
+
+        if (listener == null) {
+            return;
+        }
+
+        execute(new Runnable() {
+            @Override
+            public void run() {
+                if (isCurrent(requested)) {
+                    listener.onError(query, t);
+                }
+            }
+        });
+    }
+
+    private void deliver(final String query, final long requested, final List<T> results,
+                         final boolean settled) {
+        if (listener == null) {
+            return;
+        }
+
+        execute(new Runnable() {
+            @Override
+            public void run() {
+                // Checked on the callback thread, so a query set there in the meantime wins.
+                if (isCurrent(requested)) {
+                    listener.onResults(query, results, settled);
+                }
+            }
+        });
+    }
+
+    private void execute(Runnable runnable) {
+        if (callbackExecutor != null) {
+            callbackExecutor.execute(runnable);
+        } else {
+            runnable.run();
+        }
+    }
+
+    private synchronized boolean isCurrent(long requested) {
+        return requested == generation;
+    }
+
+    private static boolean matchesAll(List<String> terms, String... fields) {
+        List<String> words = new ArrayList<>();
+
+        for (String field : fields) {
+            words.addAll(Tokenizer.tokenize(field));
+        }
+
+        for (String term : terms) {
+            boolean found = false;
+
+            for (String word : words) {
+                if (word.startsWith(term)) {
+                    found = true;
+                    break;
+                }
+            }
+
+            if (!found) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static final class Refinement<T> {
+
+        final List<T> results;
+        final boolean complete;
+
+        Refinement(List<T> results, boolean complete) {
+            this.results = results;
+            this.complete = complete;
+        }
+    }
+
+    private static final class DefaultScheduler {
+
+        static final ScheduledExecutorService INSTANCE = Executors.newSingleThreadScheduledExecutor(
+                new DaemonThreadFactory("soundcloud-search"));
+    }
+
+    public static class Builder<T> {
+
+        private final Searcher<T> searcher;
+        private Matcher<T> matcher;
+        private Listener<T> listener;
+        private Executor callbackExecutor;
+        private ScheduledExecutorService scheduler;
+        private long debounceNanos = TimeUnit.MILLISECONDS.toNanos(DEBOUNCE_MILLIS_DEFAULT);
+        private int pageSize = Pager.LIMIT_DEFAULT;
+        private int cacheSize = CACHE_SIZE_DEFAULT;
+
+        /**
+         * @param searcher Creates the call for a query.
+         */
+        public Builder(Searcher<T> searcher) {
+            if (searcher == null) {
+                throw new IllegalArgumentException("searcher == null");
+            }
+
+            this.searcher = searcher;
+        }
+
+        /**
+         * Sets how earlier results are filtered for a longer query. Without a matcher every
+         * query that isn't cached is requested.
+         *
+         * @param matcher The matcher, or null.
+         * @return The instance of the builder that was just updated.
+         */
+        public Builder<T> setMatcher(Matcher<T> matcher) {
+            this.matcher = matcher;
+
+            return this;
+        }
+
+        /**
+         * @param listener The listener that receives results and errors.
+         * @return The instance of the builder that was just updated.
+         */
+        public Builder<T> setListener(Listener<T> listener) {
+            this.listener = listener;
+
+            return this;
+        }
+
+        /**
+         * Sets the executor the listener is called on. By default results from the cache are
+         * delivered on the thread calling {@link SearchSession#setQuery(String)} and responses
+         * on Retrofit's callback thread, which is the main thread on Android.
+         *
+         * @param callbackExecutor The executor to use.
+         * @return The instance of the builder that was just updated.
+         */
+        public Builder<T> setCallbackExecutor(Executor callbackExecutor) {
+            this.callbackExecutor = callbackExecutor;
+
+            return this;
+        }
+
+        /**
+         * Sets how long the query has to stay unchanged before it is requested. Defaults to
+         * {@value #DEBOUNCE_MILLIS_DEFAULT} milliseconds.
+         *
+         * @param delay Length of the delay.
+         * @param unit  Unit of the delay.
+         * @return The instance of the builder that was just updated.
+         */
+        public Builder<T> setDebounce(long delay, TimeUnit unit) {
+            if (delay < 0) {
+                throw new IllegalArgumentException("delay < 0: " + delay);
+            }
+
+            this.debounceNanos = unit.toNanos(delay);
+
+            return this;
+        }
+
+        /**
+         * Sets the number of results the searcher asks for. Result sets shorter than this are
+         * complete and can be filtered without a request. Defaults to {@link
+         * Pager#LIMIT_DEFAULT}, which the API uses when no limit is given.
+         *
+         * @param pageSize The page size.
+         * @return The instance of the builder that was just updated.
+         */
+        public Builder<T> setPageSize(int pageSize) {
+            if (pageSize < 1) {
+                throw new IllegalArgumentException("pageSize < 1: " + pageSize);
+            }
+
+            this.pageSize = pageSize;
+
+            return this;
+        }
+
+        /**
+         * Sets how many recent queries keep their results. Defaults to {@value
+         * #CACHE_SIZE_DEFAULT}.
+         *
+         * @param cacheSize The number of queries.
+         * @return The instance of the builder that was just updated.
+         */
+        public Builder<T> setCacheSize(int cacheSize) {
+            if (cacheSize < 0) {
+                throw new IllegalArgumentException("cacheSize < 0: " + cacheSize);
+            }
+
+            this.cacheSize = cacheSize;
+
+            return this;
+        }
+
+        /**
+         * Sets the executor that sends requests once the debounce delay elapses. By default a
+         * shared daemon thread is used.
+         *
+         * @param scheduler The executor to use.
+         * @return The instance of the builder that was just updated.
+         */
+        public Builder<T> setScheduler(ScheduledExecutorService scheduler) {
+            this.scheduler = scheduler;
+
+            return this;
+        }
+
+        public SearchSession<T> build() {
+            return new SearchSession<>(this);
+        }
+    }
+}
@@ -0,0 +1,469 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.search;
+
+import com.jlubecki.soundcloud.webapi.android.cache.EntityCache;
+import com.jlubecki.soundcloud.webapi.android.models.Track;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory full-text index of tracks, for search results that show while the request for the
+ * remote results is still running.
+ * <p/>
+ * The title, username, tags, genre and description of each track are indexed. Every word of a
+ * query must match a word of a track, either exactly, as a prefix, or, for words of three or more
+ * characters, anywhere inside it, e.g. "step" finds "dubstep". Matches in the title and exact
+ * matches rank highest.
+ * <p/>
+ * The index is updated incrementally. A changed track gets a new document and its old one is
+ * skipped until the index is compacted, which happens once half of the documents are stale. If
+ * the index {@link #cacheListener() listens} to an {@link EntityCache}, it indexes every track as
+ * it is decoded and drops it when it is evicted.
+ * <pre>
+ * List&lt;Track&gt; local = index.search(query, 20);
+ * // When the remote results arrive:
+ * List&lt;Track&gt; results = TrackIndex.merge(local, remote, 50);
+ * </pre>
+ */
+public class TrackIndex {
+
+    static final int TITLE = 1;
+    static final int USERNAME = 1 << 1;
+    static final int TAGS = 1 << 2;
+    static final int GENRE = 1 << 3;
+    static final int DESCRIPTION = 1 << 4;
+
+    private static final int EXACT = 3;
+    private static final int PREFIX = 2;
+    private static final int INFIX = 1;
+    private static final int NGRAM = 3;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final TreeMap<String, PostingList> terms = new TreeMap<>();
+
+    /**
+     * The terms containing each trigram, to find words inside other words without scanning every
+     * term.
+     */
+    private final Map<String, Set<String>> trigrams = new HashMap<>();
+
+    /**
+     * Tracks by document, with null for stale documents.
+     */
+    private final List<Track> docs = new ArrayList<>();
+    private final List<Integer> textHashes = new ArrayList<>();
+    private final Map<String, Integer> docsById = new HashMap<>();
+    private int staleCount;
+
+    /**
+     * Indexes a track, replacing an earlier version of it. Tracks without an id are ignored.
+     *
+     * @param track The track.
+     */
+    public void add(Track track) {
+        lock.writeLock().lock();
+
+        try {
+            index(track);
+            compactIfStale();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indexes tracks, e.g. those of an {@link com.jlubecki.soundcloud.webapi.android.store
+     * .OfflineStore} when the application starts.
+     *
+     * @param tracks The tracks.
+     */
+    public void addAll(Collection<Track> tracks) {
+        lock.writeLock().lock();
+
+        try {
+            for (Track track : tracks) {
+                index(track);
+            }
+
+            compactIfStale();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param id The id of a track.
+     */
+    public void remove(String id) {
+        lock.writeLock().lock();
+
+        try {
+            Integer doc = docsById.remove(id);
+
+            if (doc != null) {
+                docs.set(doc, null);
+                staleCount++;
+                compactIfStale();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+
+        try {
+            terms.clear();
+            trigrams.clear();
+            docs.clear();
+            textHashes.clear();
+            docsById.clear();
+            staleCount = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return The number of indexed tracks.
+     */
+    public int size() {
+        lock.readLock().lock();
+
+        try {
+            return docsById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the tracks matching every word of a query, best matches first.
+     *
+     * @param query The query, e.g. what was typed into a search box so far.
+     * @param limit The maximum number of tracks.
+     * @return The matching tracks.
+     */
+    public List<Track> search(String query, int limit) {
+        List<String> tokens = Tokenizer.tokenize(query);
+
+        if (tokens.isEmpty() || limit <= 0) {
+            return new ArrayList<>(0);
+        }
+
+        lock.readLock().lock();
+
+        try {
+            int size = docs.size();
+            int[] scores = new int[size];
+            int[] tokenScores = new int[size];
+            int[] matched = new int[size];
+
+            for (int t = 0; t < tokens.size(); t++) {
+                for (Map.Entry<String, Integer> match : matches(tokens.get(t)).entrySet()) {
+                    PostingList.Cursor cursor = terms.get(match.getKey()).cursor();
+                    int kind = match.getValue();
+
+                    while (cursor.next()) {
+                        int doc = cursor.doc();
+
+                        // Documents must match every previous word, and stale ones never do.
+                        if (matched[doc] < t || docs.get(doc) == null) {
+                            continue;
+                        }
+
+                        int score = kind * weight(cursor.fields());
+
+                        if (matched[doc] == t) {
+                            matched[doc] = t + 1;
+                            tokenScores[doc] = score;
+                            scores[doc] += score;
+                        } else if (score > tokenScores[doc]) {
+                            scores[doc] += score - tokenScores[doc];
+                            tokenScores[doc] = score;
+                        }
+                    }
+                }
+            }
+
+            return top(scores, matched, tokens.size(), limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Merges local results with the remote results of the same query. Remote results keep
+     * their order and come first, since the server ranks with more than the client knows. Local
+     * results that aren't among them follow, so rows that were already shown don't vanish.
+     *
+     * @param local  The local results.
+     * @param remote The remote results.
+     * @param limit  The maximum number of tracks.
+     * @return The merged results, without duplicates.
+     */
+    public static List<Track> merge(List<Track> local, List<Track> remote, int limit) {
+        Map<String, Track> merged = new LinkedHashMap<>();
+
+        for (List<Track> tracks : Arrays.asList(remote, local)) {
+            for (Track track : tracks) {
+                if (merged.size() == limit) {
+                    break;
+                }
+
+                String key = track.id != null ? track.id : "@" + System.identityHashCode(track);
+
+                if (!merged.containsKey(key)) {
+                    merged.put(key, track);
+                }
+            }
+        }
+
+        return new ArrayList<>(merged.values());
+    }
+
+    /**
+     * Creates a listener that keeps this index in sync with the tracks of an {@link EntityCache}.
+     *
+     * @return The listener, to pass to {@link EntityCache.Builder#addListener(EntityCache.Listener)}.
+     */
+    public EntityCache.Listener cacheListener() {
+        return new EntityCache.Listener() {
+            @Override
+            public void onPut(Class<?> type, String id, Object entity) {
+                if (type == Track.class) {
+                    add((Track) entity);
+                }
+            }
+
+            @Override
+            public void onRemoved(Class<?> type, String id) {
+                if (type == Track.class) {
+                    remove(id);
+                }
+            }
+        };
+    }
+
+    private void index(Track track) {
+        if (track == null || track.id == null) {
+            return;
+        }
+
+        int hash = textHash(track);
+        Integer existing = docsById.get(track.id);
+
+        if (existing != null) {
+            if (textHashes.get(existing) == hash) {
+                docs.set(existing, track);
+                return;
+            }
+
+            docs.set(existing, null);
+            staleCount++;
+        }
+
+        int doc = docs.size();
+
+        docs.add(track);
+        textHashes.add(hash);
+        docsById.put(track.id, doc);
+
+        addField(doc, TITLE, track.title);
+        addField(doc, USERNAME, track.user != null ? track.user.username : null);
+        addField(doc, TAGS, track.tags_list);
+        addField(doc, GENRE, track.genre);
+        addField(doc, DESCRIPTION, track.description);
+    }
+
+    private void addField(int doc, int field, String text) {
+        for (String token : Tokenizer.tokenize(text)) {
+            PostingList postings = terms.get(token);
+
+            if (postings == null) {
+                postings = new PostingList();
+                terms.put(token, postings);
+                addTrigrams(token);
+            }
+
+            postings.add(doc, field);
+        }
+    }
+
+    private void addTrigrams(String term) {
+        for (int i = 0; i + NGRAM <= term.length(); i++) {
+            String trigram = term.substring(i, i + NGRAM);
+            Set<String> containing = trigrams.get(trigram);
+
+            if (containing == null) {
+                containing = new HashSet<>();
+                trigrams.put(trigram, containing);
+            }
+
+            containing.add(term);
+        }
+    }
+
+    /**
+     * @return The terms a query word matches, with how well they match.
+     */
+    private Map<String, Integer> matches(String token) {
+        Map<String, Integer> matches = new HashMap<>();
+
+        NavigableMap<String, PostingList> tail = terms.tailMap(token, true);
+
+        for (String term : tail.keySet()) {
+            if (!term.startsWith(token)) {
+                break;
+            }
+
+            matches.put(term, term.length() == token.length() ? EXACT : PREFIX);
+        }
+
+        if (token.length() < NGRAM) {
+            return matches;
+        }
+
+        // Intersect the terms of each trigram, starting with the rarest.
+        Set<String> candidates = null;
+
+        for (int i = 0; i + NGRAM <= token.length(); i++) {
+            Set<String> containing = trigrams.get(token.substring(i, i + NGRAM));
+
+            if (containing == null) {
+                return matches;
+            }
+
+            if (candidates == null || containing.size() < candidates.size()) {
+                candidates = containing;
+            }
+        }
+
+        for (String term : candidates) {
+            if (!matches.containsKey(term) && term.contains(token)) {
+                matches.put(term, INFIX);
+            }
+        }
+
+        return matches;
+    }
+
+    private static int weight(int fields) {
+        if ((fields & TITLE) != 0) {
+            return 4;
+        }
+
+        if ((fields & USERNAME) != 0) {
+            return 3;
+        }
+
+        if ((fields & (TAGS | GENRE)) != 0) {
+            return 2;
+        }
+
+        return 1;
+    }
+
+    private List<Track> top(int[] scores, int[] matched, int tokenCount, int limit) {
+        int count = 0;
+
+        for (int doc = 0; doc < matched.length; doc++) {
+            if (matched[doc] == tokenCount) {
+                count++;
+            }
+        }
+
+        // Score in the high bits and document in the low bits, so that one sort ranks by score
+        // and then by recency.
+        long[] ranked = new long[count];
+        int i = 0;
+
+        for (int doc = 0; doc < matched.length; doc++) {
+            if (matched[doc] == tokenCount) {
+                ranked[i++] = ((long) scores[doc] << 32) | doc;
+            }
+        }
+
+        Arrays.sort(ranked);
+
+        List<Track> results = new ArrayList<>(Math.min(limit, count));
+
+        for (i = count - 1; i >= 0 && results.size() < limit; i--) {
+            results.add(docs.get((int) ranked[i]));
+        }
+
+        return results;
+    }
+
+    private void compactIfStale() {
+        if (staleCount < 64 || staleCount * 2 < docs.size()) {
+            return;
+        }
+
+        List<Track> live = new ArrayList<>(docsById.size());
+
+        for (Track track : docs) {
+            if (track != null) {
+                live.add(track);
+            }
+        }
+
+        terms.clear();
+        trigrams.clear();
+        docs.clear();
+        textHashes.clear();
+        docsById.clear();
+        staleCount = 0;
+
+        for (Track track : live) {
+            index(track);
+        }
+    }
+
+    private static int textHash(Track track) {
+        return Arrays.hashCode(new Object[] {
+                track.title,
+                track.user != null ? track.user.username : null,
+                track.tags_list,
+                track.genre,
+                track.description
+        });
+    }
+}
@@ -0,0 +1,787 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.search;
+
+import com.jlubecki.soundcloud.webapi.android.cache.EntityCache;
+import com.jlubecki.soundcloud.webapi.android.json.Timestamps;
+import com.jlubecki.soundcloud.webapi.android.models.Track;
+import com.jlubecki.soundcloud.webapi.android.query.TrackQuery;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory table of tracks that answers a {@link TrackQuery} without a request, e.g. to filter
+ * and sort a local library.
+ * <p/>
+ * Every parameter of {@link TrackQuery#createMap()} is evaluated the way the API evaluates it:
+ * <ul>
+ * <li>q - every word must start a word of the title, username, tags, genre or description</li>
+ * <li>tags, genres, types and ids - any of the given values must match</li>
+ * <li>filter and license - the sharing and license must match</li>
+ * <li>bpm, duration and created_at - ranges including both ends</li>
+ * </ul>
+ * Tracks without a value for a range are excluded by it. The fields are decoded once into
+ * primitive columns and dictionary codes, words and tags into posting lists, so a query is a few
+ * {@link BitSet} operations and one pass over the columns.
+ * <pre>
+ * TrackQuery query = new TrackQuery.Builder()
+ *         .setGenres("house")
+ *         .setBpmLimits(120, 128)
+ *         .build();
+ *
+ * List&lt;Track&gt; tracks = table.select(query, TrackTable.Sort.MOST_PLAYED, 100);
+ * </pre>
+ * As in {@link TrackIndex}, a changed track gets a new row and its old row is skipped until the
+ * table is compacted.
+ */
+public class TrackTable {
+
+    /**
+     * Orders of {@link #select(TrackQuery, Sort, int)}.
+     */
+    public enum Sort {
+        MOST_PLAYED,
+        MOST_FAVORITED,
+        NEWEST,
+        OLDEST
+    }
+
+    private static final int MISSING = -1;
+
+    /**
+     * Sort keys are packed above the row, so rows are limited to 24 bits and keys to 39.
+     */
+    private static final int ROW_BITS = 24;
+    private static final long MAX_KEY = (1L << (63 - ROW_BITS)) - 1;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Track[] tracks = new Track[16];
+    private int[] bpm = new int[16];
+    private int[] duration = new int[16];
+    private long[] createdAt = new long[16];
+    private long[] playbackCount = new long[16];
+    private long[] favoritingsCount = new long[16];
+    private int[] genre = new int[16];
+    private int[] type = new int[16];
+    private int[] license = new int[16];
+    private int[] sharing = new int[16];
+    private int size;
+
+    private final BitSet live = new BitSet();
+    private final Map<String, Integer> rowsById = new HashMap<>();
+    private int staleCount;
+
+    /**
+     * Codes of lower case values, starting at 1. 0 is a missing value.
+     */
+    private final Map<String, Integer> codes = new HashMap<>();
+
+    private final TreeMap<String, PostingList> words = new TreeMap<>();
+    private final Map<String, PostingList> tags = new HashMap<>();
+
+    /**
+     * Adds a track, replacing an earlier version of it. Tracks without an id are ignored.
+     *
+     * @param track The track.
+     */
+    public void add(Track track) {
+        lock.writeLock().lock();
+
+        try {
+            insert(track);
+            compactIfStale();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds tracks, e.g. those of an {@link com.jlubecki.soundcloud.webapi.android.store
+     * .OfflineStore} when the application starts.
+     *
+     * @param tracks The tracks.
+     */
+    public void addAll(Collection<Track> tracks) {
+        lock.writeLock().lock();
+
+        try {
+            for (Track track : tracks) {
+                insert(track);
+            }
+
+            compactIfStale();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param id The id of a track.
+     */
+    public void remove(String id) {
+        lock.writeLock().lock();
+
+        try {
+            Integer row = rowsById.remove(id);
+
+            if (row != null) {
+                markStale(row);
+                compactIfStale();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+
+        try {
+            Arrays.fill(tracks, 0, size, null);
+            size = 0;
+            live.clear();
+            rowsById.clear();
+            staleCount = 0;
+            codes.clear();
+            words.clear();
+            tags.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return The number of tracks.
+     */
+    public int size() {
+        lock.readLock().lock();
+
+        try {
+            return rowsById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the tracks matching a query.
+     *
+     * @param query The query, or null for every track. Its limit is ignored.
+     * @param sort  The order of the tracks, or null for the order they were added in.
+     * @param limit The maximum number of tracks.
+     * @return The matching tracks.
+     * @throws IllegalArgumentException if a number or date of the query can't be parsed.
+     */
+    public List<Track> select(TrackQuery query, Sort sort, int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("limit < 0: " + limit);
+        }
+
+        lock.readLock().lock();
+
+        try {
+            BitSet rows = filter(query);
+
+            return sort != null ? sorted(rows, sort, limit) : inOrder(rows, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param query The query, or null for every track.
+     * @return The number of tracks matching the query.
+     * @throws IllegalArgumentException if a number or date of the query can't be parsed.
+     */
+    public int count(TrackQuery query) {
+        lock.readLock().lock();
+
+        try {
+            return filter(query).cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Creates a listener that keeps this table in sync with the tracks of an {@link EntityCache}.
+     *
+     * @return The listener, to pass to {@link EntityCache.Builder#addListener(EntityCache.Listener)}.
+     */
+    public EntityCache.Listener cacheListener() {
+        return new EntityCache.Listener() {
+            @Override
+            public void onPut(Class<?> type, String id, Object entity) {
+                if (type == Track.class) {
+                    add((Track) entity);
+                }
+            }
+
+            @Override
+            public void onRemoved(Class<?> type, String id) {
+                if (type == Track.class) {
+                    remove(id);
+                }
+            }
+        };
+    }
+
+    private BitSet filter(TrackQuery query) {
+        BitSet rows = (BitSet) live.clone();
+        Map<String, String> params = query != null ? query.createMap() : null;
+
+        if (params == null) {
+            return rows;
+        }
+
+        String ids = params.get("ids");
+        if (ids != null) {
+            BitSet matching = new BitSet(size);
+
+            for (String id : split(ids)) {
+                Integer row = rowsById.get(id);
+
+                if (row != null) {
+                    matching.set(row);
+                }
+            }
+
+            rows.and(matching);
+        }
+
+        String tagList = params.get("tags");
+        if (tagList != null) {
+            BitSet matching = new BitSet(size);
+
+            for (String tag : split(tagList)) {
+                or(matching, tags.get(tag.toLowerCase(Locale.ROOT)));
+            }
+
+            rows.and(matching);
+        }
+
+        String text = params.get("q");
+        if (text != null) {
+            for (String token : Tokenizer.tokenize(text)) {
+                BitSet matching = new BitSet(size);
+                NavigableMap<String, PostingList> tail = words.tailMap(token, true);
+
+                for (Map.Entry<String, PostingList> entry : tail.entrySet()) {
+                    if (!entry.getKey().startsWith(token)) {
+                        break;
+                    }
+
+                    or(matching, entry.getValue());
+                }
+
+                rows.and(matching);
+            }
+        }
+
+        Columns columns = new Columns(params);
+
+        if (columns.isEmpty()) {
+            return rows;
+        }
+
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            if (!columns.matches(row)) {
+                rows.clear(row);
+            }
+        }
+
+        return rows;
+    }
+
+    private List<Track> inOrder(BitSet rows, int limit) {
+        List<Track> results = new ArrayList<>(Math.min(limit, rows.cardinality()));
+
+        for (int row = rows.nextSetBit(0); row >= 0 && results.size() < limit;
+             row = rows.nextSetBit(row + 1)) {
+            results.add(tracks[row]);
+        }
+
+        return results;
+    }
+
+    private List<Track> sorted(BitSet rows, Sort sort, int limit) {
+        int capacity = Math.min(limit, rows.cardinality());
+        boolean ascending = sort == Sort.OLDEST;
+
+        // Key in the high bits and row in the low bits, so that comparing primitives orders by
+        // key and then by the order tracks were added in. Ascending values are inverted, so the
+        // greatest values are wanted either way and a min-heap keeps them.
+        long[] heap = new long[capacity];
+        int count = 0;
+
+        for (int row = rows.nextSetBit(0); row >= 0 && capacity > 0;
+             row = rows.nextSetBit(row + 1)) {
+            long value = (key(sort, row) << ROW_BITS) | row;
+
+            if (ascending) {
+                value = ~value;
+            }
+
+            if (count < capacity) {
+                heap[count] = value;
+                siftUp(heap, count++);
+            } else if (value > heap[0]) {
+                heap[0] = value;
+                siftDown(heap, count);
+            }
+        }
+
+        Arrays.sort(heap, 0, count);
+
+        List<Track> results = new ArrayList<>(count);
+        long mask = (1L << ROW_BITS) - 1;
+
+        for (int i = count - 1; i >= 0; i--) {
+            long value = ascending ? ~heap[i] : heap[i];
+            results.add(tracks[(int) (value & mask)]);
+        }
+
+        return results;
+    }
+
+    private static void siftUp(long[] heap, int i) {
+        long value = heap[i];
+
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+
+            if (heap[parent] <= value) {
+                break;
+            }
+
+            heap[i] = heap[parent];
+            i = parent;
+        }
+
+        heap[i] = value;
+    }
+
+    private static void siftDown(long[] heap, int count) {
+        long value = heap[0];
+        int i = 0;
+
+        while (true) {
+            int child = 2 * i + 1;
+
+            if (child >= count) {
+                break;
+            }
+
+            if (child + 1 < count && heap[child + 1] < heap[child]) {
+                child++;
+            }
+
+            if (value <= heap[child]) {
+                break;
+            }
+
+            heap[i] = heap[child];
+            i = child;
+        }
+
+        heap[i] = value;
+    }
+
+    private long key(Sort sort, int row) {
+        long key;
+
+        switch (sort) {
+            case MOST_PLAYED:
+                key = playbackCount[row];
+                break;
+            case MOST_FAVORITED:
+                key = favoritingsCount[row];
+                break;
+            case OLDEST:
+                // Tracks without a date go last either way.
+                key = createdAt[row] != MISSING ? createdAt[row] : MAX_KEY;
+                break;
+            default:
+                key = createdAt[row];
+                break;
+        }
+
+        return Math.max(0, Math.min(key, MAX_KEY));
+    }
+
+    private void insert(Track track) {
+        if (track == null || track.id == null) {
+            return;
+        }
+
+        Integer existing = rowsById.get(track.id);
+
+        if (existing != null) {
+            markStale(existing);
+        }
+
+        if (size == 1 << ROW_BITS) {
+            throw new IllegalStateException("TrackTable is limited to " + size + " rows");
+        }
+
+        ensureCapacity(size + 1);
+
+        int row = size++;
+
+        tracks[row] = track;
+        bpm[row] = (int) Math.min(number(track.bpm), Integer.MAX_VALUE);
+        duration[row] = (int) Math.min(number(track.duration), Integer.MAX_VALUE);
+        createdAt[row] = seconds(track.created_at);
+        playbackCount[row] = Math.max(0, number(track.playback_count));
+        favoritingsCount[row] = Math.max(0, number(track.favoritings_count));
+        genre[row] = code(track.genre);
+        type[row] = code(track.track_type);
+        license[row] = code(track.license);
+        sharing[row] = code(track.sharing);
+
+        live.set(row);
+        rowsById.put(track.id, row);
+
+        addWords(row, track.title);
+        addWords(row, track.user != null ? track.user.username : null);
+        addWords(row, track.tags_list);
+        addWords(row, track.genre);
+        addWords(row, track.description);
+
+        for (String tag : parseTags(track.tags_list)) {
+            PostingList postings = tags.get(tag);
+
+            if (postings == null) {
+                postings = new PostingList();
+                tags.put(tag, postings);
+            }
+
+            postings.add(row, 0);
+        }
+    }
+
+    private void addWords(int row, String text) {
+        for (String token : Tokenizer.tokenize(text)) {
+            PostingList postings = words.get(token);
+
+            if (postings == null) {
+                postings = new PostingList();
+                words.put(token, postings);
+            }
+
+            postings.add(row, 0);
+        }
+    }
+
+    private void markStale(int row) {
+        live.clear(row);
+        tracks[row] = null;
+        staleCount++;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= tracks.length) {
+            return;
+        }
+
+        int grown = Math.max(capacity, tracks.length * 2);
+
+        tracks = Arrays.copyOf(tracks, grown);
+        bpm = Arrays.copyOf(bpm, grown);
+        duration = Arrays.copyOf(duration, grown);
+        createdAt = Arrays.copyOf(createdAt, grown);
+        playbackCount = Arrays.copyOf(playbackCount, grown);
+        favoritingsCount = Arrays.copyOf(favoritingsCount, grown);
+        genre = Arrays.copyOf(genre, grown);
+        type = Arrays.copyOf(type, grown);
+        license = Arrays.copyOf(license, grown);
+        sharing = Arrays.copyOf(sharing, grown);
+    }
+
+    private void compactIfStale() {
+        if (staleCount < 64 || staleCount * 2 < size) {
+            return;
+        }
+
+        List<Track> current = new ArrayList<>(rowsById.size());
+
+        for (int row = live.nextSetBit(0); row >= 0; row = live.nextSetBit(row + 1)) {
+            current.add(tracks[row]);
+        }
+
+        clear();
+
+        for (Track track : current) {
+            insert(track);
+        }
+    }
+
+    private int code(String value) {
+        if (value == null || value.isEmpty()) {
+            return 0;
+        }
+
+        String key = value.trim().toLowerCase(Locale.ROOT);
+        Integer code = codes.get(key);
+
+        if (code == null) {
+            code = codes.size() + 1;
+            codes.put(key, code);
+        }
+
+        return code;
+    }
+
+    /**
+     * @return The codes of the given values that occur in the table, which can be empty.
+     */
+    private BitSet codesOf(String values) {
+        BitSet result = new BitSet();
+
+        for (String value : split(values)) {
+            Integer code = codes.get(value.toLowerCase(Locale.ROOT));
+
+            if (code != null) {
+                result.set(code);
+            }
+        }
+
+        return result;
+    }
+
+    private static void or(BitSet rows, PostingList postings) {
+        if (postings == null) {
+            return;
+        }
+
+        PostingList.Cursor cursor = postings.cursor();
+
+        while (cursor.next()) {
+            rows.set(cursor.doc());
+        }
+    }
+
+    /**
+     * Splits the comma separated values of a query parameter.
+     */
+    private static List<String> split(String values) {
+        List<String> result = new ArrayList<>();
+
+        for (String value : values.split(",")) {
+            String trimmed = value.trim();
+
+            if (!trimmed.isEmpty()) {
+                result.add(trimmed);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Splits a tag list on spaces, keeping quoted tags with spaces together.
+     */
+    static List<String> parseTags(String tagList) {
+        List<String> result = new ArrayList<>();
+
+        if (tagList == null) {
+            return result;
+        }
+
+        StringBuilder tag = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i <= tagList.length(); i++) {
+            char c = i < tagList.length() ? tagList.charAt(i) : ' ';
+
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c != ' ' || quoted) {
+                tag.append(c);
+            } else if (tag.length() > 0) {
+                result.add(tag.toString().toLowerCase(Locale.ROOT));
+                tag.setLength(0);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Parses a whole number, rounding any fraction, without allocating.
+     *
+     * @return The number, or {@link #MISSING} if there is none.
+     */
+    private static long number(String value) {
+        if (value == null || value.isEmpty()) {
+            return MISSING;
+        }
+
+        long result = 0;
+        int i = 0;
+
+        for (; i < value.length(); i++) {
+            char c = value.charAt(i);
+
+            if (c == '.') {
+                break;
+            }
+
+            if (c < '0' || c > '9' || result > MAX_KEY) {
+                return MISSING;
+            }
+
+            result = result * 10 + (c - '0');
+        }
+
+        if (i == 0) {
+            return MISSING;
+        }
+
+        if (i + 1 < value.length() && value.charAt(i + 1) >= '5' && value.charAt(i + 1) <= '9') {
+            result++;
+        }
+
+        return result;
+    }
+
+    private static long seconds(String timestamp) {
+        if (timestamp == null) {
+            return MISSING;
+        }
+
+        try {
+            return Timestamps.parse(timestamp) / 1000;
+        } catch (IllegalArgumentException e) {
+            return MISSING;
+        }
+    }
+
+    /**
+     * The predicates on columns of one query, evaluated together in one pass.
+     */
+    private final class Columns {
+
+        private final int bpmFrom;
+        private final int bpmTo;
+        private final int durationFrom;
+        private final int durationTo;
+        private final long createdAtFrom;
+        private final long createdAtTo;
+        private final BitSet genres;
+        private final BitSet types;
+        private final int license;
+        private final int sharing;
+
+        Columns(Map<String, String> params) {
+            bpmFrom = intParam(params, "bpm[from]");
+            bpmTo = intParam(params, "bpm[to]");
+            durationFrom = intParam(params, "duration[from]");
+            durationTo = intParam(params, "duration[to]");
+            createdAtFrom = dateParam(params, "created_at[from]");
+            createdAtTo = dateParam(params, "created_at[to]");
+            genres = params.containsKey("genres") ? codesOf(params.get("genres")) : null;
+            types = params.containsKey("types") ? codesOf(params.get("types")) : null;
+            license = codeParam(params, "license");
+
+            String filter = params.get("filter");
+
+            if (filter != null && !Track.Filter.ALL.toString().equals(filter)) {
+                sharing = codeParam(params, "filter");
+            } else {
+                sharing = MISSING;
+            }
+        }
+
+        boolean isEmpty() {
+            return bpmFrom == MISSING && bpmTo == MISSING
+                    && durationFrom == MISSING && durationTo == MISSING
+                    && createdAtFrom == MISSING && createdAtTo == MISSING
+                    && genres == null && types == null
+                    && license == MISSING && sharing == MISSING;
+        }
+
+        boolean matches(int row) {
+            return inRange(bpm[row], bpmFrom, bpmTo)
+                    && inRange(duration[row], durationFrom, durationTo)
+                    && inRange(createdAt[row], createdAtFrom, createdAtTo)
+                    && (genres == null || genres.get(genre[row]))
+                    && (types == null || types.get(type[row]))
+                    && (license == MISSING || license == TrackTable.this.license[row])
+                    && (sharing == MISSING || sharing == TrackTable.this.sharing[row]);
+        }
+
+        private boolean inRange(long value, long from, long to) {
+            if (from == MISSING && to == MISSING) {
+                return true;
+            }
+
+            return value != MISSING
+                    && (from == MISSING || value >= from)
+                    && (to == MISSING || value <= to);
+        }
+
+        private int intParam(Map<String, String> params, String name) {
+            String value = params.get(name);
+
+            return value != null ? Integer.parseInt(value.trim()) : MISSING;
+        }
+
+        private long dateParam(Map<String, String> params, String name) {
+            String value = params.get(name);
+
+            return value != null ? Timestamps.parse(value.trim()) / 1000 : MISSING;
+        }
+
+        /**
+         * @return The code of the parameter, {@link Integer#MIN_VALUE} if no track has its value,
+         * or {@link #MISSING} if it isn't set.
+         */
+        private int codeParam(Map<String, String> params, String name) {
+            String value = params.get(name);
+
+            if (value == null) {
+                return MISSING;
+            }
+
+            Integer code = codes.get(value.trim().toLowerCase(Locale.ROOT));
+
+            // Not 0, which is the code of tracks without a value.
+            return code != null ? code : Integer.MIN_VALUE;
+        }
+    }
+}
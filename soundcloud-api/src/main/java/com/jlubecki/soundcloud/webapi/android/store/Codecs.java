@@ -0,0 +1,477 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.store;
+
+import com.jlubecki.soundcloud.webapi.android.models.Comment;
+import com.jlubecki.soundcloud.webapi.android.models.CreatorApp;
+import com.jlubecki.soundcloud.webapi.android.models.MiniUser;
+import com.jlubecki.soundcloud.webapi.android.models.Playlist;
+import com.jlubecki.soundcloud.webapi.android.models.Track;
+import com.jlubecki.soundcloud.webapi.android.models.User;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The binary codecs of the records in an {@link OfflineStore}. Fields are written in declaration
+ * order, with the id first. Changing the fields of a codec requires bumping
+ * {@link #VERSION}, which makes existing stores start over empty.
+ * <p/>
+ * Playlists only keep the ids of their tracks. The tracks themselves are stored in the track
+ * table, and filled back in when a playlist is read.
+ */
+final class Codecs {
+
+    static final int VERSION = 1;
+
+    private Codecs() {
+        // No instances.
+    }
+
+    static final RecordCodec<Track> TRACK = new RecordCodec<Track>() {
+        @Override
+        public String idOf(Track track) {
+            return track.id;
+        }
+
+        @Override
+        public void write(RecordWriter out, Track track) {
+            out.writeString(track.id);
+            out.writeString(track.created_at);
+            out.writeString(track.userid);
+            writeMiniUser(out, track.user);
+            out.writeString(track.title);
+            out.writeString(track.permalink);
+            out.writeString(track.permalink_url);
+            out.writeString(track.uri);
+            out.writeString(track.sharing);
+            out.writeString(track.embeddable_by);
+            out.writeString(track.purchase_url);
+            out.writeString(track.artwork_url);
+            out.writeString(track.description);
+            out.writeString(track.duration);
+            out.writeString(track.genre);
+            out.writeString(track.tags_list);
+            out.writeString(track.label_id);
+            out.writeString(track.label_name);
+            out.writeString(track.release);
+            out.writeString(track.release_day);
+            out.writeString(track.release_month);
+            out.writeString(track.release_year);
+            out.writeBoolean(track.is_streamable);
+            out.writeBoolean(track.is_downloadable);
+            out.writeString(track.state);
+            out.writeString(track.license);
+            out.writeString(track.track_type);
+            out.writeString(track.waveform_url);
+            out.writeString(track.download_url);
+            out.writeString(track.stream_url);
+            out.writeString(track.video_url);
+            out.writeString(track.bpm);
+            out.writeBoolean(track.commentable);
+            out.writeString(track.isrc);
+            out.writeString(track.key_signature);
+            out.writeString(track.comment_count);
+            out.writeString(track.download_count);
+            out.writeString(track.playback_count);
+            out.writeString(track.favoritings_count);
+            out.writeString(track.original_format);
+            out.writeString(track.original_file_size);
+            writeCreatorApp(out, track.created_with);
+            out.writeString(track.asset_data);
+            out.writeString(track.artwork_data);
+            out.writeBoolean(track.user_favorite);
+        }
+
+        @Override
+        public Track read(RecordReader in) throws IOException {
+            Track track = new Track();
+            track.id = in.readString();
+            track.created_at = in.readString();
+            track.userid = in.readString();
+            track.user = readMiniUser(in);
+            track.title = in.readString();
+            track.permalink = in.readString();
+            track.permalink_url = in.readString();
+            track.uri = in.readString();
+            track.sharing = in.readString();
+            track.embeddable_by = in.readString();
+            track.purchase_url = in.readString();
+            track.artwork_url = in.readString();
+            track.description = in.readString();
+            track.duration = in.readString();
+            track.genre = in.readString();
+            track.tags_list = in.readString();
+            track.label_id = in.readString();
+            track.label_name = in.readString();
+            track.release = in.readString();
+            track.release_day = in.readString();
+            track.release_month = in.readString();
+            track.release_year = in.readString();
+            track.is_streamable = in.readBoolean();
+            track.is_downloadable = in.readBoolean();
+            track.state = in.readString();
+            track.license = in.readString();
+            track.track_type = in.readString();
+            track.waveform_url = in.readString();
+            track.download_url = in.readString();
+            track.stream_url = in.readString();
+            track.video_url = in.readString();
+            track.bpm = in.readString();
+            track.commentable = in.readBoolean();
+            track.isrc = in.readString();
+            track.key_signature = in.readString();
+            track.comment_count = in.readString();
+            track.download_count = in.readString();
+            track.playback_count = in.readString();
+            track.favoritings_count = in.readString();
+            track.original_format = in.readString();
+            track.original_file_size = in.readString();
+            track.created_with = readCreatorApp(in);
+            track.asset_data = in.readString();
+            track.artwork_data = in.readString();
+            track.user_favorite = in.readBoolean();
+
+            return track;
+        }
+    };
+
+    static final RecordCodec<User> USER = new RecordCodec<User>() {
+        @Override
+        public String idOf(User user) {
+            return user.id;
+        }
+
+        @Override
+        public void write(RecordWriter out, User user) {
+            out.writeString(user.id);
+            out.writeString(user.permalink);
+            out.writeString(user.username);
+            out.writeString(user.uri);
+            out.writeString(user.permalink_url);
+            out.writeString(user.avatar_url);
+            out.writeString(user.country);
+            out.writeString(user.full_name);
+            out.writeString(user.city);
+            out.writeString(user.description);
+            out.writeString(user.discogs_name);
+            out.writeString(user.myspace_name);
+            out.writeString(user.website);
+            out.writeString(user.website_title);
+            out.writeBoolean(user.is_online);
+            out.writeString(user.track_count);
+            out.writeString(user.playlist_count);
+            out.writeString(user.followers_count);
+            out.writeString(user.followings_count);
+            out.writeString(user.public_favorites_count);
+            out.writeString(user.avatar_data);
+        }
+
+        @Override
+        public User read(RecordReader in) throws IOException {
+            User user = new User();
+            user.id = in.readString();
+            user.permalink = in.readString();
+            user.username = in.readString();
+            user.uri = in.readString();
+            user.permalink_url = in.readString();
+            user.avatar_url = in.readString();
+            user.country = in.readString();
+            user.full_name = in.readString();
+            user.city = in.readString();
+            user.description = in.readString();
+            user.discogs_name = in.readString();
+            user.myspace_name = in.readString();
+            user.website = in.readString();
+            user.website_title = in.readString();
+            user.is_online = in.readBoolean();
+            user.track_count = in.readString();
+            user.playlist_count = in.readString();
+            user.followers_count = in.readString();
+            user.followings_count = in.readString();
+            user.public_favorites_count = in.readString();
+            user.avatar_data = in.readString();
+
+            return user;
+        }
+    };
+
+    static final RecordCodec<Playlist> PLAYLIST = new RecordCodec<Playlist>() {
+        @Override
+        public String idOf(Playlist playlist) {
+            return playlist.id;
+        }
+
+        @Override
+        public void write(RecordWriter out, Playlist playlist) {
+            out.writeString(playlist.id);
+            out.writeString(playlist.kind);
+            out.writeString(playlist.created_at);
+            out.writeString(playlist.user_id);
+            out.writeString(playlist.duration);
+            out.writeString(playlist.sharing);
+            out.writeString(playlist.tag_list);
+            out.writeString(playlist.permalink);
+            out.writeString(playlist.track_count);
+            out.writeBoolean(playlist.is_streamable);
+            out.writeBoolean(playlist.is_downloadable);
+            out.writeString(playlist.embeddable_by);
+            out.writeString(playlist.purchase_url);
+            out.writeString(playlist.label_id);
+            out.writeString(playlist.type);
+            out.writeString(playlist.playlist_type);
+            out.writeString(playlist.ean);
+            out.writeString(playlist.description);
+            out.writeString(playlist.genre);
+            out.writeString(playlist.release);
+            out.writeString(playlist.purchase_title);
+            out.writeString(playlist.label_name);
+            out.writeString(playlist.title);
+            out.writeString(playlist.release_year);
+            out.writeString(playlist.release_month);
+            out.writeString(playlist.release_day);
+            out.writeString(playlist.license);
+            out.writeString(playlist.uri);
+            out.writeString(playlist.permalink_url);
+            out.writeString(playlist.artwork_url);
+            writeMiniUser(out, playlist.user);
+            writeTrackIds(out, playlist.tracks);
+        }
+
+        @Override
+        public Playlist read(RecordReader in) throws IOException {
+            Playlist playlist = new Playlist();
+            playlist.id = in.readString();
+            playlist.kind = in.readString();
+            playlist.created_at = in.readString();
+            playlist.user_id = in.readString();
+            playlist.duration = in.readString();
+            playlist.sharing = in.readString();
+            playlist.tag_list = in.readString();
+            playlist.permalink = in.readString();
+            playlist.track_count = in.readString();
+            playlist.is_streamable = in.readBoolean();
+            playlist.is_downloadable = in.readBoolean();
+            playlist.embeddable_by = in.readString();
+            playlist.purchase_url = in.readString();
+            playlist.label_id = in.readString();
+            playlist.type = in.readString();
+            playlist.playlist_type = in.readString();
+            playlist.ean = in.readString();
+            playlist.description = in.readString();
+            playlist.genre = in.readString();
+            playlist.release = in.readString();
+            playlist.purchase_title = in.readString();
+            playlist.label_name = in.readString();
+            playlist.title = in.readString();
+            playlist.release_year = in.readString();
+            playlist.release_month = in.readString();
+            playlist.release_day = in.readString();
+            playlist.license = in.readString();
+            playlist.uri = in.readString();
+            playlist.permalink_url = in.readString();
+            playlist.artwork_url = in.readString();
+            playlist.user = readMiniUser(in);
+            playlist.tracks = readTrackIds(in);
+
+            return playlist;
+        }
+    };
+
+    static final RecordCodec<Comment> COMMENT = new RecordCodec<Comment>() {
+        @Override
+        public String idOf(Comment comment) {
+            return comment.id;
+        }
+
+        @Override
+        public void write(RecordWriter out, Comment comment) {
+            out.writeString(comment.id);
+            out.writeString(comment.uri);
+            out.writeString(comment.created_at);
+            out.writeString(comment.body);
+            out.writeString(comment.timestamp);
+            out.writeString(comment.user_id);
+            writeMiniUser(out, comment.user);
+            out.writeString(comment.track_id);
+        }
+
+        @Override
+        public Comment read(RecordReader in) throws IOException {
+            Comment comment = new Comment();
+            comment.id = in.readString();
+            comment.uri = in.readString();
+            comment.created_at = in.readString();
+            comment.body = in.readString();
+            comment.timestamp = in.readString();
+            comment.user_id = in.readString();
+            comment.user = readMiniUser(in);
+            comment.track_id = in.readString();
+
+            return comment;
+        }
+    };
+
+    static final RecordCodec<IdList> ID_LIST = new RecordCodec<IdList>() {
+        @Override
+        public String idOf(IdList list) {
+            return list.name;
+        }
+
+        @Override
+        public void write(RecordWriter out, IdList list) {
+            out.writeString(list.name);
+            out.writeVarint(list.ids.size());
+
+            for (String id : list.ids) {
+                out.writeString(id);
+            }
+        }
+
+        @Override
+        public IdList read(RecordReader in) throws IOException {
+            String name = in.readString();
+            int size = (int) in.readVarint();
+            List<String> ids = new ArrayList<>(Math.min(size, 1024));
+
+            for (int i = 0; i < size; i++) {
+                ids.add(in.readString());
+            }
+
+            return new IdList(name, ids);
+        }
+    };
+
+    private static void writeMiniUser(RecordWriter out, MiniUser miniUser) {
+        out.writeBoolean(miniUser != null);
+
+        if (miniUser == null) {
+            return;
+        }
+
+        out.writeString(miniUser.id);
+        out.writeString(miniUser.avatar_url);
+        out.writeString(miniUser.kind);
+        out.writeString(miniUser.last_modified);
+        out.writeString(miniUser.permalink);
+        out.writeString(miniUser.permalink_url);
+        out.writeString(miniUser.uri);
+        out.writeString(miniUser.username);
+    }
+
+    private static MiniUser readMiniUser(RecordReader in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+
+        MiniUser miniUser = new MiniUser();
+        miniUser.id = in.readString();
+        miniUser.avatar_url = in.readString();
+        miniUser.kind = in.readString();
+        miniUser.last_modified = in.readString();
+        miniUser.permalink = in.readString();
+        miniUser.permalink_url = in.readString();
+        miniUser.uri = in.readString();
+        miniUser.username = in.readString();
+
+        return miniUser;
+    }
+
+    private static void writeCreatorApp(RecordWriter out, CreatorApp creatorApp) {
+        out.writeBoolean(creatorApp != null);
+
+        if (creatorApp == null) {
+            return;
+        }
+
+        out.writeString(creatorApp.id);
+        out.writeString(creatorApp.uri);
+        out.writeString(creatorApp.permalink_url);
+        out.writeString(creatorApp.external_url);
+        out.writeString(creatorApp.creator);
+    }
+
+    private static CreatorApp readCreatorApp(RecordReader in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+
+        CreatorApp creatorApp = new CreatorApp();
+        creatorApp.id = in.readString();
+        creatorApp.uri = in.readString();
+        creatorApp.permalink_url = in.readString();
+        creatorApp.external_url = in.readString();
+        creatorApp.creator = in.readString();
+
+        return creatorApp;
+    }
+
+    private static void writeTrackIds(RecordWriter out, List<Track> tracks) {
+        if (tracks == null) {
+            out.writeVarint(0);
+            return;
+        }
+
+        // The count is offset by one, so that a null list and an empty one stay distinct.
+        out.writeVarint(tracks.size() + 1);
+
+        for (Track track : tracks) {
+            out.writeString(track != null ? track.id : null);
+        }
+    }
+
+    private static List<Track> readTrackIds(RecordReader in) throws IOException {
+        int size = (int) in.readVarint() - 1;
+
+        if (size < 0) {
+            return null;
+        }
+
+        List<Track> tracks = new ArrayList<>(Math.min(size, 1024));
+
+        for (int i = 0; i < size; i++) {
+            Track track = new Track();
+            track.id = in.readString();
+            tracks.add(track);
+        }
+
+        return tracks;
+    }
+
+    /**
+     * A named, ordered list of ids, such as the favorites of the user.
+     */
+    static final class IdList {
+
+        final String name;
+        final List<String> ids;
+
+        IdList(String name, List<String> ids) {
+            this.name = name;
+            this.ids = ids;
+        }
+    }
+}
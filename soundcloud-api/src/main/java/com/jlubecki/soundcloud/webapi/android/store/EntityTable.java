@@ -0,0 +1,189 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The records of one type of entity in an {@link OfflineStore}, indexed by id.
+ * <p/>
+ * Reads decode the record from the memory-mapped file, so every call returns new objects.
+ * Writes are upserts: an entity whose record is unchanged isn't written again, which keeps
+ * storing the same API response on every launch cheap.
+ *
+ * @param <T> The type of the entities.
+ */
+public class EntityTable<T> {
+
+    private final RecordFile file;
+    private final RecordCodec<T> codec;
+    private final RecordWriter writer = new RecordWriter();
+
+    EntityTable(RecordFile file, RecordCodec<T> codec) {
+        this.file = file;
+        this.codec = codec;
+    }
+
+    /**
+     * @param id ID of the entity.
+     * @return The stored entity, or null if there is none with the id.
+     * @throws IOException if the record can't be read.
+     */
+    public T get(String id) throws IOException {
+        ByteBuffer payload = file.read(id);
+
+        return payload != null ? afterRead(codec.read(new RecordReader(payload))) : null;
+    }
+
+    /**
+     * @param ids IDs of the entities.
+     * @return The stored entities, in the order of the ids. Ids without an entity are skipped.
+     * @throws IOException if a record can't be read.
+     */
+    public List<T> get(List<String> ids) throws IOException {
+        List<T> entities = new ArrayList<>(ids.size());
+
+        for (String id : ids) {
+            T entity = get(id);
+
+            if (entity != null) {
+                entities.add(entity);
+            }
+        }
+
+        return entities;
+    }
+
+    /**
+     * @return Every stored entity, in the order they were first stored.
+     * @throws IOException if a record can't be read.
+     */
+    public List<T> getAll() throws IOException {
+        return get(file.ids());
+    }
+
+    /**
+     * @return The ids of the stored entities, in the order they were first stored.
+     */
+    public List<String> ids() {
+        return file.ids();
+    }
+
+    public boolean contains(String id) {
+        return file.contains(id);
+    }
+
+    public int size() {
+        return file.size();
+    }
+
+    /**
+     * Stores an entity, replacing the one with the same id.
+     *
+     * @param entity The entity to store. Entities without an id are ignored.
+     * @return True if the stored record changed.
+     * @throws IOException if the record can't be written.
+     */
+    public boolean put(T entity) throws IOException {
+        String id = entity != null ? codec.idOf(entity) : null;
+
+        if (id == null) {
+            return false;
+        }
+
+        beforePut(entity);
+
+        byte[] payload;
+
+        synchronized (writer) {
+            writer.reset();
+            codec.write(writer, entity);
+            payload = writer.toByteArray();
+        }
+
+        return file.write(id, payload);
+    }
+
+    /**
+     * Stores entities, such as the body of an API response.
+     *
+     * @param entities The entities to store.
+     * @return The number of stored records that changed.
+     * @throws IOException if a record can't be written.
+     */
+    public int putAll(Collection<? extends T> entities) throws IOException {
+        int changed = 0;
+
+        for (T entity : entities) {
+            if (put(entity)) {
+                changed++;
+            }
+        }
+
+        return changed;
+    }
+
+    /**
+     * @param id ID of the entity to remove.
+     * @return True if an entity was removed.
+     * @throws IOException if the removal can't be written.
+     */
+    public boolean remove(String id) throws IOException {
+        RecordWriter idWriter = new RecordWriter();
+        idWriter.writeString(id);
+
+        return file.remove(id, idWriter.toByteArray());
+    }
+
+    /**
+     * Called before an entity is written, to store the entities it refers to.
+     */
+    void beforePut(T entity) throws IOException {
+        // Entities are self-contained by default.
+    }
+
+    /**
+     * Called after an entity is read, to fill in the entities it refers to.
+     */
+    T afterRead(T entity) throws IOException {
+        return entity;
+    }
+
+    /**
+     * @param entity An entity.
+     * @return The id the entity is stored under.
+     */
+    public String idOf(T entity) {
+        return codec.idOf(entity);
+    }
+
+    RecordFile file() {
+        return file;
+    }
+}
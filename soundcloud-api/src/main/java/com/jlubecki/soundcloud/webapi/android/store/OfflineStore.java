@@ -0,0 +1,279 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.store;
+
+import com.jlubecki.soundcloud.webapi.android.models.Comment;
+import com.jlubecki.soundcloud.webapi.android.models.Playlist;
+import com.jlubecki.soundcloud.webapi.android.models.Track;
+import com.jlubecki.soundcloud.webapi.android.models.User;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A persistent store of tracks, users, playlists and comments, for offline use and for showing
+ * the library at launch before any request is made.
+ * <p/>
+ * Each type of entity lives in its own {@link EntityTable}, a file of compact binary records that
+ * is memory-mapped for reading and indexed by id. Strings holding numbers, such as ids and
+ * counts, are stored as varints, which makes records a fraction of the size of their JSON.
+ * Besides entities, the store keeps named lists of ids, such as the user's favorites in the
+ * order the API returned them.
+ * <p/>
+ * <pre>{@code
+ * OfflineStore store = OfflineStore.open(new File(context.getFilesDir(), "soundcloud"));
+ *
+ * // At launch, before any request.
+ * List<Track> favorites = store.getList(FAVORITES, store.tracks());
+ *
+ * // Once the response arrives.
+ * store.putList(FAVORITES, store.tracks(), response.body());
+ * }</pre>
+ * Stores are safe to use from several threads, but a directory must only be opened once at a
+ * time. Files written by another version of the store are discarded, since their content can be
+ * downloaded again.
+ */
+public class OfflineStore implements Closeable {
+
+    /**
+     * Files are compacted when opened if superseded records take more space than this and more
+     * than the live records.
+     */
+    public static final long COMPACTION_THRESHOLD_BYTES = 256 * 1024;
+
+    private final EntityTable<Track> tracks;
+    private final EntityTable<User> users;
+    private final EntityTable<Playlist> playlists;
+    private final EntityTable<Comment> comments;
+    private final EntityTable<Codecs.IdList> lists;
+    private final List<RecordFile> files = new ArrayList<>();
+
+    private OfflineStore(File directory) throws IOException {
+        tracks = new EntityTable<>(openFile(directory, "tracks"), Codecs.TRACK);
+        users = new EntityTable<>(openFile(directory, "users"), Codecs.USER);
+        comments = new EntityTable<>(openFile(directory, "comments"), Codecs.COMMENT);
+        lists = new EntityTable<>(openFile(directory, "lists"), Codecs.ID_LIST);
+        playlists = new EntityTable<Playlist>(openFile(directory, "playlists"), Codecs.PLAYLIST) {
+            @Override
+            void beforePut(Playlist playlist) throws IOException {
+                if (playlist.tracks == null) {
+                    return;
+                }
+
+                for (Track track : playlist.tracks) {
+                    // Tracks read back from the store without their record are only an id.
+                    if (track != null && !(isStub(track) && tracks.contains(track.id))) {
+                        tracks.put(track);
+                    }
+                }
+            }
+
+            @Override
+            Playlist afterRead(Playlist playlist) throws IOException {
+                if (playlist.tracks == null) {
+                    return playlist;
+                }
+
+                for (int i = 0; i < playlist.tracks.size(); i++) {
+                    Track stub = playlist.tracks.get(i);
+                    Track track = stub.id != null ? tracks.get(stub.id) : null;
+
+                    if (track != null) {
+                        playlist.tracks.set(i, track);
+                    }
+                }
+
+                return playlist;
+            }
+        };
+    }
+
+    /**
+     * Opens the store in a directory, creating it if needed. Opening scans each file once to
+     * build its index.
+     *
+     * @param directory The directory holding the store's files.
+     * @return The opened store.
+     * @throws IOException if the files can't be opened.
+     */
+    public static OfflineStore open(File directory) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory);
+        }
+
+        return new OfflineStore(directory);
+    }
+
+    public EntityTable<Track> tracks() {
+        return tracks;
+    }
+
+    public EntityTable<User> users() {
+        return users;
+    }
+
+    /**
+     * Playlists are stored with the ids of their tracks, while the tracks are stored in
+     * {@link #tracks()}. Reading a playlist fills its tracks back in.
+     *
+     * @return The table of playlists.
+     */
+    public EntityTable<Playlist> playlists() {
+        return playlists;
+    }
+
+    public EntityTable<Comment> comments() {
+        return comments;
+    }
+
+    /**
+     * Stores entities along with their order under a name, replacing the list previously
+     * stored under it. The entities stay in their table when they are no longer in a list.
+     *
+     * @param name     Name of the list, e.g. {@code "me/favorites"}.
+     * @param table    The table to store the entities in.
+     * @param entities The entities, in order.
+     * @param <T>      The type of the entities.
+     * @throws IOException if the records can't be written.
+     */
+    public <T> void putList(String name, EntityTable<T> table, List<? extends T> entities)
+            throws IOException {
+        List<String> ids = new ArrayList<>(entities.size());
+
+        for (T entity : entities) {
+            String id = entity != null ? table.idOf(entity) : null;
+
+            if (id != null) {
+                ids.add(id);
+            }
+        }
+
+        table.putAll(entities);
+        putIds(name, ids);
+    }
+
+    /**
+     * @param name  Name of the list.
+     * @param table The table the entities are stored in.
+     * @param <T>   The type of the entities.
+     * @return The entities of the list, in order, or an empty list if there is none.
+     * @throws IOException if the records can't be read.
+     */
+    public <T> List<T> getList(String name, EntityTable<T> table) throws IOException {
+        return table.get(getIds(name));
+    }
+
+    /**
+     * Stores an ordered list of ids under a name.
+     *
+     * @param name Name of the list.
+     * @param ids  The ids, in order.
+     * @throws IOException if the list can't be written.
+     */
+    public void putIds(String name, List<String> ids) throws IOException {
+        lists.put(new Codecs.IdList(name, new ArrayList<>(ids)));
+    }
+
+    /**
+     * @param name Name of the list.
+     * @return The ids of the list, or an empty list if there is none.
+     * @throws IOException if the list can't be read.
+     */
+    public List<String> getIds(String name) throws IOException {
+        Codecs.IdList list = lists.get(name);
+
+        return list != null ? list.ids : Collections.<String>emptyList();
+    }
+
+    /**
+     * Removes a list of ids. Its entities stay in their table.
+     *
+     * @param name Name of the list.
+     * @throws IOException if the removal can't be written.
+     */
+    public void removeList(String name) throws IOException {
+        lists.remove(name);
+    }
+
+    /**
+     * Forces everything written so far to the storage device. Writes are otherwise left to the
+     * operating system, which is enough to survive the app being killed.
+     *
+     * @throws IOException if the files can't be synced.
+     */
+    public void sync() throws IOException {
+        for (RecordFile file : files) {
+            file.sync();
+        }
+    }
+
+    /**
+     * Rewrites every file with only its live records.
+     *
+     * @throws IOException if a file can't be rewritten.
+     */
+    public void compact() throws IOException {
+        for (RecordFile file : files) {
+            file.compact();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+
+        for (RecordFile file : files) {
+            try {
+                file.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private RecordFile openFile(File directory, String name) throws IOException {
+        RecordFile file = new RecordFile(new File(directory, name + ".records"), Codecs.VERSION);
+
+        if (file.deadBytes() > COMPACTION_THRESHOLD_BYTES && file.deadBytes() > file.liveBytes()) {
+            file.compact();
+        }
+
+        files.add(file);
+
+        return file;
+    }
+
+    private static boolean isStub(Track track) {
+        return track.title == null && track.permalink == null && track.uri == null;
+    }
+}
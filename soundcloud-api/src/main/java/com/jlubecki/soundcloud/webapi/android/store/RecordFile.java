@@ -0,0 +1,339 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.store;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An append-only file of length-prefixed records, read through a memory map and indexed by id.
+ * <p/>
+ * The file starts with a magic number and a format version, followed by records of the form
+ * {@code [int length][byte state][payload]}, where the payload starts with the record's id.
+ * Writing a record appends it and points the index at the new copy; removing one appends a
+ * tombstone holding only the id. Opening the file scans it once to rebuild the index, and cuts
+ * off a record that was only partially written.
+ * <p/>
+ * Superseded records stay in the file until {@link #compact()} rewrites it with the live ones.
+ * The index keeps ids in the order they were first written.
+ */
+final class RecordFile implements Closeable {
+
+    private static final int MAGIC = 0x53435354; // SCST
+    private static final int HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 5;
+
+    private static final byte LIVE = 1;
+    private static final byte DELETED = 0;
+
+    private final File file;
+    private final int version;
+    private final Map<String, Long> index = new LinkedHashMap<>();
+
+    private RandomAccessFile raf;
+    private FileChannel channel;
+    private MappedByteBuffer map;
+    private long end;
+    private long liveBytes;
+    private long deadBytes;
+
+    RecordFile(File file, int version) throws IOException {
+        this.file = file;
+        this.version = version;
+
+        open();
+    }
+
+    synchronized int size() {
+        return index.size();
+    }
+
+    synchronized boolean contains(String id) {
+        return index.containsKey(id);
+    }
+
+    synchronized List<String> ids() {
+        return new ArrayList<>(index.keySet());
+    }
+
+    /**
+     * @return The bytes of superseded records and tombstones.
+     */
+    synchronized long deadBytes() {
+        return deadBytes;
+    }
+
+    /**
+     * @return The bytes of the records in the index.
+     */
+    synchronized long liveBytes() {
+        return liveBytes;
+    }
+
+    /**
+     * @return A read-only view of the payload of a record, or null if there is no record with the
+     * id.
+     */
+    synchronized ByteBuffer read(String id) throws IOException {
+        Long offset = index.get(id);
+
+        return offset != null ? payloadAt(offset) : null;
+    }
+
+    /**
+     * Writes a record, unless the current record with the same id has the same payload.
+     *
+     * @return True if the record was written.
+     */
+    synchronized boolean write(String id, byte[] payload) throws IOException {
+        Long previous = index.get(id);
+
+        if (previous != null && payloadAt(previous).equals(ByteBuffer.wrap(payload))) {
+            return false;
+        }
+
+        long offset = append(LIVE, payload);
+
+        index.put(id, offset);
+        liveBytes += RECORD_HEADER_SIZE + payload.length;
+
+        if (previous != null) {
+            long size = recordSizeAt(previous);
+
+            liveBytes -= size;
+            deadBytes += size;
+        }
+
+        return true;
+    }
+
+    /**
+     * Appends a tombstone for a record.
+     *
+     * @param idPayload The id, encoded as by {@link RecordWriter#writeString(String)}.
+     * @return True if there was a record with the id.
+     */
+    synchronized boolean remove(String id, byte[] idPayload) throws IOException {
+        Long previous = index.remove(id);
+
+        if (previous == null) {
+            return false;
+        }
+
+        long size = recordSizeAt(previous);
+
+        append(DELETED, idPayload);
+
+        liveBytes -= size;
+        deadBytes += size + RECORD_HEADER_SIZE + idPayload.length;
+
+        return true;
+    }
+
+    /**
+     * Rewrites the file with only the records in the index, in index order.
+     */
+    synchronized void compact() throws IOException {
+        File temp = new File(file.getPath() + ".compact");
+        RandomAccessFile out = new RandomAccessFile(temp, "rw");
+
+        try {
+            out.setLength(0);
+
+            FileChannel target = out.getChannel();
+            target.write(header());
+
+            for (long offset : index.values()) {
+                ByteBuffer record = mapped(offset, recordSizeAt(offset));
+
+                while (record.hasRemaining()) {
+                    target.write(record);
+                }
+            }
+
+            target.force(false);
+        } finally {
+            out.close();
+        }
+
+        close();
+
+        // Some file systems can't rename over an existing file.
+        if (!temp.renameTo(file) && !(file.delete() && temp.renameTo(file))) {
+            throw new IOException("Could not replace " + file + " with " + temp);
+        }
+
+        open();
+    }
+
+    /**
+     * Forces written records to the storage device.
+     */
+    synchronized void sync() throws IOException {
+        channel.force(false);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        map = null;
+        raf.close();
+    }
+
+    private void open() throws IOException {
+        raf = new RandomAccessFile(file, "rw");
+        channel = raf.getChannel();
+        map = null;
+        index.clear();
+        liveBytes = 0;
+        deadBytes = 0;
+
+        long length = channel.size();
+
+        if (length < HEADER_SIZE || !hasValidHeader()) {
+            // A missing, foreign or outdated file only held cached data, so start over.
+            channel.truncate(0);
+            channel.write(header(), 0);
+            end = HEADER_SIZE;
+
+            return;
+        }
+
+        end = length;
+        scan();
+    }
+
+    private boolean hasValidHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                return false;
+            }
+        }
+
+        header.flip();
+
+        return header.getInt() == MAGIC && header.getInt() == version;
+    }
+
+    private void scan() throws IOException {
+        ByteBuffer all = mapped(0, end);
+        long offset = HEADER_SIZE;
+
+        while (offset + RECORD_HEADER_SIZE <= end) {
+            int length = all.getInt((int) offset);
+            byte state = all.get((int) offset + 4);
+            long size = RECORD_HEADER_SIZE + (long) length;
+
+            if (length <= 0 || offset + size > end || (state != LIVE && state != DELETED)) {
+                break;
+            }
+
+            all.position((int) offset + RECORD_HEADER_SIZE);
+            String id = new RecordReader(all).readString();
+            Long previous = state == LIVE ? index.put(id, offset) : index.remove(id);
+
+            if (previous != null) {
+                long previousSize = recordSizeAt(previous);
+
+                liveBytes -= previousSize;
+                deadBytes += previousSize;
+            }
+
+            if (state == LIVE) {
+                liveBytes += size;
+            } else {
+                deadBytes += size;
+            }
+
+            offset += size;
+        }
+
+        if (offset != end) {
+            // The last write was interrupted; drop the partial record.
+            channel.truncate(offset);
+            end = offset;
+            map = null;
+        }
+    }
+
+    private long append(byte state, byte[] payload) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + payload.length);
+        record.putInt(payload.length).put(state).put(payload).flip();
+
+        long offset = end;
+
+        while (record.hasRemaining()) {
+            end += channel.write(record, end);
+        }
+
+        return offset;
+    }
+
+    private ByteBuffer header() {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(version).flip();
+
+        return header;
+    }
+
+    private long recordSizeAt(long offset) throws IOException {
+        return RECORD_HEADER_SIZE + (long) mapped(offset, RECORD_HEADER_SIZE).getInt();
+    }
+
+    private ByteBuffer payloadAt(long offset) throws IOException {
+        int length = mapped(offset, RECORD_HEADER_SIZE).getInt();
+
+        return mapped(offset + RECORD_HEADER_SIZE, length).asReadOnlyBuffer();
+    }
+
+    /**
+     * @return A view of a region of the file, remapping the file if it grew past the mapping.
+     */
+    private ByteBuffer mapped(long offset, long length) throws IOException {
+        if (map == null || offset + length > map.capacity()) {
+            if (end > Integer.MAX_VALUE) {
+                throw new IOException(file + " is too large to map");
+            }
+
+            map = channel.map(FileChannel.MapMode.READ_ONLY, 0, end);
+        }
+
+        ByteBuffer view = map.duplicate();
+        view.position((int) offset);
+        view.limit((int) (offset + length));
+
+        return view.slice();
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.store;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Decodes the fields written by a {@link RecordWriter} from a buffer, typically a slice of a
+ * memory-mapped file.
+ */
+final class RecordReader {
+
+    private final ByteBuffer buffer;
+
+    RecordReader(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    int readByte() throws IOException {
+        try {
+            return buffer.get() & 0xFF;
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated record");
+        }
+    }
+
+    boolean readBoolean() throws IOException {
+        return readByte() != 0;
+    }
+
+    long readVarint() throws IOException {
+        long value = 0;
+
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+
+        throw new IOException("Malformed varint");
+    }
+
+    String readString() throws IOException {
+        int tag = readByte();
+
+        switch (tag) {
+            case RecordWriter.TAG_NULL:
+                return null;
+            case RecordWriter.TAG_INTEGER:
+                long zigzag = readVarint();
+
+                return Long.toString((zigzag >>> 1) ^ -(zigzag & 1));
+            case RecordWriter.TAG_TEXT:
+                long length = readVarint();
+
+                if (length > buffer.remaining()) {
+                    throw new IOException("Truncated record");
+                }
+
+                byte[] utf8 = new byte[(int) length];
+                buffer.get(utf8);
+
+                return new String(utf8, RecordWriter.UTF_8);
+            default:
+                throw new IOException("Unknown string tag: " + tag);
+        }
+    }
+}
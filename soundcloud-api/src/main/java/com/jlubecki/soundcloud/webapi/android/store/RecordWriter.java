@@ -0,0 +1,128 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.store;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Encodes the fields of a record into bytes.
+ * <p/>
+ * Strings are tagged: null takes one byte, strings holding a canonical decimal integer, which is
+ * how the API reports ids, counts and durations, are stored as a zigzag varint, and any other
+ * string as its varint length followed by UTF-8 bytes.
+ */
+final class RecordWriter {
+
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    static final int TAG_NULL = 0;
+    static final int TAG_TEXT = 1;
+    static final int TAG_INTEGER = 2;
+
+    private byte[] bytes = new byte[256];
+    private int size;
+
+    void writeByte(int value) {
+        ensureCapacity(1);
+        bytes[size++] = (byte) value;
+    }
+
+    void writeBoolean(boolean value) {
+        writeByte(value ? 1 : 0);
+    }
+
+    void writeVarint(long value) {
+        ensureCapacity(10);
+
+        while ((value & ~0x7FL) != 0) {
+            bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+
+        bytes[size++] = (byte) value;
+    }
+
+    void writeString(String value) {
+        if (value == null) {
+            writeByte(TAG_NULL);
+        } else if (isCanonicalInteger(value)) {
+            long number = Long.parseLong(value);
+
+            writeByte(TAG_INTEGER);
+            writeVarint((number << 1) ^ (number >> 63));
+        } else {
+            byte[] utf8 = value.getBytes(UTF_8);
+
+            writeByte(TAG_TEXT);
+            writeVarint(utf8.length);
+            ensureCapacity(utf8.length);
+            System.arraycopy(utf8, 0, bytes, size, utf8.length);
+            size += utf8.length;
+        }
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(bytes, size);
+    }
+
+    void reset() {
+        size = 0;
+    }
+
+    /**
+     * @return True if the string is exactly what {@link Long#toString(long)} gives for its value,
+     * so that decoding it as a number restores it unchanged.
+     */
+    private static boolean isCanonicalInteger(String value) {
+        int length = value.length();
+        int start = length > 0 && value.charAt(0) == '-' ? 1 : 0;
+
+        // 18 digits always fit in a long.
+        if (length == start || length - start > 18) {
+            return false;
+        }
+
+        if (value.charAt(start) == '0' && (length - start > 1 || start == 1)) {
+            return false;
+        }
+
+        for (int i = start; i < length; i++) {
+            char c = value.charAt(i);
+
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (size + extra > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+        }
+    }
+}
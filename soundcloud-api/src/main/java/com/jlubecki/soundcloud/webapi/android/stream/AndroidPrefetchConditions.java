@@ -0,0 +1,110 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.stream;
+
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
+import android.os.BatteryManager;
+import android.os.Build;
+import android.os.PowerManager;
+
+/**
+ * Reads the {@link PrefetchConditions} from the system services. Requires the
+ * {@code ACCESS_NETWORK_STATE} permission, which the library declares.
+ */
+public class AndroidPrefetchConditions implements PrefetchConditions {
+
+    public static final float LOW_BATTERY_DEFAULT = 0.15f;
+
+    private final Context context;
+    private final float lowBattery;
+
+    /**
+     * @param context A context, e.g. the application context.
+     */
+    public AndroidPrefetchConditions(Context context) {
+        this(context, LOW_BATTERY_DEFAULT);
+    }
+
+    /**
+     * @param context    A context, e.g. the application context.
+     * @param lowBattery The battery level, from 0 to 1, below which the battery counts as low.
+     */
+    public AndroidPrefetchConditions(Context context, float lowBattery) {
+        if (lowBattery < 0 || lowBattery > 1) {
+            throw new IllegalArgumentException("lowBattery out of range: " + lowBattery);
+        }
+
+        this.context = context.getApplicationContext();
+        this.lowBattery = lowBattery;
+    }
+
+    @Override
+    public boolean isConnected() {
+        NetworkInfo network = connectivity().getActiveNetworkInfo();
+
+        return network != null && network.isConnected();
+    }
+
+    @Override
+    public boolean isMetered() {
+        return connectivity().isActiveNetworkMetered();
+    }
+
+    @Override
+    public boolean isBatteryLow() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            PowerManager power = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+
+            if (power.isPowerSaveMode()) {
+                return true;
+            }
+        }
+
+        // The battery broadcast is sticky, so this reads its last value without a receiver.
+        Intent battery = context.registerReceiver(null,
+                new IntentFilter(Intent.ACTION_BATTERY_CHANGED));
+
+        if (battery == null) {
+            return false;
+        }
+
+        if (battery.getIntExtra(BatteryManager.EXTRA_PLUGGED, 0) != 0) {
+            return false;
+        }
+
+        int level = battery.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
+        int scale = battery.getIntExtra(BatteryManager.EXTRA_SCALE, -1);
+
+        return level >= 0 && scale > 0 && level < lowBattery * scale;
+    }
+
+    private ConnectivityManager connectivity() {
+        return (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.stream;
+
+/**
+ * Parses the single byte ranges of {@code Range} headers. Players never ask for multiple ranges.
+ */
+final class ByteRanges {
+
+    private static final String BYTES = "bytes=";
+
+    private ByteRanges() {
+    }
+
+    /**
+     * @param range The value of a {@code Range} header.
+     * @return True if the header asks for a single byte range, the only kind that is answered
+     * with partial content.
+     */
+    static boolean isSingleRange(String range) {
+        return range.startsWith(BYTES) && range.indexOf(',') < 0 && range.indexOf('-') >= 0;
+    }
+
+    /**
+     * @param range  The value of a {@code Range} header, or null.
+     * @param length The length of the resource.
+     * @return The first and last byte of the range, inclusive, or null if the range can't be
+     * satisfied. A missing or unsupported header selects the whole resource, as HTTP allows.
+     */
+    static long[] parse(String range, long length) {
+        if (range == null || !isSingleRange(range)) {
+            return length > 0 ? new long[] {0, length - 1} : null;
+        }
+
+        String spec = range.substring(BYTES.length()).trim();
+        int dash = spec.indexOf('-');
+
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+
+            if (first.isEmpty()) {
+                // A suffix range, e.g. "bytes=-500" for the last 500 bytes.
+                long suffix = Long.parseLong(last);
+
+                if (suffix <= 0 || length == 0) {
+                    return null;
+                }
+
+                return new long[] {Math.max(0, length - suffix), length - 1};
+            }
+
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+
+            if (start >= length || end < start) {
+                return null;
+            }
+
+            return new long[] {start, end};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.stream;
+
+/**
+ * The state of the device that decides whether a {@link StreamPrefetcher} may use the network.
+ *
+ * @see AndroidPrefetchConditions
+ */
+public interface PrefetchConditions {
+
+    /**
+     * Conditions that always allow prefetching.
+     */
+    PrefetchConditions UNCONSTRAINED = new PrefetchConditions() {
+        @Override
+        public boolean isConnected() {
+            return true;
+        }
+
+        @Override
+        public boolean isMetered() {
+            return false;
+        }
+
+        @Override
+        public boolean isBatteryLow() {
+            return false;
+        }
+    };
+
+    /**
+     * @return True if a network is available.
+     */
+    boolean isConnected();
+
+    /**
+     * @return True if the network may cost the user money, e.g. a mobile network.
+     */
+    boolean isMetered();
+
+    /**
+     * @return True if the battery is low and not charging, or the device saves power.
+     */
+    boolean isBatteryLow();
+}
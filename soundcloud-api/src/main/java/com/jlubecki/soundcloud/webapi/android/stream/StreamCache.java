@@ -0,0 +1,343 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.stream;
+
+import com.jlubecki.soundcloud.webapi.android.cache.DiskLru;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.Okio;
+
+/**
+ * Disk cache of audio streams, split into fixed-size chunks so that a stream can be cached and
+ * served piece by piece, e.g. when the listener seeks. Each chunk is a file named after the
+ * stream's key, the chunk size and the chunk's index.
+ * <p/>
+ * Chunks are evicted in least recently used order once the cache grows over its maximum size.
+ * The cache reads its directory on first use, so creating one does no I/O.
+ *
+ * @see StreamProxy
+ */
+public class StreamCache {
+
+    public static final int CHUNK_SIZE_DEFAULT = 128 * 1024;
+
+    private static final String INFO_SUFFIX = ".info";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final DiskLru files;
+    private final int chunkSize;
+    private final Map<String, Info> infos = new HashMap<>();
+
+    private StreamCache(Builder builder) {
+        this.files = new DiskLru(builder.directory, builder.maxSize, new DiskLru.Listener() {
+            @Override
+            public void onRemoved(String name) {
+                // Only called from the synchronized methods of this cache.
+                if (name.endsWith(INFO_SUFFIX)) {
+                    infos.remove(name.substring(0, name.length() - INFO_SUFFIX.length()));
+                }
+            }
+        });
+        this.chunkSize = builder.chunkSize;
+    }
+
+    /**
+     * Derives the key a stream is cached under from its URL. The query is ignored, since it only
+     * carries credentials.
+     *
+     * @param url URL of the stream, e.g. {@code Track.stream_url}.
+     * @return A key that is safe to use in file names.
+     */
+    public static String keyOf(String url) {
+        int query = url.indexOf('?');
+        String base = query >= 0 ? url.substring(0, query) : url;
+
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(base.getBytes(UTF_8));
+            StringBuilder key = new StringBuilder(digest.length * 2);
+
+            for (byte b : digest) {
+                key.append(Character.forDigit((b >> 4) & 0xf, 16));
+                key.append(Character.forDigit(b & 0xf, 16));
+            }
+
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * @return The directory of the cache files.
+     */
+    public File getDirectory() {
+        return files.getDirectory();
+    }
+
+    /**
+     * @return Maximum size of the cache in bytes.
+     */
+    public long getMaxSize() {
+        return files.getMaxSize();
+    }
+
+    /**
+     * @return Size of the chunks streams are split into, in bytes.
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * @return The number of bytes in the cache.
+     * @throws IOException if the cache directory can't be read.
+     */
+    public synchronized long getSize() throws IOException {
+        return files.size();
+    }
+
+    /**
+     * @param url URL of the stream.
+     * @return The length of the stream in bytes, or -1 if it is unknown because no part of the
+     * stream was cached yet.
+     * @throws IOException if the cache can't be read.
+     */
+    public long getLength(String url) throws IOException {
+        Info info = getInfo(keyOf(url));
+
+        return info != null ? info.length : -1;
+    }
+
+    /**
+     * @param url   URL of the stream.
+     * @param start First byte of the range.
+     * @param end   Last byte of the range, inclusive.
+     * @return True if every byte of the range is cached.
+     * @throws IOException if the cache can't be read.
+     */
+    public synchronized boolean isCached(String url, long start, long end) throws IOException {
+        String key = keyOf(url);
+
+        for (long index = start / chunkSize; index <= end / chunkSize; index++) {
+            if (!files.contains(chunkName(key, (int) index))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Removes every chunk of a stream.
+     *
+     * @param url URL of the stream.
+     * @throws IOException if a file can't be deleted.
+     */
+    public synchronized void remove(String url) throws IOException {
+        files.removeAll(keyOf(url) + ".");
+    }
+
+    /**
+     * Removes every stream from the cache.
+     *
+     * @throws IOException if a file can't be deleted.
+     */
+    public synchronized void clear() throws IOException {
+        files.clear();
+    }
+
+    /**
+     * @return The file of a chunk, or null if it isn't cached. The chunk becomes the most
+     * recently used one.
+     */
+    synchronized File getChunk(String key, int index) throws IOException {
+        return files.get(chunkName(key, index));
+    }
+
+    /**
+     * @return A new file to write a chunk to before it is committed.
+     */
+    File newTempFile(String key) throws IOException {
+        return files.newTempFile(key);
+    }
+
+    /**
+     * Moves a fully written chunk into the cache, evicting older chunks if the cache is full.
+     *
+     * @return The file of the chunk.
+     */
+    synchronized File putChunk(String key, int index, File temp) throws IOException {
+        return files.commit(temp, chunkName(key, index));
+    }
+
+    synchronized Info getInfo(String key) throws IOException {
+        Info info = infos.get(key);
+
+        if (info == null) {
+            File file = files.get(key + INFO_SUFFIX);
+
+            info = file != null ? readInfo(file) : null;
+
+            if (info != null) {
+                infos.put(key, info);
+            }
+        }
+
+        return info;
+    }
+
+    synchronized void putInfo(String key, Info info) throws IOException {
+        if (info.equals(infos.get(key))) {
+            return;
+        }
+
+        File temp = newTempFile(key);
+        BufferedSink sink = Okio.buffer(Okio.sink(temp));
+
+        try {
+            sink.writeUtf8(Long.toString(info.length)).writeByte('\n');
+            sink.writeUtf8(info.contentType).writeByte('\n');
+        } finally {
+            sink.close();
+        }
+
+        files.commit(temp, key + INFO_SUFFIX);
+        infos.put(key, info);
+    }
+
+    /**
+     * Names include the chunk size, so chunks of an earlier size are never misread and simply age
+     * out of the cache.
+     */
+    private String chunkName(String key, int index) {
+        return key + "." + chunkSize + "." + index;
+    }
+
+    private static Info readInfo(File file) throws IOException {
+        BufferedSource source;
+
+        try {
+            source = Okio.buffer(Okio.source(file));
+        } catch (FileNotFoundException e) {
+            return null;
+        }
+
+        try {
+            long length = Long.parseLong(source.readUtf8LineStrict());
+            String contentType = source.readUtf8LineStrict();
+
+            return new Info(length, contentType);
+        } catch (IOException | NumberFormatException e) {
+            // A damaged info file is fetched again with the next chunk.
+            return null;
+        } finally {
+            source.close();
+        }
+    }
+
+    /**
+     * What is known about a stream from its first response.
+     */
+    static final class Info {
+
+        final long length;
+        final String contentType;
+
+        Info(long length, String contentType) {
+            this.length = length;
+            this.contentType = contentType;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Info)) {
+                return false;
+            }
+
+            Info other = (Info) o;
+
+            return length == other.length && contentType.equals(other.contentType);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (int) (length ^ (length >>> 32)) + contentType.hashCode();
+        }
+    }
+
+    public static class Builder {
+
+        private final File directory;
+        private final long maxSize;
+        private int chunkSize = CHUNK_SIZE_DEFAULT;
+
+        /**
+         * @param directory Directory for the cache files, usually inside
+         *                  {@code Context#getCacheDir()}. It should not be shared with other
+         *                  caches.
+         * @param maxSize   Maximum size of the cache in bytes.
+         */
+        public Builder(File directory, long maxSize) {
+            if (maxSize <= 0) {
+                throw new IllegalArgumentException("maxSize <= 0: " + maxSize);
+            }
+
+            this.directory = directory;
+            this.maxSize = maxSize;
+        }
+
+        /**
+         * Sets the size of the chunks streams are split into. Smaller chunks waste less of the
+         * cache on partly played tracks, larger ones need fewer requests. Defaults to {@value
+         * #CHUNK_SIZE_DEFAULT} bytes.
+         *
+         * @param chunkSize Size of a chunk in bytes, at least 8 KiB.
+         * @return The instance of the builder that was just updated.
+         */
+        public Builder setChunkSize(int chunkSize) {
+            if (chunkSize < 8 * 1024) {
+                throw new IllegalArgumentException("chunkSize < 8 KiB: " + chunkSize);
+            }
+
+            this.chunkSize = chunkSize;
+
+            return this;
+        }
+
+        public StreamCache build() {
+            return new StreamCache(this);
+        }
+    }
+}
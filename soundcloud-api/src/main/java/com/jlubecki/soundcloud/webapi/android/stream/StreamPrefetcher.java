@@ -0,0 +1,305 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.stream;
+
+import com.jlubecki.soundcloud.webapi.android.concurrent.DaemonThreadFactory;
+import com.jlubecki.soundcloud.webapi.android.models.Track;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Warms the beginning of the next tracks of a play queue into the {@link StreamCache} of a
+ * {@link StreamProxy}, so that the next track starts from the cache instead of waiting for the
+ * network. The redirect of each stream URL is resolved ahead of time as well.
+ * <p/>
+ * Each call to {@link #prefetch(List)} replaces the tracks to warm, so it can be called whenever
+ * the queue or the current track changes. Tracks are warmed one at a time on a background
+ * thread, in queue order. Nothing is fetched while the device is offline or the battery is low,
+ * and fewer tracks are warmed on metered networks. Call {@link #shutdown()} once the prefetcher
+ * is no longer needed, e.g. when the player is released, to end its thread.
+ * <pre>
+ * StreamPrefetcher prefetcher = new StreamPrefetcher.Builder(proxy)
+ *         .setConditions(new AndroidPrefetchConditions(context))
+ *         .build();
+ *
+ * prefetcher.prefetch(queue.subList(current + 1, queue.size()));
+ * </pre>
+ */
+public class StreamPrefetcher {
+
+    public static final int TRACK_COUNT_DEFAULT = 3;
+    public static final int METERED_TRACK_COUNT_DEFAULT = 1;
+    public static final long PREFETCH_BYTES_DEFAULT = 256 * 1024;
+
+    private final StreamProxy proxy;
+    private final PrefetchConditions conditions;
+    private final int trackCount;
+    private final int meteredTrackCount;
+    private final long prefetchBytes;
+    private final ExecutorService executor;
+
+    /**
+     * Incremented by every call to {@link #prefetch(List)}, so that outdated runs stop early.
+     */
+    private final AtomicInteger generation = new AtomicInteger();
+    private final AtomicInteger warmedCount = new AtomicInteger();
+    private final AtomicLong failureCount = new AtomicLong();
+
+    private StreamPrefetcher(Builder builder) {
+        this.proxy = builder.proxy;
+        this.conditions = builder.conditions;
+        this.trackCount = builder.trackCount;
+        this.meteredTrackCount = builder.meteredTrackCount;
+        this.prefetchBytes = builder.prefetchBytes;
+        this.executor = Executors.newSingleThreadExecutor(
+                new DaemonThreadFactory("soundcloud-prefetch"));
+    }
+
+    /**
+     * Starts warming the upcoming tracks, replacing the tracks of earlier calls.
+     *
+     * @param upcoming The tracks that play next, in order, without the current track.
+     */
+    public void prefetch(List<Track> upcoming) {
+        List<String> urls = new ArrayList<>(Math.min(upcoming.size(), trackCount));
+
+        for (Track track : upcoming) {
+            if (urls.size() == trackCount) {
+                break;
+            }
+
+            if (track.stream_url != null) {
+                urls.add(track.stream_url);
+            }
+        }
+
+        prefetchUrls(urls);
+    }
+
+    /**
+     * Starts warming the upcoming streams, replacing the streams of earlier calls.
+     *
+     * @param streamUrls The stream URLs that play next, in order, without the current one.
+     */
+    public void prefetchUrls(List<String> streamUrls) {
+        int limit = Math.min(streamUrls.size(), trackCount);
+        List<String> urls = Collections.unmodifiableList(
+                new ArrayList<>(streamUrls.subList(0, limit)));
+
+        try {
+            executor.execute(new Run(generation.incrementAndGet(), urls));
+        } catch (RejectedExecutionException e) {
+            // Shut down; nothing is warmed anymore.
+        }
+    }
+
+    /**
+     * Stops warming tracks. The chunk being downloaded is finished.
+     */
+    public void cancel() {
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Stops warming tracks and ends the background thread once the chunk being downloaded is
+     * finished. Later calls to {@link #prefetch(List)} are ignored.
+     */
+    public void shutdown() {
+        cancel();
+        executor.shutdown();
+    }
+
+    /**
+     * @return The number of streams whose beginning was warmed.
+     */
+    public int getWarmedCount() {
+        return warmedCount.get();
+    }
+
+    /**
+     * @return The number of streams that failed to warm.
+     */
+    public long getFailureCount() {
+        return failureCount.get();
+    }
+
+    private boolean isCurrent(int run) {
+        return generation.get() == run;
+    }
+
+    private class Run implements Runnable {
+
+        private final int run;
+        private final List<String> urls;
+
+        Run(int run, List<String> urls) {
+            this.run = run;
+            this.urls = urls;
+        }
+
+        @Override
+        public void run() {
+            for (int i = 0; i < urls.size() && isCurrent(run); i++) {
+                // Conditions are read per track, since they change while a queue is warmed.
+                if (!conditions.isConnected() || conditions.isBatteryLow()) {
+                    return;
+                }
+
+                if (i >= meteredTrackCount && conditions.isMetered()) {
+                    return;
+                }
+
+                try {
+                    warm(urls.get(i));
+                    warmedCount.incrementAndGet();
+                } catch (IOException | RuntimeException e) {
+                    // The player will fetch the stream itself, and surface any real error then.
+                    failureCount.incrementAndGet();
+                }
+            }
+        }
+
+        private void warm(String url) throws IOException {
+            String key = StreamCache.keyOf(url);
+            int chunkSize = proxy.getCache().getChunkSize();
+            int chunks = (int) ((prefetchBytes + chunkSize - 1) / chunkSize);
+
+            for (int index = 0; index < chunks && isCurrent(run); index++) {
+                File chunk = proxy.loadChunk(url, key, index);
+
+                if (chunk == null) {
+                    break;
+                }
+            }
+
+            // Seeking past the warmed chunks shouldn't wait for the redirect either.
+            proxy.resolve(url);
+        }
+    }
+
+    public static class Builder {
+
+        private final StreamProxy proxy;
+        private PrefetchConditions conditions = PrefetchConditions.UNCONSTRAINED;
+        private int trackCount = TRACK_COUNT_DEFAULT;
+        private int meteredTrackCount = METERED_TRACK_COUNT_DEFAULT;
+        private long prefetchBytes = PREFETCH_BYTES_DEFAULT;
+
+        /**
+         * @param proxy The proxy whose cache is warmed. Its streams are fetched with its client
+         *              and credentials.
+         */
+        public Builder(StreamProxy proxy) {
+            if (proxy == null) {
+                throw new IllegalArgumentException("proxy == null");
+            }
+
+            this.proxy = proxy;
+        }
+
+        /**
+         * Sets the conditions that decide whether prefetching may use the network. Defaults to
+         * {@link PrefetchConditions#UNCONSTRAINED}; on Android, use {@link
+         * AndroidPrefetchConditions}.
+         *
+         * @param conditions The conditions.
+         * @return The instance of the builder that was just updated.
+         */
+        public Builder setConditions(PrefetchConditions conditions) {
+            if (conditions == null) {
+                throw new IllegalArgumentException("conditions == null");
+            }
+
+            this.conditions = conditions;
+
+            return this;
+        }
+
+        /**
+         * Sets how many of the upcoming tracks are warmed. Defaults to {@value
+         * #TRACK_COUNT_DEFAULT}.
+         *
+         * @param trackCount The number of tracks.
+         * @return The instance of the builder that was just updated.
+         */
+        public Builder setTrackCount(int trackCount) {
+            if (trackCount < 0) {
+                throw new IllegalArgumentException("trackCount < 0: " + trackCount);
+            }
+
+            this.trackCount = trackCount;
+
+            return this;
+        }
+
+        /**
+         * Sets how many of the upcoming tracks are warmed on metered networks. Defaults to
+         * {@value #METERED_TRACK_COUNT_DEFAULT}, so that only the next track starts instantly.
+         *
+         * @param meteredTrackCount The number of tracks, or 0 to not prefetch on metered
+         *                          networks.
+         * @return The instance of the builder that was just updated.
+         */
+        public Builder setMeteredTrackCount(int meteredTrackCount) {
+            if (meteredTrackCount < 0) {
+                throw new IllegalArgumentException("meteredTrackCount < 0: " + meteredTrackCount);
+            }
+
+            this.meteredTrackCount = meteredTrackCount;
+
+            return this;
+        }
+
+        /**
+         * Sets how much of the beginning of each track is warmed. It is rounded up to whole
+         * chunks of the cache. Defaults to 256 KiB, about 16 seconds of a 128 kbps stream.
+         *
+         * @param prefetchBytes The number of bytes per track.
+         * @return The instance of the builder that was just updated.
+         */
+        public Builder setPrefetchBytes(long prefetchBytes) {
+            if (prefetchBytes <= 0) {
+                throw new IllegalArgumentException("prefetchBytes <= 0: " + prefetchBytes);
+            }
+
+            this.prefetchBytes = prefetchBytes;
+
+            return this;
+        }
+
+        public StreamPrefetcher build() {
+            return new StreamPrefetcher(this);
+        }
+    }
+}
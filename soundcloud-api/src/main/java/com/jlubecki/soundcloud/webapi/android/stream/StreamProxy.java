@@ -0,0 +1,702 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.stream;
+
+import com.jlubecki.soundcloud.webapi.android.concurrent.DaemonThreadFactory;
+import com.jlubecki.soundcloud.webapi.android.models.Track;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.Okio;
+
+/**
+ * Local HTTP server that plays SoundCloud streams through a {@link StreamCache}, so that replays
+ * and seeks within cached parts of a track never touch the network.
+ * <p/>
+ * A media player is given a {@link #proxyUrl(String) proxy URL} instead of the stream URL. The
+ * proxy answers its requests, including the range requests players make when seeking, from
+ * cached chunks and downloads missing chunks with range requests of their own. Cached chunks are
+ * sent to the player with {@link FileChannel#transferTo(long, long, java.nio.channels.
+ * WritableByteChannel)}, which lets the kernel copy them without passing through the heap.
+ * Concurrent requests for the same missing chunk share one download, and the location a stream
+ * redirects to is remembered for a while so that later requests skip the redirect.
+ * <p/>
+ * The proxy only listens on the loopback interface and only serves streams that were passed to
+ * {@link #proxyUrl(String)}, so it can't be used to make requests with the client id.
+ * <pre>
+ * StreamProxy proxy = new StreamProxy.Builder(api.getClient(), CLIENT_ID, cache).build();
+ * proxy.start();
+ *
+ * player.setDataSource(proxy.proxyUrl(track));
+ * </pre>
+ */
+public class StreamProxy {
+
+    public static final long LOCATION_LIFETIME_MILLIS_DEFAULT = TimeUnit.MINUTES.toMillis(5);
+
+    private static final Charset US_ASCII = Charset.forName("US-ASCII");
+    private static final String DEFAULT_CONTENT_TYPE = "audio/mpeg";
+
+    private final OkHttpClient client;
+    private final String clientId;
+    private final StreamCache cache;
+    private final long locationLifetimeMillis;
+
+    private final Map<String, String> streams = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Object> downloads = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Location> locations = new ConcurrentHashMap<>();
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong bytesServed = new AtomicLong();
+
+    private volatile String token;
+    private ServerSocketChannel server;
+    private ExecutorService executor;
+
+    private StreamProxy(Builder builder) {
+        this.client = builder.client;
+        this.clientId = builder.clientId;
+        this.cache = builder.cache;
+        this.locationLifetimeMillis = builder.locationLifetimeMillis;
+    }
+
+    /**
+     * Sets the auth token used to request streams of private tracks.
+     *
+     * @param token The OAuth token, or null to only send the client id.
+     */
+    public void setToken(String token) {
+        this.token = token;
+    }
+
+    /**
+     * @return The cache streams are served from.
+     */
+    public StreamCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Starts listening on a free port of the loopback interface. Does nothing if the proxy is
+     * already running.
+     *
+     * @throws IOException if no port can be bound.
+     */
+    public synchronized void start() throws IOException {
+        if (server != null) {
+            return;
+        }
+
+        ServerSocketChannel channel = ServerSocketChannel.open();
+
+        try {
+            channel.socket().bind(new InetSocketAddress(InetAddress.getByName("127.0.0.1"), 0));
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+
+        server = channel;
+        executor = Executors.newCachedThreadPool(new DaemonThreadFactory("soundcloud-stream"));
+        executor.execute(new AcceptLoop(channel, executor));
+    }
+
+    /**
+     * Stops listening and closes open connections as their responses end. Cached streams stay
+     * in the cache.
+     */
+    public synchronized void stop() {
+        if (server == null) {
+            return;
+        }
+
+        try {
+            server.close();
+        } catch (IOException ignored) {
+            // The socket is unusable either way.
+        }
+
+        executor.shutdown();
+        server = null;
+        executor = null;
+    }
+
+    /**
+     * @return The port the proxy listens on.
+     * @throws IllegalStateException if the proxy isn't running.
+     */
+    public synchronized int getPort() {
+        if (server == null) {
+            throw new IllegalStateException("The proxy isn't running.");
+        }
+
+        return server.socket().getLocalPort();
+    }
+
+    /**
+     * Gives the URL a media player should play a stream from.
+     *
+     * @param streamUrl URL of the stream, without credentials, e.g. {@code Track.stream_url}.
+     * @return A URL on the proxy.
+     * @throws IllegalStateException if the proxy isn't running.
+     */
+    public String proxyUrl(String streamUrl) {
+        if (streamUrl == null) {
+            throw new IllegalArgumentException("streamUrl == null");
+        }
+
+        String key = StreamCache.keyOf(streamUrl);
+        streams.put(key, streamUrl);
+
+        return "http://127.0.0.1:" + getPort() + "/" + key;
+    }
+
+    /**
+     * @param track A streamable track.
+     * @return A URL on the proxy for the track's {@code stream_url}.
+     * @throws IllegalStateException if the proxy isn't running.
+     * @see #proxyUrl(String)
+     */
+    public String proxyUrl(Track track) {
+        return proxyUrl(track.stream_url);
+    }
+
+    /**
+     * @return The number of chunks that were served from the cache.
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * @return The number of chunks that had to be downloaded.
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * @return The number of bytes sent to players.
+     */
+    public long getBytesServed() {
+        return bytesServed.get();
+    }
+
+    /**
+     * Returns a chunk from the cache, downloading it first if needed.
+     *
+     * @return The file of the chunk, or null if the stream ends before the chunk.
+     */
+    File loadChunk(String url, String key, int index) throws IOException {
+        File file = cache.getChunk(key, index);
+
+        if (file != null) {
+            hitCount.incrementAndGet();
+            return file;
+        }
+
+        String id = key + "." + index;
+        Object lock = new Object();
+        Object current = downloads.putIfAbsent(id, lock);
+
+        if (current != null) {
+            lock = current;
+        }
+
+        synchronized (lock) {
+            try {
+                // The chunk may have arrived while waiting for another download of it.
+                file = cache.getChunk(key, index);
+
+                if (file != null) {
+                    hitCount.incrementAndGet();
+                    return file;
+                }
+
+                missCount.incrementAndGet();
+
+                return download(url, key, index);
+            } finally {
+                // Only our own lock; a later caller may already have registered a new one.
+                downloads.remove(id, lock);
+            }
+        }
+    }
+
+    private File download(String url, String key, int index) throws IOException {
+        long chunkSize = cache.getChunkSize();
+        long start = index * chunkSize;
+
+        Response response = fetch(url, key, "bytes=" + start + "-" + (start + chunkSize - 1));
+        ResponseBody body = response.body();
+
+        try {
+            if (response.code() == 416) {
+                return null;
+            }
+
+            if (!response.isSuccessful()) {
+                throw new IOException("Stream request failed with HTTP " + response.code());
+            }
+
+            BufferedSource source = body.source();
+            long length;
+
+            if (response.code() == 206) {
+                length = totalLength(response.header("Content-Range"));
+            } else {
+                // The server ignored the range, so the body is the whole stream.
+                length = body.contentLength();
+                source.skip(start);
+            }
+
+            MediaType type = body.contentType();
+            String contentType = type != null ? type.toString() : DEFAULT_CONTENT_TYPE;
+            long expected = length >= 0 ? Math.min(chunkSize, length - start) : chunkSize;
+
+            if (expected <= 0) {
+                cache.putInfo(key, new StreamCache.Info(length, contentType));
+                return null;
+            }
+
+            File temp = cache.newTempFile(key);
+            long written = 0;
+
+            try {
+                BufferedSink sink = Okio.buffer(Okio.sink(temp));
+
+                try {
+                    Buffer buffer = sink.buffer();
+
+                    while (written < expected) {
+                        long read = source.read(buffer, Math.min(8192, expected - written));
+
+                        if (read == -1) {
+                            break;
+                        }
+
+                        written += read;
+                        sink.emitCompleteSegments();
+                    }
+                } finally {
+                    sink.close();
+                }
+
+                if (written < expected && length >= 0) {
+                    throw new EOFException("Stream ended after " + (start + written) + " of "
+                            + length + " bytes");
+                }
+            } catch (IOException e) {
+                temp.delete();
+                throw e;
+            }
+
+            if (length < 0 && written < expected) {
+                // Without a declared length, a short chunk marks the end of the stream.
+                length = start + written;
+            }
+
+            if (length >= 0) {
+                cache.putInfo(key, new StreamCache.Info(length, contentType));
+            }
+
+            return written > 0 ? cache.putChunk(key, index, temp) : discard(temp);
+        } finally {
+            body.close();
+        }
+    }
+
+    /**
+     * Makes sure the location a stream redirects to is known, so that the player's first request
+     * doesn't wait for the redirect.
+     */
+    void resolve(String url) throws IOException {
+        String key = StreamCache.keyOf(url);
+        Location location = locations.get(key);
+
+        if (location == null || !location.isFresh()) {
+            fetch(url, key, "bytes=0-0").body().close();
+        }
+    }
+
+    /**
+     * Requests a range of a stream, from the location it last redirected to while that is fresh.
+     */
+    private Response fetch(String url, String key, String range) throws IOException {
+        Location location = locations.get(key);
+
+        if (location != null && location.isFresh()) {
+            Response response = client.newCall(rangeRequest(location.url, range)).execute();
+
+            if (response.isSuccessful() || response.code() == 416) {
+                return response;
+            }
+
+            // Redirect targets are signed URLs that expire, so ask the stream URL again.
+            response.body().close();
+            locations.remove(key, location);
+        }
+
+        Response response = client.newCall(rangeRequest(authorize(HttpUrl.parse(url)), range))
+                .execute();
+
+        if (response.isSuccessful() && response.priorResponse() != null) {
+            locations.put(key, new Location(response.request().url(),
+                    System.currentTimeMillis() + locationLifetimeMillis));
+        }
+
+        return response;
+    }
+
+    private static Request rangeRequest(HttpUrl url, String range) {
+        return new Request.Builder()
+                .url(url)
+                .header("Range", range)
+                .build();
+    }
+
+    private static File discard(File temp) {
+        temp.delete();
+
+        return null;
+    }
+
+    private HttpUrl authorize(HttpUrl url) {
+        if (url == null) {
+            throw new IllegalArgumentException("Not an HTTP URL.");
+        }
+
+        HttpUrl.Builder urlBuilder = url.newBuilder();
+
+        if (url.queryParameter("client_id") == null) {
+            urlBuilder.addEncodedQueryParameter("client_id", clientId);
+        }
+
+        String token = this.token;
+
+        if (token != null && url.queryParameter("oauth_token") == null) {
+            urlBuilder.addEncodedQueryParameter("oauth_token", token);
+        }
+
+        return urlBuilder.build();
+    }
+
+    /**
+     * @param contentRange A header such as {@code bytes 0-1023/4096}.
+     * @return The total length, or -1 if it is unknown.
+     */
+    private static long totalLength(String contentRange) {
+        if (contentRange == null) {
+            return -1;
+        }
+
+        int slash = contentRange.lastIndexOf('/');
+
+        try {
+            return slash >= 0 ? Long.parseLong(contentRange.substring(slash + 1).trim()) : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Where a stream URL redirected to.
+     */
+    private static final class Location {
+
+        final HttpUrl url;
+        final long expiresAt;
+
+        Location(HttpUrl url, long expiresAt) {
+            this.url = url;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isFresh() {
+            return System.currentTimeMillis() < expiresAt;
+        }
+    }
+
+    private class AcceptLoop implements Runnable {
+
+        private final ServerSocketChannel server;
+        private final ExecutorService executor;
+
+        AcceptLoop(ServerSocketChannel server, ExecutorService executor) {
+            this.server = server;
+            this.executor = executor;
+        }
+
+        @Override
+        public void run() {
+            while (server.isOpen()) {
+                final SocketChannel socket;
+
+                try {
+                    socket = server.accept();
+                } catch (ClosedChannelException e) {
+                    return;
+                } catch (IOException e) {
+                    continue;
+                }
+
+                try {
+                    executor.execute(new Connection(socket));
+                } catch (RuntimeException e) {
+                    // The proxy was stopped in the meantime.
+                    closeQuietly(socket);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Answers one request and closes the connection. Players open a new connection for each
+     * seek anyway.
+     */
+    private class Connection implements Runnable {
+
+        private final SocketChannel socket;
+
+        Connection(SocketChannel socket) {
+            this.socket = socket;
+        }
+
+        @Override
+        public void run() {
+            try {
+                serve();
+            } catch (IOException ignored) {
+                // Players close connections whenever they seek or stop.
+            } finally {
+                closeQuietly(socket);
+            }
+        }
+
+        private void serve() throws IOException {
+            BufferedSource in = Okio.buffer(Okio.source(socket.socket().getInputStream()));
+
+            String[] requestLine = in.readUtf8LineStrict().split(" ");
+            String range = null;
+
+            for (String line = in.readUtf8LineStrict(); !line.isEmpty();
+                 line = in.readUtf8LineStrict()) {
+                int colon = line.indexOf(':');
+
+                if (colon > 0 && line.substring(0, colon).trim().equalsIgnoreCase("Range")) {
+                    String value = line.substring(colon + 1).trim();
+                    range = ByteRanges.isSingleRange(value) ? value : null;
+                }
+            }
+
+            if (requestLine.length < 2) {
+                writeHead("400 Bad Request", null);
+                return;
+            }
+
+            String method = requestLine[0];
+
+            if (!method.equals("GET") && !method.equals("HEAD")) {
+                writeHead("405 Method Not Allowed", "Allow: GET, HEAD\r\n");
+                return;
+            }
+
+            String key = requestLine[1].substring(requestLine[1].lastIndexOf('/') + 1);
+            String url = streams.get(key);
+
+            if (url == null) {
+                writeHead("404 Not Found", null);
+                return;
+            }
+
+            StreamCache.Info info = cache.getInfo(key);
+
+            if (info == null) {
+                loadChunk(url, key, 0);
+                info = cache.getInfo(key);
+            }
+
+            if (info == null) {
+                throw new IOException("Unknown length of " + url);
+            }
+
+            long length = info.length;
+            long[] bounds = ByteRanges.parse(range, length);
+
+            if (bounds == null) {
+                writeHead("416 Range Not Satisfiable", "Content-Range: bytes */" + length + "\r\n");
+                return;
+            }
+
+            long start = bounds[0];
+            long end = bounds[1];
+            StringBuilder headers = new StringBuilder()
+                    .append("Content-Type: ").append(info.contentType).append("\r\n")
+                    .append("Content-Length: ").append(end - start + 1).append("\r\n")
+                    .append("Accept-Ranges: bytes\r\n");
+
+            if (range != null) {
+                headers.append("Content-Range: bytes ").append(start).append('-').append(end)
+                        .append('/').append(length).append("\r\n");
+            }
+
+            writeHead(range != null ? "206 Partial Content" : "200 OK", headers.toString());
+
+            if (method.equals("GET")) {
+                writeBody(url, key, start, end);
+            }
+        }
+
+        private void writeBody(String url, String key, long start, long end) throws IOException {
+            int chunkSize = cache.getChunkSize();
+
+            for (long position = start; position <= end; ) {
+                int index = (int) (position / chunkSize);
+                File file = loadChunk(url, key, index);
+
+                if (file == null) {
+                    throw new EOFException("Stream ended at " + position);
+                }
+
+                long offset = position - (long) index * chunkSize;
+                long count = Math.min(file.length() - offset, end - position + 1);
+
+                if (count <= 0) {
+                    throw new EOFException("Chunk " + index + " is shorter than expected");
+                }
+
+                FileInputStream input = new FileInputStream(file);
+
+                try {
+                    FileChannel channel = input.getChannel();
+                    long sent = 0;
+
+                    while (sent < count) {
+                        sent += channel.transferTo(offset + sent, count - sent, socket);
+                    }
+                } finally {
+                    input.close();
+                }
+
+                bytesServed.addAndGet(count);
+                position += count;
+            }
+        }
+
+        private void writeHead(String status, String headers) throws IOException {
+            String head = "HTTP/1.1 " + status + "\r\n"
+                    + (headers != null ? headers : "Content-Length: 0\r\n")
+                    + "Connection: close\r\n\r\n";
+
+            ByteBuffer buffer = ByteBuffer.wrap(head.getBytes(US_ASCII));
+
+            while (buffer.hasRemaining()) {
+                socket.write(buffer);
+            }
+        }
+    }
+
+    private static void closeQuietly(SocketChannel socket) {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+            // Nothing left to do with it.
+        }
+    }
+
+    public static class Builder {
+
+        private final OkHttpClient client;
+        private final String clientId;
+        private final StreamCache cache;
+        private long locationLifetimeMillis = LOCATION_LIFETIME_MILLIS_DEFAULT;
+
+        /**
+         * @param client   The client used to download streams, e.g. {@link
+         *                 com.jlubecki.soundcloud.webapi.android.SoundCloudAPI#getClient()}.
+         * @param clientId The client id of the application, added to stream requests.
+         * @param cache    The cache streams are kept in.
+         */
+        public Builder(OkHttpClient client, String clientId, StreamCache cache) {
+            if (client == null || clientId == null || cache == null) {
+                throw new IllegalArgumentException("client, clientId and cache are required.");
+            }
+
+            this.client = client;
+            this.clientId = clientId;
+            this.cache = cache;
+        }
+
+        /**
+         * Sets how long the location a stream redirected to is used before the stream URL is
+         * requested again. The locations are signed URLs that expire, and an expired one only
+         * costs a failed request before falling back. Defaults to five minutes.
+         *
+         * @param lifetime How long a location is used.
+         * @param unit     Unit of the lifetime.
+         * @return The instance of the builder that was just updated.
+         */
+        public Builder setLocationLifetime(long lifetime, TimeUnit unit) {
+            if (lifetime < 0) {
+                throw new IllegalArgumentException("lifetime < 0: " + lifetime);
+            }
+
+            this.locationLifetimeMillis = unit.toMillis(lifetime);
+
+            return this;
+        }
+
+        public StreamProxy build() {
+            return new StreamProxy(this);
+        }
+    }
+}
@@ -0,0 +1,387 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.sync;
+
+import com.jlubecki.soundcloud.webapi.android.SoundCloudService;
+import com.jlubecki.soundcloud.webapi.android.models.Playlist;
+import com.jlubecki.soundcloud.webapi.android.models.Track;
+import com.jlubecki.soundcloud.webapi.android.models.User;
+import com.jlubecki.soundcloud.webapi.android.paging.PagedIterable;
+import com.jlubecki.soundcloud.webapi.android.paging.PagingException;
+import com.jlubecki.soundcloud.webapi.android.store.EntityTable;
+import com.jlubecki.soundcloud.webapi.android.store.OfflineStore;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import retrofit2.Call;
+
+import static com.jlubecki.soundcloud.webapi.android.query.Pager.LIMIT_MAX;
+
+/**
+ * Keeps a collection of the user, such as their favorites, in sync with an {@link OfflineStore}
+ * while downloading as little as possible.
+ * <p/>
+ * These collections list their newest items first. An incremental sync pages through the
+ * collection from the top and stops once it reaches items it already knows, so the common case
+ * of a few new items costs one small page. Known items seen on the way are stored again, and the
+ * ones whose record changed are reported as updated.
+ * <p/>
+ * Removals can't be seen from the top of a collection, so every so often {@link #sync()} runs a
+ * full scan instead, which fetches every item in pages of {@value
+ * com.jlubecki.soundcloud.webapi.android.query.Pager#LIMIT_MAX} and also restores the order of
+ * the collection.
+ * <p/>
+ * Syncing blocks while pages load, so it must not run on the main thread.
+ * <pre>
+ * CollectionSync&lt;Track&gt; favorites = CollectionSync.favorites(service, store).build();
+ * favorites.addListener(listener);
+ * favorites.sync();
+ * </pre>
+ *
+ * @param <T> The type of the items.
+ */
+public class CollectionSync<T> {
+
+    public static final String FAVORITES = "me/favorites";
+    public static final String FOLLOWINGS = "me/followings";
+    public static final String PLAYLISTS = "me/playlists";
+
+    public static final long FULL_SCAN_INTERVAL_MILLIS_DEFAULT = TimeUnit.DAYS.toMillis(1);
+    public static final int INCREMENTAL_PAGE_SIZE_DEFAULT = 20;
+
+    private static final String LAST_FULL_SCAN = "#last_full_scan";
+
+    private final Call<?> listCall;
+    private final PagedIterable.PageSource<T> pageSource;
+    private final OfflineStore store;
+    private final EntityTable<T> table;
+    private final String listName;
+    private final long fullScanIntervalMillis;
+    private final int incrementalPageSize;
+    private final int knownItemsToStop;
+    private final List<SyncListener<T>> listeners = new CopyOnWriteArrayList<>();
+
+    private CollectionSync(Builder<T> builder) {
+        this.listCall = builder.listCall;
+        this.pageSource = builder.pageSource;
+        this.store = builder.store;
+        this.table = builder.table;
+        this.listName = builder.listName;
+        this.fullScanIntervalMillis = builder.fullScanIntervalMillis;
+        this.incrementalPageSize = builder.incrementalPageSize;
+        this.knownItemsToStop = builder.knownItemsToStop;
+    }
+
+    /**
+     * Syncs the tracks the user favorited into {@link OfflineStore#tracks()}.
+     */
+    public static Builder<Track> favorites(SoundCloudService service, OfflineStore store) {
+        return new Builder<>(service.getMyFavorites(), PagedIterable.trackPages(service), store,
+                store.tracks(), FAVORITES);
+    }
+
+    /**
+     * Syncs the users the user follows into {@link OfflineStore#users()}.
+     */
+    public static Builder<User> followings(SoundCloudService service, OfflineStore store) {
+        return new Builder<>(service.getMyFollowings(), PagedIterable.userPages(service), store,
+                store.users(), FOLLOWINGS);
+    }
+
+    /**
+     * Syncs the playlists of the user into {@link OfflineStore#playlists()}.
+     */
+    public static Builder<Playlist> playlists(SoundCloudService service, OfflineStore store) {
+        return new Builder<>(service.getMyPlaylists(), PagedIterable.playlistPages(service),
+                store, store.playlists(), PLAYLISTS);
+    }
+
+    public void addListener(SyncListener<T> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(SyncListener<T> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * @return The stored items of the collection, in order, without any network I/O.
+     * @throws IOException if the store can't be read.
+     */
+    public List<T> getItems() throws IOException {
+        return store.getList(listName, table);
+    }
+
+    /**
+     * Syncs the collection, with a full scan if the last one is older than the full scan
+     * interval and incrementally otherwise.
+     *
+     * @return The changes that were found.
+     * @throws IOException       if the store can't be read or written.
+     * @throws PagingException if a page can't be loaded.
+     */
+    public SyncResult<T> sync() throws IOException {
+        boolean due = System.currentTimeMillis() - lastFullScanMillis() >= fullScanIntervalMillis;
+
+        return due ? fullScan() : incrementalSync();
+    }
+
+    /**
+     * Fetches the newest items until {@code knownItemsToStop} known items in a row were seen.
+     *
+     * @return The changes that were found. Removals are never reported.
+     * @throws IOException       if the store can't be read or written.
+     * @throws PagingException if a page can't be loaded.
+     */
+    public synchronized SyncResult<T> incrementalSync() throws IOException {
+        List<String> knownIds = store.getIds(listName);
+        Set<String> known = new HashSet<>(knownIds);
+
+        List<T> added = new ArrayList<>();
+        List<T> updated = new ArrayList<>();
+        List<String> addedIds = new ArrayList<>();
+        int fetched = 0;
+        int knownInARow = 0;
+
+        PagedIterable.PagedIterator<T> items = new PagedIterable.Builder<>(listCall, pageSource)
+                .setPageSize(incrementalPageSize)
+                .setReadAhead(false)
+                .build()
+                .iterator();
+
+        try {
+            while (knownInARow < knownItemsToStop && items.hasNext()) {
+                T item = items.next();
+                String id = table.idOf(item);
+                fetched++;
+
+                if (id == null) {
+                    continue;
+                }
+
+                boolean changed = table.put(item);
+
+                if (known.contains(id)) {
+                    knownInARow++;
+
+                    if (changed) {
+                        updated.add(item);
+                    }
+                } else {
+                    knownInARow = 0;
+
+                    if (known.add(id)) {
+                        added.add(item);
+                        addedIds.add(id);
+                    }
+                }
+            }
+        } finally {
+            items.close();
+        }
+
+        if (!added.isEmpty()) {
+            // New items go on top; an item that moved up is only reordered by a full scan.
+            List<String> ids = new ArrayList<>(addedIds.size() + knownIds.size());
+            ids.addAll(addedIds);
+            ids.addAll(knownIds);
+
+            store.putIds(listName, ids);
+        }
+
+        return publish(new SyncResult<>(added, updated, Collections.<String>emptyList(), false,
+                fetched));
+    }
+
+    /**
+     * Fetches the whole collection, finding additions, updates and removals.
+     *
+     * @return The changes that were found.
+     * @throws IOException       if the store can't be read or written.
+     * @throws PagingException if a page can't be loaded.
+     */
+    public synchronized SyncResult<T> fullScan() throws IOException {
+        Set<String> known = new HashSet<>(store.getIds(listName));
+        Set<String> seen = new LinkedHashSet<>();
+
+        List<T> added = new ArrayList<>();
+        List<T> updated = new ArrayList<>();
+        int fetched = 0;
+
+        PagedIterable<T> items = new PagedIterable.Builder<>(listCall, pageSource)
+                .setPageSize(LIMIT_MAX)
+                .build();
+
+        for (T item : items) {
+            String id = table.idOf(item);
+            fetched++;
+
+            if (id == null || !seen.add(id)) {
+                continue;
+            }
+
+            boolean changed = table.put(item);
+
+            if (!known.contains(id)) {
+                added.add(item);
+            } else if (changed) {
+                updated.add(item);
+            }
+        }
+
+        List<String> removed = new ArrayList<>();
+
+        for (String id : known) {
+            if (!seen.contains(id)) {
+                removed.add(id);
+            }
+        }
+
+        store.putIds(listName, new ArrayList<>(seen));
+        store.putIds(listName + LAST_FULL_SCAN,
+                Collections.singletonList(String.valueOf(System.currentTimeMillis())));
+
+        return publish(new SyncResult<>(added, updated, removed, true, fetched));
+    }
+
+    /**
+     * @return When the last full scan finished, in milliseconds since the epoch, or 0 if there
+     * was none.
+     * @throws IOException if the store can't be read.
+     */
+    public long lastFullScanMillis() throws IOException {
+        List<String> value = store.getIds(listName + LAST_FULL_SCAN);
+
+        try {
+            return value.isEmpty() ? 0 : Long.parseLong(value.get(0));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private SyncResult<T> publish(SyncResult<T> result) {
+        if (!result.isEmpty()) {
+            for (SyncListener<T> listener : listeners) {
+                listener.onSync(result);
+            }
+        }
+
+        return result;
+    }
+
+    public static class Builder<T> {
+
+        private final Call<?> listCall;
+        private final PagedIterable.PageSource<T> pageSource;
+        private final OfflineStore store;
+        private final EntityTable<T> table;
+        private final String listName;
+        private long fullScanIntervalMillis = FULL_SCAN_INTERVAL_MILLIS_DEFAULT;
+        private int incrementalPageSize = INCREMENTAL_PAGE_SIZE_DEFAULT;
+        private int knownItemsToStop = 1;
+
+        /**
+         * @param listCall   A call to the collection endpoint, newest items first. It is only
+         *                   used for its URL and is never executed.
+         * @param pageSource Loads pages of the collection's items.
+         * @param store      The store to keep the collection in.
+         * @param table      The table of the store holding the items.
+         * @param listName   Name of the list of ids that records the collection's order.
+         */
+        public Builder(Call<?> listCall, PagedIterable.PageSource<T> pageSource, OfflineStore store,
+                       EntityTable<T> table, String listName) {
+            this.listCall = listCall;
+            this.pageSource = pageSource;
+            this.store = store;
+            this.table = table;
+            this.listName = listName;
+        }
+
+        /**
+         * Sets how often {@link CollectionSync#sync()} runs a full scan to find removals.
+         * Defaults to once a day.
+         *
+         * @param interval Time between full scans.
+         * @param unit     Unit of the interval.
+         * @return The instance of the builder that was just updated.
+         */
+        public Builder<T> setFullScanInterval(long interval, TimeUnit unit) {
+            if (interval < 0) {
+                throw new IllegalArgumentException("interval < 0: " + interval);
+            }
+
+            this.fullScanIntervalMillis = unit.toMillis(interval);
+
+            return this;
+        }
+
+        /**
+         * Sets the page size of incremental syncs. Small pages keep the common case of one or
+         * two new items cheap. Defaults to {@value #INCREMENTAL_PAGE_SIZE_DEFAULT}.
+         *
+         * @param pageSize The page size, from 1 to 200.
+         * @return The instance of the builder that was just updated.
+         */
+        public Builder<T> setIncrementalPageSize(int pageSize) {
+            if (pageSize < 1 || pageSize > LIMIT_MAX) {
+                throw new IllegalArgumentException("pageSize out of range: " + pageSize);
+            }
+
+            this.incrementalPageSize = pageSize;
+
+            return this;
+        }
+
+        /**
+         * Sets how many known items in a row end an incremental sync. More than one tolerates
+         * items that moved up, e.g. a track that was favorited again, at the cost of fetching a
+         * few more items. Defaults to 1.
+         *
+         * @param knownItemsToStop The number of known items.
+         * @return The instance of the builder that was just updated.
+         */
+        public Builder<T> setKnownItemsToStop(int knownItemsToStop) {
+            if (knownItemsToStop < 1) {
+                throw new IllegalArgumentException("knownItemsToStop < 1: " + knownItemsToStop);
+            }
+
+            this.knownItemsToStop = knownItemsToStop;
+
+            return this;
+        }
+
+        public CollectionSync<T> build() {
+            return new CollectionSync<>(this);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.sync;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The changes a {@link CollectionSync} found in a collection. Results are immutable.
+ *
+ * @param <T> The type of the items.
+ */
+public final class SyncResult<T> {
+
+    private final List<T> added;
+    private final List<T> updated;
+    private final List<String> removedIds;
+    private final boolean fullScan;
+    private final int itemsFetched;
+
+    SyncResult(List<T> added, List<T> updated, List<String> removedIds, boolean fullScan,
+               int itemsFetched) {
+        this.added = Collections.unmodifiableList(added);
+        this.updated = Collections.unmodifiableList(updated);
+        this.removedIds = Collections.unmodifiableList(removedIds);
+        this.fullScan = fullScan;
+        this.itemsFetched = itemsFetched;
+    }
+
+    /**
+     * @return The items that are new to the collection, in the collection's order.
+     */
+    public List<T> getAdded() {
+        return added;
+    }
+
+    /**
+     * @return Known items whose stored record changed.
+     */
+    public List<T> getUpdated() {
+        return updated;
+    }
+
+    /**
+     * @return The ids of the items no longer in the collection. Removals are only found by full
+     * scans.
+     */
+    public List<String> getRemovedIds() {
+        return removedIds;
+    }
+
+    /**
+     * @return True if the whole collection was fetched, false if the sync stopped at the first
+     * known items.
+     */
+    public boolean isFullScan() {
+        return fullScan;
+    }
+
+    /**
+     * @return The number of items that were downloaded.
+     */
+    public int getItemsFetched() {
+        return itemsFetched;
+    }
+
+    /**
+     * @return True if nothing changed.
+     */
+    public boolean isEmpty() {
+        return added.isEmpty() && updated.isEmpty() && removedIds.isEmpty();
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.waveform;
+
+/**
+ * The amplitude samples of a track, as drawn by SoundCloud's seek bars. Samples range from 0 to
+ * {@link #getHeight()}.
+ */
+public final class Waveform {
+
+    private final int height;
+    private final short[] samples;
+
+    /**
+     * @param height  The maximum value of a sample.
+     * @param samples The samples. The array is not copied.
+     */
+    public Waveform(int height, short[] samples) {
+        if (height <= 0) {
+            throw new IllegalArgumentException("height <= 0: " + height);
+        }
+
+        this.height = height;
+        this.samples = samples;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return The samples. The array is shared, so it must not be modified.
+     */
+    public short[] getSamples() {
+        return samples;
+    }
+
+    /**
+     * Reduces the waveform to one peak per pixel column. Each peak is the largest sample of its
+     * column, scaled to 0 to 255; read it with {@code peaks[i] & 0xff}.
+     *
+     * @param width The number of columns.
+     * @return The peaks.
+     */
+    public byte[] downsample(int width) {
+        if (width <= 0) {
+            throw new IllegalArgumentException("width <= 0: " + width);
+        }
+
+        byte[] peaks = new byte[width];
+        int count = samples.length;
+
+        if (count == 0) {
+            return peaks;
+        }
+
+        for (int column = 0; column < width; column++) {
+            int from = (int) ((long) column * count / width);
+            int to = Math.max(from + 1, (int) ((long) (column + 1) * count / width));
+            int peak = 0;
+
+            for (int i = from; i < to; i++) {
+                peak = Math.max(peak, samples[i]);
+            }
+
+            peaks[column] = (byte) Math.min(255, peak * 255 / height);
+        }
+
+        return peaks;
+    }
+
+    /**
+     * @return The approximate number of bytes the waveform takes in memory.
+     */
+    int sizeInBytes() {
+        return 16 + samples.length * 2;
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.waveform;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+
+import okio.BufferedSource;
+
+/**
+ * Decodes the two forms SoundCloud serves waveforms in: JSON with a {@code samples} array, and
+ * the PNG of {@code Track.waveform_url}, whose wave is the transparent part of each column.
+ */
+final class WaveformDecoder {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private WaveformDecoder() {
+    }
+
+    /**
+     * Decodes a waveform, telling the forms apart by their first byte.
+     */
+    static Waveform decode(BufferedSource source) throws IOException {
+        if (!source.request(1)) {
+            throw new IOException("Empty waveform");
+        }
+
+        return source.buffer().getByte(0) == '{' ? decodeJson(source) : decodePng(source);
+    }
+
+    /**
+     * Decodes {@code {"width": 1800, "height": 140, "samples": [...]}} without boxing the
+     * samples.
+     */
+    static Waveform decodeJson(BufferedSource source) throws IOException {
+        JsonReader reader = new JsonReader(new InputStreamReader(source.inputStream(), UTF_8));
+        int height = 0;
+        short[] samples = new short[0];
+        int count = 0;
+
+        try {
+            reader.beginObject();
+
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+
+                if (name.equals("height")) {
+                    height = reader.nextInt();
+                } else if (name.equals("width")) {
+                    int width = reader.nextInt();
+
+                    // The samples may come first, so keep the ones already read.
+                    if (width > samples.length) {
+                        short[] grown = new short[width];
+                        System.arraycopy(samples, 0, grown, 0, count);
+                        samples = grown;
+                    }
+                } else if (name.equals("samples")) {
+                    reader.beginArray();
+
+                    while (reader.hasNext()) {
+                        if (count == samples.length) {
+                            short[] grown = new short[Math.max(16, count * 2)];
+                            System.arraycopy(samples, 0, grown, 0, count);
+                            samples = grown;
+                        }
+
+                        samples[count++] = (short) reader.nextInt();
+                    }
+
+                    reader.endArray();
+                } else {
+                    reader.skipValue();
+                }
+            }
+
+            reader.endObject();
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw new IOException("Malformed waveform JSON", e);
+        } finally {
+            reader.close();
+        }
+
+        if (count != samples.length) {
+            short[] trimmed = new short[count];
+            System.arraycopy(samples, 0, trimmed, 0, count);
+            samples = trimmed;
+        }
+
+        if (height <= 0) {
+            for (short sample : samples) {
+                height = Math.max(height, sample);
+            }
+        }
+
+        return new Waveform(Math.max(1, height), samples);
+    }
+
+    /**
+     * Decodes a waveform PNG. The upper half of the image mirrors the lower half, so each
+     * column's sample is the number of transparent pixels in its upper half.
+     */
+    static Waveform decodePng(BufferedSource source) throws IOException {
+        byte[] bytes = source.readByteArray();
+        Bitmap bitmap = BitmapFactory.decodeByteArray(bytes, 0, bytes.length);
+
+        if (bitmap == null) {
+            throw new IOException("Malformed waveform image");
+        }
+
+        try {
+            int width = bitmap.getWidth();
+            int height = bitmap.getHeight() / 2;
+            short[] samples = new short[width];
+            int[] column = new int[height];
+
+            for (int x = 0; x < width; x++) {
+                bitmap.getPixels(column, 0, 1, x, 0, 1, height);
+
+                int transparent = 0;
+
+                for (int pixel : column) {
+                    if ((pixel >>> 24) < 0x80) {
+                        transparent++;
+                    }
+                }
+
+                samples[x] = (short) transparent;
+            }
+
+            return new Waveform(Math.max(1, height), samples);
+        } finally {
+            bitmap.recycle();
+        }
+    }
+}
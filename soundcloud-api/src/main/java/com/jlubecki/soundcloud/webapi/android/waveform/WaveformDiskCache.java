@@ -0,0 +1,147 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.waveform;
+
+import com.jlubecki.soundcloud.webapi.android.cache.DiskLru;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.Okio;
+
+/**
+ * Keeps raw waveforms and their peaks on disk, one small file each, evicting the least recently
+ * used files once the directory grows over its maximum size.
+ */
+final class WaveformDiskCache {
+
+    private static final int MAGIC = 0x53435746;
+    private static final String WAVEFORM_SUFFIX = ".wave";
+    private static final String PEAKS_SUFFIX = ".peaks";
+
+    private final DiskLru files;
+
+    WaveformDiskCache(File directory, long maxSize) {
+        this.files = new DiskLru(directory, maxSize, null);
+    }
+
+    synchronized Waveform getWaveform(String key) throws IOException {
+        BufferedSource source = open(key + WAVEFORM_SUFFIX);
+
+        if (source == null) {
+            return null;
+        }
+
+        try {
+            if (source.readInt() != MAGIC) {
+                return null;
+            }
+
+            int height = source.readShort();
+            short[] samples = new short[source.readInt()];
+
+            for (int i = 0; i < samples.length; i++) {
+                samples[i] = source.readShort();
+            }
+
+            return new Waveform(height, samples);
+        } catch (IOException | RuntimeException e) {
+            // A damaged file is fetched again.
+            return null;
+        } finally {
+            source.close();
+        }
+    }
+
+    synchronized void putWaveform(String key, Waveform waveform) throws IOException {
+        File temp = files.newTempFile(key);
+        BufferedSink sink = Okio.buffer(Okio.sink(temp));
+
+        try {
+            sink.writeInt(MAGIC);
+            sink.writeShort(waveform.getHeight());
+            sink.writeInt(waveform.getSamples().length);
+
+            for (short sample : waveform.getSamples()) {
+                sink.writeShort(sample);
+            }
+        } finally {
+            sink.close();
+        }
+
+        files.commit(temp, key + WAVEFORM_SUFFIX);
+    }
+
+    synchronized byte[] getPeaks(String key, int width) throws IOException {
+        BufferedSource source = open(peaksName(key, width));
+
+        if (source == null) {
+            return null;
+        }
+
+        try {
+            byte[] peaks = source.readByteArray();
+
+            return peaks.length == width ? peaks : null;
+        } finally {
+            source.close();
+        }
+    }
+
+    synchronized void putPeaks(String key, int width, byte[] peaks) throws IOException {
+        File temp = files.newTempFile(key);
+        BufferedSink sink = Okio.buffer(Okio.sink(temp));
+
+        try {
+            sink.write(peaks);
+        } finally {
+            sink.close();
+        }
+
+        files.commit(temp, peaksName(key, width));
+    }
+
+    private static String peaksName(String key, int width) {
+        return key + "." + width + PEAKS_SUFFIX;
+    }
+
+    private BufferedSource open(String name) throws IOException {
+        File file = files.get(name);
+
+        if (file == null) {
+            return null;
+        }
+
+        try {
+            return Okio.buffer(Okio.source(file));
+        } catch (FileNotFoundException e) {
+            files.remove(name);
+            return null;
+        }
+    }
+}
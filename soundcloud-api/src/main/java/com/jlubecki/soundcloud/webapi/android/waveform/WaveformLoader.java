@@ -0,0 +1,519 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.waveform;
+
+import com.jlubecki.soundcloud.webapi.android.concurrent.DaemonThreadFactory;
+import com.jlubecki.soundcloud.webapi.android.concurrent.SettableFuture;
+import com.jlubecki.soundcloud.webapi.android.models.Track;
+import com.jlubecki.soundcloud.webapi.android.stream.StreamCache;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Fetches waveforms and reduces them to the peaks a seek bar draws, off the main thread.
+ * <p/>
+ * Raw waveforms and their peaks at each requested width are cached in memory and, if a
+ * directory is set, on disk, both with least recently used eviction. Once peaks are in memory,
+ * {@link #peek(String, int)} returns the same array every time without allocating, so it can be
+ * called while binding list rows or drawing frames.
+ * <p/>
+ * The PNG of {@code Track.waveform_url} is requested in its JSON form, which is smaller and
+ * needs no image decoding; the PNG is decoded if that fails.
+ * <pre>
+ * byte[] peaks = waveforms.peek(track.waveform_url, width);
+ *
+ * if (peaks == null) {
+ *     waveforms.load(track.waveform_url, width).addListener(redraw, mainThreadExecutor);
+ * }
+ * </pre>
+ */
+public class WaveformLoader {
+
+    public static final long MEMORY_CACHE_SIZE_DEFAULT = 1024 * 1024;
+
+    private static final String JSON_HOST = "wave.sndcdn.com";
+
+    private final OkHttpClient client;
+    private final WaveformDiskCache diskCache;
+    private final long maxMemorySize;
+    private final ExecutorService executor;
+
+    /**
+     * Memory cache entries by waveform URL, in least recently used order.
+     */
+    private final LinkedHashMap<String, Entry> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, SettableFuture<Waveform>> loading = new HashMap<>();
+    private long memorySize;
+
+    private WaveformLoader(Builder builder) {
+        this.client = builder.client;
+        this.diskCache = builder.directory != null
+                ? new WaveformDiskCache(builder.directory, builder.maxDiskSize)
+                : null;
+        this.maxMemorySize = builder.maxMemorySize;
+        this.executor = Executors.newFixedThreadPool(builder.threads,
+                new DaemonThreadFactory("soundcloud-waveform"));
+    }
+
+    /**
+     * Returns peaks from the memory cache, without I/O or allocation.
+     *
+     * @param url   The waveform URL, e.g. {@code Track.waveform_url}.
+     * @param width The number of peaks.
+     * @return The peaks, or null if they aren't in memory. The array is shared, so it must not be
+     * modified.
+     */
+    public synchronized byte[] peek(String url, int width) {
+        Entry entry = memory.get(url);
+
+        return entry != null ? entry.peaks(width) : null;
+    }
+
+    /**
+     * @param track A track.
+     * @param width The number of peaks.
+     * @return The peaks of the track's waveform at the given width.
+     * @see #load(String, int)
+     */
+    public SettableFuture<byte[]> load(Track track, int width) {
+        return load(track.waveform_url, width);
+    }
+
+    /**
+     * Loads the peaks of a waveform from memory, disk or the network, in that order.
+     *
+     * @param url   The waveform URL, e.g. {@code Track.waveform_url}.
+     * @param width The number of peaks, usually the width of the seek bar in pixels.
+     * @return A future that completes on a background thread with the peaks, which are shared
+     * and must not be modified.
+     */
+    public SettableFuture<byte[]> load(final String url, final int width) {
+        if (url == null) {
+            throw new IllegalArgumentException("url == null");
+        }
+
+        if (width <= 0) {
+            throw new IllegalArgumentException("width <= 0: " + width);
+        }
+
+        final SettableFuture<byte[]> result = new SettableFuture<>();
+        byte[] cached = peek(url, width);
+
+        if (cached != null) {
+            result.set(cached);
+            return result;
+        }
+
+        execute(result, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    result.set(peaks(url, width));
+                } catch (Exception e) {
+                    result.setException(e);
+                }
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * Loads a raw waveform from memory, disk or the network, in that order. Concurrent loads of
+     * the same waveform share one request, also with {@link #load(String, int)}.
+     *
+     * @param url The waveform URL.
+     * @return A future that completes on a background thread with the waveform.
+     */
+    public SettableFuture<Waveform> loadWaveform(final String url) {
+        if (url == null) {
+            throw new IllegalArgumentException("url == null");
+        }
+
+        final SettableFuture<Waveform> result = new SettableFuture<>();
+
+        execute(result, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    result.set(waveform(url));
+                } catch (Exception e) {
+                    result.setException(e);
+                }
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * Ends the loading threads once the loads already started are done. Later loads that miss
+     * the memory cache fail with a {@link RejectedExecutionException}.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Removes every waveform from memory. The disk cache is kept.
+     */
+    public synchronized void evictAll() {
+        memory.clear();
+        memorySize = 0;
+    }
+
+    /**
+     * @return The approximate number of bytes the memory cache holds.
+     */
+    public synchronized long getMemorySize() {
+        return memorySize;
+    }
+
+    private void execute(SettableFuture<?> result, Runnable load) {
+        try {
+            executor.execute(load);
+        } catch (RejectedExecutionException e) {
+            result.setException(e);
+        }
+    }
+
+    private byte[] peaks(String url, int width) throws Exception {
+        String key = StreamCache.keyOf(url);
+        byte[] peaks = diskCache != null ? diskCache.getPeaks(key, width) : null;
+
+        if (peaks == null) {
+            peaks = waveform(url).downsample(width);
+
+            if (diskCache != null) {
+                diskCache.putPeaks(key, width, peaks);
+            }
+        }
+
+        synchronized (this) {
+            Entry entry = memory.get(url);
+
+            if (entry == null) {
+                // The waveform was evicted meanwhile; peaks are kept without it.
+                entry = new Entry(null);
+                memory.put(url, entry);
+            }
+
+            byte[] existing = entry.peaks(width);
+
+            if (existing != null) {
+                return existing;
+            }
+
+            entry.addPeaks(width, peaks);
+            memorySize += peaks.length;
+            trimMemory(url);
+        }
+
+        return peaks;
+    }
+
+    /**
+     * Returns a waveform, loading it on the calling thread unless another thread is loading it
+     * already. Only running loads are waited for, so loading threads never wait for each other's
+     * queued work.
+     */
+    private Waveform waveform(String url) throws Exception {
+        SettableFuture<Waveform> pending;
+        SettableFuture<Waveform> own = null;
+
+        synchronized (this) {
+            Entry entry = memory.get(url);
+
+            if (entry != null && entry.waveform != null) {
+                return entry.waveform;
+            }
+
+            pending = loading.get(url);
+
+            if (pending == null) {
+                own = new SettableFuture<>();
+                loading.put(url, own);
+            }
+        }
+
+        if (own == null) {
+            try {
+                return pending.get();
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            }
+        }
+
+        try {
+            Waveform waveform = fetchWaveform(url);
+            own.set(waveform);
+
+            return waveform;
+        } catch (Exception e) {
+            own.setException(e);
+            throw e;
+        } finally {
+            synchronized (this) {
+                loading.remove(url);
+            }
+        }
+    }
+
+    private Waveform fetchWaveform(String url) throws IOException {
+        String key = StreamCache.keyOf(url);
+        Waveform waveform = diskCache != null ? diskCache.getWaveform(key) : null;
+
+        if (waveform == null) {
+            waveform = download(url);
+
+            if (diskCache != null) {
+                diskCache.putWaveform(key, waveform);
+            }
+        }
+
+        synchronized (this) {
+            Entry entry = memory.get(url);
+
+            if (entry == null) {
+                memory.put(url, new Entry(waveform));
+                memorySize += waveform.sizeInBytes();
+            } else if (entry.waveform == null) {
+                entry.waveform = waveform;
+                memorySize += waveform.sizeInBytes();
+            }
+
+            trimMemory(url);
+        }
+
+        return waveform;
+    }
+
+    private Waveform download(String url) throws IOException {
+        HttpUrl waveformUrl = HttpUrl.parse(url);
+
+        if (waveformUrl == null) {
+            throw new IllegalArgumentException("Not an HTTP URL: " + url);
+        }
+
+        HttpUrl jsonUrl = jsonUrlOf(waveformUrl);
+
+        if (jsonUrl != null) {
+            try {
+                return fetch(jsonUrl);
+            } catch (IOException e) {
+                // Fall back to the image.
+            }
+        }
+
+        return fetch(waveformUrl);
+    }
+
+    private Waveform fetch(HttpUrl url) throws IOException {
+        Response response = client.newCall(new Request.Builder().url(url).build()).execute();
+
+        try {
+            if (!response.isSuccessful()) {
+                throw new IOException("Waveform request failed with HTTP " + response.code());
+            }
+
+            return WaveformDecoder.decode(response.body().source());
+        } finally {
+            response.body().close();
+        }
+    }
+
+    /**
+     * Maps {@code https://w1.sndcdn.com/<id>_m.png} to {@code https://wave.sndcdn.com/<id>_m.json}.
+     */
+    static HttpUrl jsonUrlOf(HttpUrl url) {
+        String path = url.encodedPath();
+
+        if (!url.host().endsWith("sndcdn.com") || !path.endsWith(".png")) {
+            return null;
+        }
+
+        String file = path.substring(path.lastIndexOf('/') + 1, path.length() - ".png".length());
+
+        return new HttpUrl.Builder()
+                .scheme(url.scheme())
+                .host(JSON_HOST)
+                .addEncodedPathSegment(file + ".json")
+                .build();
+    }
+
+    private void trimMemory(String keep) {
+        Iterator<Map.Entry<String, Entry>> iterator = memory.entrySet().iterator();
+
+        while (memorySize > maxMemorySize && iterator.hasNext()) {
+            Map.Entry<String, Entry> eldest = iterator.next();
+
+            if (!eldest.getKey().equals(keep)) {
+                memorySize -= eldest.getValue().sizeInBytes();
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * A waveform and its peaks at the widths that were requested. Widths are few per waveform,
+     * so they are searched linearly.
+     */
+    private static final class Entry {
+
+        Waveform waveform;
+        int[] widths = new int[0];
+        byte[][] peaks = new byte[0][];
+
+        Entry(Waveform waveform) {
+            this.waveform = waveform;
+        }
+
+        byte[] peaks(int width) {
+            for (int i = 0; i < widths.length; i++) {
+                if (widths[i] == width) {
+                    return peaks[i];
+                }
+            }
+
+            return null;
+        }
+
+        void addPeaks(int width, byte[] values) {
+            int count = widths.length;
+            int[] newWidths = new int[count + 1];
+            byte[][] newPeaks = new byte[count + 1][];
+
+            System.arraycopy(widths, 0, newWidths, 0, count);
+            System.arraycopy(peaks, 0, newPeaks, 0, count);
+            newWidths[count] = width;
+            newPeaks[count] = values;
+
+            widths = newWidths;
+            peaks = newPeaks;
+        }
+
+        long sizeInBytes() {
+            long size = waveform != null ? waveform.sizeInBytes() : 0;
+
+            for (byte[] values : peaks) {
+                size += values.length;
+            }
+
+            return size;
+        }
+    }
+
+    public static class Builder {
+
+        private final OkHttpClient client;
+        private File directory;
+        private long maxDiskSize;
+        private long maxMemorySize = MEMORY_CACHE_SIZE_DEFAULT;
+        private int threads = 2;
+
+        /**
+         * @param client The client used to download waveforms, e.g. {@link
+         *               com.jlubecki.soundcloud.webapi.android.SoundCloudAPI#getClient()}.
+         */
+        public Builder(OkHttpClient client) {
+            if (client == null) {
+                throw new IllegalArgumentException("client == null");
+            }
+
+            this.client = client;
+        }
+
+        /**
+         * Keeps waveforms and peaks on disk as well. By default they are only kept in memory.
+         *
+         * @param directory Directory for the cache files, usually inside
+         *                  {@code Context#getCacheDir()}. It should not be shared with other
+         *                  caches.
+         * @param maxSize   Maximum size of the disk cache in bytes.
+         * @return The instance of the builder that was just updated.
+         */
+        public Builder setDiskCache(File directory, long maxSize) {
+            if (maxSize <= 0) {
+                throw new IllegalArgumentException("maxSize <= 0: " + maxSize);
+            }
+
+            this.directory = directory;
+            this.maxDiskSize = maxSize;
+
+            return this;
+        }
+
+        /**
+         * Sets the size of the memory cache. A waveform takes about 4 KB and its peaks about
+         * one byte per pixel. Defaults to 1 MiB.
+         *
+         * @param maxSize Maximum size of the memory cache in bytes.
+         * @return The instance of the builder that was just updated.
+         */
+        public Builder setMemoryCacheSize(long maxSize) {
+            if (maxSize <= 0) {
+                throw new IllegalArgumentException("maxSize <= 0: " + maxSize);
+            }
+
+            this.maxMemorySize = maxSize;
+
+            return this;
+        }
+
+        /**
+         * Sets how many waveforms are loaded at once. Defaults to 2.
+         *
+         * @param threads The number of loading threads.
+         * @return The instance of the builder that was just updated.
+         */
+        public Builder setThreads(int threads) {
+            if (threads < 1) {
+                throw new IllegalArgumentException("threads < 1: " + threads);
+            }
+
+            this.threads = threads;
+
+            return this;
+        }
+
+        public WaveformLoader build() {
+            return new WaveformLoader(this);
+        }
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.async;
+
+import com.jlubecki.soundcloud.webapi.android.concurrent.SettableFuture;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+import retrofit2.http.GET;
+import retrofit2.http.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class FutureCallAdapterFactoryTest {
+
+    private final MockWebServer server = new MockWebServer();
+
+    private Service service;
+
+    interface Service {
+
+        @GET("items/{id}")
+        CallFuture<Item> getItem(@Path("id") String id);
+
+        @GET("items/{id}")
+        Flow.Publisher<Item> publishItem(@Path("id") String id);
+
+        @SuppressWarnings("rawtypes")
+        @GET("items/1")
+        CallFuture getRaw();
+    }
+
+    static class Item {
+        String id;
+        String next;
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        server.start();
+
+        service = new Retrofit.Builder()
+                .baseUrl(server.url("/"))
+                .addConverterFactory(GsonConverterFactory.create())
+                .addCallAdapterFactory(FutureCallAdapterFactory.create())
+                .build()
+                .create(Service.class);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void futureCompletesWithTheBody() throws Exception {
+        server.enqueue(new MockResponse().setBody("{\"id\":\"1\"}"));
+
+        assertEquals("1", service.getItem("1").get(5, TimeUnit.SECONDS).id);
+    }
+
+    @Test
+    public void futureFailsWithTheHttpStatus() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(404).setBody("missing"));
+
+        try {
+            service.getItem("1").get(5, TimeUnit.SECONDS);
+            fail("Expected an HttpException");
+        } catch (ExecutionException e) {
+            HttpException cause = (HttpException) e.getCause();
+
+            assertEquals(404, cause.code());
+            assertEquals("missing", cause.response().errorBody().string());
+        }
+    }
+
+    @Test
+    public void cancellingTheFutureCancelsTheCall() {
+        server.enqueue(new MockResponse()
+                .setBody("{\"id\":\"1\"}")
+                .setBodyDelay(5, TimeUnit.SECONDS));
+
+        CallFuture<Item> future = service.getItem("1");
+
+        assertTrue(future.cancel(true));
+        assertTrue(future.getCall().isCanceled());
+    }
+
+    @Test
+    public void dependentRequestsCompose() throws Exception {
+        server.enqueue(new MockResponse().setBody("{\"id\":\"1\",\"next\":\"2\"}"));
+        server.enqueue(new MockResponse().setBody("{\"id\":\"2\"}"));
+
+        SettableFuture<String> second = Futures.transform(
+                Futures.transformAsync(service.getItem("1"),
+                        new Futures.AsyncFunction<Item, Item>() {
+                            @Override
+                            public SettableFuture<Item> apply(Item first) {
+                                return service.getItem(first.next);
+                            }
+                        }),
+                new Futures.Function<Item, String>() {
+                    @Override
+                    public String apply(Item item) {
+                        return item.id;
+                    }
+                });
+
+        assertEquals("2", second.get(5, TimeUnit.SECONDS));
+        assertEquals("/items/1", server.takeRequest().getPath());
+        assertEquals("/items/2", server.takeRequest().getPath());
+    }
+
+    @Test
+    public void unparameterizedReturnTypeIsRejected() {
+        try {
+            service.getRaw();
+            fail("Expected the raw return type to be rejected");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    @Test
+    public void publisherRequestsOnlyOnDemand() throws Exception {
+        server.enqueue(new MockResponse().setBody("{\"id\":\"1\"}"));
+
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        service.publishItem("1").subscribe(subscriber);
+
+        assertEquals(0, server.getRequestCount());
+
+        subscriber.subscription.request(1);
+        subscriber.await();
+
+        assertEquals(1, subscriber.items.size());
+        assertEquals("1", subscriber.items.get(0).id);
+        assertTrue(subscriber.completed);
+        assertNull(subscriber.error);
+    }
+
+    @Test
+    public void eachSubscriberMakesItsOwnRequest() throws Exception {
+        server.enqueue(new MockResponse().setBody("{\"id\":\"1\"}"));
+        server.enqueue(new MockResponse().setBody("{\"id\":\"1\"}"));
+
+        Flow.Publisher<Item> publisher = service.publishItem("1");
+        RecordingSubscriber first = new RecordingSubscriber();
+        RecordingSubscriber second = new RecordingSubscriber();
+
+        publisher.subscribe(first);
+        publisher.subscribe(second);
+        first.subscription.request(1);
+        second.subscription.request(Long.MAX_VALUE);
+        first.await();
+        second.await();
+
+        assertTrue(first.completed);
+        assertTrue(second.completed);
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void publisherSignalsHttpErrors() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(500));
+
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        service.publishItem("1").subscribe(subscriber);
+        subscriber.subscription.request(1);
+        subscriber.await();
+
+        assertEquals(500, ((HttpException) subscriber.error).code());
+        assertTrue(subscriber.items.isEmpty());
+    }
+
+    @Test
+    public void nonPositiveRequestIsAnError() throws Exception {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        service.publishItem("1").subscribe(subscriber);
+        subscriber.subscription.request(0);
+        subscriber.await();
+
+        assertTrue(subscriber.error instanceof IllegalArgumentException);
+        assertEquals(0, server.getRequestCount());
+    }
+
+    private static class RecordingSubscriber implements Flow.Subscriber<Item> {
+
+        final CountDownLatch done = new CountDownLatch(1);
+        final List<Item> items = new ArrayList<>();
+        volatile Flow.Subscription subscription;
+        volatile Throwable error;
+        volatile boolean completed;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(Item item) {
+            items.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+            done.countDown();
+        }
+
+        void await() throws InterruptedException {
+            assertTrue("timed out", done.await(5, TimeUnit.SECONDS));
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.cache;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DiskLruTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final List<String> removed = new ArrayList<>();
+
+    @Test
+    public void leastRecentlyUsedFileIsDeletedFirst() throws IOException {
+        DiskLru lru = newLru(30);
+
+        put(lru, "a", 10);
+        put(lru, "b", 10);
+        put(lru, "c", 10);
+        assertNotNull(lru.get("a"));
+
+        put(lru, "d", 10);
+
+        assertEquals(Collections.singletonList("b"), removed);
+        assertFalse(new File(folder.getRoot(), "b").exists());
+        assertTrue(lru.contains("a"));
+        assertEquals(30, lru.size());
+    }
+
+    @Test
+    public void committedFileIsKeptWhenLargerThanMaximum() throws IOException {
+        DiskLru lru = newLru(30);
+
+        put(lru, "a", 10);
+        put(lru, "big", 50);
+
+        assertEquals(Collections.singletonList("a"), removed);
+        assertTrue(lru.contains("big"));
+    }
+
+    @Test
+    public void replacingFileUpdatesSize() throws IOException {
+        DiskLru lru = newLru(100);
+
+        put(lru, "a", 10);
+        put(lru, "a", 25);
+
+        assertEquals(25, lru.size());
+    }
+
+    @Test
+    public void directoryIsReadOnFirstUse() throws IOException {
+        DiskLru lru = newLru(100);
+        put(lru, "a", 10);
+        put(lru, "b", 10);
+        File temp = lru.newTempFile("c");
+
+        DiskLru reopened = newLru(100);
+
+        assertEquals(20, reopened.size());
+        assertTrue(reopened.contains("a"));
+        assertFalse(temp.exists());
+    }
+
+    @Test
+    public void removeAllDeletesPrefixedFiles() throws IOException {
+        DiskLru lru = newLru(100);
+        put(lru, "key.1", 10);
+        put(lru, "key.2", 10);
+        put(lru, "other.1", 10);
+
+        lru.removeAll("key.");
+
+        assertEquals(Arrays.asList("key.1", "key.2"), removed);
+        assertNull(lru.get("key.1"));
+        assertEquals(10, lru.size());
+    }
+
+    private DiskLru newLru(long maxSize) {
+        return new DiskLru(folder.getRoot(), maxSize, new DiskLru.Listener() {
+            @Override
+            public void onRemoved(String name) {
+                removed.add(name);
+            }
+        });
+    }
+
+    private static void put(DiskLru lru, String name, int length) throws IOException {
+        File temp = lru.newTempFile(name);
+        FileOutputStream out = new FileOutputStream(temp);
+
+        try {
+            out.write(new byte[length]);
+        } finally {
+            out.close();
+        }
+
+        lru.commit(temp, name);
+    }
+}
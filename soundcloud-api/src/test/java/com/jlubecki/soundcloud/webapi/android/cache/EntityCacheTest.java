@@ -0,0 +1,188 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.cache;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EntityCacheTest {
+
+    /**
+     * Entities that are their own id.
+     */
+    private static final EntityCache.Model<String> MODEL = new EntityCache.Model<String>() {
+        @Override
+        public String idOf(String entity) {
+            return entity;
+        }
+
+        @Override
+        public int sizeOf(String entity) {
+            return entity.length();
+        }
+
+        @Override
+        public String merge(String source, String cached) {
+            return cached;
+        }
+    };
+
+    private final List<String> changes = Collections.synchronizedList(new ArrayList<String>());
+
+    @Test
+    public void listenersRunWithoutTheCacheLock() {
+        final EntityCache[] cache = new EntityCache[1];
+        final boolean[] locked = new boolean[1];
+
+        cache[0] = new EntityCache.Builder()
+                .setMaxEntries(10)
+                .addListener(new RecordingListener() {
+                    @Override
+                    public void onPut(Class<?> type, String id, Object entity) {
+                        locked[0] |= Thread.holdsLock(cache[0]);
+                        super.onPut(type, id, entity);
+                    }
+                })
+                .build();
+
+        cache[0].intern(String.class, "a", MODEL);
+
+        assertFalse(locked[0]);
+        assertEquals(Collections.singletonList("put a"), changes);
+    }
+
+    @Test
+    public void changesAreDeliveredInOrder() {
+        EntityCache cache = new EntityCache.Builder()
+                .setMaxEntries(2)
+                .addListener(new RecordingListener())
+                .build();
+
+        cache.intern(String.class, "a", MODEL);
+        cache.intern(String.class, "b", MODEL);
+        cache.intern(String.class, "c", MODEL);
+        cache.remove(String.class, "c");
+        cache.clear();
+
+        assertEquals(Arrays.asList("put a", "put b", "put c", "removed a", "removed c",
+                "removed b"), changes);
+    }
+
+    @Test
+    public void listenerCanChangeTheCache() {
+        final EntityCache[] cache = new EntityCache[1];
+
+        cache[0] = new EntityCache.Builder()
+                .setMaxEntries(10)
+                .addListener(new RecordingListener() {
+                    @Override
+                    public void onPut(Class<?> type, String id, Object entity) {
+                        super.onPut(type, id, entity);
+
+                        if (id.equals("a")) {
+                            cache[0].intern(String.class, "b", MODEL);
+                        }
+                    }
+                })
+                .build();
+
+        cache[0].intern(String.class, "a", MODEL);
+
+        assertEquals(Arrays.asList("put a", "put b"), changes);
+        assertEquals(2, cache[0].entryCount());
+    }
+
+    @Test
+    public void slowListenerDoesNotBlockOtherThreads() throws InterruptedException {
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        final EntityCache cache = new EntityCache.Builder()
+                .setMaxEntries(10)
+                .addListener(new RecordingListener() {
+                    @Override
+                    public void onPut(Class<?> type, String id, Object entity) {
+                        if (id.equals("slow")) {
+                            entered.countDown();
+                            awaitQuietly(release);
+                        }
+
+                        super.onPut(type, id, entity);
+                    }
+                })
+                .build();
+
+        Thread slow = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                cache.intern(String.class, "slow", MODEL);
+            }
+        });
+        slow.start();
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        // The slow thread is delivering, so this returns without waiting and leaves its change to
+        // that thread.
+        cache.intern(String.class, "fast", MODEL);
+        assertEquals(2, cache.entryCount());
+        assertTrue(changes.isEmpty());
+
+        release.countDown();
+        slow.join(5000);
+
+        assertEquals(Arrays.asList("put slow", "put fast"), changes);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private class RecordingListener implements EntityCache.Listener {
+
+        @Override
+        public void onPut(Class<?> type, String id, Object entity) {
+            changes.add("put " + id);
+        }
+
+        @Override
+        public void onRemoved(Class<?> type, String id) {
+            changes.add("removed " + id);
+        }
+    }
+}
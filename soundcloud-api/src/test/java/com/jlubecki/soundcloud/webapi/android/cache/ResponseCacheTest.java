@@ -0,0 +1,157 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.cache;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class ResponseCacheTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final MockWebServer server = new MockWebServer();
+
+    private ResponseCache responseCache;
+    private OkHttpClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        server.start();
+
+        responseCache = new ResponseCache.Builder(folder.newFolder(), 1024 * 1024)
+                .addRule("users/*", 10, TimeUnit.MINUTES)
+                .setStaleWhileRevalidate(1, TimeUnit.HOURS)
+                .build();
+
+        OkHttpClient networkClient = new OkHttpClient.Builder()
+                .cache(responseCache.getCache())
+                .addNetworkInterceptor(responseCache.networkInterceptor())
+                .build();
+
+        client = networkClient.newBuilder()
+                .addInterceptor(responseCache.staleWhileRevalidateInterceptor(networkClient))
+                .build();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void missIsCountedOnce() throws IOException {
+        server.enqueue(new MockResponse().setBody("user"));
+
+        assertEquals("user", get("/users/1"));
+
+        assertEquals(1, server.getRequestCount());
+        assertEquals(1, responseCache.requestCount());
+        assertEquals(0, responseCache.hitCount());
+        assertEquals(1, responseCache.missCount());
+    }
+
+    @Test
+    public void freshResponseIsAHit() throws IOException {
+        server.enqueue(new MockResponse()
+                .setHeader("Cache-Control", "no-cache")
+                .setBody("user"));
+
+        assertEquals("user", get("/users/1"));
+        assertEquals("user", get("/users/1"));
+
+        assertEquals(1, server.getRequestCount());
+        assertEquals(2, responseCache.requestCount());
+        assertEquals(1, responseCache.hitCount());
+        assertEquals(1, responseCache.missCount());
+        assertEquals(0, responseCache.staleHitCount());
+    }
+
+    @Test
+    public void unmatchedEndpointIsNotCached() throws IOException {
+        server.enqueue(new MockResponse().setBody("first"));
+        server.enqueue(new MockResponse().setBody("second"));
+
+        assertEquals("first", get("/tracks/1"));
+        assertEquals("second", get("/tracks/1"));
+
+        assertEquals(2, server.getRequestCount());
+        assertEquals(0, responseCache.hitCount());
+        assertEquals(2, responseCache.missCount());
+    }
+
+    @Test
+    public void staleResponseIsServedWhileRevalidating() throws Exception {
+        // Already older than the ten minutes the rule allows.
+        server.enqueue(new MockResponse()
+                .setHeader("Age", "3600")
+                .setHeader("ETag", "\"v1\"")
+                .setBody("old"));
+        server.enqueue(new MockResponse()
+                .setResponseCode(304)
+                .setHeader("ETag", "\"v1\""));
+
+        assertEquals("old", get("/users/1"));
+        assertEquals("old", get("/users/1"));
+
+        RecordedRequest first = server.takeRequest();
+        assertNull(first.getHeader("If-None-Match"));
+
+        RecordedRequest revalidation = server.takeRequest(5, TimeUnit.SECONDS);
+        assertNotNull(revalidation);
+        assertEquals("\"v1\"", revalidation.getHeader("If-None-Match"));
+
+        assertEquals(1, responseCache.staleHitCount());
+        assertEquals(1, responseCache.revalidationCount());
+    }
+
+    private String get(String path) throws IOException {
+        Request request = new Request.Builder().url(server.url(path)).build();
+        Response response = client.newCall(request).execute();
+
+        try {
+            return response.body().string();
+        } finally {
+            response.body().close();
+        }
+    }
+}
@@ -0,0 +1,342 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.dedup;
+
+import com.jlubecki.soundcloud.webapi.android.metrics.MetricsSink;
+import com.jlubecki.soundcloud.webapi.android.metrics.RequestMetrics;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+import retrofit2.http.GET;
+import retrofit2.http.POST;
+import retrofit2.http.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RequestDeduplicatorTest {
+
+    private static final String ITEM = "{\"id\":\"1\",\"title\":\"Song\"}";
+
+    private final MockWebServer server = new MockWebServer();
+
+    private RequestDeduplicator deduplicator;
+    private Service service;
+
+    /**
+     * Run when a call joins a call in flight, between joining it and waiting for its result.
+     */
+    private volatile Runnable onShared;
+
+    interface Service {
+
+        @GET("items/{id}")
+        Call<Item> getItem(@Path("id") String id);
+
+        @GET("items/{id}")
+        Call<Summary> getSummary(@Path("id") String id);
+
+        @POST("items/{id}")
+        Call<Item> postItem(@Path("id") String id);
+    }
+
+    static class Item {
+        String id;
+        String title;
+    }
+
+    static class Summary {
+        String id;
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        server.start();
+
+        deduplicator = new RequestDeduplicator(new MetricsSink() {
+            @Override
+            public void onRequest(RequestMetrics metrics) {
+            }
+
+            @Override
+            public void onCount(String name, long delta) {
+                Runnable hook = onShared;
+
+                if (RequestDeduplicator.SHARED.equals(name) && hook != null) {
+                    hook.run();
+                }
+            }
+
+            @Override
+            public void onGauge(String name, long value) {
+            }
+        });
+
+        service = new Retrofit.Builder()
+                .baseUrl(server.url("/"))
+                .addConverterFactory(GsonConverterFactory.create())
+                .addCallAdapterFactory(deduplicator.callAdapterFactory())
+                .build()
+                .create(Service.class);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void concurrentCallsShareOneRequest() throws InterruptedException {
+        server.enqueue(slowItem());
+
+        RecordingCallback<Item> first = new RecordingCallback<>();
+        RecordingCallback<Item> second = new RecordingCallback<>();
+
+        service.getItem("1").enqueue(first);
+        service.getItem("1").enqueue(second);
+
+        first.await();
+        second.await();
+
+        assertEquals(1, server.getRequestCount());
+        assertEquals("Song", first.response.body().title);
+        assertSame(first.response.body(), second.response.body());
+        assertEquals(2, deduplicator.getRequestCount());
+        assertEquals(1, deduplicator.getSharedCount());
+    }
+
+    @Test
+    public void responseTypesDoNotShareRequests() throws InterruptedException {
+        server.enqueue(slowItem());
+        server.enqueue(slowItem());
+
+        RecordingCallback<Item> item = new RecordingCallback<>();
+        RecordingCallback<Summary> summary = new RecordingCallback<>();
+
+        service.getItem("1").enqueue(item);
+        service.getSummary("1").enqueue(summary);
+
+        item.await();
+        summary.await();
+
+        assertEquals(2, server.getRequestCount());
+        assertEquals(0, deduplicator.getSharedCount());
+
+        Item decodedItem = item.response.body();
+        Summary decodedSummary = summary.response.body();
+
+        assertEquals("Song", decodedItem.title);
+        assertEquals("1", decodedSummary.id);
+    }
+
+    @Test
+    public void cancellingOneParticipantKeepsTheRequest() throws InterruptedException {
+        server.enqueue(slowItem());
+
+        RecordingCallback<Item> kept = new RecordingCallback<>();
+        RecordingCallback<Item> cancelled = new RecordingCallback<>();
+
+        service.getItem("1").enqueue(kept);
+        Call<Item> call = service.getItem("1");
+        call.enqueue(cancelled);
+        call.cancel();
+
+        cancelled.await();
+        kept.await();
+
+        assertNotNull(cancelled.failure);
+        assertTrue(call.isCanceled());
+        assertEquals("Song", kept.response.body().title);
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void cancellingEveryParticipantEndsTheFlight() throws InterruptedException {
+        server.enqueue(slowItem());
+        server.enqueue(new MockResponse().setBody(ITEM));
+
+        RecordingCallback<Item> first = new RecordingCallback<>();
+        RecordingCallback<Item> second = new RecordingCallback<>();
+
+        Call<Item> firstCall = service.getItem("1");
+        Call<Item> secondCall = service.getItem("1");
+        firstCall.enqueue(first);
+        secondCall.enqueue(second);
+        firstCall.cancel();
+        secondCall.cancel();
+
+        first.await();
+        second.await();
+
+        assertNotNull(first.failure);
+        assertNotNull(second.failure);
+
+        // The cancelled flight is gone, so a new call makes its own request.
+        RecordingCallback<Item> later = new RecordingCallback<>();
+        service.getItem("1").enqueue(later);
+        later.await();
+
+        assertEquals("Song", later.response.body().title);
+        assertEquals(1, deduplicator.getSharedCount());
+    }
+
+    @Test
+    public void callJoiningCompletedFlightGetsItsResult() throws InterruptedException {
+        server.enqueue(slowItem());
+
+        final RecordingCallback<Item> leader = new RecordingCallback<>();
+        RecordingCallback<Item> joined = new RecordingCallback<>();
+
+        // Let the shared request complete after the second call joined it, but before it waits.
+        onShared = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    leader.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+
+        service.getItem("1").enqueue(leader);
+        service.getItem("1").enqueue(joined);
+
+        assertTrue(joined.latch.await(0, TimeUnit.SECONDS));
+        assertNull(joined.failure);
+        assertSame(leader.response.body(), joined.response.body());
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void executedCallJoiningCompletedFlightGetsItsResult() throws Exception {
+        server.enqueue(slowItem());
+
+        final RecordingCallback<Item> leader = new RecordingCallback<>();
+
+        onShared = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    leader.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+
+        service.getItem("1").enqueue(leader);
+        Response<Item> joined = service.getItem("1").execute();
+
+        assertSame(leader.response.body(), joined.body());
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void postIsNotDeduplicated() throws InterruptedException {
+        server.enqueue(slowItem());
+        server.enqueue(slowItem());
+
+        RecordingCallback<Item> first = new RecordingCallback<>();
+        RecordingCallback<Item> second = new RecordingCallback<>();
+
+        service.postItem("1").enqueue(first);
+        service.postItem("1").enqueue(second);
+
+        first.await();
+        second.await();
+
+        assertEquals(2, server.getRequestCount());
+        assertEquals(0, deduplicator.getRequestCount());
+    }
+
+    @Test
+    public void errorBodyIsCopiedForEveryParticipant() throws Exception {
+        server.enqueue(new MockResponse()
+                .setResponseCode(404)
+                .setBody("missing")
+                .setBodyDelay(300, TimeUnit.MILLISECONDS));
+
+        RecordingCallback<Item> first = new RecordingCallback<>();
+        RecordingCallback<Item> second = new RecordingCallback<>();
+
+        service.getItem("1").enqueue(first);
+        service.getItem("1").enqueue(second);
+
+        first.await();
+        second.await();
+
+        assertEquals(404, first.response.code());
+        assertEquals("missing", first.response.errorBody().string());
+        assertEquals("missing", second.response.errorBody().string());
+        assertEquals(1, server.getRequestCount());
+    }
+
+    /**
+     * Keeps the request in flight long enough for other calls to join it.
+     */
+    private static MockResponse slowItem() {
+        return new MockResponse().setBody(ITEM).setBodyDelay(300, TimeUnit.MILLISECONDS);
+    }
+
+    private static class RecordingCallback<T> implements Callback<T> {
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        volatile Response<T> response;
+        volatile Throwable failure;
+
+        @Override
+        public void onResponse(Call<T> call, Response<T> response) {
+            this.response = response;
+            latch.countDown();
+        }
+
+        @Override
+        public void onFailure(Call<T> call, Throwable t) {
+            this.failure = t;
+            latch.countDown();
+        }
+
+        void await() throws InterruptedException {
+            assertTrue("timed out", latch.await(5, TimeUnit.SECONDS));
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.json;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.jlubecki.soundcloud.webapi.android.cache.EntityCache;
+import com.jlubecki.soundcloud.webapi.android.models.Track;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class EntityInterningTest {
+
+    private EntityCache cache;
+    private Gson gson;
+
+    @Before
+    public void setUp() {
+        cache = new EntityCache.Builder().setMaxEntries(100).build();
+        gson = new GsonBuilder()
+                .registerTypeAdapterFactory(new ModelTypeAdapterFactory(cache))
+                .create();
+    }
+
+    @Test
+    public void unchangedEntityIsShared() {
+        Track first = gson.fromJson("{\"id\":\"1\",\"title\":\"Song\"}", Track.class);
+        Track second = gson.fromJson("{\"id\":\"1\",\"title\":\"Song\"}", Track.class);
+
+        assertSame(first, second);
+        assertEquals(0, cache.mergeCount());
+    }
+
+    @Test
+    public void lessDetailedEntityIsShared() {
+        Track full = gson.fromJson("{\"id\":\"1\",\"title\":\"Song\",\"genre\":\"House\"}",
+                Track.class);
+        Track partial = gson.fromJson("{\"id\":\"1\",\"title\":\"Song\"}", Track.class);
+
+        assertSame(full, partial);
+    }
+
+    @Test
+    public void changedEntityReplacesCachedInstance() {
+        Track first = gson.fromJson("{\"id\":\"1\",\"title\":\"Song\",\"genre\":\"House\"}",
+                Track.class);
+        Track second = gson.fromJson("{\"id\":\"1\",\"title\":\"Renamed\"}", Track.class);
+
+        assertNotSame(first, second);
+        assertEquals("Song", first.title);
+        assertEquals("Renamed", second.title);
+        assertEquals("House", second.genre);
+        assertSame(second, cache.get(Track.class, "1"));
+        assertEquals(1, cache.mergeCount());
+    }
+
+    @Test
+    public void missingBooleanKeepsCachedValue() {
+        gson.fromJson("{\"id\":\"1\",\"user_favorite\":true,\"streamable\":true}", Track.class);
+        Track anonymous = gson.fromJson("{\"id\":\"1\",\"title\":\"Song\"}", Track.class);
+
+        assertTrue(anonymous.user_favorite);
+        assertTrue(anonymous.is_streamable);
+    }
+
+    @Test
+    public void presentBooleanIsTaken() {
+        gson.fromJson("{\"id\":\"1\",\"user_favorite\":true}", Track.class);
+        Track unfavorited = gson.fromJson("{\"id\":\"1\",\"user_favorite\":false}", Track.class);
+
+        assertEquals(false, unfavorited.user_favorite);
+        assertEquals(false, cache.get(Track.class, "1").user_favorite);
+    }
+}
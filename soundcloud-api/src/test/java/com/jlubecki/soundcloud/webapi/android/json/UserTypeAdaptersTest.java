@@ -0,0 +1,96 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.json;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.jlubecki.soundcloud.webapi.android.models.User;
+import com.jlubecki.soundcloud.webapi.android.models.compact.CompactUser;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class UserTypeAdaptersTest {
+
+    private static final String USER = "{"
+            + "\"id\":\"42\","
+            + "\"permalink\":\"artist\","
+            + "\"username\":\"Artist\","
+            + "\"full_name\":\"Some Artist\","
+            + "\"city\":\"Berlin\","
+            + "\"discogs-name\":\"artist-discogs\","
+            + "\"myspace-name\":\"artist-myspace\","
+            + "\"website\":\"https://example.com\","
+            + "\"website-tile\":\"Home page\","
+            + "\"online\":true,"
+            + "\"track_count\":\"12\","
+            + "\"followers_count\":\"3000000000\""
+            + "}";
+
+    private final Gson gson = new GsonBuilder()
+            .registerTypeAdapterFactory(new ModelTypeAdapterFactory())
+            .create();
+
+    @Test
+    public void fullAndCompactDecodeTheSamePayload() {
+        User full = gson.fromJson(USER, User.class);
+        CompactUser compact = gson.fromJson(USER, CompactUser.class);
+
+        assertEquals("42", full.id);
+        assertEquals(42L, compact.id);
+        assertEquals(full.username, compact.username);
+        assertEquals(full.full_name, compact.full_name);
+        assertEquals(full.city, compact.city);
+        assertEquals(full.discogs_name, compact.discogs_name);
+        assertEquals(full.myspace_name, compact.myspace_name);
+        assertEquals(full.website, compact.website);
+        assertEquals("Home page", full.website_title);
+        assertEquals("Home page", compact.website_title);
+        assertTrue(full.is_online);
+        assertTrue(compact.is_online);
+        assertEquals("12", full.track_count);
+        assertEquals(12, compact.track_count);
+        assertEquals(3000000000L, compact.followers_count);
+    }
+
+    @Test
+    public void bothWebsiteTitleSpellingsAreRead() {
+        String corrected = USER.replace("website-tile", "website-title");
+
+        assertEquals("Home page", gson.fromJson(corrected, User.class).website_title);
+        assertEquals("Home page", gson.fromJson(corrected, CompactUser.class).website_title);
+    }
+
+    @Test
+    public void compactUserRoundTripsThroughTheFullModel() {
+        CompactUser compact = gson.fromJson(USER, CompactUser.class);
+        User full = gson.fromJson(gson.toJson(compact), User.class);
+
+        assertEquals("Home page", full.website_title);
+        assertEquals("artist-discogs", full.discogs_name);
+    }
+}
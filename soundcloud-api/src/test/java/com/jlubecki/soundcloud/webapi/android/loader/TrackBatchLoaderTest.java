@@ -0,0 +1,200 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.loader;
+
+import com.google.gson.GsonBuilder;
+import com.jlubecki.soundcloud.webapi.android.SoundCloudService;
+import com.jlubecki.soundcloud.webapi.android.json.ModelTypeAdapterFactory;
+import com.jlubecki.soundcloud.webapi.android.models.Track;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TrackBatchLoaderTest {
+
+    private final MockWebServer server = new MockWebServer();
+
+    private SoundCloudService service;
+
+    @Before
+    public void setUp() throws IOException {
+        server.start();
+
+        service = new Retrofit.Builder()
+                .baseUrl(server.url("/"))
+                .addConverterFactory(GsonConverterFactory.create(new GsonBuilder()
+                        .registerTypeAdapterFactory(new ModelTypeAdapterFactory())
+                        .create()))
+                .build()
+                .create(SoundCloudService.class);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void loadsWithinTheWindowShareOneRequest() throws Exception {
+        server.enqueue(new MockResponse().setBody("[{\"id\":\"1\"},{\"id\":\"3\"}]"));
+
+        TrackBatchLoader loader = new TrackBatchLoader.Builder(service)
+                .setBatchWindow(50, TimeUnit.MILLISECONDS)
+                .build();
+
+        List<? extends Future<Track>> futures = loader.loadAll(Arrays.asList("1", "2", "3"));
+
+        assertEquals("1", get(futures.get(0)).id);
+        assertNull("Missing tracks complete with null", get(futures.get(1)));
+        assertEquals("3", get(futures.get(2)).id);
+
+        RecordedRequest request = server.takeRequest();
+        assertEquals("1,2,3", query(request, "ids"));
+        assertEquals("3", query(request, "limit"));
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void fullBatchIsSentWithoutWaitingForTheWindow() throws Exception {
+        server.enqueue(new MockResponse().setBody("[{\"id\":\"1\"},{\"id\":\"2\"}]"));
+        server.enqueue(new MockResponse().setBody("[{\"id\":\"3\"}]"));
+
+        TrackBatchLoader loader = new TrackBatchLoader.Builder(service)
+                .setMaxBatchSize(2)
+                .setBatchWindow(1, TimeUnit.HOURS)
+                .build();
+
+        List<? extends Future<Track>> full = loader.loadAll(Arrays.asList("1", "2"));
+        Future<Track> next = loader.load("3");
+
+        assertEquals("2", get(full.get(1)).id);
+        assertEquals("1,2", query(server.takeRequest(), "ids"));
+        assertFalse("The next batch is still collecting", next.isDone());
+
+        loader.dispatch();
+
+        assertEquals("3", get(next).id);
+    }
+
+    @Test
+    public void loadOfAnIdInFlightJoinsItsRequest() throws Exception {
+        server.enqueue(new MockResponse()
+                .setBody("[{\"id\":\"1\"}]")
+                .setBodyDelay(200, TimeUnit.MILLISECONDS));
+
+        TrackBatchLoader loader = new TrackBatchLoader.Builder(service).build();
+
+        Future<Track> first = loader.load("1");
+        loader.dispatch();
+        server.takeRequest();
+        Future<Track> second = loader.load("1");
+
+        assertEquals("1", get(first).id);
+        assertEquals("1", get(second).id);
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void cancellingOneCallerLeavesTheOthers() throws Exception {
+        server.enqueue(new MockResponse().setBody("[{\"id\":\"1\"}]"));
+
+        TrackBatchLoader loader = new TrackBatchLoader.Builder(service)
+                .setBatchWindow(1, TimeUnit.HOURS)
+                .build();
+
+        Future<Track> cancelled = loader.load("1");
+        Future<Track> kept = loader.load("1");
+        cancelled.cancel(false);
+        loader.dispatch();
+
+        assertEquals("1", get(kept).id);
+        assertTrue(cancelled.isCancelled());
+    }
+
+    @Test
+    public void idCancelledByEveryCallerIsLeftOut() throws Exception {
+        server.enqueue(new MockResponse().setBody("[{\"id\":\"1\"}]"));
+
+        TrackBatchLoader loader = new TrackBatchLoader.Builder(service)
+                .setBatchWindow(1, TimeUnit.HOURS)
+                .build();
+
+        Future<Track> kept = loader.load("1");
+        loader.load("2").cancel(false);
+        loader.dispatch();
+
+        assertEquals("1", get(kept).id);
+        assertEquals("1", query(server.takeRequest(), "ids"));
+    }
+
+    @Test
+    public void failedBatchFailsEveryCaller() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(503));
+
+        TrackBatchLoader loader = new TrackBatchLoader.Builder(service)
+                .setBatchWindow(1, TimeUnit.HOURS)
+                .build();
+
+        List<? extends Future<Track>> futures = loader.loadAll(Arrays.asList("1", "2"));
+        loader.dispatch();
+
+        for (Future<Track> future : futures) {
+            try {
+                get(future);
+                fail("Expected the batch to fail");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof IOException);
+            }
+        }
+    }
+
+    private String query(RecordedRequest request, String name) {
+        return server.url(request.getPath()).queryParameter(name);
+    }
+
+    private static Track get(Future<Track> future) throws Exception {
+        return future.get(5, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.loader;
+
+import com.google.gson.GsonBuilder;
+import com.jlubecki.soundcloud.webapi.android.FutureSoundCloudService;
+import com.jlubecki.soundcloud.webapi.android.async.FutureCallAdapterFactory;
+import com.jlubecki.soundcloud.webapi.android.async.HttpException;
+import com.jlubecki.soundcloud.webapi.android.json.ModelTypeAdapterFactory;
+import com.jlubecki.soundcloud.webapi.android.loader.UserProfile.Part;
+import com.jlubecki.soundcloud.webapi.android.loader.UserProfileLoader.PartialResultPolicy;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class UserProfileLoaderTest {
+
+    private static final long DELAY_MILLIS = 300;
+
+    private final MockWebServer server = new MockWebServer();
+
+    /**
+     * Responses by path, without the query. Paths without one are answered with an empty list.
+     */
+    private final Map<String, MockResponse> responses = new ConcurrentHashMap<>();
+
+    private FutureSoundCloudService service;
+
+    @Before
+    public void setUp() throws IOException {
+        server.setDispatcher(new okhttp3.mockwebserver.Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                MockResponse response = responses.get(request.getPath().split("\\?")[0]);
+
+                return response != null ? response : new MockResponse().setBody("[]");
+            }
+        });
+        server.start();
+
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequestsPerHost(6);
+
+        service = new Retrofit.Builder()
+                .client(new OkHttpClient.Builder().dispatcher(dispatcher).build())
+                .baseUrl(server.url("/"))
+                .addConverterFactory(GsonConverterFactory.create(new GsonBuilder()
+                        .registerTypeAdapterFactory(new ModelTypeAdapterFactory())
+                        .create()))
+                .addCallAdapterFactory(FutureCallAdapterFactory.create())
+                .build()
+                .create(FutureSoundCloudService.class);
+
+        responses.put("/users/1", new MockResponse().setBody("{\"id\":\"1\"}"));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void partsAreLoadedInParallel() throws Exception {
+        for (String part : new String[]{"", "/tracks", "/playlists", "/followers",
+                "/followings", "/web-profiles"}) {
+            responses.put("/users/1" + part, new MockResponse()
+                    .setBody(part.isEmpty() ? "{\"id\":\"1\"}" : "[{\"id\":\"2\"}]")
+                    .setBodyDelay(DELAY_MILLIS, TimeUnit.MILLISECONDS));
+        }
+
+        UserProfileLoader loader = new UserProfileLoader.Builder(service)
+                .setListLimit(20)
+                .build();
+
+        long start = System.nanoTime();
+        UserProfile profile = loader.load("1").get(5, TimeUnit.SECONDS);
+        long elapsed = System.nanoTime() - start;
+
+        assertTrue(profile.isComplete());
+        assertEquals("1", profile.getUser().id);
+        assertEquals("2", profile.getTracks().get(0).id);
+        assertEquals("2", profile.getFollowings().get(0).id);
+        assertEquals(1, profile.getWebProfiles().size());
+        assertEquals(6, server.getRequestCount());
+        assertTrue("took " + elapsed,
+                elapsed < TimeUnit.MILLISECONDS.toNanos(DELAY_MILLIS * 3));
+    }
+
+    @Test
+    public void listLimitIsSentWithEveryList() throws Exception {
+        new UserProfileLoader.Builder(service)
+                .setListLimit(20)
+                .build()
+                .load("1")
+                .get(5, TimeUnit.SECONDS);
+
+        int limited = 0;
+
+        for (int i = 0; i < 6; i++) {
+            if (server.takeRequest().getPath().endsWith("?limit=20")) {
+                limited++;
+            }
+        }
+
+        assertEquals(4, limited);
+    }
+
+    @Test
+    public void allOrNothingFailsWithTheFirstFailure() throws Exception {
+        responses.put("/users/1/tracks", new MockResponse().setResponseCode(500));
+
+        try {
+            new UserProfileLoader.Builder(service).build().load("1").get(5, TimeUnit.SECONDS);
+            fail("Expected the profile to fail");
+        } catch (ExecutionException e) {
+            assertEquals(500, ((HttpException) e.getCause()).code());
+        }
+    }
+
+    @Test
+    public void allowPartialLeavesOutFailedParts() throws Exception {
+        responses.put("/users/1/tracks", new MockResponse().setResponseCode(500));
+
+        UserProfile profile = new UserProfileLoader.Builder(service)
+                .setPartialResultPolicy(PartialResultPolicy.ALLOW_PARTIAL)
+                .build()
+                .load("1")
+                .get(5, TimeUnit.SECONDS);
+
+        assertFalse(profile.isComplete());
+        assertEquals(EnumSet.of(Part.TRACKS), profile.getMissingParts());
+        assertEquals(500, ((HttpException) profile.getFailure(Part.TRACKS)).code());
+        assertEquals(Collections.emptyList(), profile.getTracks());
+        assertEquals("1", profile.getUser().id);
+    }
+
+    @Test
+    public void allowPartialStillRequiresTheUser() throws Exception {
+        responses.put("/users/1", new MockResponse().setResponseCode(404));
+
+        try {
+            new UserProfileLoader.Builder(service)
+                    .setPartialResultPolicy(PartialResultPolicy.ALLOW_PARTIAL)
+                    .build()
+                    .load("1")
+                    .get(5, TimeUnit.SECONDS);
+            fail("Expected the profile to fail");
+        } catch (ExecutionException e) {
+            assertEquals(404, ((HttpException) e.getCause()).code());
+        }
+    }
+
+    @Test
+    public void allOrNothingFailsAtTheDeadline() throws Exception {
+        responses.put("/users/1/followers", new MockResponse()
+                .setBody("[]")
+                .setBodyDelay(2, TimeUnit.SECONDS));
+
+        long start = System.nanoTime();
+
+        try {
+            new UserProfileLoader.Builder(service)
+                    .setDeadline(DELAY_MILLIS, TimeUnit.MILLISECONDS)
+                    .build()
+                    .load("1")
+                    .get(5, TimeUnit.SECONDS);
+            fail("Expected the profile to time out");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+
+        long elapsed = System.nanoTime() - start;
+        assertTrue("took " + elapsed, elapsed < TimeUnit.SECONDS.toNanos(2));
+    }
+
+    @Test
+    public void allowPartialDropsPartsMissingTheDeadline() throws Exception {
+        responses.put("/users/1/followers", new MockResponse()
+                .setBody("[]")
+                .setBodyDelay(2, TimeUnit.SECONDS));
+
+        long start = System.nanoTime();
+        UserProfile profile = new UserProfileLoader.Builder(service)
+                .setPartialResultPolicy(PartialResultPolicy.ALLOW_PARTIAL)
+                .setDeadline(DELAY_MILLIS, TimeUnit.MILLISECONDS)
+                .build()
+                .load("1")
+                .get(5, TimeUnit.SECONDS);
+        long elapsed = System.nanoTime() - start;
+
+        assertEquals(EnumSet.of(Part.FOLLOWERS), profile.getMissingParts());
+        assertTrue(profile.getFailure(Part.FOLLOWERS) instanceof TimeoutException);
+        assertTrue("took " + elapsed, elapsed < TimeUnit.SECONDS.toNanos(2));
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.metrics;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void emptyHistogramReportsZero() {
+        LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+
+        assertEquals(0, snapshot.count());
+        assertEquals(0, snapshot.minNanos());
+        assertEquals(0, snapshot.meanNanos());
+        assertEquals(0, snapshot.percentileNanos(99));
+    }
+
+    @Test
+    public void smallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        for (int micros = 1; micros <= 50; micros++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(micros));
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(25), snapshot.percentileNanos(50));
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(45), snapshot.percentileNanos(90));
+    }
+
+    @Test
+    public void percentilesAreWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        for (int millis = 1; millis <= 1000; millis++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertEquals(1000, snapshot.count());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(1), snapshot.minNanos());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(1000), snapshot.maxNanos());
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(500500), snapshot.meanNanos());
+
+        assertWithin(TimeUnit.MILLISECONDS.toNanos(500), snapshot.percentileNanos(50));
+        assertWithin(TimeUnit.MILLISECONDS.toNanos(900), snapshot.percentileNanos(90));
+        assertWithin(TimeUnit.MILLISECONDS.toNanos(990), snapshot.percentileNanos(99));
+        assertEquals(snapshot.maxNanos(), snapshot.percentileNanos(100));
+        assertWithin(snapshot.minNanos(), snapshot.percentileNanos(0));
+    }
+
+    @Test
+    public void negativeDurationsAreIgnored() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-1);
+
+        assertEquals(0, histogram.snapshot().count());
+    }
+
+    /**
+     * Buckets above 64 microseconds have 32 sub-buckets per power of two, so a percentile is at
+     * most about 1/32 above the recorded value.
+     */
+    private static void assertWithin(long expected, long actual) {
+        assertEquals(expected, actual, expected / 32.0);
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.playback;
+
+import com.jlubecki.soundcloud.webapi.android.models.Track;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+public class PlayQueueTest {
+
+    private PlayQueue queue;
+    private List<Track> tracks;
+
+    @Before
+    public void setUp() {
+        queue = new PlayQueue(new Random(42));
+        tracks = new ArrayList<>();
+
+        for (int i = 0; i < 10; i++) {
+            tracks.add(track(String.valueOf(i)));
+        }
+    }
+
+    @Test
+    public void insertNextPlaysAfterCurrent() {
+        queue.setTracks(tracks, 3);
+
+        Track inserted = track("next");
+        queue.insertNext(inserted);
+
+        assertEquals(11, queue.size());
+        assertEquals(3, queue.getPosition());
+        assertSame(tracks.get(3), queue.getCurrent());
+        assertSame(inserted, queue.peekNext());
+        assertSame(tracks.get(4), queue.get(5));
+    }
+
+    @Test
+    public void insertNextWhileShuffledStaysNextAndKeepsOrder() {
+        queue.setTracks(tracks, 3);
+        queue.setShuffled(true);
+
+        Track inserted = track("next");
+        queue.insertNext(inserted);
+
+        assertSame(tracks.get(3), queue.getCurrent());
+        assertSame(inserted, queue.peekNext());
+
+        queue.setShuffled(false);
+
+        // The track follows the current one in the unshuffled order as well.
+        assertEquals(3, queue.getPosition());
+        assertSame(inserted, queue.get(4));
+        assertEquals(ids("0", "1", "2", "3", "next", "4", "5", "6", "7", "8", "9"), ids(queue));
+    }
+
+    @Test
+    public void insertNextIntoEmptyQueue() {
+        Track inserted = track("next");
+        queue.insertNext(inserted);
+
+        assertEquals(-1, queue.getPosition());
+        assertSame(inserted, queue.peekNext());
+    }
+
+    @Test
+    public void removeBeforeCurrentKeepsCurrent() {
+        queue.setTracks(tracks, 5);
+
+        assertSame(tracks.get(2), queue.remove(2));
+        assertEquals(4, queue.getPosition());
+        assertSame(tracks.get(5), queue.getCurrent());
+    }
+
+    @Test
+    public void removeAfterCurrentKeepsPosition() {
+        queue.setTracks(tracks, 5);
+
+        queue.remove(7);
+
+        assertEquals(5, queue.getPosition());
+        assertSame(tracks.get(8), queue.get(7));
+    }
+
+    @Test
+    public void removeCurrentContinuesWithFollowingTrack() {
+        queue.setTracks(tracks, 5);
+
+        queue.remove(5);
+
+        assertEquals(4, queue.getPosition());
+        assertSame(tracks.get(6), queue.peekNext());
+    }
+
+    @Test
+    public void removeWhileShuffledKeepsOrder() {
+        queue.setTracks(tracks, 0);
+        queue.setShuffled(true);
+
+        Track removed = queue.remove(4);
+        queue.setShuffled(false);
+
+        List<String> expected = ids(queue);
+        List<String> remaining = new ArrayList<>();
+
+        for (Track track : tracks) {
+            if (track != removed) {
+                remaining.add(track.id);
+            }
+        }
+
+        assertEquals(remaining, expected);
+    }
+
+    @Test
+    public void shuffleKeepsCurrentFirstAndRestoresOrder() {
+        queue.setTracks(tracks, 6);
+        List<String> unshuffled = ids(queue);
+
+        queue.setShuffled(true);
+
+        assertEquals(0, queue.getPosition());
+        assertSame(tracks.get(6), queue.getCurrent());
+        assertNotEquals(unshuffled, ids(queue));
+
+        List<String> shuffled = ids(queue);
+        Collections.sort(shuffled);
+        List<String> sorted = new ArrayList<>(unshuffled);
+        Collections.sort(sorted);
+        assertEquals(sorted, shuffled);
+
+        queue.setShuffled(false);
+
+        assertEquals(6, queue.getPosition());
+        assertEquals(unshuffled, ids(queue));
+    }
+
+    @Test
+    public void seededShuffleIsReproducible() {
+        PlayQueue other = new PlayQueue(new Random(42));
+
+        queue.setTracks(tracks, -1);
+        other.setTracks(tracks, -1);
+        queue.setShuffled(true);
+        other.setShuffled(true);
+
+        assertEquals(ids(other), ids(queue));
+    }
+
+    @Test
+    public void repeatModes() {
+        queue.setTracks(tracks, 9);
+
+        assertEquals(-1, queue.getNextPosition());
+
+        queue.setRepeatMode(PlayQueue.RepeatMode.ALL);
+        assertEquals(0, queue.getNextPosition());
+        assertEquals(ids("0", "1"), idsOf(queue.getUpcoming(2)));
+
+        queue.setRepeatMode(PlayQueue.RepeatMode.ONE);
+        assertEquals(9, queue.getNextPosition());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void removeOutOfRangeThrows() {
+        queue.setTracks(tracks, 0);
+        queue.remove(10);
+    }
+
+    private static Track track(String id) {
+        Track track = new Track();
+        track.id = id;
+
+        return track;
+    }
+
+    private static List<String> ids(String... ids) {
+        return Arrays.asList(ids);
+    }
+
+    private static List<String> ids(PlayQueue queue) {
+        List<String> ids = new ArrayList<>();
+
+        for (int i = 0; i < queue.size(); i++) {
+            ids.add(queue.get(i).id);
+        }
+
+        return ids;
+    }
+
+    private static List<String> idsOf(List<Track> tracks) {
+        List<String> ids = new ArrayList<>();
+
+        for (Track track : tracks) {
+            ids.add(track.id);
+        }
+
+        return ids;
+    }
+}
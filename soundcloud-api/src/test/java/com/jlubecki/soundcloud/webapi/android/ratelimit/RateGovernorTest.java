@@ -0,0 +1,237 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.ratelimit;
+
+import com.jlubecki.soundcloud.webapi.android.cache.ResponseCache;
+import com.jlubecki.soundcloud.webapi.android.metrics.InMemoryMetricsSink;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RateGovernorTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final MockWebServer server = new MockWebServer();
+    private final InMemoryMetricsSink sink = new InMemoryMetricsSink();
+
+    @Before
+    public void setUp() throws IOException {
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void retryAfterSecondsIsHonoredOn429() throws IOException {
+        OkHttpClient client = client(new RateGovernor.Builder().build());
+
+        server.enqueue(new MockResponse().setResponseCode(429).setHeader("Retry-After", "1"));
+        server.enqueue(new MockResponse().setBody("ok"));
+
+        long start = System.nanoTime();
+        Response response = get(client);
+        long elapsed = System.nanoTime() - start;
+
+        assertEquals(200, response.code());
+        assertEquals(2, server.getRequestCount());
+        assertTrue("waited " + elapsed, elapsed >= TimeUnit.MILLISECONDS.toNanos(900));
+        assertEquals(Long.valueOf(1), sink.snapshot().counters().get(RateGovernor.THROTTLED));
+        assertEquals(Long.valueOf(1), sink.snapshot().counters().get(RateGovernor.RETRIES));
+    }
+
+    @Test
+    public void retryAfterDateIsHonoredOn429() throws IOException {
+        OkHttpClient client = client(new RateGovernor.Builder().build());
+
+        SimpleDateFormat format =
+                new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("GMT"));
+        String retryAt = format.format(new Date(System.currentTimeMillis() + 2000));
+
+        server.enqueue(new MockResponse().setResponseCode(429).setHeader("Retry-After", retryAt));
+        server.enqueue(new MockResponse().setBody("ok"));
+
+        long start = System.nanoTime();
+        Response response = get(client);
+        long elapsed = System.nanoTime() - start;
+
+        assertEquals(200, response.code());
+        // The date has whole seconds, so at least one of the two seconds is left.
+        assertTrue("waited " + elapsed, elapsed >= TimeUnit.MILLISECONDS.toNanos(900));
+    }
+
+    @Test
+    public void serverErrorIsRetriedWithJitteredBackoff() throws IOException {
+        OkHttpClient client = client(new RateGovernor.Builder()
+                .setBackoff(200, 200, TimeUnit.MILLISECONDS)
+                .build());
+
+        for (int i = 0; i < 3; i++) {
+            server.enqueue(new MockResponse().setResponseCode(503));
+        }
+        server.enqueue(new MockResponse().setBody("ok"));
+
+        long start = System.nanoTime();
+        Response response = get(client);
+        long elapsed = System.nanoTime() - start;
+
+        assertEquals(200, response.code());
+        assertEquals(4, server.getRequestCount());
+        assertEquals(Long.valueOf(3), sink.snapshot().counters().get(RateGovernor.RETRIES));
+
+        // Each of the three backoffs is somewhere below its 200 ms ceiling.
+        assertTrue("waited " + elapsed, elapsed < TimeUnit.MILLISECONDS.toNanos(600 + 500));
+    }
+
+    @Test
+    public void otherMethodsAreNotRetried() throws IOException {
+        OkHttpClient client = client(new RateGovernor.Builder().build());
+
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setBody("ok"));
+
+        Response response = client.newCall(new Request.Builder()
+                .url(server.url("/tracks"))
+                .post(RequestBody.create(MediaType.parse("text/plain"), "body"))
+                .build()).execute();
+        response.body().close();
+
+        assertEquals(503, response.code());
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void retriesStopAtMaxRetries() throws IOException {
+        OkHttpClient client = client(new RateGovernor.Builder()
+                .setMaxRetries(2)
+                .setBackoff(1, 1, TimeUnit.MILLISECONDS)
+                .build());
+
+        for (int i = 0; i < 4; i++) {
+            server.enqueue(new MockResponse().setResponseCode(503));
+        }
+
+        Response response = get(client);
+
+        assertEquals(503, response.code());
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    public void longerRetryAfterThanMaximumIsReturned() throws IOException {
+        OkHttpClient client = client(new RateGovernor.Builder()
+                .setMaxRetryAfter(1, TimeUnit.SECONDS)
+                .build());
+
+        server.enqueue(new MockResponse().setResponseCode(503).setHeader("Retry-After", "120"));
+        server.enqueue(new MockResponse().setBody("ok"));
+
+        long start = System.nanoTime();
+        Response response = get(client);
+        long elapsed = System.nanoTime() - start;
+
+        assertEquals(503, response.code());
+        assertEquals(1, server.getRequestCount());
+        assertTrue("waited " + elapsed, elapsed < TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    public void cacheProbesNeitherTakePermitsNorRetry() throws IOException {
+        ResponseCache responseCache = new ResponseCache.Builder(folder.newFolder(), 1024 * 1024)
+                .addRule("users/*", 10, TimeUnit.MINUTES)
+                .setStaleWhileRevalidate(1, TimeUnit.HOURS)
+                .build();
+
+        OkHttpClient networkClient = new OkHttpClient.Builder()
+                .cache(responseCache.getCache())
+                .addNetworkInterceptor(responseCache.networkInterceptor())
+                .build();
+
+        // The same order as SoundCloudAPI: the governor runs after stale-while-revalidate.
+        OkHttpClient client = networkClient.newBuilder()
+                .addInterceptor(responseCache.staleWhileRevalidateInterceptor(networkClient))
+                .addInterceptor(new RateGovernor.Builder().setRate(0.1, 1).build()
+                        .interceptor(sink))
+                .build();
+
+        server.enqueue(new MockResponse().setBody("user"));
+
+        long start = System.nanoTime();
+        Response response = client.newCall(new Request.Builder()
+                .url(server.url("/users/1?client_id=test"))
+                .build()).execute();
+        long elapsed = System.nanoTime() - start;
+
+        assertEquals("user", response.body().string());
+        assertEquals(1, server.getRequestCount());
+        assertEquals(1, responseCache.requestCount());
+        assertNull(sink.snapshot().counters().get(RateGovernor.RETRIES));
+
+        // A single permit every ten seconds, so a probe taking it would have delayed the GET.
+        assertTrue("waited " + elapsed, elapsed < TimeUnit.SECONDS.toNanos(5));
+    }
+
+    private OkHttpClient client(RateGovernor governor) {
+        return new OkHttpClient.Builder()
+                .addInterceptor(governor.interceptor(sink))
+                .build();
+    }
+
+    private Response get(OkHttpClient client) throws IOException {
+        Response response = client.newCall(new Request.Builder()
+                .url(server.url("/tracks?client_id=test"))
+                .build()).execute();
+        response.body().close();
+
+        return response;
+    }
+}
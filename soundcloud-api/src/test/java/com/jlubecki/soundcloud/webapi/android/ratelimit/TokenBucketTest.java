@@ -0,0 +1,107 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.ratelimit;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TokenBucketTest {
+
+    @Test
+    public void burstIsAvailableImmediately() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(1, 5);
+        long start = System.nanoTime();
+
+        for (int i = 0; i < 5; i++) {
+            bucket.acquire(null);
+        }
+
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500));
+    }
+
+    @Test
+    public void emptyBucketWaitsForRefill() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(20, 1);
+        bucket.acquire(null);
+
+        long start = System.nanoTime();
+        bucket.acquire(null);
+        long waited = System.nanoTime() - start;
+
+        // One permit every 50 ms.
+        assertTrue("waited " + waited, waited >= TimeUnit.MILLISECONDS.toNanos(40));
+    }
+
+    @Test
+    public void pauseBlocksUntilDeadline() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(1000, 10);
+        long start = System.nanoTime();
+
+        bucket.pauseUntil(start + TimeUnit.MILLISECONDS.toNanos(100));
+        bucket.acquire(null);
+
+        long waited = System.nanoTime() - start;
+        assertTrue("waited " + waited, waited >= TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    @Test
+    public void earlierPauseDoesNotShortenLaterOne() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(1000, 10);
+        long start = System.nanoTime();
+
+        bucket.pauseUntil(start + TimeUnit.MILLISECONDS.toNanos(100));
+        bucket.pauseUntil(start + TimeUnit.MILLISECONDS.toNanos(10));
+        bucket.acquire(null);
+
+        long waited = System.nanoTime() - start;
+        assertTrue("waited " + waited, waited >= TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    @Test
+    public void queueDepthIsReportedWhileWaiting() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(20, 1);
+        final List<Integer> depths = new ArrayList<>();
+
+        TokenBucket.QueueListener listener = new TokenBucket.QueueListener() {
+            @Override
+            public void onQueueDepth(int depth) {
+                depths.add(depth);
+            }
+        };
+
+        bucket.acquire(listener);
+        bucket.acquire(listener);
+
+        assertEquals(Arrays.asList(1, 0), depths);
+        assertEquals(0, bucket.waiting());
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.search;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PostingListTest {
+
+    @Test
+    public void postingsRoundTrip() {
+        int[] docs = {0, 1, 2, 127, 128, 300, 16384, 16385, 2000000, Integer.MAX_VALUE};
+        PostingList list = new PostingList();
+
+        for (int i = 0; i < docs.length; i++) {
+            list.add(docs[i], i % 8);
+        }
+
+        assertEquals(docs.length, list.count());
+
+        PostingList.Cursor cursor = list.cursor();
+
+        for (int i = 0; i < docs.length; i++) {
+            assertTrue(cursor.next());
+            assertEquals(docs[i], cursor.doc());
+            assertEquals(i % 8, cursor.fields());
+        }
+
+        assertFalse(cursor.next());
+    }
+
+    @Test
+    public void repeatedDocumentAddsFields() {
+        PostingList list = new PostingList();
+        list.add(5, 1);
+        list.add(5, 4);
+        list.add(9, 2);
+
+        List<Integer> fields = new ArrayList<>();
+        PostingList.Cursor cursor = list.cursor();
+
+        while (cursor.next()) {
+            fields.add(cursor.fields());
+        }
+
+        assertEquals(2, list.count());
+        assertEquals(Arrays.asList(5, 2), fields);
+    }
+
+    @Test
+    public void emptyList() {
+        PostingList list = new PostingList();
+
+        assertEquals(0, list.count());
+        assertFalse(list.cursor().next());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decreasingDocumentIsRejected() {
+        PostingList list = new PostingList();
+        list.add(10, 0);
+        list.add(9, 0);
+    }
+}
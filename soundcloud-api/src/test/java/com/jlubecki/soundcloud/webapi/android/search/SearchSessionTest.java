@@ -0,0 +1,258 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.search;
+
+import com.google.gson.GsonBuilder;
+import com.jlubecki.soundcloud.webapi.android.SoundCloudService;
+import com.jlubecki.soundcloud.webapi.android.json.ModelTypeAdapterFactory;
+import com.jlubecki.soundcloud.webapi.android.models.User;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SearchSessionTest {
+
+    private static final String DA = "[{\"id\":\"1\",\"username\":\"Daft Punk\"},"
+            + "{\"id\":\"2\",\"username\":\"David Guetta\"}]";
+
+    private final MockWebServer server = new MockWebServer();
+
+    /**
+     * Responses by query. Other queries are answered with no results.
+     */
+    private final Map<String, MockResponse> responses = new ConcurrentHashMap<>();
+
+    private final BlockingQueue<Results> results = new LinkedBlockingQueue<>();
+
+    private SoundCloudService service;
+
+    @Before
+    public void setUp() throws IOException {
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                MockResponse response = responses.get(query(request));
+
+                return response != null ? response : new MockResponse().setBody("[]");
+            }
+        });
+        server.start();
+
+        service = new Retrofit.Builder()
+                .baseUrl(server.url("/"))
+                .addConverterFactory(GsonConverterFactory.create(new GsonBuilder()
+                        .registerTypeAdapterFactory(new ModelTypeAdapterFactory())
+                        .create()))
+                .build()
+                .create(SoundCloudService.class);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void onlyTheQueryThatStoppedChangingIsSent() throws Exception {
+        SearchSession<User> session = session(100, 50);
+
+        session.setQuery("d");
+        session.setQuery("da");
+        session.setQuery("daf");
+
+        assertEquals("daf", next().query);
+        assertEquals("daf", query(server.takeRequest()));
+        assertEquals(1, session.getRequestCount());
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void supersededResponseIsNeverDelivered() throws Exception {
+        responses.put("slow", new MockResponse()
+                .setBody(DA)
+                .setBodyDelay(500, TimeUnit.MILLISECONDS));
+
+        SearchSession<User> session = session(0, 50);
+
+        session.setQuery("slow");
+        assertEquals("slow", query(server.takeRequest()));
+        session.setQuery("fast");
+
+        assertEquals("fast", next().query);
+        assertNull("The cancelled query delivered results",
+                results.poll(700, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void cancelDropsThePendingQuery() throws Exception {
+        SearchSession<User> session = session(100, 50);
+
+        session.setQuery("da");
+        session.cancel();
+
+        assertEquals("", session.getQuery());
+        assertNull(results.poll(300, TimeUnit.MILLISECONDS));
+        assertEquals(0, server.getRequestCount());
+
+        // The query was reset, so setting the same text searches again.
+        session.setQuery("da");
+
+        assertEquals("da", next().query);
+    }
+
+    @Test
+    public void completeResultsAreRefinedWithoutARequest() throws Exception {
+        responses.put("da", new MockResponse().setBody(DA));
+
+        SearchSession<User> session = session(0, 50);
+
+        session.setQuery("da");
+        assertEquals(2, next().users.size());
+
+        session.setQuery("daf");
+        Results refined = next();
+
+        assertTrue(refined.settled);
+        assertEquals(Arrays.asList("Daft Punk"), refined.usernames());
+        assertEquals(1, session.getRefinedCount());
+        assertEquals(1, session.getRequestCount());
+    }
+
+    @Test
+    public void incompleteResultsAreRefinedThenReplaced() throws Exception {
+        responses.put("da", new MockResponse().setBody(DA));
+        responses.put("dav", new MockResponse().setBody(
+                "[{\"id\":\"2\",\"username\":\"David Guetta\"},"
+                        + "{\"id\":\"3\",\"username\":\"Dave\"}]"));
+
+        // Two results fill a page, so there may be more that weren't returned.
+        SearchSession<User> session = session(0, 2);
+
+        session.setQuery("da");
+        next();
+        session.setQuery("dav");
+
+        Results refined = next();
+        assertFalse(refined.settled);
+        assertEquals(Arrays.asList("David Guetta"), refined.usernames());
+
+        Results settled = next();
+        assertTrue(settled.settled);
+        assertEquals(Arrays.asList("David Guetta", "Dave"), settled.usernames());
+        assertEquals(2, session.getRequestCount());
+    }
+
+    @Test
+    public void deletingCharactersIsAnsweredFromTheCache() throws Exception {
+        responses.put("da", new MockResponse().setBody(DA));
+
+        SearchSession<User> session = session(0, 50);
+
+        session.setQuery("da");
+        next();
+        session.setQuery("daf");
+        next();
+        session.setQuery("da");
+
+        assertEquals(2, next().users.size());
+        assertEquals(1, session.getCacheHitCount());
+        assertEquals(1, server.getRequestCount());
+    }
+
+    private SearchSession<User> session(long debounceMillis, int pageSize) {
+        return SearchSession.users(service)
+                .setDebounce(debounceMillis, TimeUnit.MILLISECONDS)
+                .setPageSize(pageSize)
+                .setListener(new SearchSession.Listener<User>() {
+                    @Override
+                    public void onResults(String query, List<User> users, boolean settled) {
+                        results.add(new Results(query, users, settled));
+                    }
+
+                    @Override
+                    public void onError(String query, Throwable t) {
+                        throw new AssertionError(t);
+                    }
+                })
+                .build();
+    }
+
+    private Results next() throws InterruptedException {
+        Results next = results.poll(5, TimeUnit.SECONDS);
+        assertTrue("timed out", next != null);
+
+        return next;
+    }
+
+    private String query(RecordedRequest request) {
+        return server.url(request.getPath()).queryParameter("q");
+    }
+
+    private static final class Results {
+
+        final String query;
+        final List<User> users;
+        final boolean settled;
+
+        Results(String query, List<User> users, boolean settled) {
+            this.query = query;
+            this.users = users;
+            this.settled = settled;
+        }
+
+        List<String> usernames() {
+            List<String> usernames = new ArrayList<>();
+
+            for (User user : users) {
+                usernames.add(user.username);
+            }
+
+            return usernames;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.search;
+
+import com.jlubecki.soundcloud.webapi.android.models.Track;
+import com.jlubecki.soundcloud.webapi.android.query.TrackQuery;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class TrackTableTest {
+
+    private TrackTable table;
+
+    @Before
+    public void setUp() {
+        table = new TrackTable();
+        table.addAll(Arrays.asList(
+                track("1", "Deep House Morning", "120", "500", "30", "2016/01/01 10:00:00 +0000",
+                        "public", "cc-by"),
+                track("2", "Deeper Still", "126", "2000", "10", "2016/03/01 10:00:00 +0000",
+                        "public", "all-rights-reserved"),
+                track("3", "Morning Techno", "130", "1000", "50", "2016/02/01 10:00:00 +0000",
+                        "private", "cc-by"),
+                track("4", "No Tempo", null, "10", "5", "2015/12/01 10:00:00 +0000",
+                        "public", "cc-by")));
+    }
+
+    @Test
+    public void noQuerySelectsEveryTrackInOrder() {
+        assertEquals(4, table.size());
+        assertEquals(Arrays.asList("1", "2", "3", "4"), ids(table.select(null, null, 10)));
+    }
+
+    @Test
+    public void textMatchesWordPrefixes() {
+        TrackQuery query = new TrackQuery.Builder().setQuery("deep").build();
+
+        assertEquals(Arrays.asList("1", "2"), ids(table.select(query, null, 10)));
+        assertEquals(1, table.count(new TrackQuery.Builder().setQuery("deep morn").build()));
+    }
+
+    @Test
+    public void rangesIncludeBothEndsAndExcludeMissingValues() {
+        TrackQuery query = new TrackQuery.Builder().setBpmLimits(120, 126).build();
+
+        assertEquals(Arrays.asList("1", "2"), ids(table.select(query, null, 10)));
+    }
+
+    @Test
+    public void creationDateRange() {
+        TrackQuery query = new TrackQuery.Builder()
+                .setCreationDateLimits("2016-01-15 00:00:00", "2016-03-01 10:00:00")
+                .build();
+
+        assertEquals(Arrays.asList("2", "3"), ids(table.select(query, null, 10)));
+    }
+
+    @Test
+    public void sharingAndLicenseMustMatch() {
+        TrackQuery query = new TrackQuery.Builder()
+                .setFilter(Track.Filter.PUBLIC)
+                .setLicense(Track.License.CC_ATTRIBUTION)
+                .build();
+
+        assertEquals(Arrays.asList("1", "4"), ids(table.select(query, null, 10)));
+    }
+
+    @Test
+    public void sorts() {
+        assertEquals(Arrays.asList("2", "3", "1", "4"),
+                ids(table.select(null, TrackTable.Sort.MOST_PLAYED, 10)));
+        assertEquals(Arrays.asList("3", "1", "2", "4"),
+                ids(table.select(null, TrackTable.Sort.MOST_FAVORITED, 10)));
+        assertEquals(Arrays.asList("2", "3", "1", "4"),
+                ids(table.select(null, TrackTable.Sort.NEWEST, 10)));
+        assertEquals(Arrays.asList("4", "1"),
+                ids(table.select(null, TrackTable.Sort.OLDEST, 2)));
+    }
+
+    @Test
+    public void filterAndSortTogether() {
+        TrackQuery query = new TrackQuery.Builder().setQuery("morning").build();
+
+        assertEquals(Arrays.asList("3", "1"),
+                ids(table.select(query, TrackTable.Sort.MOST_PLAYED, 10)));
+    }
+
+    @Test
+    public void changedTrackReplacesEarlierVersion() {
+        table.add(track("4", "No Tempo", null, "9000", "5", "2015/12/01 10:00:00 +0000",
+                "public", "cc-by"));
+
+        assertEquals(4, table.size());
+        assertEquals(Arrays.asList("4", "2"),
+                ids(table.select(null, TrackTable.Sort.MOST_PLAYED, 2)));
+
+        table.remove("2");
+
+        assertEquals(Arrays.asList("1", "3", "4"), ids(table.select(null, null, 10)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeLimitIsRejected() {
+        table.select(null, null, -1);
+    }
+
+    private static Track track(String id, String title, String bpm, String playbackCount,
+                               String favoritingsCount, String createdAt, String sharing,
+                               String license) {
+        Track track = new Track();
+        track.id = id;
+        track.title = title;
+        track.bpm = bpm;
+        track.playback_count = playbackCount;
+        track.favoritings_count = favoritingsCount;
+        track.created_at = createdAt;
+        track.sharing = sharing;
+        track.license = license;
+
+        return track;
+    }
+
+    private static List<String> ids(List<Track> tracks) {
+        List<String> ids = new ArrayList<>();
+
+        for (Track track : tracks) {
+            ids.add(track.id);
+        }
+
+        return ids;
+    }
+}
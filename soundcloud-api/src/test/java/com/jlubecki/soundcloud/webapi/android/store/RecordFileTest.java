@@ -0,0 +1,177 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.store;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RecordFileTest {
+
+    private static final int VERSION = 1;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File file;
+    private RecordFile records;
+
+    @Before
+    public void setUp() throws IOException {
+        file = new File(folder.getRoot(), "records");
+        records = new RecordFile(file, VERSION);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        records.close();
+    }
+
+    @Test
+    public void recordsSurviveReopening() throws IOException {
+        records.write("a", payload("a", "first"));
+        records.write("b", payload("b", "second"));
+        records.write("a", payload("a", "updated"));
+        records.remove("b", payload("b"));
+
+        reopen();
+
+        assertEquals(Collections.singletonList("a"), records.ids());
+        assertEquals(ByteBuffer.wrap(payload("a", "updated")), records.read("a"));
+        assertNull(records.read("b"));
+        assertTrue(records.deadBytes() > 0);
+    }
+
+    @Test
+    public void unchangedRecordIsNotWritten() throws IOException {
+        assertTrue(records.write("a", payload("a", "first")));
+        long length = file.length();
+
+        assertFalse(records.write("a", payload("a", "first")));
+        assertEquals(length, file.length());
+    }
+
+    @Test
+    public void partialRecordIsTruncated() throws IOException {
+        records.write("a", payload("a", "first"));
+        records.write("b", payload("b", "second"));
+        records.close();
+
+        long length = file.length();
+
+        // A record header promising more bytes than were written.
+        append(ByteBuffer.allocate(8).putInt(100).put((byte) 1).array());
+
+        records = new RecordFile(file, VERSION);
+
+        assertEquals(Arrays.asList("a", "b"), records.ids());
+        assertEquals(length, file.length());
+
+        records.write("c", payload("c", "third"));
+        reopen();
+
+        assertEquals(Arrays.asList("a", "b", "c"), records.ids());
+        assertEquals(ByteBuffer.wrap(payload("c", "third")), records.read("c"));
+    }
+
+    @Test
+    public void partialRecordHeaderIsTruncated() throws IOException {
+        records.write("a", payload("a", "first"));
+        records.close();
+
+        long length = file.length();
+        append(new byte[] {0, 0});
+
+        records = new RecordFile(file, VERSION);
+
+        assertEquals(Collections.singletonList("a"), records.ids());
+        assertEquals(length, file.length());
+    }
+
+    @Test
+    public void otherVersionStartsOver() throws IOException {
+        records.write("a", payload("a", "first"));
+        records.close();
+
+        records = new RecordFile(file, VERSION + 1);
+
+        assertEquals(0, records.size());
+    }
+
+    @Test
+    public void compactionDropsDeadRecords() throws IOException {
+        records.write("a", payload("a", "first"));
+        records.write("b", payload("b", "second"));
+        records.write("a", payload("a", "updated"));
+        records.remove("b", payload("b"));
+
+        long live = records.liveBytes();
+        records.compact();
+
+        assertEquals(0, records.deadBytes());
+        assertEquals(live, records.liveBytes());
+        assertEquals(8 + live, file.length());
+        assertEquals(ByteBuffer.wrap(payload("a", "updated")), records.read("a"));
+    }
+
+    private void reopen() throws IOException {
+        records.close();
+        records = new RecordFile(file, VERSION);
+    }
+
+    private void append(byte[] bytes) throws IOException {
+        FileOutputStream out = new FileOutputStream(file, true);
+
+        try {
+            out.write(bytes);
+        } finally {
+            out.close();
+        }
+    }
+
+    private static byte[] payload(String... values) {
+        RecordWriter writer = new RecordWriter();
+
+        for (String value : values) {
+            writer.writeString(value);
+        }
+
+        return writer.toByteArray();
+    }
+}
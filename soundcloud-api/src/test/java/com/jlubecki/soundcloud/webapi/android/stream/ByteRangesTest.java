@@ -0,0 +1,85 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.stream;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ByteRangesTest {
+
+    @Test
+    public void missingHeaderSelectsWholeResource() {
+        assertArrayEquals(new long[] {0, 999}, ByteRanges.parse(null, 1000));
+        assertNull(ByteRanges.parse(null, 0));
+    }
+
+    @Test
+    public void closedRange() {
+        assertArrayEquals(new long[] {100, 199}, ByteRanges.parse("bytes=100-199", 1000));
+        assertArrayEquals(new long[] {100, 199}, ByteRanges.parse("bytes= 100 - 199 ", 1000));
+    }
+
+    @Test
+    public void openRangeEndsAtLastByte() {
+        assertArrayEquals(new long[] {500, 999}, ByteRanges.parse("bytes=500-", 1000));
+    }
+
+    @Test
+    public void endPastResourceIsClamped() {
+        assertArrayEquals(new long[] {900, 999}, ByteRanges.parse("bytes=900-5000", 1000));
+    }
+
+    @Test
+    public void suffixRange() {
+        assertArrayEquals(new long[] {500, 999}, ByteRanges.parse("bytes=-500", 1000));
+        assertArrayEquals(new long[] {0, 999}, ByteRanges.parse("bytes=-5000", 1000));
+        assertNull(ByteRanges.parse("bytes=-0", 1000));
+        assertNull(ByteRanges.parse("bytes=-500", 0));
+    }
+
+    @Test
+    public void unsatisfiableRanges() {
+        assertNull(ByteRanges.parse("bytes=1000-", 1000));
+        assertNull(ByteRanges.parse("bytes=200-100", 1000));
+        assertNull(ByteRanges.parse("bytes=a-b", 1000));
+    }
+
+    @Test
+    public void multipleRangesSelectWholeResource() {
+        assertFalse(ByteRanges.isSingleRange("bytes=0-10,20-30"));
+        assertArrayEquals(new long[] {0, 999}, ByteRanges.parse("bytes=0-10,20-30", 1000));
+    }
+
+    @Test
+    public void otherUnitsSelectWholeResource() {
+        assertTrue(ByteRanges.isSingleRange("bytes=0-10"));
+        assertFalse(ByteRanges.isSingleRange("items=0-10"));
+        assertArrayEquals(new long[] {0, 999}, ByteRanges.parse("items=0-10", 1000));
+    }
+}
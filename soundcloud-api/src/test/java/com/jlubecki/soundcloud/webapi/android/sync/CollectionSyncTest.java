@@ -0,0 +1,214 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.sync;
+
+import com.google.gson.GsonBuilder;
+import com.jlubecki.soundcloud.webapi.android.SoundCloudService;
+import com.jlubecki.soundcloud.webapi.android.json.ModelTypeAdapterFactory;
+import com.jlubecki.soundcloud.webapi.android.models.Track;
+import com.jlubecki.soundcloud.webapi.android.store.OfflineStore;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CollectionSyncTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final MockWebServer server = new MockWebServer();
+
+    private OfflineStore store;
+    private CollectionSync<Track> favorites;
+
+    @Before
+    public void setUp() throws IOException {
+        server.start();
+
+        SoundCloudService service = new Retrofit.Builder()
+                .baseUrl(server.url("/"))
+                .addConverterFactory(GsonConverterFactory.create(new GsonBuilder()
+                        .registerTypeAdapterFactory(new ModelTypeAdapterFactory())
+                        .create()))
+                .build()
+                .create(SoundCloudService.class);
+
+        store = OfflineStore.open(folder.newFolder());
+        favorites = CollectionSync.favorites(service, store).build();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        store.close();
+        server.shutdown();
+    }
+
+    @Test
+    public void incrementalSyncStopsAtTheFirstKnownItem() throws Exception {
+        server.enqueue(page(null, "2", "1"));
+        favorites.fullScan();
+        server.takeRequest();
+
+        server.enqueue(page("/me/favorites?page=2", "4", "3", "2", "1"));
+        server.enqueue(page(null, "0"));
+
+        SyncResult<Track> result = favorites.incrementalSync();
+
+        assertEquals(Arrays.asList("4", "3"), ids(result.getAdded()));
+        assertTrue(result.getUpdated().isEmpty());
+        assertFalse(result.isFullScan());
+        assertEquals(3, result.getItemsFetched());
+        assertEquals(Arrays.asList("4", "3", "2", "1"), ids(favorites.getItems()));
+
+        HttpUrl url = server.url(server.takeRequest().getPath());
+        assertEquals(String.valueOf(CollectionSync.INCREMENTAL_PAGE_SIZE_DEFAULT),
+                url.queryParameter("limit"));
+        assertEquals("The next page isn't requested", 2, server.getRequestCount());
+    }
+
+    @Test
+    public void incrementalSyncReportsChangedKnownItems() throws Exception {
+        server.enqueue(page(null, "1"));
+        favorites.fullScan();
+
+        server.enqueue(new MockResponse().setBody(
+                "{\"collection\":[{\"id\":\"1\",\"title\":\"Renamed\"}]}"));
+
+        SyncResult<Track> result = favorites.incrementalSync();
+
+        assertTrue(result.getAdded().isEmpty());
+        assertEquals("Renamed", result.getUpdated().get(0).title);
+        assertEquals("Renamed", favorites.getItems().get(0).title);
+    }
+
+    @Test
+    public void fullScanFindsRemovals() throws Exception {
+        server.enqueue(page(null, "3", "2", "1"));
+        favorites.fullScan();
+        server.takeRequest();
+
+        server.enqueue(page("/me/favorites?page=2", "4", "3"));
+        server.enqueue(page(null, "1"));
+
+        SyncResult<Track> result = favorites.fullScan();
+
+        assertTrue(result.isFullScan());
+        assertEquals(Collections.singletonList("4"), ids(result.getAdded()));
+        assertEquals(Collections.singletonList("2"), result.getRemovedIds());
+        assertEquals(Arrays.asList("4", "3", "1"), ids(favorites.getItems()));
+
+        HttpUrl url = server.url(server.takeRequest().getPath());
+        assertEquals("200", url.queryParameter("limit"));
+        assertEquals("1", url.queryParameter("linked_partitioning"));
+        assertEquals("/me/favorites", server.takeRequest().getPath().split("\\?")[0]);
+    }
+
+    @Test
+    public void syncRunsAFullScanOnlyWhenDue() throws Exception {
+        server.enqueue(page(null, "2", "1"));
+        server.enqueue(page(null, "3", "2"));
+
+        assertTrue(favorites.sync().isFullScan());
+        assertTrue(favorites.lastFullScanMillis() > 0);
+
+        SyncResult<Track> second = favorites.sync();
+
+        assertFalse(second.isFullScan());
+        assertEquals(Collections.singletonList("3"), ids(second.getAdded()));
+    }
+
+    @Test
+    public void listenersOnlyHearAboutChanges() throws Exception {
+        final List<SyncResult<Track>> results = new ArrayList<>();
+        favorites.addListener(new SyncListener<Track>() {
+            @Override
+            public void onSync(SyncResult<Track> result) {
+                results.add(result);
+            }
+        });
+
+        server.enqueue(page(null, "1"));
+        server.enqueue(page(null, "1"));
+
+        favorites.fullScan();
+        favorites.incrementalSync();
+
+        assertEquals(1, results.size());
+        assertEquals(Collections.singletonList("1"), ids(results.get(0).getAdded()));
+    }
+
+    /**
+     * @param next Path of the next page, or null for the last page.
+     */
+    private MockResponse page(String next, String... ids) {
+        StringBuilder body = new StringBuilder("{\"collection\":[");
+
+        for (int i = 0; i < ids.length; i++) {
+            if (i > 0) {
+                body.append(',');
+            }
+
+            body.append("{\"id\":\"").append(ids[i]).append("\",\"title\":\"Track ")
+                    .append(ids[i]).append("\"}");
+        }
+
+        body.append(']');
+
+        if (next != null) {
+            body.append(",\"next_href\":\"").append(server.url(next)).append('"');
+        }
+
+        return new MockResponse().setBody(body.append('}').toString());
+    }
+
+    private static List<String> ids(List<Track> tracks) {
+        List<String> ids = new ArrayList<>();
+
+        for (Track track : tracks) {
+            ids.add(track.id);
+        }
+
+        return ids;
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Jacob Lubecki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.jlubecki.soundcloud.webapi.android.waveform;
+
+import org.junit.Test;
+
+import java.io.IOException;
+
+import okio.Buffer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class WaveformDecoderTest {
+
+    @Test
+    public void widthBeforeSamples() throws IOException {
+        Waveform waveform = decode("{\"width\":4,\"height\":140,\"samples\":[1,2,3,4]}");
+
+        assertEquals(140, waveform.getHeight());
+        assertArrayEquals(new short[] {1, 2, 3, 4}, waveform.getSamples());
+    }
+
+    @Test
+    public void widthAfterSamplesKeepsSamples() throws IOException {
+        Waveform waveform = decode("{\"samples\":[1,2,3,4],\"width\":4,\"height\":140}");
+
+        assertArrayEquals(new short[] {1, 2, 3, 4}, waveform.getSamples());
+    }
+
+    @Test
+    public void widthLargerThanSamplesIsTrimmed() throws IOException {
+        Waveform waveform = decode("{\"samples\":[1,2],\"width\":1800,\"height\":140}");
+
+        assertArrayEquals(new short[] {1, 2}, waveform.getSamples());
+    }
+
+    private static Waveform decode(String json) throws IOException {
+        return WaveformDecoder.decodeJson(new Buffer().writeUtf8(json));
+    }
+}